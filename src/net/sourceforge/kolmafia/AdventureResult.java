@@ -16,6 +16,8 @@ import net.sourceforge.kolmafia.request.PurchaseRequest;
 import net.sourceforge.kolmafia.request.UneffectRequest;
 import net.sourceforge.kolmafia.session.GoalManager;
 import net.sourceforge.kolmafia.session.InventoryManager;
+import net.sourceforge.kolmafia.utilities.IndexedItemList;
+import net.sourceforge.kolmafia.utilities.ItemIndex;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
@@ -894,6 +896,17 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
     return nameComparison != 0 ? nameComparison : this.id - o.id;
   }
 
+  // An indexed list can tell at once that it has no entry for an item, which
+  // saves searching for the position of something that isn't there.
+  private static int indexOf(final List<AdventureResult> list, final AdventureResult result) {
+    if (list instanceof IndexedItemList
+        && ItemIndex.isIndexed(result)
+        && ((IndexedItemList) list).find(result) == null) {
+      return -1;
+    }
+    return list.indexOf(result);
+  }
+
   /**
    * Utility method used for adding a given <code>AdventureResult</code> to a tally of <code>
    * AdventureResult</code>s.
@@ -903,7 +916,7 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
    */
   public static final void addResultToList(
       final List<AdventureResult> sourceList, final AdventureResult result) {
-    int index = sourceList.indexOf(result);
+    int index = AdventureResult.indexOf(sourceList, result);
 
     // First, filter out things where it's a simple addition of an
     // item, or something which may not result in a change in the
@@ -987,7 +1000,7 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
 
   public static final void addOrRemoveResultToList(
       final List<AdventureResult> sourceList, final AdventureResult result) {
-    int index = sourceList.indexOf(result);
+    int index = AdventureResult.indexOf(sourceList, result);
 
     if (index == -1) {
       sourceList.add(result);
@@ -1007,7 +1020,7 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
 
   public static final void removeResultFromList(
       final List<AdventureResult> sourceList, final AdventureResult result) {
-    int index = sourceList.indexOf(result);
+    int index = AdventureResult.indexOf(sourceList, result);
     if (index != -1) {
       sourceList.remove(index);
     }
@@ -1080,6 +1093,11 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
    * intent more transparent.
    */
   public int getCount(final List<AdventureResult> list) {
+    if (list instanceof IndexedItemList) {
+      AdventureResult item = ((IndexedItemList) list).find(this);
+      return item == null ? 0 : item.getCount();
+    }
+
     int index = list.indexOf(this);
     if (index == -1) return 0;
     AdventureResult item = list.get(index);
@@ -1088,6 +1106,10 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
   }
 
   public static AdventureResult findItem(final int itemId, final List<AdventureResult> list) {
+    if (list instanceof IndexedItemList) {
+      return ((IndexedItemList) list).find(itemId);
+    }
+
     for (AdventureResult item : list) {
       if (item.getItemId() == itemId) {
         return item;
@@ -1,9 +1,12 @@
 package net.sourceforge.kolmafia;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import net.sourceforge.kolmafia.KoLConstants.Stat;
@@ -28,6 +31,7 @@ import net.sourceforge.kolmafia.session.EncounterManager;
 import net.sourceforge.kolmafia.session.EncounterManager.EncounterType;
 import net.sourceforge.kolmafia.session.EquipmentManager;
 import net.sourceforge.kolmafia.session.TurnCounter;
+import net.sourceforge.kolmafia.utilities.ChangeCountedList;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class AreaCombatData {
@@ -53,6 +57,9 @@ public class AreaCombatData {
 
   private final String zone;
 
+  // The encounter weightings and chances as of the state they were worked out from
+  private Snapshot snapshot = null;
+
   // Flags in low-order bits of weightings
   private static final int ASCENSION_ODD = 0x01;
   private static final int ASCENSION_EVEN = 0x02;
@@ -62,6 +69,66 @@ public class AreaCombatData {
   private static final AdventureResult EW_THE_HUMANITY = EffectPool.get(EffectPool.EW_THE_HUMANITY);
   private static final AdventureResult A_BEASTLY_ODOR = EffectPool.get(EffectPool.A_BEASTLY_ODOR);
 
+  // What the encounter weightings and chances depend on. Anything else they read, including
+  // banishes and turn counters, is kept in a preference whenever it changes.
+  private static class Snapshot {
+    final long preferences;
+    final long effects;
+    final long turnsSpent;
+    final long queue;
+    final int currentRun;
+    final int ascensions;
+    final AscensionClass ascensionClass;
+    final int gender;
+    final boolean restricted;
+    final int familiar;
+    final int familiarItem;
+    final double combatRate;
+    final double initiative;
+    final double monsterLevel;
+
+    // The chances of the superlikely monsters, in order
+    double[] superlikelyChances;
+    // The appearance rates including the queue, once asked for
+    Map<MonsterData, Double> monsterData = null;
+
+    // The state as it is now
+    Snapshot() {
+      this.preferences = Preferences.getChangeCount();
+      this.effects = ((ChangeCountedList) KoLConstants.activeEffects).getChangeCount();
+      this.turnsSpent = AdventureSpentDatabase.getChangeCount();
+      this.queue = AdventureQueueDatabase.getChangeCount();
+      this.currentRun = KoLCharacter.getCurrentRun();
+      this.ascensions = KoLCharacter.getAscensions();
+      this.ascensionClass = KoLCharacter.getAscensionClass();
+      this.gender = KoLCharacter.getGender();
+      this.restricted = KoLCharacter.getRestricted();
+      this.familiar = KoLCharacter.getFamiliar().getId();
+      this.familiarItem = EquipmentManager.getEquipment(EquipmentManager.FAMILIAR).getItemId();
+      this.combatRate = KoLCharacter.getCombatRateAdjustment();
+      this.initiative = KoLCharacter.getInitiativeAdjustment();
+      this.monsterLevel = KoLCharacter.currentNumericModifier(Modifiers.MONSTER_LEVEL);
+    }
+
+    boolean isCurrent() {
+      return this.preferences == Preferences.getChangeCount()
+          && this.effects == ((ChangeCountedList) KoLConstants.activeEffects).getChangeCount()
+          && this.turnsSpent == AdventureSpentDatabase.getChangeCount()
+          && this.queue == AdventureQueueDatabase.getChangeCount()
+          && this.currentRun == KoLCharacter.getCurrentRun()
+          && this.ascensions == KoLCharacter.getAscensions()
+          && this.ascensionClass == KoLCharacter.getAscensionClass()
+          && this.gender == KoLCharacter.getGender()
+          && this.restricted == KoLCharacter.getRestricted()
+          && this.familiar == KoLCharacter.getFamiliar().getId()
+          && this.familiarItem
+              == EquipmentManager.getEquipment(EquipmentManager.FAMILIAR).getItemId()
+          && this.combatRate == KoLCharacter.getCombatRateAdjustment()
+          && this.initiative == KoLCharacter.getInitiativeAdjustment()
+          && this.monsterLevel == KoLCharacter.currentNumericModifier(Modifiers.MONSTER_LEVEL);
+    }
+  }
+
   public AreaCombatData(String zone, final int combats) {
     this.zone = zone;
     this.monsters = new ArrayList<>();
@@ -79,13 +146,42 @@ public class AreaCombatData {
     this.jumpChance = Integer.MAX_VALUE;
   }
 
-  public void recalculate() {
+  public synchronized void recalculate() {
+    Snapshot snapshot = this.getSnapshot();
+
+    // Monster stats depend on much more of the character, and are quickly found again
     this.minHit = Integer.MAX_VALUE;
     this.maxHit = 0;
     this.minEvade = Integer.MAX_VALUE;
     this.maxEvade = 0;
     this.jumpChance = 100;
 
+    for (MonsterData monster : this.monsters) {
+      // Omit currently 0% chance, banished, impossible and ultra-rare monsters
+      if (this.getWeighting(monster) >= 0) {
+        this.addMonsterStats(monster);
+      }
+    }
+
+    // Take into account superlikely monsters if they have a non zero chance to appear
+    for (int i = 0; i < this.superlikelyMonsters.size(); ++i) {
+      if (snapshot.superlikelyChances[i] > 0) {
+        this.addMonsterStats(this.superlikelyMonsters.get(i));
+      }
+    }
+  }
+
+  // Works out the encounter weightings and superlikely chances again, unless nothing they depend
+  // on has changed since they last were
+  private synchronized Snapshot getSnapshot() {
+    if (this.snapshot != null && this.snapshot.isCurrent()) {
+      return this.snapshot;
+    }
+
+    // Expire banishes first, so that doing so does not leave the snapshot out of date
+    BanishManager.recalculate();
+
+    Snapshot snapshot = new Snapshot();
     double weights = 0.0;
     Map<MonsterData, Integer> currentWeightings = new HashMap<>();
 
@@ -184,17 +280,18 @@ public class AreaCombatData {
       }
 
       weights += currentWeighting * (1 - (double) this.getRejection(monster) / 100);
-      this.addMonsterStats(monster);
     }
     this.weights = weights;
     this.currentWeightings.putAll(currentWeightings);
 
-    // Take into account superlikely monsters if they have a non zero chance to appear
-    for (MonsterData monster : superlikelyMonsters) {
-      if (AreaCombatData.superlikelyChance(monster) > 0) {
-        this.addMonsterStats(monster);
-      }
+    snapshot.superlikelyChances = new double[this.superlikelyMonsters.size()];
+    for (int i = 0; i < snapshot.superlikelyChances.length; ++i) {
+      snapshot.superlikelyChances[i] =
+          AreaCombatData.superlikelyChance(this.superlikelyMonsters.get(i));
     }
+
+    this.snapshot = snapshot;
+    return snapshot;
   }
 
   private void addMonsterStats(MonsterData monster) {
@@ -618,17 +715,37 @@ public class AreaCombatData {
     return getMonsterData(false);
   }
 
-  public Map<MonsterData, Double> getMonsterData(boolean stateful) {
-    Map<MonsterData, Double> monsterData = new HashMap<>();
+  /**
+   * Returns the chance of meeting each monster in the area, as a percentage, or a negative number
+   * for those which have special meaning.
+   *
+   * @param stateful whether to take the character's state, and the queue, into account. Those
+   *     chances are worked out again only when something they depend on has changed, and cannot
+   *     be changed.
+   */
+  public synchronized Map<MonsterData, Double> getMonsterData(boolean stateful) {
+    if (!stateful) {
+      return this.computeMonsterData(false, null);
+    }
 
-    if (stateful) {
-      recalculate();
+    Snapshot snapshot = this.getSnapshot();
+    if (snapshot.monsterData == null) {
+      snapshot.monsterData =
+          Collections.unmodifiableMap(this.computeMonsterData(true, snapshot.superlikelyChances));
     }
+    return snapshot.monsterData;
+  }
+
+  private Map<MonsterData, Double> computeMonsterData(
+      final boolean stateful, final double[] superlikelyChances) {
+    Map<MonsterData, Double> monsterData = new HashMap<>();
 
     double totalSuperlikelyChance = 0.0;
 
-    for (MonsterData monster : superlikelyMonsters) {
-      double chance = superlikelyChance(monster);
+    for (int i = 0; i < this.superlikelyMonsters.size(); ++i) {
+      MonsterData monster = this.superlikelyMonsters.get(i);
+      double chance =
+          superlikelyChances != null ? superlikelyChances[i] : superlikelyChance(monster);
       monsterData.put(monster, chance);
       totalSuperlikelyChance += chance;
     }
@@ -667,6 +784,24 @@ public class AreaCombatData {
     return monsterData;
   }
 
+  /**
+   * Returns the chance of meeting each monster in each of many areas, as getMonsterData does,
+   * working out the chances of the areas in parallel.
+   */
+  public static Map<AreaCombatData, Map<MonsterData, Double>> getMonsterData(
+      final Collection<AreaCombatData> areas, final boolean stateful) {
+    if (stateful) {
+      // Expire banishes now, so that the areas only look at them
+      BanishManager.recalculate();
+    }
+
+    Map<AreaCombatData, Map<MonsterData, Double>> monsterData = new ConcurrentHashMap<>();
+    areas.parallelStream()
+        .distinct()
+        .forEach(area -> monsterData.put(area, area.getMonsterData(stateful)));
+    return monsterData;
+  }
+
   public void appendMonsterData(final StringBuffer buffer, final boolean fullString) {
     int moxie = KoLCharacter.getAdjustedMoxie();
     int hitstat = EquipmentManager.getAdjustedHitStat();
@@ -16,6 +16,7 @@ import net.sourceforge.kolmafia.persistence.SkillDatabase;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.BasementRequest;
 import net.sourceforge.kolmafia.request.FightRequest;
+import net.sourceforge.kolmafia.utilities.ChangeCountedList;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class Expression {
@@ -26,9 +27,98 @@ public class Expression {
   protected String text;
 
   private char[] bytecode; // Compiled expression
-  private ArrayList<Object> literals; // Strings & floats needed by expression
+  private ArrayList<Object> literals; // Strings, floats & what names were bound to
   protected AdventureResult effect;
 
+  // What an expression reads. The last result of an expression which reads
+  // only what can be tracked is reused until one of those inputs changes.
+  private static final int LOCATION = 1;
+  private static final int FAMILIAR = 2;
+  private static final int MAINHAND = 4;
+  private static final int EFFECTS = 8;
+  private static final int PREFERENCES = 16;
+  private static final int DAY = 32;
+  private static final int UNTRACKED = 64;
+
+  // Rollover, like most time zones, comes on the hour or half hour
+  private static final long HALF_HOUR = 30 * 60 * 1000L;
+
+  private int inputs = 0;
+  private volatile Result result = null;
+
+  private static class Result {
+    final double value;
+    final String location;
+    final String zone;
+    final String environment;
+    final String familiar;
+    final double weight;
+    final String mainhand;
+    final long effects;
+    final long preferences;
+    final long day;
+
+    Result(final double value, final Result inputs) {
+      this.value = value;
+      this.location = inputs.location;
+      this.zone = inputs.zone;
+      this.environment = inputs.environment;
+      this.familiar = inputs.familiar;
+      this.weight = inputs.weight;
+      this.mainhand = inputs.mainhand;
+      this.effects = inputs.effects;
+      this.preferences = inputs.preferences;
+      this.day = inputs.day;
+    }
+
+    // The inputs as they are now
+    Result(final int inputs) {
+      this.value = 0.0;
+      this.location = Modifiers.currentLocation;
+      this.zone = Modifiers.currentZone;
+      this.environment = Modifiers.currentEnvironment;
+      this.familiar = Modifiers.currentFamiliar;
+      this.weight = Modifiers.currentWeight;
+      this.mainhand = Modifiers.mainhandClass;
+      this.effects = (inputs & EFFECTS) != 0 ? Expression.effectsChangeCount() : 0;
+      this.preferences = (inputs & PREFERENCES) != 0 ? Preferences.getChangeCount() : 0;
+      this.day = (inputs & DAY) != 0 ? Expression.currentHalfHour() : 0;
+    }
+
+    // Strings are compared by identity: a location set again is simply re-evaluated
+    boolean isCurrent(final int inputs) {
+      if ((inputs & LOCATION) != 0
+          && (this.location != Modifiers.currentLocation
+              || this.zone != Modifiers.currentZone
+              || this.environment != Modifiers.currentEnvironment)) {
+        return false;
+      }
+      if ((inputs & FAMILIAR) != 0
+          && (this.familiar != Modifiers.currentFamiliar
+              || this.weight != Modifiers.currentWeight)) {
+        return false;
+      }
+      if ((inputs & MAINHAND) != 0 && this.mainhand != Modifiers.mainhandClass) {
+        return false;
+      }
+      if ((inputs & EFFECTS) != 0 && this.effects != Expression.effectsChangeCount()) {
+        return false;
+      }
+      if ((inputs & PREFERENCES) != 0 && this.preferences != Preferences.getChangeCount()) {
+        return false;
+      }
+      return (inputs & DAY) == 0 || this.day == Expression.currentHalfHour();
+    }
+  }
+
+  private static long effectsChangeCount() {
+    return ((ChangeCountedList) KoLConstants.activeEffects).getChangeCount();
+  }
+
+  private static long currentHalfHour() {
+    return HolidayDatabase.getDate().getTime() / HALF_HOUR;
+  }
+
   // If non-null, contains concatenated error strings from compiling bytecode
   private StringBuilder error = null;
 
@@ -85,6 +175,9 @@ public class Expression {
     //	compiled = compiled.replaceAll( ".", "?$0" );
     // }
     this.bytecode = compiled.toCharArray();
+    for (char inst : this.bytecode) {
+      this.inputs |= Expression.inputsOf(inst);
+    }
     if (this.text.length() > 0) {
       StringBuilder buf = this.newError();
       buf.append("Expected end, found ");
@@ -104,9 +197,77 @@ public class Expression {
 
   protected void initialize() {}
 
+  private static int inputsOf(final char inst) {
+    switch (inst) {
+      case 'r':
+      case '+':
+      case '-':
+      case '*':
+      case '/':
+      case '%':
+      case '^':
+      case 'a':
+      case 'c':
+      case 'f':
+      case 'm':
+      case 's':
+      case 'x':
+      case '#':
+      case '\u0096':
+        return 0;
+      case 'l':
+      case 'z':
+      case 'j':
+        return LOCATION;
+      case 'w':
+      case 'i':
+      case 'W':
+        return FAMILIAR;
+      case 'h':
+        return MAINHAND;
+      case 'e':
+      case 'E':
+      case 'T':
+        return EFFECTS;
+      case 'p':
+        return PREFERENCES;
+      case 'v':
+      case 'J':
+        return DAY;
+      default:
+        // Numbers and literals are constants; every other operation reads
+        // something which isn't tracked
+        return inst > '\u00FF' ? 0 : UNTRACKED;
+    }
+  }
+
+  /** Returns whether the result of this expression is reused until what it reads changes. */
+  public boolean isCached() {
+    return (this.inputs & UNTRACKED) == 0;
+  }
+
   public double eval() {
+    if (!this.isCached()) {
+      return this.evaluate(null);
+    }
+
+    Result result = this.result;
+    if (result != null && result.isCurrent(this.inputs)) {
+      return result.value;
+    }
+
+    // Note the inputs before evaluating, so that a change made meanwhile
+    // leaves the result out of date rather than wrong
+    return this.evaluate(new Result(this.inputs));
+  }
+
+  private double evaluate(final Result inputs) {
     try {
-      return this.evalInternal();
+      double value = this.evalInternal();
+      if (inputs != null) {
+        this.result = new Result(value, inputs);
+      }
+      return value;
     } catch (ArrayIndexOutOfBoundsException e) {
       KoLmafia.updateDisplay("Unreasonably complex expression for " + this.name + ": " + e);
     } catch (RuntimeException e) {
@@ -213,16 +374,10 @@ public class Expression {
           v = Math.min(s[--sp], s[--sp]);
           break;
         case 'p':
-          String first = (String) this.literals.get((int) s[--sp]);
-          String second = null;
-          int commaIndex = first.indexOf(",");
-          if (commaIndex > -1) {
-            second = first.substring(commaIndex + 1);
-            first = first.substring(0, commaIndex);
-          }
-          String prefString = Preferences.getString(first);
-          if (second != null) {
-            v = prefString.contains(second) ? 1 : 0;
+          String[] pref = (String[]) this.literals.get((int) s[--sp]);
+          String prefString = Preferences.getString(pref[0]);
+          if (pref[1] != null) {
+            v = prefString.contains(pref[1]) ? 1 : 0;
           } else {
             v =
                 prefString.contains("true")
@@ -259,19 +414,19 @@ public class Expression {
           v = KoLCharacter.hasSkill(skillName) ? 1 : 0;
           break;
         case 'e':
-          String effectName = (String) this.literals.get((int) s[--sp]);
-          // If effect name is a number, convert to name
-          int effectId =
-              (StringUtilities.isNumeric(effectName))
-                  ? StringUtilities.parseInt(effectName)
-                  : EffectDatabase.getEffectId(effectName);
-          AdventureResult eff = EffectPool.get(effectId);
+          Object effectLiteral = this.literals.get((int) s[--sp]);
+          AdventureResult eff =
+              effectLiteral instanceof AdventureResult
+                  ? (AdventureResult) effectLiteral
+                  : EffectPool.get(this.bindEffectId((String) effectLiteral));
           v = Math.max(0, eff.getCount(KoLConstants.activeEffects));
           break;
         case 'g':
-          String itemName = (String) this.literals.get((int) s[--sp]);
-          int itemId = ItemDatabase.getItemId(itemName);
-          AdventureResult item = ItemPool.get(itemId);
+          Object itemLiteral = this.literals.get((int) s[--sp]);
+          AdventureResult item =
+              itemLiteral instanceof AdventureResult
+                  ? (AdventureResult) itemLiteral
+                  : ItemPool.get(ItemDatabase.getItemId((String) itemLiteral));
           v = KoLCharacter.hasEquipped(item) ? 1 : 0;
           break;
         case 'h':
@@ -670,7 +825,14 @@ public class Expression {
       return rv + "a";
     }
     if (this.optional("pref(")) {
-      return this.literal(this.until(")"), 'p');
+      // Split "name,value" now rather than on every evaluation
+      String pref = this.until(")");
+      int commaIndex = pref.indexOf(",");
+      String[] bound =
+          commaIndex == -1
+              ? new String[] {pref, null}
+              : new String[] {pref.substring(0, commaIndex), pref.substring(commaIndex + 1)};
+      return this.literal(bound, 'p');
     }
 
     rv = this.function();
@@ -719,4 +881,39 @@ public class Expression {
   protected String function() {
     return null;
   }
+
+  // Names are looked up once, when the expression is compiled. A name which
+  // isn't known yet is left as it is and looked up when it is evaluated.
+
+  protected Object bindItem(final String name) {
+    int itemId = ItemDatabase.getItemId(name);
+    return itemId == -1 ? name : ItemPool.get(itemId);
+  }
+
+  protected Object bindEffect(final String name) {
+    int effectId = this.bindEffectId(name);
+    return effectId == -1 ? name : EffectPool.get(effectId);
+  }
+
+  private int bindEffectId(final String name) {
+    return StringUtilities.isNumeric(name)
+        ? StringUtilities.parseInt(name)
+        : EffectDatabase.getEffectId(name);
+  }
+
+  protected String bindSkill(final String name) {
+    if (!StringUtilities.isNumeric(name)) {
+      return name;
+    }
+    String skillName = SkillDatabase.getSkillName(StringUtilities.parseInt(name));
+    return skillName == null ? name : skillName;
+  }
+
+  protected String bindFamiliar(final String name) {
+    if (!StringUtilities.isNumeric(name)) {
+      return name;
+    }
+    String familiarName = FamiliarDatabase.getFamiliarName(StringUtilities.parseInt(name));
+    return familiarName == null ? name : familiarName;
+  }
 }
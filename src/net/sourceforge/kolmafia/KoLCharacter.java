@@ -5333,6 +5333,25 @@ public abstract class KoLCharacter {
     }
 
     // These depend on the modifiers from everything else, so they must be done last
+    KoLCharacter.applyLateMultipliers(newModifiers, equipment, effects, speculation);
+
+    // Determine whether or not data has changed
+
+    if (debug) {
+      DebugModifiers.finish();
+    }
+
+    return newModifiers;
+  }
+
+  // These double what everything else contributed to a modifier.  Since
+  // they only add in proportion to the totals, applying them to part of
+  // the modifiers gives exactly that part's share of the result.
+  public static void applyLateMultipliers(
+      Modifiers newModifiers,
+      AdventureResult[] equipment,
+      List<AdventureResult> effects,
+      boolean speculation) {
     if (effects.contains(EffectPool.get(EffectPool.BENDIN_HELL))) {
       newModifiers.add(
           Modifiers.HOT_DAMAGE,
@@ -5419,14 +5438,26 @@ public abstract class KoLCharacter {
           newModifiers.getExtra(Modifiers.ITEMDROP),
           "Item:[" + ItemPool.BROKEN_CHAMPAGNE + "]");
     }
+  }
 
-    // Determine whether or not data has changed
-
-    if (debug) {
-      DebugModifiers.finish();
-    }
-
-    return newModifiers;
+  // Adds one piece of equipment exactly as recalculateAdjustments would,
+  // for items which do not depend on any other part of the outfit.
+  public static void addItemAdjustment(
+      Modifiers newModifiers, int slot, AdventureResult item, AdventureResult[] equipment) {
+    int taoFactor = KoLCharacter.hasSkill("Tao of the Terrapin") ? 2 : 1;
+    KoLCharacter.addItemAdjustment(
+        newModifiers,
+        slot,
+        item,
+        equipment,
+        FamiliarData.NO_FAMILIAR,
+        FamiliarData.NO_FAMILIAR,
+        "",
+        "",
+        "",
+        "",
+        true,
+        taoFactor);
   }
 
   private static void addItemAdjustment(
@@ -554,9 +554,9 @@ public interface KoLConstants extends UtilityConstants {
 
   List<String> saveStateNames = LockableListFactory.getSortedInstance(String.class);
 
-  List<AdventureResult> inventory = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> closet = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> storage = LockableListFactory.getSortedInstance(AdventureResult.class);
+  List<AdventureResult> inventory = LockableListFactory.getItemInstance();
+  List<AdventureResult> closet = LockableListFactory.getItemInstance();
+  List<AdventureResult> storage = LockableListFactory.getItemInstance();
   List<AdventureResult> unlimited = LockableListFactory.getSortedInstance(AdventureResult.class);
   List<AdventureResult> freepulls = LockableListFactory.getSortedInstance(AdventureResult.class);
   List<AdventureResult> nopulls = LockableListFactory.getSortedInstance(AdventureResult.class);
@@ -584,7 +584,8 @@ public interface KoLConstants extends UtilityConstants {
   List<UseSkillRequest> permedSkills = LockableListFactory.getInstance(UseSkillRequest.class);
   List<UseSkillRequest> combatSkills = LockableListFactory.getInstance(UseSkillRequest.class);
 
-  List<AdventureResult> activeEffects = LockableListFactory.getInstance(AdventureResult.class);
+  List<AdventureResult> activeEffects =
+      LockableListFactory.getCountedInstance(AdventureResult.class);
   ArrayList<AdventureResult> recentEffects = new ArrayList<>();
 
   List<AdventureResult> hermitItems = LockableListFactory.getInstance(AdventureResult.class);
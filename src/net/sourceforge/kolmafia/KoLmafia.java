@@ -697,6 +697,11 @@ public abstract class KoLmafia {
     TCRSDatabase.resetModifiers();
     TCRSDatabase.loadTCRSData();
 
+    // Parse modifiers in the background, rather than as they are first needed
+    if (Preferences.getBoolean("prewarmModifiers")) {
+      RequestThread.runInParallel(Modifiers::prewarmModifiers, false);
+    }
+
     // Hermit items depend on character class
     HermitRequest.initialize();
 
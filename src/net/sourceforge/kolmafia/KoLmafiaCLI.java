@@ -18,6 +18,7 @@ import net.sourceforge.kolmafia.request.LoginRequest;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import net.sourceforge.kolmafia.textui.command.*;
 import net.sourceforge.kolmafia.utilities.CharacterEntities;
+import net.sourceforge.kolmafia.utilities.FileIndex;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.PrefixMap;
@@ -869,6 +870,17 @@ public class KoLmafiaCLI {
     RequestLogger.printLine(displayText.trim());
   }
 
+  // The places scripts are looked for, and whether their subdirectories are too
+  private static final FileIndex SCRIPT_FILES =
+      new FileIndex(
+          new File[] {
+            KoLConstants.ROOT_LOCATION,
+            KoLConstants.SCRIPT_LOCATION,
+            KoLConstants.PLOTS_LOCATION,
+            KoLConstants.RELAY_LOCATION
+          },
+          new boolean[] {false, true, false, true});
+
   // we return ALL matches, let callers decide whether to error if there is no unique match. (they
   // probably should)
   public static List<File> findScriptFile(final String filename) {
@@ -894,22 +906,30 @@ public class KoLmafiaCLI {
       return matches;
     }
 
-    return findScriptFile(filename, matches);
+    KoLmafiaCLI.findScriptFile(filename, matches, false);
+    if (matches.isEmpty()) {
+      // A script created moments ago might not be in the index yet
+      KoLmafiaCLI.findScriptFile(filename, matches, true);
+    }
+    return matches;
   }
 
-  private static List<File> findScriptFile(final String filename, List<File> matches) {
-    KoLmafiaCLI.findScriptFile(KoLConstants.ROOT_LOCATION, filename, matches, false);
-
-    if (KoLConstants.SCRIPT_LOCATION.exists()) {
-      KoLmafiaCLI.findScriptFile(KoLConstants.SCRIPT_LOCATION, filename, matches, true);
-    }
+  /** Returns a count which changes whenever a search for a script might find something new. */
+  public static long getScriptFileChanges() {
+    return KoLmafiaCLI.SCRIPT_FILES.getChanges();
+  }
 
-    if (KoLConstants.PLOTS_LOCATION.exists()) {
-      KoLmafiaCLI.findScriptFile(KoLConstants.PLOTS_LOCATION, filename, matches, false);
-    }
+  /** Makes the next search for a script look through the script directories afresh. */
+  public static void rescanScriptFiles() {
+    KoLmafiaCLI.SCRIPT_FILES.rescan();
+  }
 
-    if (KoLConstants.RELAY_LOCATION.exists()) {
-      KoLmafiaCLI.findScriptFile(KoLConstants.RELAY_LOCATION, filename, matches, true);
+  private static void findScriptFile(
+      final String filename, final List<File> matches, final boolean scan) {
+    if (scan) {
+      KoLmafiaCLI.SCRIPT_FILES.scan(filename, matches);
+    } else {
+      KoLmafiaCLI.SCRIPT_FILES.find(filename, matches);
     }
 
     // Only if we get here and there are no matches do we recursively try again, adding some
@@ -917,37 +937,10 @@ public class KoLmafiaCLI {
     // Stop recursion once an extension has been added (alternatively, don't even try if an
     // extension was specified in the first place)
     if (matches.size() == 0 && !filename.contains(".")) {
-      findScriptFile(filename + ".ash", matches);
-      findScriptFile(filename + ".js", matches);
-      findScriptFile(filename + ".cli", matches);
-      findScriptFile(filename + ".txt", matches);
-    }
-
-    return matches;
-  }
-
-  private static void findScriptFile(
-      final File directory,
-      final String filename,
-      final List<File> matches,
-      final boolean searchSubdirectories) {
-    // Bail if double dots
-    if (filename.contains("..")) {
-      return;
-    }
-
-    File scriptFile = new File(directory, filename);
-    if (scriptFile.exists()) {
-      if (!scriptFile.isDirectory()) matches.add(scriptFile);
-    }
-
-    if (searchSubdirectories) {
-      File[] contents = DataUtilities.listFiles(directory);
-      for (File content : contents) {
-        if (content.isDirectory()) {
-          KoLmafiaCLI.findScriptFile(content, filename, matches, true);
-        }
-      }
+      findScriptFile(filename + ".ash", matches, scan);
+      findScriptFile(filename + ".js", matches, scan);
+      findScriptFile(filename + ".cli", matches, scan);
+      findScriptFile(filename + ".txt", matches, scan);
     }
   }
 
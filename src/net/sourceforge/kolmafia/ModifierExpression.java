@@ -47,7 +47,7 @@ public class ModifierExpression extends Expression {
       return this.literal(this.until(")"), 'v');
     }
     if (this.optional("fam(")) {
-      return this.literal(this.until(")"), 'w');
+      return this.literal(this.bindFamiliar(this.until(")")), 'w');
     }
     if (this.optional("famattr(")) {
       return this.literal(this.until(")"), 'i');
@@ -56,10 +56,10 @@ public class ModifierExpression extends Expression {
       return this.literal(this.until(")"), 'h');
     }
     if (this.optional("equipped(")) {
-      return this.literal(this.until(")").toLowerCase(), 'g');
+      return this.literal(this.bindItem(this.until(")").toLowerCase()), 'g');
     }
     if (this.optional("effect(")) {
-      return this.literal(this.until(")"), 'e');
+      return this.literal(this.bindEffect(this.until(")")), 'e');
     }
     if (this.optional("res(")) {
       return this.literal(this.until(")"), 'b');
@@ -68,7 +68,7 @@ public class ModifierExpression extends Expression {
       return this.literal(this.until(")"), 'n');
     }
     if (this.optional("skill(")) {
-      return this.literal(this.until(")"), 'd');
+      return this.literal(this.bindSkill(this.until(")")), 'd');
     }
     if (this.optional("env(")) {
       return this.literal(this.until(")"), 'j');
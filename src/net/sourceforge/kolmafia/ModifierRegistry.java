@@ -0,0 +1,148 @@
+package net.sourceforge.kolmafia;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The modifiers of every object, each either the raw string from modifiers.txt or the {@link
+ * Modifiers} parsed from it on first use.
+ *
+ * <p>Entries are looked up by their "Type:Name" lookup string. Items and effects, whose lookup
+ * strings are "Item:[id]" and "Effect:[id]", are also kept in arrays indexed by id, so that they
+ * can be found without building a string.
+ *
+ * <p>Lookups don't lock. Changes are serialized, and a raw string is only replaced by what was
+ * parsed from it if nobody has changed the entry in the meantime.
+ */
+final class ModifierRegistry {
+  private final Map<String, Object> byName = new ConcurrentHashMap<>();
+  private final IdTable items = new IdTable("Item:[");
+  private final IdTable effects = new IdTable("Effect:[");
+
+  public Object get(final String lookup) {
+    return this.byName.get(lookup);
+  }
+
+  public Object getItem(final int itemId) {
+    return this.items.get(itemId);
+  }
+
+  public Object getEffect(final int effectId) {
+    return this.effects.get(effectId);
+  }
+
+  public boolean containsKey(final String lookup) {
+    return this.byName.containsKey(lookup);
+  }
+
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(this.byName.keySet());
+  }
+
+  public Set<Map.Entry<String, Object>> entrySet() {
+    return Collections.unmodifiableMap(this.byName).entrySet();
+  }
+
+  /** Returns the entries which have not been parsed yet. */
+  public Map<String, String> getUnparsed() {
+    Map<String, String> unparsed = new HashMap<>();
+    for (Map.Entry<String, Object> entry : this.byName.entrySet()) {
+      if (entry.getValue() instanceof String) {
+        unparsed.put(entry.getKey(), (String) entry.getValue());
+      }
+    }
+    return unparsed;
+  }
+
+  public synchronized void put(final String lookup, final Object value) {
+    this.byName.put(lookup, value);
+    this.items.set(lookup, value);
+    this.effects.set(lookup, value);
+  }
+
+  public synchronized void remove(final String lookup) {
+    this.byName.remove(lookup);
+    this.items.set(lookup, null);
+    this.effects.set(lookup, null);
+  }
+
+  /** Replaces an entry, but only if it is still what the caller last saw. */
+  public synchronized boolean replace(
+      final String lookup, final Object expected, final Object value) {
+    if (this.byName.get(lookup) != expected) {
+      return false;
+    }
+    this.put(lookup, value);
+    return true;
+  }
+
+  public synchronized void clear() {
+    this.byName.clear();
+    this.items.clear();
+    this.effects.clear();
+  }
+
+  private static class IdTable {
+    private final String prefix;
+    private volatile AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(0);
+
+    IdTable(final String prefix) {
+      this.prefix = prefix;
+    }
+
+    Object get(final int id) {
+      AtomicReferenceArray<Object> slots = this.slots;
+      return id >= 0 && id < slots.length() ? slots.get(id) : null;
+    }
+
+    // Only called while the registry is locked
+    void set(final String lookup, final Object value) {
+      int id = this.idFromLookup(lookup);
+      if (id < 0) {
+        return;
+      }
+
+      AtomicReferenceArray<Object> slots = this.slots;
+      if (id >= slots.length()) {
+        if (value == null) {
+          return;
+        }
+        AtomicReferenceArray<Object> grown =
+            new AtomicReferenceArray<>(Math.max(id + 1, slots.length() * 2));
+        for (int i = 0; i < slots.length(); ++i) {
+          grown.set(i, slots.get(i));
+        }
+        this.slots = slots = grown;
+      }
+      slots.set(id, value);
+    }
+
+    void clear() {
+      this.slots = new AtomicReferenceArray<>(0);
+    }
+
+    private int idFromLookup(final String lookup) {
+      int end = lookup.length() - 1;
+      if (!lookup.startsWith(this.prefix) || end <= this.prefix.length()) {
+        return -1;
+      }
+      if (lookup.charAt(end) != ']') {
+        return -1;
+      }
+
+      int id = 0;
+      for (int i = this.prefix.length(); i < end; ++i) {
+        char ch = lookup.charAt(i);
+        if (ch < '0' || ch > '9' || id > (Integer.MAX_VALUE - 9) / 10) {
+          return -1;
+        }
+        id = id * 10 + (ch - '0');
+      }
+      return id;
+    }
+  }
+}
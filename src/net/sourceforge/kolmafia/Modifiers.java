@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -50,7 +51,7 @@ import net.sourceforge.kolmafia.utilities.LogStream;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class Modifiers {
-  private static final Map<String, Object> modifiersByName = new HashMap<>();
+  private static final ModifierRegistry modifierRegistry = new ModifierRegistry();
   private static final Map<String, String> familiarEffectByName = new HashMap<>();
   private static final Map<String, Integer> modifierIndicesByName = new HashMap<>();
   private static final List<UseSkillRequest> passiveSkills = new ArrayList<>();
@@ -860,6 +861,9 @@ public class Modifiers {
 
   public static final int BITMAP_MODIFIERS = Modifiers.bitmapModifiers.length;
   private static final int[] bitmapMasks = new int[BITMAP_MODIFIERS];
+  // The bits already given to each source of a bitmap modifier, so that parsing the same modifiers
+  // again - as a parse which loses the race to publish does - takes no more. Guarded by bitmapMasks.
+  private static final Map<String, Integer> bitmapMasksBySource = new HashMap<>();
 
   static {
     Arrays.fill(bitmapMasks, 1);
@@ -1200,7 +1204,7 @@ public class Modifiers {
   }
 
   public static final Iterator<String> getAllModifiers() {
-    return Modifiers.modifiersByName.keySet().iterator();
+    return Modifiers.modifierRegistry.keySet().iterator();
   }
 
   public static final void overrideEffectModifiers(final int effectId) {
@@ -1215,10 +1219,11 @@ public class Modifiers {
 
   public static final void overrideModifier(String lookup, Object value) {
     if (value != null) {
-      Modifiers.modifiersByName.put(lookup, value);
+      Modifiers.modifierRegistry.put(lookup, value);
     } else {
-      Modifiers.modifiersByName.remove(lookup);
+      Modifiers.modifierRegistry.remove(lookup);
     }
+    Modifiers.forgetItemFlags();
   }
 
   public static final String getModifierName(final int index) {
@@ -1353,7 +1358,7 @@ public class Modifiers {
   public static List<AdventureResult> getPotentialChanges(final int index) {
     ArrayList<AdventureResult> available = new ArrayList<>();
 
-    for (String check : Modifiers.modifiersByName.keySet()) {
+    for (String check : Modifiers.modifierRegistry.keySet()) {
       String effectName = check.replace("Effect:", "");
       int effectId = EffectDatabase.getEffectId(effectName);
 
@@ -1869,10 +1874,70 @@ public class Modifiers {
     return this.set(index, mod.getValue());
   }
 
+  // Summaries of the item modifiers that the maximizer uses to break
+  // ties, cached by item id since it compares outfits so often.
+  public static final int ITEM_ROLLOVER_EFFECT = 1;
+  public static final int ITEM_BREAKABLE = 1 << 1;
+  public static final int ITEM_DROPS_ITEMS = 1 << 2;
+  public static final int ITEM_DROPS_MEAT = 1 << 3;
+  private static final int ITEM_FLAGS_KNOWN = 1 << 31;
+
+  private static int[] itemFlags = new int[0];
+
+  public static final int getItemFlags(final int id) {
+    if (id <= 0) {
+      return 0;
+    }
+
+    int[] known = Modifiers.itemFlags;
+    if (id < known.length && known[id] != 0) {
+      return known[id] & ~Modifiers.ITEM_FLAGS_KNOWN;
+    }
+
+    Modifiers mods = Modifiers.getItemModifiers(id);
+    int flags = 0;
+    if (mods != null) {
+      if (!mods.getString(Modifiers.ROLLOVER_EFFECT).isEmpty()) {
+        flags |= Modifiers.ITEM_ROLLOVER_EFFECT;
+      }
+      if (mods.getBoolean(Modifiers.BREAKABLE)) {
+        flags |= Modifiers.ITEM_BREAKABLE;
+      }
+      if (mods.getBoolean(Modifiers.DROPS_ITEMS)) {
+        flags |= Modifiers.ITEM_DROPS_ITEMS;
+      }
+      if (mods.getBoolean(Modifiers.DROPS_MEAT)) {
+        flags |= Modifiers.ITEM_DROPS_MEAT;
+      }
+      if (mods.variable) {
+        // These can change from one call to the next
+        return flags;
+      }
+    }
+
+    if (id >= known.length) {
+      known = Arrays.copyOf(known, Math.max(id + 1, known.length * 2));
+      Modifiers.itemFlags = known;
+    }
+    known[id] = flags | Modifiers.ITEM_FLAGS_KNOWN;
+    return flags;
+  }
+
+  private static void forgetItemFlags() {
+    Modifiers.itemFlags = new int[0];
+  }
+
   public static final Modifiers getItemModifiers(final int id) {
     if (id <= 0) {
       return null;
     }
+    Object modifier = Modifiers.modifierRegistry.getItem(id);
+    if (modifier instanceof Modifiers) {
+      return Modifiers.getParsedModifiers((Modifiers) modifier);
+    }
+    if (modifier == null) {
+      return null;
+    }
     String name = "[" + id + "]";
     return Modifiers.getModifiers("Item", name);
   }
@@ -1908,10 +1973,25 @@ public class Modifiers {
         return null;
       }
     }
+    Object modifier = Modifiers.modifierRegistry.getEffect(id);
+    if (modifier instanceof Modifiers) {
+      return Modifiers.getParsedModifiers((Modifiers) modifier);
+    }
+    if (modifier == null) {
+      return null;
+    }
     String name = "[" + id + "]";
     return Modifiers.getModifiers("Effect", name);
   }
 
+  // Items and effects are never looked up as Bjorn, so their names are still their lookups
+  private static Modifiers getParsedModifiers(final Modifiers mods) {
+    if (mods.variable) {
+      mods.override(mods.name);
+    }
+    return mods;
+  }
+
   public static final Modifiers getModifiers(String type, final String name) {
     String changeType = null;
     if (name == null || name.isEmpty()) {
@@ -1924,7 +2004,7 @@ public class Modifiers {
     }
 
     String lookup = Modifiers.getLookupName(type, name);
-    Object modifier = Modifiers.modifiersByName.get(lookup);
+    Object modifier = Modifiers.modifierRegistry.get(lookup);
 
     if (modifier == null) {
       return null;
@@ -1953,11 +2033,36 @@ public class Modifiers {
 
     newMods.variable = newMods.override(lookup) || type.equals("Loc") || type.equals("Zone");
 
-    Modifiers.modifiersByName.put(lookup, newMods);
+    if (!Modifiers.modifierRegistry.replace(lookup, modifier, newMods)) {
+      // Someone else parsed or changed these modifiers while we were parsing them
+      return Modifiers.getModifiers(changeType != null ? changeType : type, name);
+    }
 
     return newMods;
   }
 
+  /**
+   * Parses every object's modifiers now, several at a time, rather than each the first time it is
+   * used.
+   */
+  public static final void prewarmModifiers() {
+    Map<String, String> unparsed = Modifiers.modifierRegistry.getUnparsed();
+    List<String> lookups = new ArrayList<>(unparsed.keySet());
+    Map<String, Modifiers> parsed = new ConcurrentHashMap<>();
+    lookups.parallelStream()
+        .forEach(
+            lookup -> parsed.put(lookup, Modifiers.parseModifiers(lookup, unparsed.get(lookup))));
+
+    // Overrides look at the character, so are done one at a time
+    for (Entry<String, Modifiers> entry : parsed.entrySet()) {
+      String lookup = entry.getKey();
+      Modifiers mods = entry.getValue();
+      String type = Modifiers.getTypeFromLookup(lookup);
+      mods.variable = mods.override(lookup) || type.equals("Loc") || type.equals("Zone");
+      Modifiers.modifierRegistry.replace(lookup, unparsed.get(lookup), mods);
+    }
+  }
+
   public static final Modifiers parseModifiers(final String lookup, final String string) {
     Modifiers newMods = new Modifiers();
     double[] newDoubles = newMods.doubles;
@@ -2002,24 +2107,35 @@ public class Modifiers {
       if (matcher.groupCount() > 0) {
         bitcount = StringUtilities.parseInt(matcher.group(1));
       }
-      int mask = Modifiers.bitmapMasks[i];
-      switch (bitcount) {
-        case 1:
-          Modifiers.bitmapMasks[i] <<= 1;
-          break;
-        case 2:
-          mask |= mask << 1;
-          Modifiers.bitmapMasks[i] <<= 2;
-          break;
-        default:
-          KoLmafia.updateDisplay("ERROR: invalid count for bitmap modifier in " + lookup);
+      int mask;
+      // Modifiers may be parsed on several threads at once
+      synchronized (Modifiers.bitmapMasks) {
+        String source = i + ":" + bitcount + ":" + lookup;
+        Integer known = Modifiers.bitmapMasksBySource.get(source);
+        if (known != null) {
+          newBitmaps[i] |= known;
           continue;
-      }
-      if (Modifiers.bitmapMasks[i] == 0) {
-        KoLmafia.updateDisplay(
-            "ERROR: too many sources for bitmap modifier "
-                + Modifiers.modifierName(Modifiers.bitmapModifiers, i)
-                + ", consider using longs.");
+        }
+        mask = Modifiers.bitmapMasks[i];
+        switch (bitcount) {
+          case 1:
+            Modifiers.bitmapMasks[i] <<= 1;
+            break;
+          case 2:
+            mask |= mask << 1;
+            Modifiers.bitmapMasks[i] <<= 2;
+            break;
+          default:
+            KoLmafia.updateDisplay("ERROR: invalid count for bitmap modifier in " + lookup);
+            continue;
+        }
+        if (Modifiers.bitmapMasks[i] == 0) {
+          KoLmafia.updateDisplay(
+              "ERROR: too many sources for bitmap modifier "
+                  + Modifiers.modifierName(Modifiers.bitmapModifiers, i)
+                  + ", consider using longs.");
+        }
+        Modifiers.bitmapMasksBySource.put(source, mask);
       }
 
       newBitmaps[i] |= mask;
@@ -2626,7 +2742,7 @@ public class Modifiers {
     // modifier being set.
 
     if (Modifiers.passiveSkills.isEmpty()) {
-      for (String lookup : Modifiers.modifiersByName.keySet()) {
+      for (String lookup : Modifiers.modifierRegistry.keySet()) {
         if (!Modifiers.getTypeFromLookup(lookup).equals("Skill")) {
           continue;
         }
@@ -3367,7 +3483,7 @@ public class Modifiers {
   }
 
   public static final void checkModifiers() {
-    for (Entry<String, Object> entry : Modifiers.modifiersByName.entrySet()) {
+    for (Entry<String, Object> entry : Modifiers.modifierRegistry.entrySet()) {
       String lookup = entry.getKey();
       Object modifiers = entry.getValue();
 
@@ -3471,13 +3587,17 @@ public class Modifiers {
   }
 
   public static void resetModifiers() {
-    Modifiers.modifiersByName.clear();
+    Modifiers.modifierRegistry.clear();
+    Modifiers.forgetItemFlags();
     Modifiers.familiarEffectByName.clear();
     Modifiers.passiveSkills.clear();
     Modifiers.synergies.clear();
     Modifiers.mutexes.clear();
     Modifiers.uniques.clear();
-    Arrays.fill(Modifiers.bitmapMasks, 1);
+    synchronized (Modifiers.bitmapMasks) {
+      Arrays.fill(Modifiers.bitmapMasks, 1);
+      Modifiers.bitmapMasksBySource.clear();
+    }
 
     try (BufferedReader reader =
         FileUtilities.getVersionedReader("modifiers.txt", KoLConstants.MODIFIERS_VERSION)) {
@@ -3492,12 +3612,12 @@ public class Modifiers {
         String type = data[0];
         String name = data[1];
         String lookup = Modifiers.getLookupName(type, name);
-        if (Modifiers.modifiersByName.containsKey(lookup)) {
+        if (Modifiers.modifierRegistry.containsKey(lookup)) {
           KoLmafia.updateDisplay("Duplicate modifiers for: " + lookup);
         }
 
         String modifiers = data[2];
-        Modifiers.modifiersByName.put(lookup, modifiers);
+        Modifiers.modifierRegistry.put(lookup, modifiers);
 
         Matcher matcher = FAMILIAR_EFFECT_PATTERN.matcher(modifiers);
         if (matcher.find()) {
@@ -3511,7 +3631,7 @@ public class Modifiers {
           if (matcher.find()) {
             effect = matcher.replaceAll(FAMILIAR_EFFECT_TRANSLATE_REPLACEMENT2);
           }
-          Modifiers.modifiersByName.put("FamEq:" + name, effect);
+          Modifiers.modifierRegistry.put("FamEq:" + name, effect);
         }
 
         if (type.equals("Synergy")) {
@@ -3847,7 +3967,7 @@ public class Modifiers {
 
     for (String name : set) {
       String lookup = Modifiers.getLookupName(type, name);
-      Object modifiers = Modifiers.modifiersByName.get(lookup);
+      Object modifiers = Modifiers.modifierRegistry.get(lookup);
       Modifiers.writeModifierItem(writer, type, name, modifiers);
     }
   }
@@ -3926,7 +4046,8 @@ public class Modifiers {
 
   public static final void updateItem(final String name, final String known) {
     String lookup = Modifiers.getLookupName("Item", name);
-    Modifiers.modifiersByName.put(lookup, known);
+    Modifiers.modifierRegistry.put(lookup, known);
+    Modifiers.forgetItemFlags();
   }
 
   private static void registerObject(
@@ -3949,8 +4070,9 @@ public class Modifiers {
       RequestLogger.updateSessionLog(printMe);
 
       String lookup = Modifiers.getLookupName(type, name);
-      if (!Modifiers.modifiersByName.containsKey(lookup)) {
-        Modifiers.modifiersByName.put(lookup, known);
+      if (!Modifiers.modifierRegistry.containsKey(lookup)) {
+        Modifiers.modifierRegistry.put(lookup, known);
+        Modifiers.forgetItemFlags();
       }
     }
   }
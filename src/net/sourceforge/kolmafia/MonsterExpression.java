@@ -58,7 +58,7 @@ public class MonsterExpression extends Expression {
       return this.literal(this.until(")"), '\u0092');
     }
     if (this.optional("equipped(")) {
-      return this.literal(this.until(")").toLowerCase(), 'g');
+      return this.literal(this.bindItem(this.until(")").toLowerCase()), 'g');
     }
 
     return null;
@@ -4,9 +4,11 @@ import java.io.PrintStream;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.listener.NamedListenerRegistry;
+import net.sourceforge.kolmafia.pages.PageHandlers;
 import net.sourceforge.kolmafia.persistence.SkillDatabase;
 import net.sourceforge.kolmafia.request.*;
 import net.sourceforge.kolmafia.session.ChoiceManager;
@@ -337,6 +339,448 @@ public class RequestLogger extends NullStream {
     }
   }
 
+  // Registers a request, or returns false if it is not one the registrar logs
+  @FunctionalInterface
+  private interface Registrar {
+    boolean register(GenericRequest request, String urlString, boolean isExternal);
+  }
+
+  // A registrar for a request class, which also looks at requests made by the browser
+  private static Registrar registrar(final Class<?> type, final Predicate<String> register) {
+    return (request, urlString, isExternal) ->
+        (type.isInstance(request) || isExternal) && register.test(urlString);
+  }
+
+  // The registrars for each page, in the order they are tried. They are split where
+  // doRegister stops to look at the URL itself.
+
+  private static final PageHandlers<Registrar> EARLY_REGISTRARS = new PageHandlers<>();
+
+  static {
+    EARLY_REGISTRARS
+        .add(
+            List.of("fight.php", "fambattle.php"),
+            (request, urlString, isExternal) ->
+                (request instanceof FightRequest || isExternal)
+                    && FightRequest.registerRequest(isExternal, urlString))
+        // We want to register simple visits to the Altar of Literacy
+        .add(
+            "town_altar.php",
+            registrar(AltarOfLiteracyRequest.class, AltarOfLiteracyRequest::registerRequest))
+        // We want to register simple visits to the Bounty Hunter Hunter
+        .add(
+            "bounty.php",
+            registrar(BountyHunterHunterRequest.class, BountyHunterHunterRequest::registerRequest))
+        // We want to register visits to the You're the Fudge Wizard Now, Dog choice adventure
+        // before ChoiceManager.
+        .add(
+            List.of("inv_use.php", "choice.php?whichchoice=562"),
+            registrar(FudgeWandRequest.class, FudgeWandRequest::registerRequest))
+        // We want to register visits to the Summoning Chamber choice adventure before
+        // ChoiceManager.
+        .add(
+            "choice.php",
+            registrar(SummoningChamberRequest.class, SummoningChamberRequest::registerRequest))
+        // We want to register simple visits to HeyDeze
+        .add("heydeze.php", registrar(HeyDezeRequest.class, HeyDezeRequest::registerRequest))
+        // We want to register simple visits to Mr. Store
+        .add("mrstore.php", registrar(MrStoreRequest.class, MrStoreRequest::registerRequest))
+        // We want to register simple visits to Spaaace
+        .add("spaaace.php", registrar(SpaaaceRequest.class, SpaaaceRequest::registerRequest))
+        // We want to register simple visits to the Volcano Maze
+        .add(
+            "volcanomaze.php",
+            registrar(VolcanoMazeRequest.class, VolcanoMazeRequest::registerRequest))
+        // Burning Newspaper creation is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=1277",
+            registrar(BurningNewspaperRequest.class, BurningNewspaperRequest::registerRequest))
+        // metal meteoroid creation is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=1264",
+            registrar(MeteoroidRequest.class, MeteoroidRequest::registerRequest))
+        // The Clan Lounge Swimming Pool is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=585",
+            registrar(
+                ClanLoungeSwimmingPoolRequest.class,
+                ClanLoungeSwimmingPoolRequest::registerRequest))
+        // The Cargo Cultist Shorts is an instance of choice.php
+        .add(
+            List.of("inventory.php", "choice.php"),
+            registrar(CargoCultistShortsRequest.class, CargoCultistShortsRequest::registerRequest))
+        // The Deck of Every Card is an instance of choice.php
+        .add(
+            "choice.php",
+            registrar(DeckOfEveryCardRequest.class, DeckOfEveryCardRequest::registerRequest))
+        // Sweet Synthesis is an instance of choice.php
+        .add(
+            "choice.php",
+            registrar(SweetSynthesisRequest.class, SweetSynthesisRequest::registerRequest))
+        // The Florist is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=720",
+            registrar(FloristRequest.class, FloristRequest::registerRequest))
+        // Numberology is an instance of choice.php
+        .add("choice.php", registrar(NumberologyRequest.class, NumberologyRequest::registerRequest))
+        // The Potted Tea Tree is an instance of choice.php
+        .add(
+            "choice.php",
+            registrar(PottedTeaTreeRequest.class, PottedTeaTreeRequest::registerRequest))
+        // Sausage Grinder creation is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=1339",
+            registrar(SausageOMaticRequest.class, SausageOMaticRequest::registerRequest))
+        // The Source Terminal is an instance of choice.php
+        .add("choice.php", registrar(TerminalRequest.class, TerminalRequest::registerRequest))
+        // Wax Glob creation is an instance of choice.php
+        .add(
+            "choice.php?whichchoice=1218",
+            registrar(WaxGlobRequest.class, WaxGlobRequest::registerRequest));
+  }
+
+  private static final PageHandlers<Registrar> CAMPGROUND_REGISTRARS = new PageHandlers<>();
+
+  static {
+    CAMPGROUND_REGISTRARS
+        // We want to register some visits to the Campground
+        .add(
+            "campground.php",
+            registrar(CampgroundRequest.class, CampgroundRequest::registerRequest))
+        // This is a campground request and so must go here.
+        .add("campground.php", registrar(PizzaCubeRequest.class, PizzaCubeRequest::registerRequest))
+        // This is a campground request and so must go here.
+        .add("campground.php", registrar(PortalRequest.class, PortalRequest::registerRequest))
+        // This is a campground request and so must go here.
+        .add("campground.php", registrar(TelescopeRequest.class, TelescopeRequest::registerRequest))
+        // This might be a campground request and so must go here.
+        .add(
+            List.of("skillz.php", "campground.php", "runskillz.php"),
+            registrar(UseSkillRequest.class, UseSkillRequest::registerRequest))
+        // This might be on inventory.php
+        .add(
+            List.of("bedazzle.php", "inv_use.php", "inventory.php", "inv_equip.php"),
+            registrar(EquipmentRequest.class, EquipmentRequest::registerRequest));
+  }
+
+  private static final PageHandlers<Registrar> REGISTRARS = new PageHandlers<>();
+
+  static {
+    REGISTRARS
+        // Check individual cafes
+        .add("cafe.php", registrar(MicroBreweryRequest.class, MicroBreweryRequest::registerRequest))
+        .add("cafe.php", registrar(ChezSnooteeRequest.class, ChezSnooteeRequest::registerRequest))
+        .add("cafe.php", registrar(CrimboCafeRequest.class, CrimboCafeRequest::registerRequest))
+        // Check UseItemRequest early, so that lastItemUsed gets
+        // cleared when processing anything else.  Otherwise, any
+        // non-item-use that redirects to inventory.php?action=message
+        // (such as outfit changes) will cause the last item to be
+        // processed again.
+        // However, we have to check CreateItemRequest earlier, so that
+        // it can handle single-/multi-use concoctions.
+        .add(
+            PageHandlers.EVERY_PAGE,
+            (request, urlString, isExternal) ->
+                CreateItemRequest.registerRequest(isExternal, urlString))
+        // Are we finally ready to call UseItemRequest?
+        .add(
+            PageHandlers.EVERY_PAGE,
+            registrar(UseItemRequest.class, UseItemRequest::registerRequest))
+        // The following is in place.php
+        .add(
+            "place.php",
+            registrar(FalloutShelterRequest.class, FalloutShelterRequest::registerRequest))
+        // Let the "placeholder" for place.php take every otherwise
+        // unclaimed call to that URL.
+        .add(
+            "place.php",
+            (request, urlString, isExternal) -> PlaceRequest.registerRequest(urlString))
+        // The following lists all the remaining requests in
+        // alphabetical order.
+        .add("afterlife.php", registrar(AfterLifeRequest.class, AfterLifeRequest::registerRequest))
+        .add("shop.php", registrar(AirportRequest.class, AirportRequest::registerRequest))
+        .add(
+            "bone_altar.php",
+            registrar(AltarOfBonesRequest.class, AltarOfBonesRequest::registerRequest))
+        .add("shop.php", registrar(ArmoryRequest.class, ArmoryRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(
+                ArmoryAndLeggeryRequest.class,
+                urlString -> ArmoryAndLeggeryRequest.registerRequest(urlString, false)))
+        .add("shop.php", registrar(AppleStoreRequest.class, AppleStoreRequest::registerRequest))
+        .add(
+            PageHandlers.EVERY_PAGE,
+            (request, urlString, isExternal) ->
+                (request instanceof ArcadeRequest
+                        || request instanceof TicketCounterRequest
+                        || isExternal)
+                    && ArcadeRequest.registerRequest(urlString))
+        .add("place.php", registrar(ArtistRequest.class, ArtistRequest::registerRequest))
+        .add("managestore.php", registrar(AutoMallRequest.class, AutoMallRequest::registerRequest))
+        .add(
+            List.of("sellstuff.php", "sellstuff_ugly.php"),
+            registrar(AutoSellRequest.class, AutoSellRequest::registerRequest))
+        .add(
+            "inv_use.php",
+            registrar(AWOLQuartermasterRequest.class, AWOLQuartermasterRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(BatFabricatorRequest.class, BatFabricatorRequest::registerRequest))
+        .add("shop.php", registrar(BeerGardenRequest.class, BeerGardenRequest::registerRequest))
+        .add("beerpong.php", registrar(BeerPongRequest.class, BeerPongRequest::registerRequest))
+        .add(
+            "monkeycastle.php",
+            registrar(BigBrotherRequest.class, BigBrotherRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(
+                BlackMarketRequest.class,
+                urlString -> BlackMarketRequest.registerRequest(urlString, false)))
+        .add("shop.php", registrar(BoutiqueRequest.class, BoutiqueRequest::registerRequest))
+        .add("shop.php", registrar(BrogurtRequest.class, BrogurtRequest::registerRequest))
+        .add("shop.php", registrar(BuffJimmyRequest.class, BuffJimmyRequest::registerRequest))
+        .add("inv_use.php", registrar(BURTRequest.class, BURTRequest::registerRequest))
+        .add("cafe.php", registrar(CafeRequest.class, CafeRequest::registerRequest))
+        .add("arena.php", registrar(CakeArenaRequest.class, CakeArenaRequest::registerRequest))
+        .add("place.php", registrar(CampAwayRequest.class, CampAwayRequest::registerRequest))
+        .add("shop.php", registrar(CanteenRequest.class, CanteenRequest::registerRequest))
+        .add("place.php", registrar(ChateauRequest.class, ChateauRequest::registerRequest))
+        .add("shop.php", registrar(ChemiCorpRequest.class, ChemiCorpRequest::registerRequest))
+        .add(
+            "clan_viplounge.php",
+            registrar(ClanLoungeRequest.class, ClanLoungeRequest::registerRequest))
+        .add(
+            List.of("clan_rumpus.php", "place.php", "gnomes.php"),
+            registrar(ClanRumpusRequest.class, ClanRumpusRequest::registerRequest))
+        .add("clan_stash.php", registrar(ClanStashRequest.class, ClanStashRequest::registerRequest))
+        .add(
+            List.of("closet.php", "fillcloset.php", "inventory.php"),
+            registrar(ClosetRequest.class, ClosetRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(CosmicRaysBazaarRequest.class, CosmicRaysBazaarRequest::registerRequest))
+        .add(
+            "crimbo10.php",
+            registrar(CRIMBCOGiftShopRequest.class, CRIMBCOGiftShopRequest::registerRequest))
+        .add("crimbo07.php", registrar(Crimbo07Request.class, Crimbo07Request::registerRequest))
+        .add("crimbo09.php", registrar(Crimbo09Request.class, Crimbo09Request::registerRequest))
+        .add("crimbo10.php", registrar(Crimbo10Request.class, Crimbo10Request::registerRequest))
+        .add("crimbo11.php", registrar(Crimbo11Request.class, Crimbo11Request::registerRequest))
+        .add("shop.php", registrar(Crimbo12Request.class, Crimbo12Request::registerRequest))
+        .add("shop.php", registrar(Crimbo14Request.class, Crimbo14Request::registerRequest))
+        .add("shop.php", registrar(Crimbo16Request.class, Crimbo16Request::registerRequest))
+        .add("shop.php", registrar(Crimbo17Request.class, Crimbo17Request::registerRequest))
+        .add(
+            "shop.php",
+            registrar(Crimbo20BoozeRequest.class, Crimbo20BoozeRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(Crimbo20CandyRequest.class, Crimbo20CandyRequest::registerRequest))
+        .add("shop.php", registrar(Crimbo20FoodRequest.class, Crimbo20FoodRequest::registerRequest))
+        .add(
+            "crimbo21tree.php",
+            registrar(Crimbo21TreeRequest.class, Crimbo21TreeRequest::registerRequest))
+        .add(
+            "crimbo09.php",
+            registrar(CrimboCartelRequest.class, CrimboCartelRequest::registerRequest))
+        .add("curse.php", registrar(CurseRequest.class, CurseRequest::registerRequest))
+        .add("dig.php", registrar(DigRequest.class, DigRequest::registerRequest))
+        .add(
+            "bigisland.php", registrar(DimemasterRequest.class, DimemasterRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(DinseyCompanyStoreRequest.class, DinseyCompanyStoreRequest::registerRequest))
+        .add("shop.php", registrar(DiscoGiftCoRequest.class, DiscoGiftCoRequest::registerRequest))
+        .add(
+            "managecollection.php",
+            registrar(DisplayCaseRequest.class, DisplayCaseRequest::registerRequest))
+        .add("shop.php", registrar(DollHawkerRequest.class, DollHawkerRequest::registerRequest))
+        .add(
+            "clan_dreadsylvania.php",
+            registrar(DreadsylvaniaRequest.class, DreadsylvaniaRequest::registerRequest))
+        .add(
+            "dwarfcontraption.php",
+            registrar(DwarfContraptionRequest.class, DwarfContraptionRequest::registerRequest))
+        .add(
+            "dwarffactory.php",
+            registrar(DwarfFactoryRequest.class, DwarfFactoryRequest::registerRequest))
+        .add("place.php", registrar(EdBaseRequest.class, EdBaseRequest::registerRequest))
+        .add("shop.php", registrar(EdShopRequest.class, EdShopRequest::registerRequest))
+        .add("familiar.php", registrar(FamiliarRequest.class, FamiliarRequest::registerRequest))
+        .add("famteam.php", registrar(FamTeamRequest.class, FamTeamRequest::registerRequest))
+        .add(
+            "choice.php?whichchoice=1280",
+            registrar(FantasyRealmRequest.class, FantasyRealmRequest::registerRequest))
+        .add(
+            List.of("inv_use.php", "shop.php"),
+            registrar(
+                FDKOLRequest.class, urlString -> FDKOLRequest.registerRequest(urlString, false)))
+        .add("shop.php", registrar(FishboneryRequest.class, FishboneryRequest::registerRequest))
+        .add("shop.php", registrar(FiveDPrinterRequest.class, FiveDPrinterRequest::registerRequest))
+        .add("gamestore.php", registrar(FreeSnackRequest.class, FreeSnackRequest::registerRequest))
+        .add("friars.php", registrar(FriarRequest.class, FriarRequest::registerRequest))
+        .add("shop.php", registrar(FunALogRequest.class, FunALogRequest::registerRequest))
+        .add(
+            "gamestore.php", registrar(GameShoppeRequest.class, GameShoppeRequest::registerRequest))
+        .add("shop.php", registrar(GMartRequest.class, GMartRequest::registerRequest))
+        .add("town_right.php", registrar(GourdRequest.class, GourdRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(GotporkOrphanageRequest.class, GotporkOrphanageRequest::registerRequest))
+        .add("shop.php", registrar(GotporkPDRequest.class, GotporkPDRequest::registerRequest))
+        .add("shop.php", registrar(GrandmaRequest.class, GrandmaRequest::registerRequest))
+        .add("monkeycastle.php", registrar(GrandpaRequest.class, GrandpaRequest::registerRequest))
+        .add("guild.php", registrar(GuildRequest.class, GuildRequest::registerRequest))
+        .add("hermit.php", registrar(HermitRequest.class, HermitRequest::registerRequest))
+        .add(
+            List.of("bigisland.php", "postwarisland.php"),
+            registrar(IslandRequest.class, IslandRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(IsotopeSmitheryRequest.class, IsotopeSmitheryRequest::registerRequest))
+        .add("shop.php", registrar(JarlsbergRequest.class, JarlsbergRequest::registerRequest))
+        .add("shop.php", registrar(JunkMagazineRequest.class, JunkMagazineRequest::registerRequest))
+        .add("place.php", registrar(KnollRequest.class, KnollRequest::registerRequest))
+        .add("shop.php", registrar(KOLHSRequest.class, KOLHSRequest::registerRequest))
+        .add("shop.php", registrar(KringleRequest.class, KringleRequest::registerRequest))
+        .add("leaflet.php", registrar(LeafletRequest.class, LeafletRequest::registerRequest))
+        .add("shop.php", registrar(LTTRequest.class, LTTRequest::registerRequest))
+        .add("shop.php", registrar(LunarLunchRequest.class, LunarLunchRequest::registerRequest))
+        .add(
+            List.of("mallstore.php", "mall.php"),
+            registrar(MallSearchRequest.class, MallSearchRequest::registerRequest))
+        .add(
+            "backoffice.php",
+            registrar(ManageStoreRequest.class, ManageStoreRequest::registerRequest))
+        .add("shop.php", registrar(MemeShopRequest.class, MemeShopRequest::registerRequest))
+        .add("shop.php", registrar(MerchTableRequest.class, MerchTableRequest::registerRequest))
+        .add(
+            PageHandlers.EVERY_PAGE,
+            registrar(MindControlRequest.class, MindControlRequest::registerRequest))
+        .add("monkeycastle.php", registrar(MomRequest.class, MomRequest::registerRequest))
+        .add(
+            "questlog.php",
+            registrar(MonsterManuelRequest.class, MonsterManuelRequest::registerRequest))
+        .add(
+            "knoll_mushrooms.php",
+            registrar(MushroomRequest.class, MushroomRequest::registerRequest))
+        .add("shop.php", registrar(NeandermallRequest.class, NeandermallRequest::registerRequest))
+        .add("cave.php", registrar(NemesisRequest.class, NemesisRequest::registerRequest))
+        .add("shop.php", registrar(NinjaStoreRequest.class, NinjaStoreRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(NuggletCraftingRequest.class, NuggletCraftingRequest::registerRequest))
+        .add(
+            "pandamonium.php",
+            registrar(PandamoniumRequest.class, PandamoniumRequest::registerRequest))
+        .add("peevpee.php", registrar(PeeVPeeRequest.class, PeeVPeeRequest::registerRequest))
+        .add("shop.php", registrar(PixelRequest.class, PixelRequest::registerRequest))
+        .add("shop.php", registrar(PokemporiumRequest.class, PokemporiumRequest::registerRequest))
+        .add("shop.php", registrar(PrecinctRequest.class, PrecinctRequest::registerRequest))
+        .add("showplayer.php", registrar(ProfileRequest.class, ProfileRequest::registerRequest))
+        .add("craft.php", registrar(PulverizeRequest.class, PulverizeRequest::registerRequest))
+        .add(
+            "bigisland.php",
+            registrar(QuartersmasterRequest.class, QuartersmasterRequest::registerRequest))
+        .add("raffle.php", registrar(RaffleRequest.class, RaffleRequest::registerRequest))
+        .add("clan_hobopolis.php", registrar(RichardRequest.class, RichardRequest::registerRequest))
+        .add("shop.php", registrar(RubeeRequest.class, RubeeRequest::registerRequest))
+        .add("shop.php", registrar(RumpleRequest.class, RumpleRequest::registerRequest))
+        .add("place.php", registrar(ScrapheapRequest.class, ScrapheapRequest::registerRequest))
+        .add("sea_merkin.php", registrar(SeaMerkinRequest.class, SeaMerkinRequest::registerRequest))
+        .add(
+            "town_sendgift.php", registrar(SendGiftRequest.class, SendGiftRequest::registerRequest))
+        .add("sendmessage.php", registrar(SendMailRequest.class, SendMailRequest::registerRequest))
+        .add("shop.php", registrar(ShoeRepairRequest.class, ShoeRepairRequest::registerRequest))
+        .add("shop.php", registrar(SHAWARMARequest.class, SHAWARMARequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(ShoreGiftShopRequest.class, ShoreGiftShopRequest::registerRequest))
+        .add("da.php", registrar(ShrineRequest.class, ShrineRequest::registerRequest))
+        .add(
+            "sea_skatepark.php",
+            registrar(SkateParkRequest.class, SkateParkRequest::registerRequest))
+        .add("shop.php", registrar(SliemceRequest.class, SliemceRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(
+                SpacegateFabricationRequest.class, SpacegateFabricationRequest::registerRequest))
+        .add("shop.php", registrar(SpantRequest.class, SpantRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(SpinMasterLatheRequest.class, SpinMasterLatheRequest::registerRequest))
+        .add("shop.php", registrar(StarChartRequest.class, StarChartRequest::registerRequest))
+        .add("standard.php", registrar(StandardRequest.class, StandardRequest::registerRequest))
+        .add("shop.php", registrar(StillRequest.class, StillRequest::registerRequest))
+        .add("storage.php", registrar(StorageRequest.class, StorageRequest::registerRequest))
+        .add(
+            "suburbandis.php",
+            registrar(SuburbanDisRequest.class, SuburbanDisRequest::registerRequest))
+        .add("shop.php", registrar(SugarSheetRequest.class, SugarSheetRequest::registerRequest))
+        .add(
+            "peevpee.php", registrar(SwaggerShopRequest.class, SwaggerShopRequest::registerRequest))
+        .add("shop.php", registrar(TacoDanRequest.class, TacoDanRequest::registerRequest))
+        .add("tavern.php", registrar(TavernRequest.class, TavernRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(TerrifiedEagleInnRequest.class, TerrifiedEagleInnRequest::registerRequest))
+        .add("shop.php", registrar(ThankShopRequest.class, ThankShopRequest::registerRequest))
+        .add(
+            PageHandlers.EVERY_PAGE,
+            registrar(TicketCounterRequest.class, TicketCounterRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(ToxicChemistryRequest.class, ToxicChemistryRequest::registerRequest))
+        .add("shop.php", registrar(TrapperRequest.class, TrapperRequest::registerRequest))
+        .add(
+            "traveler.php",
+            registrar(TravelingTraderRequest.class, TravelingTraderRequest::registerRequest))
+        .add("trophy.php", registrar(TrophyHutRequest.class, TrophyHutRequest::registerRequest))
+        .add("tutorial.php", registrar(TutorialRequest.class, TutorialRequest::registerRequest))
+        .add(
+            List.of("uneffect.php", "charsheet.php"),
+            registrar(UneffectRequest.class, UneffectRequest::registerRequest))
+        .add("place.php", registrar(UntinkerRequest.class, UntinkerRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(VendingMachineRequest.class, VendingMachineRequest::registerRequest))
+        .add(
+            "volcanoisland.php",
+            registrar(VolcanoIslandRequest.class, VolcanoIslandRequest::registerRequest))
+        .add("shop.php", registrar(WalMartRequest.class, WalMartRequest::registerRequest))
+        .add("shop.php", registrar(WarbearBoxRequest.class, WarbearBoxRequest::registerRequest))
+        .add(
+            "place.php", registrar(WildfireCampRequest.class, WildfireCampRequest::registerRequest))
+        .add("shop.php", registrar(WinterGardenRequest.class, WinterGardenRequest::registerRequest))
+        .add("shop.php", registrar(XOShopRequest.class, XOShopRequest::registerRequest))
+        .add(
+            "shop.php",
+            registrar(
+                YeNeweSouvenirShoppeRequest.class, YeNeweSouvenirShoppeRequest::registerRequest))
+        .add("shop.php", registrar(YourCampfireRequest.class, YourCampfireRequest::registerRequest))
+        .add("wand.php", registrar(ZapRequest.class, ZapRequest::registerRequest))
+        // Do PurchaseRequest after all Coinmaster shops so they can
+        // register simple visits, if they so choose.
+        .add(
+            List.of("mallstore.php", "town_giftshop.php", "shop.php"),
+            registrar(PurchaseRequest.class, PurchaseRequest::registerRequest));
+  }
+
+  private static boolean register(
+      final PageHandlers<Registrar> registrars,
+      final GenericRequest request,
+      final String urlString,
+      final boolean isExternal) {
+    for (Registrar registrar : registrars.get(urlString)) {
+      if (registrar.register(request, urlString, isExternal)) {
+        RequestLogger.wasLastRequestSimple = false;
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static void doRegister(final GenericRequest request, final String urlString) {
     // If we are in a fight, don't even look at things which are
     // not fight.php, since they will immediately redirect to
@@ -379,150 +823,7 @@ public class RequestLogger extends NullStream {
             || request instanceof RelayRequest
             || request instanceof PlaceRequest;
 
-    if ((request instanceof FightRequest || isExternal)
-        && FightRequest.registerRequest(isExternal, urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to the Altar of Literacy
-    if ((request instanceof AltarOfLiteracyRequest || isExternal)
-        && AltarOfLiteracyRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to the Bounty Hunter Hunter
-    if ((request instanceof BountyHunterHunterRequest || isExternal)
-        && BountyHunterHunterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register visits to the You're the Fudge Wizard Now, Dog choice adventure before
-    // ChoiceManager.
-    if ((request instanceof FudgeWandRequest || isExternal)
-        && FudgeWandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register visits to the Summoning Chamber choice adventure before ChoiceManager.
-    if ((request instanceof SummoningChamberRequest || isExternal)
-        && SummoningChamberRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to HeyDeze
-    if ((request instanceof HeyDezeRequest || isExternal)
-        && HeyDezeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to Mr. Store
-    if ((request instanceof MrStoreRequest || isExternal)
-        && MrStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to Spaaace
-    if ((request instanceof SpaaaceRequest || isExternal)
-        && SpaaaceRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to the Volcano Maze
-    if ((request instanceof VolcanoMazeRequest || isExternal)
-        && VolcanoMazeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Burning Newspaper creation is an instance of choice.php
-    if ((request instanceof BurningNewspaperRequest || isExternal)
-        && BurningNewspaperRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // metal meteoroid creation is an instance of choice.php
-    if ((request instanceof MeteoroidRequest || isExternal)
-        && MeteoroidRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Clan Lounge Swimming Pool is an instance of choice.php
-    if ((request instanceof ClanLoungeSwimmingPoolRequest || isExternal)
-        && ClanLoungeSwimmingPoolRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Cargo Cultist Shorts is an instance of choice.php
-    if ((request instanceof CargoCultistShortsRequest || isExternal)
-        && CargoCultistShortsRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Deck of Every Card is an instance of choice.php
-    if ((request instanceof DeckOfEveryCardRequest || isExternal)
-        && DeckOfEveryCardRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Sweet Synthesis is an instance of choice.php
-    if ((request instanceof SweetSynthesisRequest || isExternal)
-        && SweetSynthesisRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Florist is an instance of choice.php
-    if ((request instanceof FloristRequest || isExternal)
-        && FloristRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Numberology is an instance of choice.php
-    if ((request instanceof NumberologyRequest || isExternal)
-        && NumberologyRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Potted Tea Tree is an instance of choice.php
-    if ((request instanceof PottedTeaTreeRequest || isExternal)
-        && PottedTeaTreeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Sausage Grinder creation is an instance of choice.php
-    if ((request instanceof SausageOMaticRequest || isExternal)
-        && SausageOMaticRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The Source Terminal is an instance of choice.php
-    if ((request instanceof TerminalRequest || isExternal)
-        && TerminalRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Wax Glob creation is an instance of choice.php
-    if ((request instanceof WaxGlobRequest || isExternal)
-        && WaxGlobRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
+    if (RequestLogger.register(EARLY_REGISTRARS, request, urlString, isExternal)) {
       return;
     }
 
@@ -547,46 +848,7 @@ public class RequestLogger extends NullStream {
       return;
     }
 
-    // We want to register some visits to the Campground
-    if ((request instanceof CampgroundRequest || isExternal)
-        && CampgroundRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((request instanceof PizzaCubeRequest || isExternal)
-        && PizzaCubeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((request instanceof PortalRequest || isExternal)
-        && PortalRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((request instanceof TelescopeRequest || isExternal)
-        && TelescopeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This might be a campground request and so must go here.
-    if ((request instanceof UseSkillRequest || isExternal)
-        && UseSkillRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This might be on inventory.php
-
-    if ((request instanceof EquipmentRequest || isExternal)
-        && EquipmentRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
+    if (RequestLogger.register(CAMPGROUND_REGISTRARS, request, urlString, isExternal)) {
       return;
     }
 
@@ -599,969 +861,7 @@ public class RequestLogger extends NullStream {
       return;
     }
 
-    // Check individual cafes
-    if ((request instanceof MicroBreweryRequest || isExternal)
-        && MicroBreweryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ChezSnooteeRequest || isExternal)
-        && ChezSnooteeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CrimboCafeRequest || isExternal)
-        && CrimboCafeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Check UseItemRequest early, so that lastItemUsed gets
-    // cleared when processing anything else.  Otherwise, any
-    // non-item-use that redirects to inventory.php?action=message
-    // (such as outfit changes) will cause the last item to be
-    // processed again.
-
-    // However, we have to check CreateItemRequest earlier, so that
-    // it can handle single-/multi-use concoctions.
-    if (CreateItemRequest.registerRequest(isExternal, urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Are we finally ready to call UseItemRequest?
-    if ((request instanceof UseItemRequest || isExternal)
-        && UseItemRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The following is in place.php
-    if ((request instanceof FalloutShelterRequest || isExternal)
-        && FalloutShelterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Let the "placeholder" for place.php take every otherwise
-    // unclaimed call to that URL.
-
-    if (PlaceRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The following lists all the remaining requests in
-    // alphabetical order.
-
-    if ((request instanceof AfterLifeRequest || isExternal)
-        && AfterLifeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AirportRequest || isExternal)
-        && AirportRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AltarOfBonesRequest || isExternal)
-        && AltarOfBonesRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ArmoryRequest || isExternal)
-        && ArmoryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ArmoryAndLeggeryRequest || isExternal)
-        && ArmoryAndLeggeryRequest.registerRequest(urlString, false)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AppleStoreRequest || isExternal)
-        && AppleStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ArcadeRequest || request instanceof TicketCounterRequest || isExternal)
-        && ArcadeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ArtistRequest || isExternal)
-        && ArtistRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AutoMallRequest || isExternal)
-        && AutoMallRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AutoSellRequest || isExternal)
-        && AutoSellRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof AWOLQuartermasterRequest || isExternal)
-        && AWOLQuartermasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BatFabricatorRequest || isExternal)
-        && BatFabricatorRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BeerGardenRequest || isExternal)
-        && BeerGardenRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BeerPongRequest || isExternal)
-        && BeerPongRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BigBrotherRequest || isExternal)
-        && BigBrotherRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BlackMarketRequest || isExternal)
-        && BlackMarketRequest.registerRequest(urlString, false)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BoutiqueRequest || isExternal)
-        && BoutiqueRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BrogurtRequest || isExternal)
-        && BrogurtRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BuffJimmyRequest || isExternal)
-        && BuffJimmyRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof BURTRequest || isExternal) && BURTRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CafeRequest || isExternal) && CafeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CakeArenaRequest || isExternal)
-        && CakeArenaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CampAwayRequest || isExternal)
-        && CampAwayRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CanteenRequest || isExternal)
-        && CanteenRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ChateauRequest || isExternal)
-        && ChateauRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ChemiCorpRequest || isExternal)
-        && ChemiCorpRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ClanLoungeRequest || isExternal)
-        && ClanLoungeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ClanRumpusRequest || isExternal)
-        && ClanRumpusRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ClanStashRequest || isExternal)
-        && ClanStashRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ClosetRequest || isExternal)
-        && ClosetRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CosmicRaysBazaarRequest || isExternal)
-        && CosmicRaysBazaarRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CRIMBCOGiftShopRequest || isExternal)
-        && CRIMBCOGiftShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo07Request || isExternal)
-        && Crimbo07Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo09Request || isExternal)
-        && Crimbo09Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo10Request || isExternal)
-        && Crimbo10Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo11Request || isExternal)
-        && Crimbo11Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo12Request || isExternal)
-        && Crimbo12Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo14Request || isExternal)
-        && Crimbo14Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo16Request || isExternal)
-        && Crimbo16Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo17Request || isExternal)
-        && Crimbo17Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo20BoozeRequest || isExternal)
-        && Crimbo20BoozeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo20CandyRequest || isExternal)
-        && Crimbo20CandyRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo20FoodRequest || isExternal)
-        && Crimbo20FoodRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof Crimbo21TreeRequest || isExternal)
-        && Crimbo21TreeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CrimboCartelRequest || isExternal)
-        && CrimboCartelRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof CurseRequest || isExternal)
-        && CurseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DigRequest || isExternal) && DigRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DimemasterRequest || isExternal)
-        && DimemasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DinseyCompanyStoreRequest || isExternal)
-        && DinseyCompanyStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DiscoGiftCoRequest || isExternal)
-        && DiscoGiftCoRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DisplayCaseRequest || isExternal)
-        && DisplayCaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DollHawkerRequest || isExternal)
-        && DollHawkerRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DreadsylvaniaRequest || isExternal)
-        && DreadsylvaniaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DwarfContraptionRequest || isExternal)
-        && DwarfContraptionRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof DwarfFactoryRequest || isExternal)
-        && DwarfFactoryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof EdBaseRequest || isExternal)
-        && EdBaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof EdShopRequest || isExternal)
-        && EdShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FamiliarRequest || isExternal)
-        && FamiliarRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FamTeamRequest || isExternal)
-        && FamTeamRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FantasyRealmRequest || isExternal)
-        && FantasyRealmRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FDKOLRequest || isExternal)
-        && FDKOLRequest.registerRequest(urlString, false)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FishboneryRequest || isExternal)
-        && FishboneryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FiveDPrinterRequest || isExternal)
-        && FiveDPrinterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FreeSnackRequest || isExternal)
-        && FreeSnackRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FriarRequest || isExternal)
-        && FriarRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof FunALogRequest || isExternal)
-        && FunALogRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GameShoppeRequest || isExternal)
-        && GameShoppeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GMartRequest || isExternal)
-        && GMartRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GourdRequest || isExternal)
-        && GourdRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GotporkOrphanageRequest || isExternal)
-        && GotporkOrphanageRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GotporkPDRequest || isExternal)
-        && GotporkPDRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GrandmaRequest || isExternal)
-        && GrandmaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GrandpaRequest || isExternal)
-        && GrandpaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof GuildRequest || isExternal)
-        && GuildRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof HermitRequest || isExternal)
-        && HermitRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof IslandRequest || isExternal)
-        && IslandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof IsotopeSmitheryRequest || isExternal)
-        && IsotopeSmitheryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof JarlsbergRequest || isExternal)
-        && JarlsbergRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof JunkMagazineRequest || isExternal)
-        && JunkMagazineRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof KnollRequest || isExternal)
-        && KnollRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof KOLHSRequest || isExternal)
-        && KOLHSRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof KringleRequest || isExternal)
-        && KringleRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof LeafletRequest || isExternal)
-        && LeafletRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof LTTRequest || isExternal) && LTTRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof LunarLunchRequest || isExternal)
-        && LunarLunchRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MallSearchRequest || isExternal)
-        && MallSearchRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ManageStoreRequest || isExternal)
-        && ManageStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MemeShopRequest || isExternal)
-        && MemeShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MerchTableRequest || isExternal)
-        && MerchTableRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MindControlRequest || isExternal)
-        && MindControlRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MomRequest || isExternal) && MomRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MonsterManuelRequest || isExternal)
-        && MonsterManuelRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof MushroomRequest || isExternal)
-        && MushroomRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof NeandermallRequest || isExternal)
-        && NeandermallRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof NemesisRequest || isExternal)
-        && NemesisRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof NinjaStoreRequest || isExternal)
-        && NinjaStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof NuggletCraftingRequest || isExternal)
-        && NuggletCraftingRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PandamoniumRequest || isExternal)
-        && PandamoniumRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PeeVPeeRequest || isExternal)
-        && PeeVPeeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PixelRequest || isExternal)
-        && PixelRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PokemporiumRequest || isExternal)
-        && PokemporiumRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PrecinctRequest || isExternal)
-        && PrecinctRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ProfileRequest || isExternal)
-        && ProfileRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof PulverizeRequest || isExternal)
-        && PulverizeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof QuartersmasterRequest || isExternal)
-        && QuartersmasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof RaffleRequest || isExternal)
-        && RaffleRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof RichardRequest || isExternal)
-        && RichardRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof RubeeRequest || isExternal)
-        && RubeeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof RumpleRequest || isExternal)
-        && RumpleRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ScrapheapRequest || isExternal)
-        && ScrapheapRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SeaMerkinRequest || isExternal)
-        && SeaMerkinRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SendGiftRequest || isExternal)
-        && SendGiftRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SendMailRequest || isExternal)
-        && SendMailRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ShoeRepairRequest || isExternal)
-        && ShoeRepairRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SHAWARMARequest || isExternal)
-        && SHAWARMARequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ShoreGiftShopRequest || isExternal)
-        && ShoreGiftShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ShrineRequest || isExternal)
-        && ShrineRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SkateParkRequest || isExternal)
-        && SkateParkRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SliemceRequest || isExternal)
-        && SliemceRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SpacegateFabricationRequest || isExternal)
-        && SpacegateFabricationRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SpantRequest || isExternal)
-        && SpantRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SpinMasterLatheRequest || isExternal)
-        && SpinMasterLatheRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof StarChartRequest || isExternal)
-        && StarChartRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof StandardRequest || isExternal)
-        && StandardRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof StillRequest || isExternal)
-        && StillRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof StorageRequest || isExternal)
-        && StorageRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SuburbanDisRequest || isExternal)
-        && SuburbanDisRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SugarSheetRequest || isExternal)
-        && SugarSheetRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof SwaggerShopRequest || isExternal)
-        && SwaggerShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TacoDanRequest || isExternal)
-        && TacoDanRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TavernRequest || isExternal)
-        && TavernRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TerrifiedEagleInnRequest || isExternal)
-        && TerrifiedEagleInnRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ThankShopRequest || isExternal)
-        && ThankShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TicketCounterRequest || isExternal)
-        && TicketCounterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ToxicChemistryRequest || isExternal)
-        && ToxicChemistryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TrapperRequest || isExternal)
-        && TrapperRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TravelingTraderRequest || isExternal)
-        && TravelingTraderRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TrophyHutRequest || isExternal)
-        && TrophyHutRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof TutorialRequest || isExternal)
-        && TutorialRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof UneffectRequest || isExternal)
-        && UneffectRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof UntinkerRequest || isExternal)
-        && UntinkerRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof VendingMachineRequest || isExternal)
-        && VendingMachineRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof VolcanoIslandRequest || isExternal)
-        && VolcanoIslandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof WalMartRequest || isExternal)
-        && WalMartRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof WarbearBoxRequest || isExternal)
-        && WarbearBoxRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof WildfireCampRequest || isExternal)
-        && WildfireCampRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof WinterGardenRequest || isExternal)
-        && WinterGardenRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof XOShopRequest || isExternal)
-        && XOShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof YeNeweSouvenirShoppeRequest || isExternal)
-        && YeNeweSouvenirShoppeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof YourCampfireRequest || isExternal)
-        && YourCampfireRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((request instanceof ZapRequest || isExternal) && ZapRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Do PurchaseRequest after all Coinmaster shops so they can
-    // register simple visits, if they so choose.
-
-    if ((request instanceof PurchaseRequest || isExternal)
-        && PurchaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
+    if (RequestLogger.register(REGISTRARS, request, urlString, isExternal)) {
       return;
     }
 
@@ -25,13 +25,13 @@ public class RestoreExpression extends Expression {
       return this.literal(this.until(")").toLowerCase(), 'n');
     }
     if (this.optional("effect(")) {
-      return this.literal(this.until(")").toLowerCase(), 'e');
+      return this.literal(this.bindEffect(this.until(")").toLowerCase()), 'e');
     }
     if (this.optional("skill(")) {
-      return this.literal(this.until(")").toLowerCase(), 'd');
+      return this.literal(this.bindSkill(this.until(")").toLowerCase()), 'd');
     }
     if (this.optional("equipped(")) {
-      return this.literal(this.until(")").toLowerCase(), 'g');
+      return this.literal(this.bindItem(this.until(")").toLowerCase()), 'g');
     }
     if (this.optional("path(")) {
       return this.literal(this.until(")"), '\u0092');
@@ -152,6 +152,10 @@ public class Speculation {
     }
   }
 
+  public List<AdventureResult> getEffects() {
+    return this.effects;
+  }
+
   public boolean hasEffect(AdventureResult effect) {
     return this.effects.contains(effect);
   }
@@ -22,7 +22,7 @@ import net.sourceforge.kolmafia.swingui.DescriptionFrame;
 import net.sourceforge.kolmafia.swingui.panel.GenericPanel;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
-import net.sourceforge.kolmafia.webui.RelayServer;
+import net.sourceforge.kolmafia.webui.RelayAgent;
 
 public abstract class StaticEntity {
   // Version information for the current version of KoLmafia.
@@ -694,6 +694,6 @@ public abstract class StaticEntity {
   }
 
   static final boolean isRelayThread() {
-    return RelayServer.agentThreads.contains(Thread.currentThread());
+    return RelayAgent.isRelayThread();
   }
 }
@@ -113,6 +113,58 @@ public class Evaluator {
   // Slots starting with EquipmentManager.ALL_SLOTS are equipment
   // for other familiars being considered.
 
+  // Modifiers whose contribution to the score is not simply proportional
+  // to their total, so that no per-item upper bound can be given for them.
+  private static final int[] UNBOUNDED_MODIFIERS = {
+    Modifiers.MUS,
+    Modifiers.MYS,
+    Modifiers.MOX,
+    Modifiers.HP,
+    Modifiers.MP,
+    Modifiers.FAMILIAR_WEIGHT,
+    Modifiers.EXPERIENCE,
+    Modifiers.MUS_EXPERIENCE,
+    Modifiers.MYS_EXPERIENCE,
+    Modifiers.MOX_EXPERIENCE,
+    Modifiers.MUS_EXPERIENCE_PCT,
+    Modifiers.MYS_EXPERIENCE_PCT,
+    Modifiers.MOX_EXPERIENCE_PCT,
+    Modifiers.COLD_RESISTANCE,
+    Modifiers.HOT_RESISTANCE,
+    Modifiers.SLEAZE_RESISTANCE,
+    Modifiers.SPOOKY_RESISTANCE,
+    Modifiers.STENCH_RESISTANCE,
+  };
+
+  // Other modifiers that getScore adds into the value of a weighted modifier
+  private static final int[][] SCORED_WITH = new int[Modifiers.DOUBLE_MODIFIERS][];
+
+  static {
+    Arrays.fill(Evaluator.SCORED_WITH, new int[0]);
+    Evaluator.SCORED_WITH[Modifiers.MANA_COST] = new int[] {Modifiers.STACKABLE_MANA_COST};
+    Evaluator.SCORED_WITH[Modifiers.INITIATIVE] = new int[] {Modifiers.INITIATIVE_PENALTY};
+    Evaluator.SCORED_WITH[Modifiers.MEATDROP] =
+        new int[] {Modifiers.MEATDROP_PENALTY, Modifiers.SPORADIC_MEATDROP};
+    Evaluator.SCORED_WITH[Modifiers.ITEMDROP] =
+        new int[] {Modifiers.ITEMDROP_PENALTY, Modifiers.SPORADIC_ITEMDROP};
+    Evaluator.SCORED_WITH[Modifiers.WEAPON_DAMAGE] = new int[] {Modifiers.WEAPON_DAMAGE_PCT};
+    Evaluator.SCORED_WITH[Modifiers.RANGED_DAMAGE] = new int[] {Modifiers.RANGED_DAMAGE_PCT};
+    Evaluator.SCORED_WITH[Modifiers.SPELL_DAMAGE] = new int[] {Modifiers.SPELL_DAMAGE_PCT};
+  }
+
+  /** The outcome of scoring one set of modifiers. */
+  static class Score {
+    final double value;
+    final boolean failed;
+    final boolean exceeded;
+
+    Score(double value, boolean failed, boolean exceeded) {
+      this.value = value;
+      this.failed = failed;
+      this.exceeded = exceeded;
+    }
+  }
+
   private static int relevantSkill(String skill) {
     return KoLCharacter.hasSkill(skill) ? 1 : 0;
   }
@@ -686,8 +738,21 @@ public class Evaluator {
   }
 
   public double getScore(Modifiers mods, AdventureResult[] equipment) {
-    this.failed = false;
-    this.exceeded = false;
+    Score result = this.score(mods, equipment);
+    this.failed = result.failed;
+    this.exceeded = result.exceeded;
+    return result.value;
+  }
+
+  public double getScore(Modifiers mods) {
+    return this.getScore(mods, new AdventureResult[0]);
+  }
+
+  // Scoring proper does not touch the Evaluator's own fields, so that
+  // several speculations can be scored at once by a parallel search.
+  Score score(Modifiers mods, AdventureResult[] equipment) {
+    boolean failed = false;
+    boolean exceeded = false;
     int[] predicted = mods.predict();
 
     double score = 0.0;
@@ -771,7 +836,7 @@ public class Evaluator {
           val = ((baseExp + exp) * (1 + expPct)) / 2.0f;
           break;
       }
-      if (val < min) this.failed = true;
+      if (val < min) failed = true;
       score += weight * Math.min(val, max);
     }
     if (!this.bonuses.isEmpty()) {
@@ -785,8 +850,8 @@ public class Evaluator {
     if (mods.getString(Modifiers.ROLLOVER_EFFECT).length() > 0) {
       score += 0.01f;
     }
-    if (score < this.totalMin) this.failed = true;
-    if (score >= this.totalMax) this.exceeded = true;
+    if (score < this.totalMin) failed = true;
+    if (score >= this.totalMax) exceeded = true;
     // special handling for -osity:
     // The "weight" specified is actually the desired -osity.
     // Allow partials to contribute to the score (1:1 ratio) up to the desired value.
@@ -794,34 +859,31 @@ public class Evaluator {
     if (this.clownosity > 0) {
       int osity = ((int) mods.get(Modifiers.CLOWNINESS)) / 25;
       score += Math.min(osity, this.clownosity);
-      if (osity < this.clownosity) this.failed = true;
+      if (osity < this.clownosity) failed = true;
     }
     if (this.raveosity > 0) {
       int osity = mods.getBitmap(Modifiers.RAVEOSITY);
       score += Math.min(osity, this.raveosity);
-      if (osity < this.raveosity) this.failed = true;
+      if (osity < this.raveosity) failed = true;
     }
     if (this.surgeonosity > 0) {
       int osity = (int) mods.get(Modifiers.SURGEONOSITY);
       score += Math.min(osity, this.surgeonosity);
-      if (osity < this.surgeonosity) this.failed = true;
+      if (osity < this.surgeonosity) failed = true;
     }
-    if (!this.failed
+    if (!failed
         && this.booleanMask != 0
         && (mods.getRawBitmap(0) & this.booleanMask) != this.booleanValue) {
-      this.failed = true;
+      failed = true;
     }
-    return score;
+    return new Score(score, failed, exceeded);
   }
 
-  public double getScore(Modifiers mods) {
-    return this.getScore(mods, new AdventureResult[0]);
-  }
-
-  void checkEquipment(Modifiers mods, AdventureResult[] equipment, int beeosity) {
+  boolean checkEquipment(
+      Modifiers mods, AdventureResult[] equipment, int beeosity, boolean failed) {
     boolean outfitSatisfied = this.posOutfits.isEmpty();
     boolean equipSatisfied = this.posEquip.isEmpty();
-    if (!this.failed && !this.posEquip.isEmpty()) {
+    if (!failed && !this.posEquip.isEmpty()) {
       equipSatisfied = true;
       for (AdventureResult item : this.posEquip) {
         if (!KoLCharacter.hasEquipped(equipment, item)) {
@@ -830,10 +892,10 @@ public class Evaluator {
         }
       }
     }
-    if (!this.failed) {
+    if (!failed) {
       String outfit = mods.getString(Modifiers.OUTFIT);
       if (this.negOutfits.contains(outfit)) {
-        this.failed = true;
+        failed = true;
       } else {
         outfitSatisfied = this.posOutfits.contains(outfit) || this.posOutfits.isEmpty();
       }
@@ -841,16 +903,106 @@ public class Evaluator {
     // negEquip is not checked, since enumerateEquipment should make it
     // impossible for such items to be chosen.
     if (!outfitSatisfied || !equipSatisfied) {
-      this.failed = true;
+      failed = true;
     }
     if (beeosity > this.beeosity) {
-      this.failed = true;
+      failed = true;
+    }
+    return failed;
+  }
+
+  /**
+   * Returns true if every term of the score is a weighted, possibly capped, sum of modifier
+   * values, so that getItemBound gives a true upper bound on what any one item can add.
+   */
+  boolean isBoundable() {
+    if (this.clownosity > 0 || this.raveosity > 0 || this.surgeonosity > 0) {
+      return false;
+    }
+    if (KoLCharacter.inNoobcore() || KoLCharacter.inGLover()) {
+      return false;
+    }
+    for (int i : Evaluator.UNBOUNDED_MODIFIERS) {
+      if (this.weight[i] != 0.0) {
+        return false;
+      }
     }
+    return true;
+  }
+
+  /**
+   * Returns the most that adding the given modifiers could raise the score, with each modifier
+   * first scaled by the given multiplier.
+   */
+  double getBound(Modifiers mods, double[] multiplier) {
+    double bound = 0.0;
+    if (mods == null) {
+      return bound;
+    }
+    for (int i = 0; i < Modifiers.DOUBLE_MODIFIERS; ++i) {
+      double weight = this.weight[i];
+      if (weight == 0.0) continue;
+      bound += Math.max(0.0, weight * multiplier[i] * mods.get(i));
+      for (int alias : Evaluator.SCORED_WITH[i]) {
+        bound += Math.max(0.0, weight * mods.get(alias));
+      }
+    }
+    bound +=
+        Math.max(0.0, this.weight[Modifiers.MEATDROP] * mods.get(Modifiers.MEAT_BONUS) / 10000.0);
+    if (mods.getString(Modifiers.ROLLOVER_EFFECT).length() > 0) {
+      bound += 0.01;
+    }
+    return bound;
+  }
+
+  /** As getBound, but also counting the item's bonus and the modifiers from its power. */
+  double getItemBound(AdventureResult item, Modifiers mods, double[] multiplier) {
+    double bound = this.getBound(mods, multiplier);
+    Double bonus = this.bonuses.get(item);
+    if (bonus != null) {
+      bound += Math.max(0.0, bonus);
+    }
+    int power = EquipmentDatabase.getPower(item.getItemId());
+    bound += Math.max(0.0, this.weight[Modifiers.WEAPON_DAMAGE] * power * 0.15);
+    bound += Math.max(0.0, this.weight[Modifiers.DAMAGE_ABSORPTION] * power * 2);
+    return bound;
+  }
+
+  /**
+   * Returns the most that the score could differ between any two of the given variants of the
+   * same modifiers, such as a passive skill evaluated with and without a weapon.
+   */
+  double getSpread(List<Modifiers> variants, double[] multiplier) {
+    double spread = 0.0;
+    for (int i = 0; i < Modifiers.DOUBLE_MODIFIERS; ++i) {
+      double weight = this.weight[i];
+      if (weight == 0.0) continue;
+      spread += Math.abs(weight) * multiplier[i] * Evaluator.range(variants, i);
+      for (int alias : Evaluator.SCORED_WITH[i]) {
+        spread += Math.abs(weight) * Evaluator.range(variants, alias);
+      }
+    }
+    spread +=
+        Math.abs(this.weight[Modifiers.MEATDROP])
+            * Evaluator.range(variants, Modifiers.MEAT_BONUS)
+            / 10000.0;
+    return spread;
+  }
+
+  private static double range(List<Modifiers> variants, int index) {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (Modifiers mods : variants) {
+      double val = mods.get(index);
+      min = Math.min(min, val);
+      max = Math.max(max, val);
+    }
+    return variants.isEmpty() ? 0.0 : max - min;
   }
 
   double getTiebreaker(Modifiers mods) {
     if (this.noTiebreaker) return 0.0;
-    return this.tiebreaker.getScore(mods);
+    return this.tiebreaker.score(mods, new AdventureResult[0]).value;
   }
 
   boolean isUsingTiebreaker() {
@@ -1526,8 +1678,8 @@ public class Evaluator {
     }
     if (secondBestCarriedFamiliar != FamiliarData.NO_FAMILIAR) {
       // Make sure best is better than secondBest !
-      MaximizerSpeculation best = new MaximizerSpeculation();
-      MaximizerSpeculation secondBest = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
+      MaximizerSpeculation secondBest = new MaximizerSpeculation(this);
       CheckedItem item = new CheckedItem(ItemPool.HATSEAT, equipScope, maxPrice, priceLevel);
       best.attachment = secondBest.attachment = item;
       best.equipment[EquipmentManager.HAT] = secondBest.equipment[EquipmentManager.HAT] = item;
@@ -1541,8 +1693,8 @@ public class Evaluator {
     }
 
     if (this.carriedFamiliarsNeeded > 0) {
-      MaximizerSpeculation best = new MaximizerSpeculation();
-      MaximizerSpeculation secondBest = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
+      MaximizerSpeculation secondBest = new MaximizerSpeculation(this);
       CheckedItem item = new CheckedItem(ItemPool.HATSEAT, equipScope, maxPrice, priceLevel);
       best.attachment = secondBest.attachment = item;
       best.equipment[EquipmentManager.HAT] = secondBest.equipment[EquipmentManager.HAT] = item;
@@ -1562,7 +1714,7 @@ public class Evaluator {
             && !familiar.equals(useBjornFamiliar)
             && !familiar.equals(bestCarriedFamiliar)
             && !(KoLCharacter.inBeecore() && KoLCharacter.hasBeeosity(familiar.getRace()))) {
-          MaximizerSpeculation spec = new MaximizerSpeculation();
+          MaximizerSpeculation spec = new MaximizerSpeculation(this);
           spec.attachment = item;
           spec.equipment[EquipmentManager.HAT] = item;
           spec.setEnthroned(familiar);
@@ -1589,14 +1741,14 @@ public class Evaluator {
     AdventureResult useCard = null;
 
     if (this.cardNeeded) {
-      MaximizerSpeculation best = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
 
       // Check each card in sleeve to see if they are worthwhile
       for (int c = 4967; c <= 5007; c++) {
         CheckedItem card = new CheckedItem(c, equipScope, maxPrice, priceLevel);
         AdventureResult equippedCard = EquipmentManager.getEquipment(EquipmentManager.CARDSLEEVE);
         if (card.getCount() > 0 || (equippedCard != null && c == equippedCard.getItemId())) {
-          MaximizerSpeculation spec = new MaximizerSpeculation();
+          MaximizerSpeculation spec = new MaximizerSpeculation(this);
           CheckedItem sleeve =
               new CheckedItem(ItemPool.CARD_SLEEVE, equipScope, maxPrice, priceLevel);
           spec.attachment = sleeve;
@@ -1618,7 +1770,7 @@ public class Evaluator {
         bestEdPiece = this.edPieceDecided;
       } else {
         // Assume best is current edPiece
-        MaximizerSpeculation best = new MaximizerSpeculation();
+        MaximizerSpeculation best = new MaximizerSpeculation(this);
         CheckedItem edPiece =
             new CheckedItem(ItemPool.CROWN_OF_ED, equipScope, maxPrice, priceLevel);
         best.attachment = edPiece;
@@ -1633,7 +1785,7 @@ public class Evaluator {
             // Don't bother if we've already done it for best
             continue;
           }
-          MaximizerSpeculation spec = new MaximizerSpeculation();
+          MaximizerSpeculation spec = new MaximizerSpeculation(this);
           spec.attachment = edPiece;
           spec.equipment[EquipmentManager.HAT] = edPiece;
           spec.setEdPiece(animal);
@@ -1649,7 +1801,7 @@ public class Evaluator {
 
     if (this.snowsuitNeeded) {
       // Assume best is current Snowsuit
-      MaximizerSpeculation best = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
       CheckedItem snowsuit = new CheckedItem(ItemPool.SNOW_SUIT, equipScope, maxPrice, priceLevel);
       best.attachment = snowsuit;
       bestSnowsuit = Preferences.getString("snowsuit");
@@ -1663,7 +1815,7 @@ public class Evaluator {
           // Don't bother if we've already done it for best
           continue;
         }
-        MaximizerSpeculation spec = new MaximizerSpeculation();
+        MaximizerSpeculation spec = new MaximizerSpeculation(this);
         spec.attachment = snowsuit;
         spec.equipment[EquipmentManager.FAMILIAR] = snowsuit;
         spec.setSnowsuit(decoration);
@@ -1678,7 +1830,7 @@ public class Evaluator {
 
     if (this.retroCapeNeeded) {
       // Assume best is current retro cape
-      MaximizerSpeculation best = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
       CheckedItem retroCape =
           new CheckedItem(
               ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE, equipScope, maxPrice, priceLevel);
@@ -1700,7 +1852,7 @@ public class Evaluator {
             continue;
           }
 
-          MaximizerSpeculation spec = new MaximizerSpeculation();
+          MaximizerSpeculation spec = new MaximizerSpeculation(this);
           spec.attachment = retroCape;
           spec.equipment[EquipmentManager.CONTAINER] = retroCape;
           spec.setRetroCape(config);
@@ -1716,7 +1868,7 @@ public class Evaluator {
 
     if (this.backupCameraNeeded) {
       // Assume best is current backup camera mode
-      MaximizerSpeculation best = new MaximizerSpeculation();
+      MaximizerSpeculation best = new MaximizerSpeculation(this);
       CheckedItem backupCamera =
           new CheckedItem(ItemPool.BACKUP_CAMERA, equipScope, maxPrice, priceLevel);
       best.attachment = backupCamera;
@@ -1732,7 +1884,7 @@ public class Evaluator {
           continue;
         }
 
-        MaximizerSpeculation spec = new MaximizerSpeculation();
+        MaximizerSpeculation spec = new MaximizerSpeculation(this);
         spec.attachment = backupCamera;
         spec.equipment[EquipmentManager.ACCESSORY3] = backupCamera;
         spec.setBackupCamera(mode);
@@ -1757,7 +1909,7 @@ public class Evaluator {
       }
 
       for (CheckedItem item : checkedItemList) {
-        MaximizerSpeculation spec = new MaximizerSpeculation();
+        MaximizerSpeculation spec = new MaximizerSpeculation(this);
         spec.attachment = item;
         int useSlot = Evaluator.toUseSlot(slot);
         if (slot >= EquipmentManager.ALL_SLOTS) {
@@ -1785,12 +1937,12 @@ public class Evaluator {
             spec.setBjorned(bestCarriedFamiliar);
           }
         } else if (EquipmentManager.isStickerWeapon(item)) {
-          MaximizerSpeculation current = new MaximizerSpeculation();
+          MaximizerSpeculation current = new MaximizerSpeculation(this);
           spec.equipment[EquipmentManager.STICKER1] = current.equipment[EquipmentManager.STICKER1];
           spec.equipment[EquipmentManager.STICKER2] = current.equipment[EquipmentManager.STICKER2];
           spec.equipment[EquipmentManager.STICKER3] = current.equipment[EquipmentManager.STICKER3];
         } else if (itemId == ItemPool.CARD_SLEEVE) {
-          MaximizerSpeculation current = new MaximizerSpeculation();
+          MaximizerSpeculation current = new MaximizerSpeculation(this);
           if (bestCard != null) {
             spec.equipment[EquipmentManager.CARDSLEEVE] = bestCard;
             useCard = bestCard;
@@ -1800,7 +1952,7 @@ public class Evaluator {
             useCard = current.equipment[EquipmentManager.CARDSLEEVE];
           }
         } else if (itemId == ItemPool.FOLDER_HOLDER) {
-          MaximizerSpeculation current = new MaximizerSpeculation();
+          MaximizerSpeculation current = new MaximizerSpeculation(this);
           spec.equipment[EquipmentManager.FOLDER1] = current.equipment[EquipmentManager.FOLDER1];
           spec.equipment[EquipmentManager.FOLDER2] = current.equipment[EquipmentManager.FOLDER2];
           spec.equipment[EquipmentManager.FOLDER3] = current.equipment[EquipmentManager.FOLDER3];
@@ -1823,7 +1975,7 @@ public class Evaluator {
             spec.setBackupCamera(bestBackupCamera);
           }
         } else if (itemId == ItemPool.COWBOY_BOOTS) {
-          MaximizerSpeculation current = new MaximizerSpeculation();
+          MaximizerSpeculation current = new MaximizerSpeculation(this);
           spec.equipment[EquipmentManager.BOOTSKIN] = current.equipment[EquipmentManager.BOOTSKIN];
           spec.equipment[EquipmentManager.BOOTSPUR] = current.equipment[EquipmentManager.BOOTSPUR];
         }
@@ -1898,8 +2050,8 @@ public class Evaluator {
       // Found a synergy in our speculationList, so compare it with the best individual items
 
       int accCompared = 0;
-      MaximizerSpeculation synergySpec = new MaximizerSpeculation();
-      MaximizerSpeculation compareSpec = new MaximizerSpeculation();
+      MaximizerSpeculation synergySpec = new MaximizerSpeculation(this);
+      MaximizerSpeculation compareSpec = new MaximizerSpeculation(this);
 
       int newSlot1 = slot1;
       int compareItemNo =
@@ -2029,8 +2181,8 @@ public class Evaluator {
 
       // All three in our speculationList, so compare it with the best 3 accessories items
 
-      MaximizerSpeculation synergySpec = new MaximizerSpeculation();
-      MaximizerSpeculation compareSpec = new MaximizerSpeculation();
+      MaximizerSpeculation synergySpec = new MaximizerSpeculation(this);
+      MaximizerSpeculation compareSpec = new MaximizerSpeculation(this);
 
       int compareItemNo = speculationList.get(slot).size() - 1;
       compareSpec.equipment[slot] = EquipmentRequest.UNEQUIP;
@@ -2080,8 +2232,8 @@ public class Evaluator {
     for (Integer i : usefulOutfits.keySet()) {
       if (usefulOutfits.get(i)) {
         int accCount = 0;
-        MaximizerSpeculation outfitSpec = new MaximizerSpeculation();
-        MaximizerSpeculation compareSpec = new MaximizerSpeculation();
+        MaximizerSpeculation outfitSpec = new MaximizerSpeculation(this);
+        MaximizerSpeculation compareSpec = new MaximizerSpeculation(this);
         // Get pieces of outfit
         SpecialOutfit outfit = EquipmentDatabase.getOutfit(i);
         AdventureResult[] pieces = outfit.getPieces();
@@ -2274,7 +2426,7 @@ public class Evaluator {
     automatic.get(Evaluator.OFFHAND_MELEE).addAll(automatic.get(EquipmentManager.OFFHAND));
     automatic.get(Evaluator.OFFHAND_RANGED).addAll(automatic.get(EquipmentManager.OFFHAND));
 
-    MaximizerSpeculation spec = new MaximizerSpeculation();
+    MaximizerSpeculation spec = new MaximizerSpeculation(this);
     // The threshold in the slots array that indicates that a slot
     // should be considered will be either >= 1 or >= 0, depending
     // on whether inclusive or exclusive slot specs were used.
@@ -2320,14 +2472,45 @@ public class Evaluator {
       spec.setSnowsuit(bestSnowsuit);
     }
 
-    spec.tryAll(
-        this.familiars,
-        this.carriedFamiliars,
-        usefulOutfits,
-        outfitPieces,
-        automatic,
-        useCard,
-        useCrownFamiliar,
-        useBjornFamiliar);
+    // Most combinations differ from ones already scored only by items
+    // which add their own modifiers, so those are added incrementally.
+    if (Preferences.getBoolean("maximizerIncrementalScoring")) {
+      spec.incremental = new IncrementalModifiers();
+    }
+    try {
+      // The parallel search picks the same outfit as tryAll, except that a
+      // combination limit is shared out between its runs, so when the limit
+      // is reached the two may have checked different combinations.
+      if (Preferences.getBoolean("maximizerParallelSearch")) {
+        new MaximizerSearch(
+                this,
+                spec,
+                this.familiars,
+                this.carriedFamiliars,
+                usefulOutfits,
+                outfitPieces,
+                automatic,
+                useCard,
+                useCrownFamiliar,
+                useBjornFamiliar)
+            .run();
+      } else {
+        spec.tryAll(
+            this.familiars,
+            this.carriedFamiliars,
+            usefulOutfits,
+            outfitPieces,
+            automatic,
+            useCard,
+            useCrownFamiliar,
+            useBjornFamiliar);
+      }
+    } finally {
+      // The cached outfits are only valid for this enumeration. Nothing may have been scored
+      // yet, if it was interrupted.
+      if (Maximizer.best != null) {
+        Maximizer.best.incremental = null;
+      }
+    }
   }
 }
@@ -0,0 +1,254 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.Modifiers;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.EquipmentDatabase;
+import net.sourceforge.kolmafia.request.EquipmentRequest;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+
+/**
+ * Calculates the modifiers of a speculation from those of a base outfit.
+ *
+ * <p>Most equipment does nothing but add its own modifiers to the total. For a speculation
+ * wearing such items, the full calculation is only done once for the outfit with those slots
+ * empty, and each item's contribution is then added to a copy of the result. Anything whose effect
+ * depends on the rest of the outfit - outfits, synergies, familiar weight, experience, and so on -
+ * is left in the base, which is recalculated in full whenever it changes.
+ */
+class IncrementalModifiers {
+  // Few enough that an enumeration rarely recalculates a base it has seen
+  private static final int MAX_BASES = 256;
+
+  private static final int[] NONADDITIVE_MODIFIERS = {
+    // Not simply summed by Modifiers.add
+    Modifiers.COMBAT_RATE,
+    Modifiers.MANA_COST,
+    Modifiers.FAMILIAR_WEIGHT_PCT,
+    Modifiers.FAMILIAR_ACTION_BONUS,
+    Modifiers.MUS_LIMIT,
+    Modifiers.MYS_LIMIT,
+    Modifiers.MOX_LIMIT,
+    // Read back by KoLCharacter.recalculateAdjustments
+    Modifiers.FAMILIAR_WEIGHT,
+    Modifiers.HIDDEN_FAMILIAR_WEIGHT,
+    Modifiers.HOBO_POWER,
+    Modifiers.SMITHSNESS,
+    Modifiers.SLIME_HATES_IT,
+    Modifiers.MONSTER_LEVEL,
+    Modifiers.EXPERIENCE,
+    Modifiers.MUS_EXPERIENCE,
+    Modifiers.MYS_EXPERIENCE,
+    Modifiers.MOX_EXPERIENCE,
+    Modifiers.MUS_EXPERIENCE_PCT,
+    Modifiers.MYS_EXPERIENCE_PCT,
+    Modifiers.MOX_EXPERIENCE_PCT,
+  };
+
+  private static final int[] NONADDITIVE_STRINGS = {
+    Modifiers.INTRINSIC_EFFECT,
+    Modifiers.STAT_TUNING,
+    Modifiers.EQUALIZE,
+    Modifiers.EQUALIZE_MUSCLE,
+    Modifiers.EQUALIZE_MYST,
+    Modifiers.EQUALIZE_MOXIE,
+  };
+
+  private static final int[] NONADDITIVE_BITMAPS = {
+    Modifiers.BRIMSTONE, Modifiers.CLOATHING, Modifiers.SYNERGETIC,
+  };
+
+  // Guarded by itself, since the workers of a parallel search share it
+  private final Map<String, Modifiers> bases =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Modifiers> eldest) {
+          return this.size() > IncrementalModifiers.MAX_BASES;
+        }
+      };
+
+  // Looking up variable modifiers evaluates them in place, so each item is
+  // only looked at once, while no other calculation is running.
+  private final Map<Integer, Boolean> additiveItems = new ConcurrentHashMap<>();
+
+  /** Returns true if wearing the item in the slot just adds its own modifiers to the total. */
+  static boolean isAdditive(int slot, AdventureResult item) {
+    if (!IncrementalModifiers.isAdditiveSlot(slot)
+        || item == null
+        || item.equals(EquipmentRequest.UNEQUIP)) {
+      return false;
+    }
+    return IncrementalModifiers.isAdditiveItem(item.getItemId());
+  }
+
+  private static boolean isAdditiveSlot(int slot) {
+    switch (slot) {
+      case EquipmentManager.HAT:
+      case EquipmentManager.CONTAINER:
+      case EquipmentManager.SHIRT:
+      case EquipmentManager.PANTS:
+      case EquipmentManager.ACCESSORY1:
+      case EquipmentManager.ACCESSORY2:
+      case EquipmentManager.ACCESSORY3:
+        return true;
+      default:
+        // The weapon and offhand decide which passive skills apply,
+        // and anything in the familiar slot depends on the familiar.
+        return false;
+    }
+  }
+
+  /**
+   * Returns true if the item does nothing but add its own modifiers to the total, wherever it is
+   * worn. MaximizerSearch bounds such items by their own modifiers, so this is the one place that
+   * decides it.
+   */
+  static boolean isAdditiveItem(int itemId) {
+    switch (itemId) {
+      case ItemPool.STICKER_SWORD:
+      case ItemPool.STICKER_CROSSBOW:
+      case ItemPool.BROKEN_CHAMPAGNE:
+      case ItemPool.CARD_SLEEVE:
+      case ItemPool.FOLDER_HOLDER:
+      case ItemPool.COWBOY_BOOTS:
+      case ItemPool.HATSEAT:
+      case ItemPool.BUDDY_BJORN:
+      case ItemPool.VAMPYRIC_CLOAKE:
+      case ItemPool.CROWN_OF_ED:
+      case ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE:
+      case ItemPool.BACKUP_CAMERA:
+      case ItemPool.SNOW_SUIT:
+      case ItemPool.MAKESHIFT_GARBAGE_SHIRT:
+        return false;
+    }
+
+    if (EquipmentDatabase.getOutfitWithItem(itemId) != -1) {
+      return false;
+    }
+
+    Modifiers mods = Modifiers.getItemModifiers(itemId);
+    if (mods == null) {
+      return true;
+    }
+    if (mods.variable
+        || mods.getBoolean(Modifiers.UNARMED)
+        || mods.getBoolean(Modifiers.NONSTACKABLE_WATCH)) {
+      return false;
+    }
+    for (int index : IncrementalModifiers.NONADDITIVE_MODIFIERS) {
+      if (mods.get(index) != 0.0) {
+        return false;
+      }
+    }
+    for (int index : IncrementalModifiers.NONADDITIVE_STRINGS) {
+      if (!mods.getString(index).isEmpty()) {
+        return false;
+      }
+    }
+    for (int index : IncrementalModifiers.NONADDITIVE_BITMAPS) {
+      if (mods.getRawBitmap(index) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean canAdd(int slot, AdventureResult item) {
+    if (!IncrementalModifiers.isAdditiveSlot(slot)
+        || item == null
+        || item.equals(EquipmentRequest.UNEQUIP)) {
+      return false;
+    }
+    int itemId = item.getItemId();
+    Boolean additive = this.additiveItems.get(itemId);
+    if (additive == null) {
+      synchronized (MaximizerSpeculation.CALCULATION_LOCK) {
+        additive = IncrementalModifiers.isAdditiveItem(itemId);
+      }
+      this.additiveItems.put(itemId, additive);
+    }
+    return additive;
+  }
+
+  /**
+   * Calculates the modifiers for the speculation, or returns null if none of its equipment can be
+   * added incrementally.
+   */
+  Modifiers calculate(MaximizerSpeculation spec) {
+    AdventureResult[] equipment = spec.equipment;
+    AdventureResult[] base = null;
+    for (int slot = 0; slot <= EquipmentManager.FAMILIAR; ++slot) {
+      if (this.canAdd(slot, equipment[slot])) {
+        if (base == null) {
+          base = equipment.clone();
+        }
+        base[slot] = EquipmentRequest.UNEQUIP;
+      }
+    }
+    if (base == null) {
+      return null;
+    }
+
+    String key = IncrementalModifiers.getKey(spec, base);
+    Modifiers baseMods;
+    synchronized (this.bases) {
+      baseMods = this.bases.get(key);
+    }
+    if (baseMods == null) {
+      synchronized (MaximizerSpeculation.CALCULATION_LOCK) {
+        // Another worker may have calculated it while this one waited
+        synchronized (this.bases) {
+          baseMods = this.bases.get(key);
+        }
+        if (baseMods == null) {
+          MaximizerSpeculation baseSpec = spec.clone();
+          baseSpec.equipment = base;
+          baseMods = baseSpec.calculateFully();
+          synchronized (this.bases) {
+            this.bases.put(key, baseMods);
+          }
+        }
+      }
+    }
+
+    // The items added here have fixed modifiers, so reading them needs no lock
+
+    Modifiers delta = new Modifiers("Generated:delta", new Modifiers.ModifierList());
+    for (int slot = 0; slot <= EquipmentManager.FAMILIAR; ++slot) {
+      if (base[slot] != equipment[slot]) {
+        KoLCharacter.addItemAdjustment(delta, slot, equipment[slot], equipment);
+      }
+    }
+    KoLCharacter.applyLateMultipliers(delta, equipment, spec.getEffects(), true);
+
+    Modifiers mods = new Modifiers(baseMods);
+    mods.add(delta);
+    return mods;
+  }
+
+  /** Returns how many base outfits are cached. */
+  int getBaseCount() {
+    synchronized (this.bases) {
+      return this.bases.size();
+    }
+  }
+
+  /** Identifies a base outfit, worn with the speculation's familiars. */
+  static String getKey(MaximizerSpeculation spec, AdventureResult[] base) {
+    StringBuilder key = new StringBuilder();
+    key.append(spec.getFamiliar().getId());
+    key.append(':');
+    key.append(spec.getEnthroned().getId());
+    key.append(':');
+    key.append(spec.getBjorned().getId());
+    for (AdventureResult item : base) {
+      key.append(':');
+      key.append(item == null ? 0 : item.getItemId());
+    }
+    return key.toString();
+  }
+}
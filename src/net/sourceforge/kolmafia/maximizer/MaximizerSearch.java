@@ -0,0 +1,610 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.FamiliarData;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.Modifiers;
+import net.sourceforge.kolmafia.SpecialOutfit;
+import net.sourceforge.kolmafia.objectpool.EffectPool;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.objectpool.OutfitPool;
+import net.sourceforge.kolmafia.persistence.EquipmentDatabase;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.request.EquipmentRequest;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+
+/**
+ * A parallel, branch-and-bound version of MaximizerSpeculation.tryAll.
+ *
+ * <p>The combinations chosen before the accessories are numbered in the order tryAll visits
+ * them, and split into a fixed number of runs which are handed out to workers on a ForkJoinPool.
+ * Each worker walks the same enumeration, descending only into the combinations it owns, and
+ * abandons any partial outfit whose upper bound cannot beat the best outfit found so far by its
+ * own run or an earlier one. The runs' bests are then merged in enumeration order, earlier runs
+ * winning ties, so the result is the outfit the sequential search picks.
+ *
+ * <p>With a combination limit, each run may check its share of the limit, so the outfits checked,
+ * and so the best of them, can differ from those the sequential search checks before it stops.
+ *
+ * <p>A full calculation of an outfit's modifiers still happens one at a time, as it publishes
+ * intermediate state through static fields. The workers share the base outfits calculated for
+ * incremental scoring, so each is only calculated once, and do the incremental sums, scoring,
+ * bounding and comparisons side by side.
+ */
+class MaximizerSearch {
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+  // Slack for rounding differences between a bound and the score it bounds
+  private static final double EPSILON = 1e-6;
+
+  // The branches are split into this many runs whatever the number of
+  // processors, so that what a combination limit allows each run to check
+  // does not depend on the machine.
+  private static final int RUNS = 64;
+
+  private final Evaluator eval;
+  private final MaximizerSpeculation start;
+  private final List<FamiliarData> familiars;
+  private final List<FamiliarData> enthronedFamiliars;
+  private final Map<Integer, Boolean> usefulOutfits;
+  private final Map<AdventureResult, AdventureResult> outfitPieces;
+  private final List<List<CheckedItem>> possibles;
+  private final AdventureResult bestCard;
+  private final FamiliarData useCrownFamiliar;
+  private final FamiliarData useBjornFamiliar;
+
+  private final long comboLimit = Preferences.getLong("maximizerCombinationLimit");
+  private final AtomicLong checked = new AtomicLong();
+  private List<Branch> workers = List.of();
+  private volatile int exceededAt = Integer.MAX_VALUE;
+  private volatile boolean stopped = false;
+
+  // Looking up variable modifiers evaluates them in place, so whatever the
+  // workers need to know about an item is looked up before they start, or
+  // else under the calculation lock.
+  private final Map<Integer, Integer> itemFlags = new ConcurrentHashMap<>();
+  private final Map<Integer, Boolean> simpleItems = new ConcurrentHashMap<>();
+  private final Map<Integer, Double> itemBounds = new ConcurrentHashMap<>();
+
+  // Bounding data, only filled in if the Evaluator is boundable
+  private boolean pruning = false;
+  private final boolean[] searched = new boolean[EquipmentManager.ALL_SLOTS];
+  private final double[] multiplier = new double[Modifiers.DOUBLE_MODIFIERS];
+  private final double[] slotBound = new double[EquipmentManager.ALL_SLOTS];
+  private final Map<String, Double> baseScores = new ConcurrentHashMap<>();
+  private double slack = 0.0;
+
+  MaximizerSearch(
+      Evaluator eval,
+      MaximizerSpeculation start,
+      List<FamiliarData> familiars,
+      List<FamiliarData> enthronedFamiliars,
+      Map<Integer, Boolean> usefulOutfits,
+      Map<AdventureResult, AdventureResult> outfitPieces,
+      List<List<CheckedItem>> possibles,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar,
+      FamiliarData useBjornFamiliar) {
+    this.eval = eval;
+    this.start = start;
+    this.familiars = familiars;
+    this.enthronedFamiliars = enthronedFamiliars;
+    this.usefulOutfits = usefulOutfits;
+    this.outfitPieces = outfitPieces;
+    this.possibles = possibles;
+    this.bestCard = bestCard;
+    this.useCrownFamiliar = useCrownFamiliar;
+    this.useBjornFamiliar = useBjornFamiliar;
+  }
+
+  /** Searches every combination, leaving the winner in Maximizer.best. */
+  void run() throws MaximizerInterruptedException {
+    Set<AdventureResult> candidates = this.getCandidates();
+    for (AdventureResult item : candidates) {
+      this.itemFlags.put(item.getItemId(), Modifiers.getItemFlags(item.getItemId()));
+    }
+    this.preparePruning(candidates);
+
+    // Number the branches by walking the enumeration without descending
+    Branch counter = new Branch(0, 0, 0, 0);
+    counter.walk();
+    int branches = counter.next;
+
+    int size = Math.max(1, (branches + MaximizerSearch.RUNS - 1) / MaximizerSearch.RUNS);
+    int runs = (branches + size - 1) / size;
+    // Each run gets its share of the limit, so how far one gets does not
+    // depend on how quickly the others were scheduled.
+    long budget = this.comboLimit == 0 ? 0 : Math.max(1, (this.comboLimit + runs - 1) / runs);
+    List<Branch> workers = new ArrayList<>();
+    for (int first = 0; first < branches; first += size) {
+      workers.add(new Branch(workers.size(), first, Math.min(branches, first + size), budget));
+    }
+    this.workers = workers;
+
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (Branch worker : workers) {
+      tasks.add(POOL.submit(worker::search));
+    }
+
+    MaximizerInterruptedException interrupted = null;
+    try {
+      this.await(tasks);
+    } catch (MaximizerInterruptedException e) {
+      interrupted = e;
+    } finally {
+      // Whatever happened, let the workers unwind before looking at their results
+      this.stopped = true;
+      for (ForkJoinTask<?> task : tasks) {
+        task.quietlyJoin();
+      }
+    }
+
+    // Merge in enumeration order, as if the branches had run one after another
+    for (Branch worker : workers) {
+      if (worker.index > this.exceededAt) break;
+      if (worker.best != null && worker.best.compareTo(Maximizer.best) > 0) {
+        Maximizer.best = worker.best;
+      }
+    }
+    Maximizer.bestChecked += (int) this.checked.get();
+
+    if (interrupted != null) {
+      throw interrupted;
+    }
+
+    for (Branch worker : workers) {
+      if (worker.index > this.exceededAt) break;
+      if (worker.failure != null) {
+        throw worker.failure;
+      }
+    }
+    if (this.exceededAt != Integer.MAX_VALUE) {
+      throw new MaximizerExceededException();
+    }
+    for (Branch worker : workers) {
+      if (worker.limited) {
+        throw new MaximizerLimitException();
+      }
+    }
+  }
+
+  private void await(List<ForkJoinTask<?>> tasks) throws MaximizerInterruptedException {
+    for (ForkJoinTask<?> task : tasks) {
+      while (true) {
+        try {
+          task.get(250, TimeUnit.MILLISECONDS);
+          break;
+        } catch (TimeoutException e) {
+          // Workers cannot see an abort requested from a relay thread,
+          // so watch for one here and report progress meanwhile.
+          if (!KoLmafia.permitsContinue()) {
+            throw new MaximizerInterruptedException();
+          }
+          long t = System.currentTimeMillis();
+          if (t > Maximizer.bestUpdate) {
+            this.showProgress();
+            Maximizer.bestUpdate = t + 5000;
+          }
+        } catch (InterruptedException e) {
+          throw new MaximizerInterruptedException();
+        } catch (ExecutionException e) {
+          throw new RuntimeException(e.getCause());
+        }
+      }
+    }
+  }
+
+  private void showProgress() {
+    double best = Double.NEGATIVE_INFINITY;
+    for (Branch worker : this.workers) {
+      best = Math.max(best, worker.incumbent);
+    }
+    StringBuilder msg = new StringBuilder();
+    msg.append(Maximizer.bestChecked + this.checked.get());
+    msg.append(" combinations checked");
+    if (best != Double.NEGATIVE_INFINITY) {
+      msg.append(", best score ");
+      msg.append(KoLConstants.FLOAT_FORMAT.format(best));
+    }
+    KoLmafia.updateDisplay(msg.toString());
+  }
+
+  /** One run of consecutive branches, searched by a single worker. */
+  class Branch {
+    final int index;
+    private final int first;
+    private final int last;
+    private final long budget;
+    int next = 0;
+    MaximizerSpeculation best = null;
+    MaximizerInterruptedException failure = null;
+
+    // The best score this run has found for an outfit which did not fail
+    volatile double incumbent = Double.NEGATIVE_INFINITY;
+    private long checked = 0;
+    private boolean done = false;
+    boolean limited = false;
+
+    Branch(int index, int first, int last, long budget) {
+      this.index = index;
+      this.first = first;
+      this.last = last;
+      this.budget = budget;
+    }
+
+    void search() {
+      try {
+        this.walk();
+      } catch (MaximizerInterruptedException e) {
+        this.failure = e;
+        MaximizerSearch.this.stopped = true;
+      }
+    }
+
+    void walk() throws MaximizerInterruptedException {
+      MaximizerSearch search = MaximizerSearch.this;
+      MaximizerSpeculation spec = search.start.clone();
+      spec.branch = this;
+      // tryAll swaps each familiar's items into the list it is given
+      spec.tryAll(
+          search.familiars,
+          search.enthronedFamiliars,
+          search.usefulOutfits,
+          search.outfitPieces,
+          new ArrayList<>(search.possibles),
+          search.bestCard,
+          search.useCrownFamiliar,
+          search.useBjornFamiliar);
+    }
+
+    // Once done, the rest of the enumeration is walked without descending
+    private boolean isDone() {
+      MaximizerSearch search = MaximizerSearch.this;
+      if (search.stopped || this.index > search.exceededAt) {
+        this.done = true;
+      }
+      return this.done;
+    }
+
+    /** Called at each branch point: returns true if this run should descend into it. */
+    boolean claim() {
+      if (this.isDone()) {
+        return false;
+      }
+      int n = this.next++;
+      if (n >= this.last && this.last > this.first) {
+        this.done = true;
+        return false;
+      }
+      return n >= this.first && n < this.last;
+    }
+
+    /** Returns true if nothing below this partial outfit needs to be searched. */
+    boolean prune(MaximizerSpeculation spec) {
+      if (this.isDone()) {
+        return true;
+      }
+      MaximizerSearch search = MaximizerSearch.this;
+      if (!search.pruning) {
+        return false;
+      }
+      double best = this.getIncumbent();
+      if (best == Double.NEGATIVE_INFINITY) {
+        return false;
+      }
+      return search.getBound(spec) < best - MaximizerSearch.EPSILON;
+    }
+
+    // Outfits found by later runs may be discarded, if one of them exceeds
+    // the maximum, and with a combination limit what the others found
+    // depends on how they were scheduled.  Neither may decide what this
+    // run gets to see.
+    private double getIncumbent() {
+      MaximizerSearch search = MaximizerSearch.this;
+      if (search.comboLimit != 0) {
+        return this.incumbent;
+      }
+      double best = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i <= this.index; ++i) {
+        best = Math.max(best, search.workers.get(i).incumbent);
+      }
+      return best;
+    }
+
+    void consider(MaximizerSpeculation spec) {
+      if (this.isDone()) {
+        return;
+      }
+      MaximizerSearch search = MaximizerSearch.this;
+      double score = spec.getScore();
+      spec.getTiebreaker();
+      if (this.best == null || spec.compareTo(this.best) > 0) {
+        this.best = spec.clone();
+      }
+
+      search.checked.incrementAndGet();
+      ++this.checked;
+      if (spec.exceeded) {
+        synchronized (search) {
+          search.exceededAt = Math.min(search.exceededAt, this.index);
+        }
+        this.done = true;
+        return;
+      }
+      // An outfit that reached the maximum ends the search where it was
+      // found, so it must not be allowed to prune anything before that.
+      if (!spec.failed && score > this.incumbent) {
+        this.incumbent = score;
+      }
+      if (this.budget != 0 && this.checked >= this.budget) {
+        this.limited = true;
+        this.done = true;
+      }
+    }
+
+    int getItemFlags(int itemId) {
+      MaximizerSearch search = MaximizerSearch.this;
+      return search.lookUp(search.itemFlags, itemId, Modifiers::getItemFlags);
+    }
+  }
+
+  private <T> T lookUp(Map<Integer, T> cache, int itemId, IntFunction<T> lookup) {
+    T value = cache.get(itemId);
+    if (value == null) {
+      synchronized (MaximizerSpeculation.CALCULATION_LOCK) {
+        value = lookup.apply(itemId);
+      }
+      cache.put(itemId, value);
+    }
+    return value;
+  }
+
+  // Every candidate, and everything already worn
+  private Set<AdventureResult> getCandidates() {
+    Set<AdventureResult> candidates = new HashSet<>();
+    for (List<CheckedItem> list : this.possibles) {
+      candidates.addAll(list);
+    }
+    for (AdventureResult item : this.start.equipment) {
+      if (item != null) {
+        candidates.add(item);
+      }
+    }
+    for (AdventureResult item : this.outfitPieces.values()) {
+      if (item != null) {
+        candidates.add(item);
+      }
+    }
+    return candidates;
+  }
+
+  // Bounding
+
+  // An item is simple if all it does is add its own modifiers to the total,
+  // which are then bounded by Evaluator.getItemBound.  Anything else is
+  // included exactly, by calculating a base outfit containing it.
+  private boolean isSimple(int slot, AdventureResult item) {
+    if (item == null || item.equals(EquipmentRequest.UNEQUIP)) {
+      return true;
+    }
+    if (slot == EquipmentManager.FAMILIAR) {
+      return false;
+    }
+    return this.lookUp(this.simpleItems, item.getItemId(), IncrementalModifiers::isAdditiveItem);
+  }
+
+  private double getItemBound(AdventureResult item) {
+    if (item == null || item.getItemId() <= 0) {
+      return 0.0;
+    }
+    return this.lookUp(
+        this.itemBounds,
+        item.getItemId(),
+        id -> this.eval.getItemBound(item, Modifiers.getItemModifiers(id), this.multiplier));
+  }
+
+  // Runs before the workers start, so nothing here needs the calculation lock
+  private void preparePruning(Set<AdventureResult> candidates) {
+    if (!this.eval.isBoundable()) {
+      return;
+    }
+
+    for (int slot = 0; slot < EquipmentManager.ALL_SLOTS; ++slot) {
+      this.searched[slot] = slot <= EquipmentManager.FAMILIAR && this.start.equipment[slot] == null;
+    }
+
+    this.prepareMultipliers(candidates);
+    if (!this.prepareSlack(candidates)) {
+      return;
+    }
+
+    // The best any candidate could add to a slot that is still empty
+    for (int slot = 0; slot < EquipmentManager.ALL_SLOTS; ++slot) {
+      if (!this.searched[slot]) continue;
+      List<List<CheckedItem>> lists = new ArrayList<>();
+      switch (slot) {
+        case EquipmentManager.ACCESSORY2:
+        case EquipmentManager.ACCESSORY3:
+          lists.add(this.possibles.get(EquipmentManager.ACCESSORY1));
+          break;
+        case EquipmentManager.OFFHAND:
+          lists.add(this.possibles.get(EquipmentManager.OFFHAND));
+          lists.add(this.possibles.get(Evaluator.OFFHAND_MELEE));
+          lists.add(this.possibles.get(Evaluator.OFFHAND_RANGED));
+          break;
+        default:
+          lists.add(this.possibles.get(slot));
+          break;
+      }
+      double bound = 0.0;
+      for (List<CheckedItem> list : lists) {
+        for (CheckedItem item : list) {
+          if (!this.isSimple(slot, item)) {
+            bound = Double.POSITIVE_INFINITY;
+          } else {
+            bound = Math.max(bound, this.getItemBound(item));
+          }
+        }
+      }
+      this.slotBound[slot] = bound;
+    }
+
+    this.pruning = true;
+  }
+
+  // These mirror the modifiers which KoLCharacter.recalculateAdjustments
+  // adds again at the end, doubling what items contributed to them.
+  private void prepareMultipliers(Set<AdventureResult> candidates) {
+    Arrays.fill(this.multiplier, 1.0);
+    List<AdventureResult> effects = KoLConstants.activeEffects;
+    if (effects.contains(EffectPool.get(EffectPool.BENDIN_HELL))) {
+      for (int i :
+          new int[] {
+            Modifiers.HOT_DAMAGE, Modifiers.COLD_DAMAGE, Modifiers.STENCH_DAMAGE,
+            Modifiers.SPOOKY_DAMAGE, Modifiers.SLEAZE_DAMAGE, Modifiers.HOT_SPELL_DAMAGE,
+            Modifiers.COLD_SPELL_DAMAGE, Modifiers.STENCH_SPELL_DAMAGE,
+            Modifiers.SPOOKY_SPELL_DAMAGE, Modifiers.SLEAZE_SPELL_DAMAGE
+          }) {
+        this.multiplier[i] *= 2.0;
+      }
+    }
+    if (effects.contains(EffectPool.get(EffectPool.BOWLEGGED_SWAGGER))) {
+      this.multiplier[Modifiers.INITIATIVE] *= 2.0;
+    }
+    if (effects.contains(EffectPool.get(EffectPool.STEELY_EYED_SQUINT))) {
+      this.multiplier[Modifiers.ITEMDROP] *= 2.0;
+    }
+    if (candidates.contains(ItemPool.get(ItemPool.BROKEN_CHAMPAGNE, 1))) {
+      this.multiplier[Modifiers.ITEMDROP] *= 2.0;
+    }
+  }
+
+  // Some modifiers depend on the whole outfit, rather than on any one item:
+  // outfits and synergies, and passive skills or effects which depend on
+  // the weapon.  Allow for the most any of them could change the score.
+  private boolean prepareSlack(Set<AdventureResult> candidates) {
+    double slack = 0.0;
+
+    double outfitSpread = 0.0;
+    for (SpecialOutfit outfit : EquipmentDatabase.normalOutfits) {
+      if (outfit == null) continue;
+      boolean relevant = false;
+      for (AdventureResult piece : outfit.getPieces()) {
+        if (candidates.contains(piece)) {
+          relevant = true;
+          break;
+        }
+      }
+      if (!relevant) continue;
+      Modifiers mods = Modifiers.getModifiers("Outfit", outfit.getName());
+      if (mods == null) continue;
+      if (mods.variable || outfit.getOutfitId() == OutfitPool.VIBRATO_RELICS) {
+        return false;
+      }
+      outfitSpread = Math.max(outfitSpread, this.spread(mods));
+    }
+    // One outfit may be lost and another gained
+    slack += 2 * outfitSpread;
+
+    for (Map.Entry<String, Integer> entry : Modifiers.getSynergies()) {
+      Modifiers mods = Modifiers.getModifiers("Synergy", entry.getKey());
+      if (mods == null) continue;
+      if (mods.variable) {
+        return false;
+      }
+      slack += this.spread(mods);
+    }
+
+    // Passive skills and effects may depend on the weapon, or the lack of one
+    Set<String> weaponTypes = new HashSet<>();
+    weaponTypes.add("");
+    for (AdventureResult item : this.possibles.get(EquipmentManager.WEAPON)) {
+      weaponTypes.add(EquipmentDatabase.getItemType(item.getItemId()));
+    }
+    AdventureResult weapon = this.start.equipment[EquipmentManager.WEAPON];
+    if (weapon != null) {
+      weaponTypes.add(EquipmentDatabase.getItemType(weapon.getItemId()));
+    }
+    String mainhandClass = Modifiers.mainhandClass;
+    boolean unarmed = Modifiers.unarmed;
+    List<Modifiers> variants = new ArrayList<>();
+    try {
+      for (String type : weaponTypes) {
+        for (boolean noWeapon : new boolean[] {true, false}) {
+          Modifiers.mainhandClass = type;
+          Modifiers.unarmed = noWeapon;
+          Modifiers mods = new Modifiers();
+          mods.applyPassiveModifiers();
+          for (AdventureResult effect : KoLConstants.activeEffects) {
+            mods.add(Modifiers.getEffectModifiers(effect.getEffectId()));
+          }
+          variants.add(mods);
+        }
+      }
+    } finally {
+      Modifiers.mainhandClass = mainhandClass;
+      Modifiers.unarmed = unarmed;
+    }
+    slack += this.eval.getSpread(variants, this.multiplier);
+
+    this.slack = slack;
+    return true;
+  }
+
+  private double spread(Modifiers mods) {
+    return this.eval.getSpread(List.of(mods, new Modifiers()), this.multiplier);
+  }
+
+  // The score of a partial outfit is at most the exact score of everything
+  // in it which is not simple, plus the best each remaining slot could add.
+  private double getBound(MaximizerSpeculation spec) {
+    double bound = this.slack;
+    AdventureResult[] base = spec.equipment.clone();
+    for (int slot = 0; slot < EquipmentManager.ALL_SLOTS; ++slot) {
+      if (!this.searched[slot]) continue;
+      AdventureResult item = spec.equipment[slot];
+      if (item == null) {
+        bound += this.slotBound[slot];
+        base[slot] = EquipmentRequest.UNEQUIP;
+      } else if (this.isSimple(slot, item)) {
+        bound += this.getItemBound(item);
+        base[slot] = EquipmentRequest.UNEQUIP;
+      }
+      if (bound == Double.POSITIVE_INFINITY) {
+        return bound;
+      }
+    }
+    return bound + this.getBaseScore(spec, base);
+  }
+
+  private double getBaseScore(MaximizerSpeculation spec, AdventureResult[] base) {
+    String key = IncrementalModifiers.getKey(spec, base);
+    Double score = this.baseScores.get(key);
+    if (score != null) {
+      return score;
+    }
+
+    MaximizerSpeculation baseSpec = spec.clone();
+    System.arraycopy(base, 0, baseSpec.equipment, 0, base.length);
+    Modifiers mods = baseSpec.calculate();
+    score = this.eval.score(mods, baseSpec.equipment).value;
+    this.baseScores.put(key, score);
+    return score;
+  }
+}
@@ -23,15 +23,37 @@ public class MaximizerSpeculation extends Speculation
     implements Comparable<MaximizerSpeculation>, Cloneable {
   private boolean scored = false;
   private boolean tiebreakered = false;
-  private boolean exceeded;
+  private boolean counted = false;
+  boolean exceeded;
   private double score, tiebreaker;
   private int simplicity;
   private int beeosity;
+  private int rolloverEffects, breakables, dropsItems, dropsMeat;
 
   public boolean failed = false;
   public CheckedItem attachment;
   private boolean foldables = false;
 
+  // recalculateAdjustments publishes intermediate state through static
+  // fields of Modifiers, and looking up variable modifiers evaluates them
+  // in place, so those happen one at a time while a search runs in parallel.
+  static final Object CALCULATION_LOCK = new Object();
+
+  private final Evaluator eval;
+  // Set when this speculation is one branch of a MaximizerSearch
+  MaximizerSearch.Branch branch;
+  // Set while enumerating equipment, shared by every clone
+  IncrementalModifiers incremental;
+
+  public MaximizerSpeculation() {
+    this(Maximizer.eval);
+  }
+
+  public MaximizerSpeculation(Evaluator eval) {
+    super();
+    this.eval = eval;
+  }
+
   @Override
   public MaximizerSpeculation clone() {
     try {
@@ -51,27 +73,48 @@ public class MaximizerSpeculation extends Speculation
     return super.toString();
   }
 
+  @Override
+  public Modifiers calculate() {
+    if (this.incremental != null) {
+      Modifiers mods = this.incremental.calculate(this);
+      if (mods != null) {
+        this.mods = mods;
+        this.calculated = true;
+        return mods;
+      }
+    }
+    return this.calculateFully();
+  }
+
+  Modifiers calculateFully() {
+    synchronized (MaximizerSpeculation.CALCULATION_LOCK) {
+      return super.calculate();
+    }
+  }
+
   public void setUnscored() {
     this.scored = false;
     this.calculated = false;
+    this.counted = false;
   }
 
   public double getScore() {
     if (this.scored) return this.score;
     if (!this.calculated) this.calculate();
-    this.score = Maximizer.eval.getScore(this.mods, this.equipment);
+    Evaluator.Score result = this.eval.score(this.mods, this.equipment);
+    this.score = result.value;
     if (KoLCharacter.inBeecore()) {
       this.beeosity = KoLCharacter.getBeeosity(this.equipment);
     }
-    Maximizer.eval.checkEquipment(this.mods, this.equipment, this.beeosity);
-    this.failed = Maximizer.eval.failed;
+    this.failed =
+        this.eval.checkEquipment(this.mods, this.equipment, this.beeosity, result.failed);
     if ((this.mods.getRawBitmap(Modifiers.MUTEX_VIOLATIONS)
             & ~KoLCharacter.currentRawBitmapModifier(Modifiers.MUTEX_VIOLATIONS))
         != 0) { // We're speculating about something that would create a
       // mutex problem that the player didn't already have.
       this.failed = true;
     }
-    this.exceeded = Maximizer.eval.exceeded;
+    this.exceeded = result.exceeded;
     this.scored = true;
     return this.score;
   }
@@ -79,7 +122,7 @@ public class MaximizerSpeculation extends Speculation
   public double getTiebreaker() {
     if (this.tiebreakered) return this.tiebreaker;
     if (!this.calculated) this.calculate();
-    this.tiebreaker = Maximizer.eval.getTiebreaker(this.mods);
+    this.tiebreaker = this.eval.getTiebreaker(this.mods);
     this.tiebreakered = true;
     this.simplicity = 0;
     for (int slot = 0; slot < EquipmentManager.ALL_SLOTS; ++slot) {
@@ -94,6 +137,27 @@ public class MaximizerSpeculation extends Speculation
     return this.tiebreaker;
   }
 
+  // Tallies the equipment flags that compareTo uses to break ties
+  private void countEquipment() {
+    if (this.counted) return;
+    this.rolloverEffects = 0;
+    this.breakables = 0;
+    this.dropsItems = 0;
+    this.dropsMeat = 0;
+    for (int i = this.equipment.length - 1; i >= 0; --i) {
+      if (this.equipment[i] == null) continue;
+      int itemId = this.equipment[i].getItemId();
+      int flags =
+          this.branch != null ? this.branch.getItemFlags(itemId) : Modifiers.getItemFlags(itemId);
+      if (flags == 0) continue;
+      if ((flags & Modifiers.ITEM_ROLLOVER_EFFECT) != 0) this.rolloverEffects++;
+      if ((flags & Modifiers.ITEM_BREAKABLE) != 0) this.breakables++;
+      if ((flags & Modifiers.ITEM_DROPS_ITEMS) != 0) this.dropsItems++;
+      if ((flags & Modifiers.ITEM_DROPS_MEAT) != 0) this.dropsMeat++;
+    }
+    this.counted = true;
+  }
+
   @Override
   public int compareTo(MaximizerSpeculation o) {
     if (!(o instanceof MaximizerSpeculation)) return 1;
@@ -107,54 +171,26 @@ public class MaximizerSpeculation extends Speculation
     rv = other.beeosity - this.beeosity;
     if (rv != 0) return rv;
     // Get other comparisons
-    int countThisEffects = 0;
-    int countOtherEffects = 0;
-    int countThisBreakables = 0;
-    int countOtherBreakables = 0;
-    int countThisDropsItems = 0;
-    int countOtherDropsItems = 0;
-    int countThisDropsMeat = 0;
-    int countOtherDropsMeat = 0;
-    for (int i = this.equipment.length - 1; i >= 0; --i) {
-      if (this.equipment[i] == null) continue;
-      int itemId = this.equipment[i].getItemId();
-      Modifiers mods = Modifiers.getItemModifiers(itemId);
-      if (mods == null) continue;
-      String name = mods.getString(Modifiers.ROLLOVER_EFFECT);
-      if (name.length() > 0) countThisEffects++;
-      if (mods.getBoolean(Modifiers.BREAKABLE)) countThisBreakables++;
-      if (mods.getBoolean(Modifiers.DROPS_ITEMS)) countThisDropsItems++;
-      if (mods.getBoolean(Modifiers.DROPS_MEAT)) countThisDropsMeat++;
-    }
-    for (int i = other.equipment.length - 1; i >= 0; --i) {
-      if (other.equipment[i] == null) continue;
-      int itemId = other.equipment[i].getItemId();
-      Modifiers mods = Modifiers.getItemModifiers(itemId);
-      if (mods == null) continue;
-      String name = mods.getString(Modifiers.ROLLOVER_EFFECT);
-      if (name.length() > 0) countOtherEffects++;
-      if (mods.getBoolean(Modifiers.BREAKABLE)) countOtherBreakables++;
-      if (mods.getBoolean(Modifiers.DROPS_ITEMS)) countOtherDropsItems++;
-      if (mods.getBoolean(Modifiers.DROPS_MEAT)) countOtherDropsMeat++;
-    }
+    this.countEquipment();
+    other.countEquipment();
     // Prefer item droppers
-    if (Maximizer.eval.isUsingTiebreaker() && countThisDropsItems != countOtherDropsItems) {
-      return countThisDropsItems > countOtherDropsItems ? 1 : -1;
+    if (this.eval.isUsingTiebreaker() && this.dropsItems != other.dropsItems) {
+      return this.dropsItems > other.dropsItems ? 1 : -1;
     }
     // Prefer meat droppers
-    if (Maximizer.eval.isUsingTiebreaker() && countThisDropsMeat != countOtherDropsMeat) {
-      return countThisDropsMeat > countOtherDropsMeat ? 1 : -1;
+    if (this.eval.isUsingTiebreaker() && this.dropsMeat != other.dropsMeat) {
+      return this.dropsMeat > other.dropsMeat ? 1 : -1;
     }
     // Prefer higher tiebreaker account (unless -tie used)
     rv = Double.compare(this.getTiebreaker(), other.getTiebreaker());
     if (rv != 0) return rv;
     // Prefer rollover effects
-    if (Maximizer.eval.isUsingTiebreaker() && countThisEffects != countOtherEffects) {
-      return countThisEffects > countOtherEffects ? 1 : -1;
+    if (this.eval.isUsingTiebreaker() && this.rolloverEffects != other.rolloverEffects) {
+      return this.rolloverEffects > other.rolloverEffects ? 1 : -1;
     }
     // Prefer unbreakables
-    if (countThisBreakables != countOtherBreakables) {
-      return countThisBreakables < countOtherBreakables ? 1 : -1;
+    if (this.breakables != other.breakables) {
+      return this.breakables < other.breakables ? 1 : -1;
     }
     // Prefer worn
     rv = this.simplicity - other.simplicity;
@@ -387,19 +423,19 @@ public class MaximizerSpeculation extends Speculation
         if (item.getItemId() == ItemPool.BUDDY_BJORN) {
           if (useBjornFamiliar != FamiliarData.NO_FAMILIAR) {
             this.setBjorned(useBjornFamiliar);
-            this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+            this.startAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
             any = true;
             this.restore(mark);
           } else {
             for (FamiliarData f : enthronedFamiliars) {
               this.setBjorned(f);
-              this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+              this.startAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
               any = true;
               this.restore(mark);
             }
           }
         } else {
-          this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+          this.startAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
           any = true;
           this.restore(mark);
         }
@@ -409,10 +445,25 @@ public class MaximizerSpeculation extends Speculation
       this.equipment[EquipmentManager.CONTAINER] = EquipmentRequest.UNEQUIP;
     }
 
-    this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+    this.startAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
     this.restore(mark);
   }
 
+  // Everything chosen before the accessories (familiar, outfit, familiar
+  // item, container and carried familiar) identifies one branch of the
+  // search, which is the unit that a parallel search hands to its workers.
+  private void startAccessories(
+      List<FamiliarData> enthronedFamiliars,
+      List<List<CheckedItem>> possibles,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar)
+      throws MaximizerInterruptedException {
+    if (this.branch != null && !this.branch.claim()) {
+      return;
+    }
+    this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+  }
+
   public void tryAccessories(
       List<FamiliarData> enthronedFamiliars,
       List<List<CheckedItem>> possibles,
@@ -420,6 +471,9 @@ public class MaximizerSpeculation extends Speculation
       AdventureResult bestCard,
       FamiliarData useCrownFamiliar)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     int free = 0;
     if (this.equipment[EquipmentManager.ACCESSORY1] == null) ++free;
@@ -498,6 +552,9 @@ public class MaximizerSpeculation extends Speculation
       AdventureResult bestCard,
       FamiliarData useCrownFamiliar)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     if (this.equipment[EquipmentManager.HAT] == null) {
       List<CheckedItem> possible = possibles.get(EquipmentManager.HAT);
@@ -556,6 +613,9 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryShirts(List<List<CheckedItem>> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     if (this.equipment[EquipmentManager.SHIRT] == null) {
       boolean any = false;
@@ -597,6 +657,9 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryPants(List<List<CheckedItem>> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     if (this.equipment[EquipmentManager.PANTS] == null) {
       List<CheckedItem> possible = possibles.get(EquipmentManager.PANTS);
@@ -636,6 +699,9 @@ public class MaximizerSpeculation extends Speculation
 
   public void trySixguns(List<List<CheckedItem>> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     if (this.equipment[EquipmentManager.HOLSTER] == null) {
       List<CheckedItem> possible = possibles.get(EquipmentManager.HOLSTER);
@@ -660,6 +726,9 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryWeapons(List<List<CheckedItem>> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     boolean chefstaffable =
         KoLCharacter.hasSkill("Spirit of Rigatoni") || KoLCharacter.isJarlsberg();
@@ -706,7 +775,7 @@ public class MaximizerSpeculation extends Speculation
       }
 
       // if ( any && <no unarmed items in shortlists> ) return;
-      if (Maximizer.eval.melee < -1 || Maximizer.eval.melee > 1) {
+      if (this.eval.melee < -1 || this.eval.melee > 1) {
         return;
       }
       this.equipment[EquipmentManager.WEAPON] = EquipmentRequest.UNEQUIP;
@@ -722,6 +791,9 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryOffhands(List<List<CheckedItem>> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.branch != null && this.branch.prune(this)) {
+      return;
+    }
     Object mark = this.mark();
     int weapon = this.equipment[EquipmentManager.WEAPON].getItemId();
     if (EquipmentDatabase.getHands(weapon) > 1) {
@@ -785,6 +857,12 @@ public class MaximizerSpeculation extends Speculation
     this.calculated = false;
     this.scored = false;
     this.tiebreakered = false;
+    this.counted = false;
+    if (this.branch != null) {
+      this.branch.consider(this);
+      this.restore(mark);
+      return;
+    }
     if (Maximizer.best == null) {
       RequestLogger.updateSessionLog(
           "Maximizer about to throw LimitExceeded because of null best.");
@@ -0,0 +1,148 @@
+package net.sourceforge.kolmafia.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handlers for the pages of the game, looked up by the URL of a request.
+ *
+ * <p>A handler is added for a key, which is either a page ("place.php"), a page and the value of
+ * one of its fields ("choice.php?whichchoice=922"), or "*" for every page. {@link #get} returns the
+ * handlers whose keys match a URL, in the order they were added, so that callers can stop at the
+ * first that claims it. The list for each page, and field value, is built the first time it is
+ * asked for.
+ */
+public class PageHandlers<T> {
+  public static final String EVERY_PAGE = "*";
+
+  private final List<Entry<T>> entries = new ArrayList<>();
+
+  // Fields which some handler of a page looks at, by page
+  private final Map<String, List<String>> fieldsByPage = new HashMap<>();
+
+  private final Map<String, List<T>> handlersByKey = new ConcurrentHashMap<>();
+
+  private static class Entry<T> {
+    private final String page;
+    private final String field;
+    private final String value;
+    private final T handler;
+
+    private Entry(final String page, final String field, final String value, final T handler) {
+      this.page = page;
+      this.field = field;
+      this.value = value;
+      this.handler = handler;
+    }
+
+    private boolean matches(final String page, final Map<String, String> values) {
+      if (this.page == null) {
+        return true;
+      }
+      if (!this.page.equals(page)) {
+        return false;
+      }
+      return this.field == null || this.value.equals(values.get(this.field));
+    }
+  }
+
+  public synchronized PageHandlers<T> add(final String key, final T handler) {
+    Entry<T> entry;
+
+    if (key.equals(EVERY_PAGE)) {
+      entry = new Entry<>(null, null, null, handler);
+    } else {
+      int question = key.indexOf('?');
+      int equals = key.indexOf('=', question);
+      if (question == -1) {
+        entry = new Entry<>(key, null, null, handler);
+      } else if (equals == -1) {
+        throw new IllegalArgumentException("Bad page key: " + key);
+      } else {
+        String page = key.substring(0, question);
+        String field = key.substring(question + 1, equals);
+        entry = new Entry<>(page, field, key.substring(equals + 1), handler);
+
+        List<String> fields = this.fieldsByPage.computeIfAbsent(page, k -> new ArrayList<>());
+        if (!fields.contains(field)) {
+          fields.add(field);
+        }
+      }
+    }
+
+    this.entries.add(entry);
+    this.handlersByKey.clear();
+    return this;
+  }
+
+  public PageHandlers<T> add(final List<String> keys, final T handler) {
+    for (String key : keys) {
+      this.add(key, handler);
+    }
+    return this;
+  }
+
+  /** Returns the handlers which may be interested in a URL, in the order they were added. */
+  public List<T> get(final String urlString) {
+    int question = urlString.indexOf('?');
+    String page = question == -1 ? urlString : urlString.substring(0, question);
+
+    List<String> fields = this.fieldsByPage.get(page);
+    String key = page;
+    Map<String, String> values = Collections.emptyMap();
+
+    if (fields != null) {
+      StringBuilder buffer = new StringBuilder(page);
+      values = new HashMap<>();
+      for (String field : fields) {
+        String value = PageHandlers.getFieldValue(urlString, question, field);
+        values.put(field, value);
+        buffer.append('&').append(field).append('=').append(value == null ? "" : value);
+      }
+      key = buffer.toString();
+    }
+
+    List<T> handlers = this.handlersByKey.get(key);
+    if (handlers == null) {
+      handlers = this.select(page, values);
+      this.handlersByKey.put(key, handlers);
+    }
+    return handlers;
+  }
+
+  private synchronized List<T> select(final String page, final Map<String, String> values) {
+    List<T> handlers = new ArrayList<>();
+    for (Entry<T> entry : this.entries) {
+      if (entry.matches(page, values)) {
+        handlers.add(entry.handler);
+      }
+    }
+    return Collections.unmodifiableList(handlers);
+  }
+
+  private static String getFieldValue(
+      final String urlString, final int question, final String field) {
+    if (question == -1) {
+      return null;
+    }
+
+    int start = question + 1;
+    while (start < urlString.length()) {
+      int end = urlString.indexOf('&', start);
+      if (end == -1) {
+        end = urlString.length();
+      }
+      if (urlString.startsWith(field, start)
+          && start + field.length() < end
+          && urlString.charAt(start + field.length()) == '=') {
+        return urlString.substring(start + field.length() + 1, end);
+      }
+      start = end + 1;
+    }
+    return null;
+  }
+}
@@ -14,6 +14,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import net.sourceforge.kolmafia.AreaCombatData;
 import net.sourceforge.kolmafia.KoLAdventure;
 import net.sourceforge.kolmafia.KoLCharacter;
@@ -34,6 +35,10 @@ import net.sourceforge.kolmafia.utilities.RollingLinkedList;
 public class AdventureQueueDatabase implements Serializable {
   private static final long serialVersionUID = -180241952508113931L;
 
+  // Counts the changes to the queues, so that anything computed from them can tell whether it is
+  // still current
+  private static final AtomicLong changes = new AtomicLong();
+
   private static TreeMap<String, RollingLinkedList<String>> COMBAT_QUEUE =
       new TreeMap<String, RollingLinkedList<String>>();
   private static TreeMap<String, RollingLinkedList<String>> NONCOMBAT_QUEUE =
@@ -84,6 +89,7 @@ public class AdventureQueueDatabase implements Serializable {
   private static void resetQueue(boolean serializeAfterwards) {
     AdventureQueueDatabase.COMBAT_QUEUE = new TreeMap<String, RollingLinkedList<String>>();
     AdventureQueueDatabase.NONCOMBAT_QUEUE = new TreeMap<String, RollingLinkedList<String>>();
+    AdventureQueueDatabase.changes.incrementAndGet();
 
     List<KoLAdventure> list = AdventureDatabase.getAsLockableListModel();
 
@@ -158,6 +164,7 @@ public class AdventureQueueDatabase implements Serializable {
     }
 
     zoneQueue.add(mon.getName());
+    AdventureQueueDatabase.changes.incrementAndGet();
   }
 
   public static void enqueueNoncombat(String noncombatAdventureName, String name) {
@@ -168,6 +175,12 @@ public class AdventureQueueDatabase implements Serializable {
     if (zoneQueue == null) return;
 
     zoneQueue.add(name);
+    AdventureQueueDatabase.changes.incrementAndGet();
+  }
+
+  /** Returns a number which is different after any change to the queues. */
+  public static long getChangeCount() {
+    return AdventureQueueDatabase.changes.get();
   }
 
   public static RollingLinkedList<String> getZoneQueue(KoLAdventure adv) {
@@ -228,6 +241,7 @@ public class AdventureQueueDatabase implements Serializable {
       // Combat queue is first
       COMBAT_QUEUE = queues.get(0);
       NONCOMBAT_QUEUE = queues.get(1);
+      AdventureQueueDatabase.changes.incrementAndGet();
 
       in.close();
 
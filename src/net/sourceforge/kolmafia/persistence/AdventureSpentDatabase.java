@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import net.sourceforge.kolmafia.KoLAdventure;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -27,6 +28,9 @@ import net.sourceforge.kolmafia.request.FightRequest;
 public class AdventureSpentDatabase implements Serializable {
   private static final long serialVersionUID = -180241952508113933L;
   private static Map<String, Integer> TURNS = new TreeMap<String, Integer>();
+  // Counts the changes to the turns spent, so that anything computed from them can tell whether
+  // it is still current
+  private static final AtomicLong changes = new AtomicLong();
 
   private static int lastTurnUpdated = -1;
 
@@ -48,6 +52,7 @@ public class AdventureSpentDatabase implements Serializable {
 
   private static void resetTurns(boolean serializeAfterwards) {
     AdventureSpentDatabase.TURNS = new TreeMap<String, Integer>();
+    AdventureSpentDatabase.changes.incrementAndGet();
 
     List<KoLAdventure> list = AdventureDatabase.getAsLockableListModel();
 
@@ -93,6 +98,7 @@ public class AdventureSpentDatabase implements Serializable {
     if (loc == null) {
       return;
     }
+    AdventureSpentDatabase.changes.incrementAndGet();
     if (!AdventureSpentDatabase.TURNS.containsKey(loc)) {
       // This is a new location
       AdventureSpentDatabase.TURNS.put(loc, 1);
@@ -112,6 +118,12 @@ public class AdventureSpentDatabase implements Serializable {
       return;
     }
     AdventureSpentDatabase.TURNS.put(loc, turns);
+    AdventureSpentDatabase.changes.incrementAndGet();
+  }
+
+  /** Returns a number which is different after any change to the turns spent. */
+  public static long getChangeCount() {
+    return AdventureSpentDatabase.changes.get();
   }
 
   public static int getTurns(KoLAdventure adv) {
@@ -167,6 +179,7 @@ public class AdventureSpentDatabase implements Serializable {
       ObjectInputStream in = new ObjectInputStream(fileIn);
 
       AdventureSpentDatabase.TURNS = (TreeMap<String, Integer>) in.readObject();
+      AdventureSpentDatabase.changes.incrementAndGet();
 
       in.close();
 
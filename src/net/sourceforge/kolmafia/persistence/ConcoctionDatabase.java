@@ -3,11 +3,15 @@ package net.sourceforge.kolmafia.persistence;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 import net.java.dev.spellcast.utilities.LockableListModel;
 import net.java.dev.spellcast.utilities.SortedListModel;
@@ -69,6 +73,23 @@ public class ConcoctionDatabase {
   private static boolean recalculateAdventureRange = false;
   public static int refreshLevel = 0;
 
+  // If only item counts have changed since the last refresh, only the
+  // concoctions made from those items need to be recalculated.
+  private static boolean fullRefreshNeeded = true;
+  private static final Set<Integer> changedItems = new HashSet<>();
+  private static int lastRefreshSize = 0;
+
+  // For each ingredient, the concoctions made from it. Rebuilt on every full refresh.
+  private static Map<Integer, List<Concoction>> dependents = null;
+  // Concoctions which are not made from items, and so are recalculated on every refresh
+  private static List<Concoction> independents = null;
+
+  // What the last refresh saw of the things all concoctions depend on
+  private static boolean lastUseNPCStores = false;
+  private static boolean lastUseCoinmasters = false;
+  private static boolean lastConsiderPulls = false;
+  private static RefreshInputs lastInputs = null;
+
   public static int queuedAdventuresUsed = 0;
   public static int queuedFreeCraftingTurns = 0;
   public static int queuedStillsUsed = 0;
@@ -1126,7 +1147,7 @@ public class ConcoctionDatabase {
       case KoLConstants.CONSUME_MULTIPLE:
       case KoLConstants.CONSUME_FOOD_HELPER:
       case KoLConstants.CONSUME_DRINK_HELPER:
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
         return;
     }
 
@@ -1158,7 +1179,7 @@ public class ConcoctionDatabase {
           ConcoctionDatabase.getRequirements(use.getItemId());
 
       if (ConcoctionDatabase.isPermittedMethod(method, requirements)) {
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
         return;
       }
     }
@@ -1166,14 +1187,30 @@ public class ConcoctionDatabase {
     for (CoinmasterData coinmaster : CoinmasterRegistry.COINMASTERS) {
       AdventureResult item = coinmaster.getItem();
       if (item != null && itemId == item.getItemId()) {
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
         return;
       }
     }
   }
 
+  private static void setItemRefreshNeeded(int itemId) {
+    synchronized (ConcoctionDatabase.changedItems) {
+      ConcoctionDatabase.changedItems.add(itemId);
+    }
+    ConcoctionDatabase.refreshNeeded = true;
+  }
+
+  /**
+   * Notes that available meat has changed. Meat is compared with what the last refresh saw, so
+   * this does not need a full refresh.
+   */
+  public static final void setMeatRefreshNeeded() {
+    ConcoctionDatabase.refreshNeeded = true;
+  }
+
   public static final void setRefreshNeeded(boolean recalculateAdventureRange) {
     ConcoctionDatabase.refreshNeeded = true;
+    ConcoctionDatabase.fullRefreshNeeded = true;
 
     if (recalculateAdventureRange) {
       ConcoctionDatabase.recalculateAdventureRange = true;
@@ -1192,6 +1229,7 @@ public class ConcoctionDatabase {
     if (force) {
       // Remember that refresh is forced, even if deferred
       ConcoctionDatabase.refreshNeeded = true;
+      ConcoctionDatabase.fullRefreshNeeded = true;
     }
 
     if (!ConcoctionDatabase.refreshNeeded) {
@@ -1209,11 +1247,15 @@ public class ConcoctionDatabase {
       return;
     }
 
-    ConcoctionDatabase.refreshConcoctionsNow();
+    ConcoctionDatabase.refreshChangedConcoctions();
   }
 
   public static final synchronized void refreshConcoctionsNow() {
     ConcoctionDatabase.refreshNeeded = false;
+    ConcoctionDatabase.fullRefreshNeeded = false;
+    synchronized (ConcoctionDatabase.changedItems) {
+      ConcoctionDatabase.changedItems.clear();
+    }
 
     List<AdventureResult> availableIngredients = ConcoctionDatabase.getAvailableIngredients();
 
@@ -1225,57 +1267,8 @@ public class ConcoctionDatabase {
     boolean useCoinmasters = InventoryManager.canUseCoinmasters();
 
     for (Concoction item : ConcoctionPool.concoctions()) {
-      // Initialize all the variables
-      item.resetCalculations();
-
-      if (item.speakeasy) {
-        // Has an item number, but can't appear in inventory
-        continue;
-      }
-
-      AdventureResult concoction = item.concoction;
-      if (concoction == null) {
-        continue;
-      }
-
-      int itemId = concoction.getItemId();
-
-      if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
-        if (itemId != ItemPool.FLAT_DOUGH) {
-          // Don't buy flat dough from Degrassi Knoll Bakery -
-          // buy wads of dough for 20 meat less, instead.
-
-          item.price = NPCStoreDatabase.price(itemId);
-          item.initial = concoction.getCount(availableIngredients);
-          item.creatable = 0;
-          item.total = item.initial;
-          item.visibleTotal = item.total;
-          continue;
-        }
-      }
-
-      PurchaseRequest purchaseRequest = item.getPurchaseRequest();
-      if (purchaseRequest != null) {
-        purchaseRequest.setCanPurchase(useCoinmasters);
-        int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
-        item.price = 0;
-        item.initial = concoction.getCount(availableIngredients);
-        item.creatable = acquirable;
-        item.total = item.initial + acquirable;
-        item.visibleTotal = item.total;
-        continue;
-      }
-
-      // Set initial quantity of all remaining items.
-
-      // Switch to the better of any interchangeable ingredients
-      ConcoctionDatabase.getIngredients(item.getIngredients(), availableIngredients);
-
-      item.initial = concoction.getCount(availableIngredients);
-      item.price = 0;
-      item.creatable = 0;
-      item.total = item.initial;
-      item.visibleTotal = item.total;
+      ConcoctionDatabase.initializeConcoction(
+          item, availableIngredients, useNPCStores, useCoinmasters);
     }
 
     // Make assessment of availability of mixing methods.
@@ -1299,55 +1292,23 @@ public class ConcoctionDatabase {
     // number of items inside of the old list.
 
     boolean changeDetected = false;
-    boolean considerPulls =
-        !KoLCharacter.canInteract()
-            && !KoLCharacter.isHardcore()
-            && ConcoctionDatabase.getPullsBudgeted() > ConcoctionDatabase.queuedPullsUsed;
+    boolean considerPulls = ConcoctionDatabase.considerPulls();
 
     for (Concoction item : ConcoctionPool.concoctions()) {
-      AdventureResult ar = item.getItem();
-      if (ar == null) {
-        continue;
-      }
-
-      if (considerPulls
-          && ar.getItemId() > 0
-          && item.getPrice() <= 0
-          && ConsumablesDatabase.meetsLevelRequirement(item.getName())
-          && StandardRequest.isAllowed("Items", ar.getName())) {
-        item.setPullable(
-            Math.min(
-                ar.getCount(KoLConstants.storage) - item.queuedPulls,
-                ConcoctionDatabase.getPullsBudgeted() - ConcoctionDatabase.queuedPullsUsed));
-      } else {
-        item.setPullable(0);
-      }
-
-      CreateItemRequest instance = CreateItemRequest.getInstance(ar, false);
-
-      if (instance == null) {
-        continue;
-      }
-
-      int creatable = Math.max(item.creatable, 0);
-      int pullable = Math.max(item.pullable, 0);
+      changeDetected |= ConcoctionDatabase.updateCreatable(item, considerPulls);
+    }
 
-      instance.setQuantityPossible(creatable);
-      instance.setQuantityPullable(pullable);
+    ConcoctionDatabase.buildDependents();
+    ConcoctionDatabase.lastUseNPCStores = useNPCStores;
+    ConcoctionDatabase.lastUseCoinmasters = useCoinmasters;
+    ConcoctionDatabase.lastConsiderPulls = considerPulls;
+    ConcoctionDatabase.lastInputs = new RefreshInputs();
+    ConcoctionDatabase.lastRefreshSize = ConcoctionPool.concoctions().size();
 
-      if (creatable + pullable == 0) {
-        if (item.wasPossible()) {
-          ConcoctionDatabase.creatableList.remove(instance);
-          item.setPossible(false);
-          changeDetected = true;
-        }
-      } else if (!item.wasPossible()) {
-        ConcoctionDatabase.creatableList.add(instance);
-        item.setPossible(true);
-        changeDetected = true;
-      }
-    }
+    ConcoctionDatabase.updateLists(changeDetected);
+  }
 
+  private static void updateLists(boolean changeDetected) {
     if (ConcoctionDatabase.recalculateAdventureRange) {
       ConsumablesDatabase.calculateAdventureRanges();
       ConcoctionDatabase.recalculateAdventureRange = false;
@@ -1369,6 +1330,339 @@ public class ConcoctionDatabase {
     ConcoctionDatabase.queuedPotions.updateFilter(changeDetected);
   }
 
+  private static void initializeConcoction(
+      final Concoction item,
+      final List<AdventureResult> availableIngredients,
+      final boolean useNPCStores,
+      final boolean useCoinmasters) {
+    // Initialize all the variables
+    item.resetCalculations();
+
+    if (item.speakeasy) {
+      // Has an item number, but can't appear in inventory
+      return;
+    }
+
+    AdventureResult concoction = item.concoction;
+    if (concoction == null) {
+      return;
+    }
+
+    int itemId = concoction.getItemId();
+
+    if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
+      if (itemId != ItemPool.FLAT_DOUGH) {
+        // Don't buy flat dough from Degrassi Knoll Bakery -
+        // buy wads of dough for 20 meat less, instead.
+
+        item.price = NPCStoreDatabase.price(itemId);
+        item.initial = concoction.getCount(availableIngredients);
+        item.creatable = 0;
+        item.total = item.initial;
+        item.visibleTotal = item.total;
+        return;
+      }
+    }
+
+    PurchaseRequest purchaseRequest = item.getPurchaseRequest();
+    if (purchaseRequest != null) {
+      purchaseRequest.setCanPurchase(useCoinmasters);
+      int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
+      item.price = 0;
+      item.initial = concoction.getCount(availableIngredients);
+      item.creatable = acquirable;
+      item.total = item.initial + acquirable;
+      item.visibleTotal = item.total;
+      return;
+    }
+
+    // Set initial quantity of all remaining items.
+
+    // Switch to the better of any interchangeable ingredients
+    ConcoctionDatabase.getIngredients(item.getIngredients(), availableIngredients);
+
+    item.initial = concoction.getCount(availableIngredients);
+    item.price = 0;
+    item.creatable = 0;
+    item.total = item.initial;
+    item.visibleTotal = item.total;
+  }
+
+  private static boolean considerPulls() {
+    return !KoLCharacter.canInteract()
+        && !KoLCharacter.isHardcore()
+        && ConcoctionDatabase.getPullsBudgeted() > ConcoctionDatabase.queuedPullsUsed;
+  }
+
+  // Updates the creatable list for this concoction, returning true if it
+  // was added to or removed from the list.
+  private static boolean updateCreatable(final Concoction item, final boolean considerPulls) {
+    AdventureResult ar = item.getItem();
+    if (ar == null) {
+      return false;
+    }
+
+    if (considerPulls
+        && ar.getItemId() > 0
+        && item.getPrice() <= 0
+        && ConsumablesDatabase.meetsLevelRequirement(item.getName())
+        && StandardRequest.isAllowed("Items", ar.getName())) {
+      item.setPullable(
+          Math.min(
+              ar.getCount(KoLConstants.storage) - item.queuedPulls,
+              ConcoctionDatabase.getPullsBudgeted() - ConcoctionDatabase.queuedPullsUsed));
+    } else {
+      item.setPullable(0);
+    }
+
+    CreateItemRequest instance = CreateItemRequest.getInstance(ar, false);
+
+    if (instance == null) {
+      return false;
+    }
+
+    int creatable = Math.max(item.creatable, 0);
+    int pullable = Math.max(item.pullable, 0);
+
+    instance.setQuantityPossible(creatable);
+    instance.setQuantityPullable(pullable);
+
+    if (creatable + pullable == 0) {
+      if (item.wasPossible()) {
+        ConcoctionDatabase.creatableList.remove(instance);
+        item.setPossible(false);
+        return true;
+      }
+    } else if (!item.wasPossible()) {
+      ConcoctionDatabase.creatableList.add(instance);
+      item.setPossible(true);
+      return true;
+    }
+    return false;
+  }
+
+  // Brings the concoctions up to date, recalculating only those which could
+  // have changed if nothing but item counts and meat have changed.
+  private static synchronized void refreshChangedConcoctions() {
+    ConcoctionDatabase.refreshNeeded = false;
+    Set<Integer> items;
+    synchronized (ConcoctionDatabase.changedItems) {
+      items = new HashSet<>(ConcoctionDatabase.changedItems);
+    }
+
+    if (ConcoctionDatabase.fullRefreshNeeded || ConcoctionDatabase.dependents == null) {
+      ConcoctionDatabase.refreshConcoctionsNow();
+      return;
+    }
+
+    List<AdventureResult> availableIngredients = ConcoctionDatabase.getAvailableIngredients();
+    boolean useNPCStores = InventoryManager.canUseNPCStores();
+    boolean useCoinmasters = InventoryManager.canUseCoinmasters();
+    boolean considerPulls = ConcoctionDatabase.considerPulls();
+
+    // Anything which could change how every concoction is made needs a full refresh
+    ConcoctionDatabase.cachePermitted(availableIngredients);
+    RefreshInputs inputs = new RefreshInputs();
+    if (useNPCStores != ConcoctionDatabase.lastUseNPCStores
+        || useCoinmasters != ConcoctionDatabase.lastUseCoinmasters
+        || considerPulls != ConcoctionDatabase.lastConsiderPulls
+        || !inputs.samePermissions(ConcoctionDatabase.lastInputs)) {
+      ConcoctionDatabase.refreshConcoctionsNow();
+      return;
+    }
+
+    synchronized (ConcoctionDatabase.changedItems) {
+      ConcoctionDatabase.changedItems.removeAll(items);
+    }
+
+    // Start with the changed items, and whatever uses a limit which has changed
+    Map<Concoction, Boolean> affected = new IdentityHashMap<>();
+    List<Concoction> pending = new ArrayList<>();
+    for (int itemId : items) {
+      Concoction item = ConcoctionPool.get(itemId);
+      if (item != null && affected.put(item, true) == null) {
+        pending.add(item);
+      }
+    }
+    for (Concoction item : ConcoctionPool.concoctions()) {
+      if (inputs.limitChanged(ConcoctionDatabase.lastInputs, item)
+          && affected.put(item, true) == null) {
+        pending.add(item);
+      }
+    }
+
+    // Then everything made from those, however indirectly
+    for (int i = 0; i < pending.size(); ++i) {
+      Concoction item = pending.get(i);
+      AdventureResult ar = item.getItem();
+      List<Concoction> products =
+          ar == null ? null : ConcoctionDatabase.dependents.get(ar.getItemId());
+      if (products == null) {
+        continue;
+      }
+      for (Concoction product : products) {
+        if (affected.put(product, true) == null) {
+          pending.add(product);
+        }
+      }
+    }
+
+    for (Concoction item : ConcoctionDatabase.independents) {
+      if (affected.put(item, true) == null) {
+        pending.add(item);
+      }
+    }
+
+    for (Concoction item : pending) {
+      ConcoctionDatabase.initializeConcoction(
+          item, availableIngredients, useNPCStores, useCoinmasters);
+    }
+
+    // Meat paste and stacks are always priced after initialization
+    ConcoctionDatabase.calculateBasicItems(availableIngredients);
+
+    for (Concoction item : pending) {
+      item.calculate2();
+      item.calculate3();
+    }
+
+    boolean changeDetected = false;
+    for (Concoction item : pending) {
+      changeDetected |= ConcoctionDatabase.updateCreatable(item, considerPulls);
+    }
+
+    ConcoctionDatabase.lastInputs = inputs;
+    ConcoctionDatabase.lastRefreshSize = pending.size();
+
+    if (Preferences.getBoolean("verifyConcoctionRefresh")) {
+      ConcoctionDatabase.verifyRefresh();
+    }
+
+    ConcoctionDatabase.updateLists(changeDetected);
+  }
+
+  // Compares the result of an incremental refresh with a full one
+  private static void verifyRefresh() {
+    Map<Concoction, int[]> incremental = new IdentityHashMap<>();
+    for (Concoction item : ConcoctionPool.concoctions()) {
+      incremental.put(item, ConcoctionDatabase.getCalculations(item));
+    }
+
+    int size = ConcoctionDatabase.lastRefreshSize;
+    ConcoctionDatabase.refreshConcoctionsNow();
+    ConcoctionDatabase.lastRefreshSize = size;
+
+    for (Concoction item : ConcoctionPool.concoctions()) {
+      int[] expected = ConcoctionDatabase.getCalculations(item);
+      int[] actual = incremental.get(item);
+      if (!Arrays.equals(expected, actual)) {
+        RequestLogger.printLine(
+            "Incremental refresh of "
+                + item.getName()
+                + " gave "
+                + Arrays.toString(actual)
+                + " rather than "
+                + Arrays.toString(expected));
+      }
+    }
+  }
+
+  private static int[] getCalculations(final Concoction item) {
+    return new int[] {
+      item.initial, item.creatable, item.total, item.freeTotal, item.pullable, item.price
+    };
+  }
+
+  /** Returns the number of concoctions recalculated by the last refresh. */
+  public static final int getLastRefreshSize() {
+    return ConcoctionDatabase.lastRefreshSize;
+  }
+
+  private static void buildDependents() {
+    Map<Integer, List<Concoction>> dependents = new HashMap<>();
+    for (Map.Entry<Integer, SortedListModel<AdventureResult>> entry :
+        ConcoctionDatabase.knownUses.entrySet()) {
+      List<Concoction> products = new ArrayList<>();
+      for (AdventureResult use : entry.getValue()) {
+        Concoction product = use == null ? null : ConcoctionPool.get(use);
+        if (product != null) {
+          products.add(product);
+        }
+      }
+      dependents.put(entry.getKey(), products);
+    }
+
+    // Meat paste is an implicit ingredient of anything combined
+    List<Concoction> pasted =
+        dependents.computeIfAbsent(ItemPool.MEAT_PASTE, k -> new ArrayList<>());
+    List<Concoction> independents = new ArrayList<>();
+    for (Concoction item : ConcoctionPool.concoctions()) {
+      CraftingType method = item.getMixingMethod();
+      if (method == CraftingType.COMBINE || method == CraftingType.ACOMBINE) {
+        pasted.add(item);
+      }
+      if (item.concoction == null || item.speakeasy) {
+        independents.add(item);
+      }
+    }
+    for (int itemId : new int[] {ItemPool.MEAT_PASTE, ItemPool.MEAT_STACK, ItemPool.DENSE_STACK}) {
+      Concoction item = ConcoctionPool.get(itemId);
+      if (item != null) {
+        independents.add(item);
+      }
+    }
+
+    ConcoctionDatabase.dependents = dependents;
+    ConcoctionDatabase.independents = independents;
+  }
+
+  // The limits and permissions which every concoction depends on, as set by cachePermitted
+  private static class RefreshInputs {
+    private final int adventures = ConcoctionDatabase.adventureLimit.initial;
+    private final int smithing = ConcoctionDatabase.adventureSmithingLimit.initial;
+    private final int turnFree = ConcoctionDatabase.turnFreeLimit.initial;
+    private final int turnFreeSmithing = ConcoctionDatabase.turnFreeSmithingLimit.initial;
+    private final int stills = ConcoctionDatabase.stillsLimit.initial;
+    private final int clipArt = ConcoctionDatabase.clipArtLimit.initial;
+    private final int extrudes = ConcoctionDatabase.extrudeLimit.initial;
+    private final int meat = ConcoctionDatabase.meatLimit.initial;
+    private final EnumSet<CraftingType> permitted =
+        EnumSet.copyOf(ConcoctionDatabase.PERMIT_METHOD);
+    private final EnumSet<CraftingRequirements> requirements =
+        EnumSet.copyOf(ConcoctionDatabase.REQUIREMENT_MET);
+    private final Map<CraftingType, Integer> usage =
+        new EnumMap<>(ConcoctionDatabase.ADVENTURE_USAGE);
+    private final Map<CraftingType, Integer> cost =
+        new EnumMap<>(ConcoctionDatabase.CREATION_COST);
+
+    boolean samePermissions(final RefreshInputs other) {
+      return other != null
+          && this.permitted.equals(other.permitted)
+          && this.requirements.equals(other.requirements)
+          && this.usage.equals(other.usage)
+          && this.cost.equals(other.cost);
+    }
+
+    // Returns true if the concoction uses a limit which differs between these inputs
+    boolean limitChanged(final RefreshInputs other, final Concoction item) {
+      CraftingType method = item.getMixingMethod();
+      if (this.meat != other.meat
+          && (item.price > 0 || method == CraftingType.COINMASTER || item.concoction == null)) {
+        return true;
+      }
+      if ((this.adventures != other.adventures
+              || this.smithing != other.smithing
+              || this.turnFree != other.turnFree
+              || this.turnFreeSmithing != other.turnFreeSmithing)
+          && ConcoctionDatabase.getAdventureUsage(method) != 0) {
+        return true;
+      }
+      return this.stills != other.stills && method == CraftingType.STILL
+          || this.clipArt != other.clipArt && method == CraftingType.CLIPART
+          || this.extrudes != other.extrudes && method == CraftingType.TERMINAL;
+    }
+  }
+
   /** Reset concoction stat gains when you've logged in a new character. */
   public static final void resetConcoctionStatGains() {
     for (Concoction item : ConcoctionPool.concoctions()) {
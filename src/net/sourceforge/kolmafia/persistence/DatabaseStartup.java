@@ -0,0 +1,262 @@
+package net.sourceforge.kolmafia.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.Modifiers;
+import net.sourceforge.kolmafia.objectpool.ConcoctionPool;
+import net.sourceforge.kolmafia.session.ConsequenceManager;
+import net.sourceforge.kolmafia.session.EncounterManager;
+
+/**
+ * The order in which the databases can be loaded, as a graph of stages which each load one or more
+ * databases once the stages they depend on have been loaded.
+ *
+ * <p>Most databases load their data files in their static initializers, which run whenever a class
+ * is first used. Two threads initializing classes which use each other would wait on each other
+ * forever, so a stage depends on every stage whose databases its own initializers use, and
+ * databases whose initializers use each other are loaded in the same stage.
+ *
+ * <p>The stages can all be loaded at once, with independent stages side by side, or one at a time,
+ * as needed, along with the stages they depend on. Either way, how long each stage took is kept.
+ */
+public class DatabaseStartup {
+  public static final DatabaseStartup DATABASES = new DatabaseStartup();
+
+  static {
+    DATABASES.add("effects", initializing(EffectDatabase.class));
+    DATABASES.add("skills", initializing(SkillDatabase.class), "effects");
+    DATABASES.add("holidays", initializing(HolidayDatabase.class));
+    DATABASES.add("bounties", initializing(BountyDatabase.class));
+    DATABASES.add("restores", initializing(RestoresDatabase.class));
+
+    // Items, consumables, concoctions, modifiers and the character all use each other while they
+    // load, and cannot be separated
+    DATABASES.add(
+        "items",
+        initializing(
+            ItemDatabase.class,
+            EquipmentDatabase.class,
+            ConsumablesDatabase.class,
+            Modifiers.class,
+            KoLCharacter.class,
+            ConcoctionDatabase.class,
+            ConcoctionPool.class),
+        "effects",
+        "skills",
+        "holidays",
+        "bounties");
+
+    DATABASES.add("familiars", initializing(FamiliarDatabase.class), "items");
+    DATABASES.add("monsters", initializing(MonsterDatabase.class), "items");
+
+    // Combat areas look up monsters and encounters, and encounters check their areas
+    DATABASES.add(
+        "adventures",
+        initializing(AdventureDatabase.class, EncounterManager.class),
+        "monsters");
+
+    DATABASES.add("coinmasters", initializing(CoinmastersDatabase.class), "items");
+    DATABASES.add("daily limits", initializing(DailyLimitDatabase.class), "items");
+    DATABASES.add("npc stores", initializing(NPCStoreDatabase.class), "items");
+    DATABASES.add("pockets", initializing(PocketDatabase.class), "monsters");
+    DATABASES.add("quests", initializing(QuestDatabase.class), "items");
+    DATABASES.add("consequences", initializing(ConsequenceManager.class), "items");
+  }
+
+  private final Map<String, Stage> stages = new LinkedHashMap<>();
+  private long loadNanos = 0;
+
+  public static class Stage {
+    private final String name;
+    private final Runnable loader;
+    private final List<Stage> dependencies;
+
+    private volatile boolean loaded = false;
+    private volatile long startNanos = 0;
+    private volatile long nanos = 0;
+    private volatile String threadName = "";
+
+    private Stage(final String name, final Runnable loader, final List<Stage> dependencies) {
+      this.name = name;
+      this.loader = loader;
+      this.dependencies = dependencies;
+    }
+
+    private synchronized void load() {
+      if (this.loaded) {
+        return;
+      }
+
+      for (Stage dependency : this.dependencies) {
+        dependency.load();
+      }
+
+      this.startNanos = System.nanoTime();
+      this.loader.run();
+      this.nanos = System.nanoTime() - this.startNanos;
+      this.threadName = Thread.currentThread().getName();
+      this.loaded = true;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public List<String> getDependencies() {
+      List<String> names = new ArrayList<>();
+      for (Stage dependency : this.dependencies) {
+        names.add(dependency.name);
+      }
+      return names;
+    }
+
+    public boolean isLoaded() {
+      return this.loaded;
+    }
+
+    /** Returns System.nanoTime() when the stage started loading. */
+    public long getStartNanos() {
+      return this.startNanos;
+    }
+
+    public long getNanos() {
+      return this.nanos;
+    }
+
+    public String getThreadName() {
+      return this.threadName;
+    }
+  }
+
+  // Loading a stage makes sure each of these classes has been initialized
+  private static Runnable initializing(final Class<?>... classes) {
+    return () -> {
+      for (Class<?> c : classes) {
+        try {
+          Class.forName(c.getName(), true, c.getClassLoader());
+        } catch (ClassNotFoundException e) {
+          // It was loaded to be named here
+        }
+      }
+    };
+  }
+
+  /**
+   * Adds a stage to the graph.
+   *
+   * @param name The name of the stage
+   * @param loader What loading the stage does
+   * @param dependencies The names of stages, already added, which must be loaded first
+   */
+  public synchronized void add(
+      final String name, final Runnable loader, final String... dependencies) {
+    if (this.stages.containsKey(name)) {
+      throw new IllegalArgumentException("Stage " + name + " was already added");
+    }
+
+    List<Stage> depends = new ArrayList<>();
+    for (String dependency : dependencies) {
+      Stage stage = this.stages.get(dependency);
+      if (stage == null) {
+        throw new IllegalArgumentException("Stage " + name + " depends on unknown " + dependency);
+      }
+      depends.add(stage);
+    }
+
+    this.stages.put(name, new Stage(name, loader, Collections.unmodifiableList(depends)));
+  }
+
+  /** Returns the stages, each after those it depends on. */
+  public synchronized Collection<Stage> getStages() {
+    return new ArrayList<>(this.stages.values());
+  }
+
+  public synchronized Stage getStage(final String name) {
+    return this.stages.get(name);
+  }
+
+  /** Returns how long the last call to loadAll took. */
+  public synchronized long getLoadNanos() {
+    return this.loadNanos;
+  }
+
+  /**
+   * Loads a stage, if it was not already loaded, after the stages it depends on.
+   *
+   * @return false if there is no such stage
+   */
+  public boolean load(final String name) {
+    Stage stage = this.getStage(name);
+    if (stage == null) {
+      return false;
+    }
+
+    stage.load();
+    return true;
+  }
+
+  /**
+   * Loads every stage not already loaded.
+   *
+   * @param parallel Whether stages which do not depend on each other are loaded side by side
+   */
+  public void loadAll(final boolean parallel) {
+    if (!parallel) {
+      long start = System.nanoTime();
+      for (Stage stage : this.getStages()) {
+        stage.load();
+      }
+      this.setLoadNanos(System.nanoTime() - start);
+      return;
+    }
+
+    int parallelism = Math.min(this.getStages().size(), Runtime.getRuntime().availableProcessors());
+    ForkJoinPool pool = new ForkJoinPool(Math.max(parallelism, 1));
+    try {
+      this.loadAll(pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  void loadAll(final ForkJoinPool pool) {
+    long start = System.nanoTime();
+
+    // Each stage is loaded by the pool once every stage it depends on has been
+    Map<Stage, CompletableFuture<Void>> futures = new HashMap<>();
+    for (Stage stage : this.getStages()) {
+      CompletableFuture<?>[] dependencies =
+          stage.dependencies.stream().map(futures::get).toArray(CompletableFuture<?>[]::new);
+      futures.put(stage, CompletableFuture.allOf(dependencies).thenRunAsync(stage::load, pool));
+    }
+
+    try {
+      CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      // Fail as loading the stage on this thread would have
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    } finally {
+      this.setLoadNanos(System.nanoTime() - start);
+    }
+  }
+
+  private synchronized void setLoadNanos(final long nanos) {
+    this.loadNanos = nanos;
+  }
+}
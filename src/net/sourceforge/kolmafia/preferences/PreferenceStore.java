@@ -0,0 +1,220 @@
+package net.sourceforge.kolmafia.preferences;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.sourceforge.kolmafia.utilities.StringUtilities;
+
+/**
+ * One set of preferences - global or user - mapping names to values.
+ *
+ * <p>Reads take no locks. Each value keeps its text along with whichever typed forms have been
+ * asked for, so a preference read as an int is parsed once after each change rather than on every
+ * read. Loading a new set of values swaps in a whole new map, so readers see either the old
+ * values or the new ones, never a mixture.
+ */
+class PreferenceStore {
+  // Counts changes to every store, after they are made
+  private static final AtomicLong changes = new AtomicLong();
+
+  private volatile ConcurrentHashMap<String, Value> values = new ConcurrentHashMap<>();
+
+  // Which typed forms of a Value have been computed
+  private static final int INTEGER = 1;
+  private static final int LONG = 2;
+  private static final int FLOAT = 4;
+  private static final int DOUBLE = 8;
+  private static final int BOOLEAN = 16;
+
+  private static final class Value {
+    final String text;
+    final int parsed;
+    final int intValue;
+    final long longValue;
+    final float floatValue;
+    final double doubleValue;
+    final boolean booleanValue;
+
+    Value(
+        String text,
+        int parsed,
+        int intValue,
+        long longValue,
+        float floatValue,
+        double doubleValue,
+        boolean booleanValue) {
+      this.text = text;
+      this.parsed = parsed;
+      this.intValue = intValue;
+      this.longValue = longValue;
+      this.floatValue = floatValue;
+      this.doubleValue = doubleValue;
+      this.booleanValue = booleanValue;
+    }
+
+    Value(String text) {
+      this(text, 0, 0, 0L, 0.0f, 0.0, false);
+    }
+
+    // Returns this value as the given type. As it always has, reading a value
+    // as a type stores it as that type, so unparseable text is replaced by what
+    // it was read as.
+    Value parse(int form) {
+      int intValue = this.intValue;
+      long longValue = this.longValue;
+      float floatValue = this.floatValue;
+      double doubleValue = this.doubleValue;
+      boolean booleanValue = this.booleanValue;
+      String text;
+      switch (form) {
+        case INTEGER:
+          intValue = StringUtilities.parseInt(this.text);
+          text = String.valueOf(intValue);
+          break;
+        case LONG:
+          longValue = StringUtilities.parseLong(this.text);
+          text = String.valueOf(longValue);
+          break;
+        case FLOAT:
+          floatValue = StringUtilities.parseFloat(this.text);
+          text = String.valueOf(floatValue);
+          break;
+        case DOUBLE:
+          doubleValue = StringUtilities.parseDouble(this.text);
+          text = String.valueOf(doubleValue);
+          break;
+        case BOOLEAN:
+          booleanValue = Boolean.parseBoolean(this.text);
+          text = String.valueOf(booleanValue);
+          break;
+        default:
+          return this;
+      }
+
+      // Forms already computed stay valid only if the text is unchanged
+      int parsed = text.equals(this.text) ? this.parsed | form : form;
+      return new Value(text, parsed, intValue, longValue, floatValue, doubleValue, booleanValue);
+    }
+  }
+
+  private Value get(String name, int form) {
+    ConcurrentHashMap<String, Value> values = this.values;
+    Value value = values.get(name);
+    if (value == null || (value.parsed & form) != 0) {
+      return value;
+    }
+
+    // Keep the parsed form for next time, unless the value changed meanwhile
+    Value parsed = value.parse(form);
+    if (values.replace(name, value, parsed) && !parsed.text.equals(value.text)) {
+      PreferenceStore.changes.incrementAndGet();
+    }
+    return parsed;
+  }
+
+  boolean contains(String name) {
+    return this.values.containsKey(name);
+  }
+
+  String getString(String name) {
+    Value value = this.values.get(name);
+    return value == null ? null : value.text;
+  }
+
+  boolean getBoolean(String name) {
+    Value value = this.get(name, BOOLEAN);
+    return value != null && value.booleanValue;
+  }
+
+  int getInteger(String name) {
+    Value value = this.get(name, INTEGER);
+    return value == null ? 0 : value.intValue;
+  }
+
+  long getLong(String name) {
+    Value value = this.get(name, LONG);
+    return value == null ? 0L : value.longValue;
+  }
+
+  float getFloat(String name) {
+    Value value = this.get(name, FLOAT);
+    return value == null ? 0.0f : value.floatValue;
+  }
+
+  double getDouble(String name) {
+    Value value = this.get(name, DOUBLE);
+    return value == null ? 0.0 : value.doubleValue;
+  }
+
+  void putString(String name, String text) {
+    this.values.put(name, new Value(text));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void putBoolean(String name, boolean value) {
+    this.values.put(name, new Value(value ? "true" : "false", BOOLEAN, 0, 0L, 0.0f, 0.0, value));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void putInteger(String name, int value) {
+    this.values.put(name, new Value(String.valueOf(value), INTEGER, value, 0L, 0.0f, 0.0, false));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void putLong(String name, long value) {
+    this.values.put(name, new Value(String.valueOf(value), LONG, 0, value, 0.0f, 0.0, false));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void putFloat(String name, float value) {
+    this.values.put(name, new Value(String.valueOf(value), FLOAT, 0, 0L, value, 0.0, false));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void putDouble(String name, double value) {
+    this.values.put(name, new Value(String.valueOf(value), DOUBLE, 0, 0L, 0.0f, value, false));
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void remove(String name) {
+    this.values.remove(name);
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  /** Returns the names of all the preferences. Changes while iterating are safe. */
+  Set<String> names() {
+    return this.values.keySet();
+  }
+
+  /** Replaces every value with the given ones at once. */
+  void load(Map<String, String> contents) {
+    ConcurrentHashMap<String, Value> values = new ConcurrentHashMap<>(contents.size() * 4 / 3 + 1);
+    for (Map.Entry<String, String> entry : contents.entrySet()) {
+      values.put(entry.getKey(), new Value(entry.getValue()));
+    }
+    this.values = values;
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  void clear() {
+    this.values = new ConcurrentHashMap<>();
+    PreferenceStore.changes.incrementAndGet();
+  }
+
+  /** Returns a number which is different after any change to any store. */
+  static long getChangeCount() {
+    return PreferenceStore.changes.get();
+  }
+
+  /** Returns the text of every value, sorted by name, as it is written to the file. */
+  TreeMap<String, String> snapshot() {
+    TreeMap<String, String> snapshot = new TreeMap<>();
+    for (Map.Entry<String, Value> entry : this.values.entrySet()) {
+      String text = entry.getValue().text;
+      snapshot.put(entry.getKey(), text == null ? "" : text);
+    }
+    return snapshot;
+  }
+}
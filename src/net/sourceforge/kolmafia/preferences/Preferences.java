@@ -1,21 +1,17 @@
 package net.sourceforge.kolmafia.preferences;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import net.java.dev.spellcast.utilities.DataUtilities;
@@ -25,7 +21,6 @@ import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.combat.CombatActionManager;
 import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.moods.MoodManager;
-import net.sourceforge.kolmafia.objectpool.IntegerPool;
 import net.sourceforge.kolmafia.session.MonorailManager;
 import net.sourceforge.kolmafia.swingui.AdventureFrame;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
@@ -36,22 +31,24 @@ public class Preferences {
   // If false, blocks saving of all preferences. Do not modify outside of tests.
   public static boolean saveSettingsToFile = true;
 
-  private static final Object lock = new Object(); // used to synch io
-
-  private static final byte[] LINE_BREAK_AS_BYTES = KoLConstants.LINE_BREAK.getBytes();
-
   private static final String[] characterMap = new String[65536];
 
   private static final HashMap<String, String> globalNames = new HashMap<>();
-  private static final SortedMap<String, Object> globalValues =
-      Collections.synchronizedSortedMap(new TreeMap<>());
+  private static final PreferenceStore globalValues = new PreferenceStore();
   private static File globalPropertiesFile = null;
 
   private static final HashMap<String, String> userNames = new HashMap<>();
-  private static final SortedMap<String, Object> userValues =
-      Collections.synchronizedSortedMap(new TreeMap<>());
+  private static final PreferenceStore userValues = new PreferenceStore();
   private static File userPropertiesFile = null;
 
+  private static final PreferencesPersister globalPersister =
+      new PreferencesPersister(Preferences.globalValues);
+  private static final PreferencesPersister userPersister =
+      new PreferencesPersister(Preferences.userValues);
+
+  // Names not to log when logPreferenceChange is set, or null when it isn't
+  private static volatile Set<String> changeLogFilter = null;
+
   private static final Set<String> defaultsSet = new HashSet<>();
   private static final Set<String> perUserGlobalSet = new HashSet<>();
   private static final Set<String> legacyDailies =
@@ -420,6 +417,11 @@ public class Preferences {
 
     // Read GLOBAL_prefs.txt into globalNames and globalValues
     Preferences.loadGlobalPreferences();
+
+    // Changes are written shortly after they are made; don't lose any
+    // made just before exiting.
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(Preferences::flush, "Preferences shutdown flush"));
   }
 
   private Preferences() {}
@@ -484,9 +486,12 @@ public class Preferences {
   /** Resets all settings so that the given user is represented whenever settings are modified. */
   public static synchronized void reset(String username) {
     Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
-    // Prevent anybody from manipulating the user map until we are
-    // done bulk-loading it.
+    // Keep other mass changes out until we are done; the new user's
+    // values replace the old ones all at once.
     synchronized (Preferences.userValues) {
+      // Anything not yet written belongs to the previous user
+      Preferences.userPersister.flush();
+
       if (username == null || username.equals("")) {
         if (Preferences.userPropertiesFile != null) {
           Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
@@ -519,7 +524,7 @@ public class Preferences {
     Preferences.globalPropertiesFile = file;
 
     Properties p = Preferences.loadPreferences(file);
-    Preferences.globalValues.clear();
+    Map<String, String> values = new HashMap<>();
 
     // GLOBAL_prefs.txt can contain obsolete settings which
     // migrated from global to user. Leave them, since the
@@ -532,19 +537,22 @@ public class Preferences {
       // continue;
 
       String value = (String) entry.getValue();
-      Preferences.globalValues.put(key, value);
+      values.put(key, value);
     }
 
     // For all global properties in defaults.txt which were not in
     // GLOBAL_prefs.txt, add to global map with default value.
     for (Entry<String, String> entry : Preferences.globalNames.entrySet()) {
       String key = entry.getKey();
-      if (!Preferences.globalValues.containsKey(key)) {
+      if (!values.containsKey(key)) {
         // System.out.println( "Adding new built-in global setting: " + key );
         String value = entry.getValue();
-        Preferences.globalValues.put(key, value);
+        values.put(key, value);
       }
     }
+
+    Preferences.globalValues.load(values);
+    Preferences.updateChangeLogFilter();
   }
 
   private static void loadUserPreferences(String username) {
@@ -553,18 +561,18 @@ public class Preferences {
     Preferences.userPropertiesFile = file;
 
     Properties p = Preferences.loadPreferences(file);
-    Preferences.userValues.clear();
+    Map<String, String> values = new HashMap<>();
 
     for (Entry<Object, Object> currentEntry : p.entrySet()) {
       String key = (String) currentEntry.getKey();
       String value = (String) currentEntry.getValue();
 
-      Preferences.userValues.put(key, value);
+      values.put(key, value);
     }
 
     for (Entry<String, String> entry : Preferences.userNames.entrySet()) {
       String key = entry.getKey();
-      if (Preferences.userValues.containsKey(key)) {
+      if (values.containsKey(key)) {
         continue;
       }
 
@@ -575,13 +583,15 @@ public class Preferences {
       // If it had a value in the GLOBAL map, use that (this
       // is how we migrate a preference from GLOBAL to user)
       String value =
-          Preferences.globalValues.containsKey(key)
-              ? (String) Preferences.globalValues.get(key)
+          Preferences.globalValues.contains(key)
+              ? Preferences.globalValues.getString(key)
               : entry.getValue();
 
       // System.out.println( "Adding new built-in user setting: " + key );
-      Preferences.userValues.put(key, value);
+      values.put(key, value);
     }
+
+    Preferences.userValues.load(values);
   }
 
   private static Properties loadPreferences(File file) {
@@ -603,7 +613,7 @@ public class Preferences {
     return p;
   }
 
-  private static String encodeProperty(String name, String value) {
+  static String encodeProperty(String name, String value) {
     StringBuffer buffer = new StringBuffer();
 
     Preferences.encodeString(buffer, name);
@@ -667,24 +677,15 @@ public class Preferences {
 
   public static boolean propertyExists(final String name, final boolean global) {
     return global
-        ? Preferences.globalValues.containsKey(name)
-        : Preferences.userValues.containsKey(name);
+        ? Preferences.globalValues.contains(name)
+        : Preferences.userValues.contains(name);
   }
 
   public static String getString(final String name, final boolean global) {
-    Object value = null;
+    String value =
+        global ? Preferences.globalValues.getString(name) : Preferences.userValues.getString(name);
 
-    if (global) {
-      if (Preferences.globalValues.containsKey(name)) {
-        value = Preferences.globalValues.get(name);
-      }
-    } else {
-      if (Preferences.userValues.containsKey(name)) {
-        value = Preferences.userValues.get(name);
-      }
-    }
-
-    return value == null ? "" : value.toString();
+    return value == null ? "" : value;
   }
 
   public static String getDefault(final String name) {
@@ -703,22 +704,16 @@ public class Preferences {
     // Remove only properties which do not have defaults
     if (global) {
       if (!Preferences.globalNames.containsKey(name)) {
-        // We are changing the structure of the map.
-        // globalValues is a synchronized map.
-
         Preferences.globalValues.remove(name);
         if (Preferences.getBoolean("saveSettingsOnSet")) {
-          Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
+          Preferences.saveSoon(Preferences.globalValues);
         }
       }
     } else {
       if (!Preferences.userNames.containsKey(name)) {
-        // We are changing the structure of the map.
-        // userValues is a synchronized map.
-
         Preferences.userValues.remove(name);
         if (Preferences.getBoolean("saveSettingsOnSet")) {
-          Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
+          Preferences.saveSoon(Preferences.userValues);
         }
       }
     }
@@ -743,6 +738,14 @@ public class Preferences {
     return !property.startsWith("saveState") && !property.equals("externalEditor");
   }
 
+  /**
+   * Returns a number which is different after any preference changes, so that anything computed
+   * from preferences can tell cheaply whether it might be out of date.
+   */
+  public static long getChangeCount() {
+    return PreferenceStore.getChangeCount();
+  }
+
   public static void setString(final String name, final String value) {
     setString(null, name, value);
   }
@@ -844,116 +847,41 @@ public class Preferences {
   // key "<name>.<user>"
 
   public static String getString(final String user, final String name) {
-    Object value = Preferences.getObject(user, name);
-
-    if (value == null) {
-      return "";
-    }
-
-    return value.toString();
+    String value = Preferences.getStore(name).getString(Preferences.propertyName(user, name));
+    return value == null ? "" : value;
   }
 
   public static boolean getBoolean(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return false;
-    }
-
-    if (!(value instanceof Boolean)) {
-      value = Boolean.valueOf(value.toString());
-      map.put(name, value);
-    }
-
-    return (Boolean) value;
+    return Preferences.getStore(name).getBoolean(Preferences.propertyName(user, name));
   }
 
   public static int getInteger(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0;
-    }
-
-    if (!(value instanceof Integer)) {
-      value = IntegerPool.get(StringUtilities.parseInt(value.toString()));
-      map.put(name, value);
-    }
-
-    return (Integer) value;
+    return Preferences.getStore(name).getInteger(Preferences.propertyName(user, name));
   }
 
   public static long getLong(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0;
-    }
-
-    if (!(value instanceof Long)) {
-      value = StringUtilities.parseLong(value.toString());
-      map.put(name, value);
-    }
-
-    return (Long) value;
+    return Preferences.getStore(name).getLong(Preferences.propertyName(user, name));
   }
 
   public static float getFloat(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0.0f;
-    }
-
-    if (!(value instanceof Float)) {
-      value = StringUtilities.parseFloat(value.toString());
-      map.put(name, value);
-    }
-
-    return (Float) value;
+    return Preferences.getStore(name).getFloat(Preferences.propertyName(user, name));
   }
 
   public static double getDouble(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0.0;
-    }
-
-    if (!(value instanceof Double)) {
-      value = StringUtilities.parseDouble(value.toString());
-      map.put(name, value);
-    }
-
-    return (Double) value;
+    return Preferences.getStore(name).getDouble(Preferences.propertyName(user, name));
   }
 
-  private static Map<String, Object> getMap(final String name) {
+  private static PreferenceStore getStore(final String name) {
     return Preferences.isGlobalProperty(name) ? Preferences.globalValues : Preferences.userValues;
   }
 
-  private static Object getObject(final String user, final String name) {
-    return Preferences.getObject(Preferences.getMap(name), user, name);
-  }
-
-  private static Object getObject(
-      final Map<String, Object> map, final String user, final String name) {
-    String key = Preferences.propertyName(user, name);
-    return map.get(key);
-  }
-
   public static TreeMap<String, String> getMap(boolean defaults, boolean user) {
     if (defaults) {
       return new TreeMap<>(user ? userNames : globalNames);
     } else {
       TreeMap<String, String> map = new TreeMap<>();
-      Map<String, Object> srcmap = user ? userValues : globalValues;
-      for (String pref : srcmap.keySet()) {
+      PreferenceStore srcmap = user ? userValues : globalValues;
+      for (String pref : srcmap.names()) {
         map.put(pref, getString(pref));
       }
       return map;
@@ -963,76 +891,76 @@ public class Preferences {
   public static void setString(final String user, final String name, final String value) {
     String old = Preferences.getString(user, name);
     if (!old.equals(value)) {
-      Preferences.setObject(user, name, value, value);
+      Preferences.setObject(user, name, value, (store, key) -> store.putString(key, value));
     }
   }
 
   public static void setBoolean(final String user, final String name, final boolean value) {
     boolean old = Preferences.getBoolean(user, name);
     if (old != value) {
-      Preferences.setObject(user, name, value ? "true" : "false", value);
+      Preferences.setObject(
+          user, name, String.valueOf(value), (store, key) -> store.putBoolean(key, value));
     }
   }
 
   public static void setInteger(final String user, final String name, final int value) {
     int old = Preferences.getInteger(user, name);
     if (old != value) {
-      Preferences.setObject(user, name, String.valueOf(value), IntegerPool.get(value));
+      Preferences.setObject(
+          user, name, String.valueOf(value), (store, key) -> store.putInteger(key, value));
     }
   }
 
   public static void setLong(final String user, final String name, final long value) {
     long old = Preferences.getLong(user, name);
     if (old != value) {
-      Preferences.setObject(user, name, String.valueOf(value), value);
+      Preferences.setObject(
+          user, name, String.valueOf(value), (store, key) -> store.putLong(key, value));
     }
   }
 
   public static void setFloat(final String user, final String name, final float value) {
     float old = Preferences.getFloat(user, name);
     if (old != value) {
-      Preferences.setObject(user, name, String.valueOf(value), value);
+      Preferences.setObject(
+          user, name, String.valueOf(value), (store, key) -> store.putFloat(key, value));
     }
   }
 
   public static void setDouble(final String user, final String name, final double value) {
     double old = Preferences.getDouble(user, name);
     if (old != value) {
-      Preferences.setObject(user, name, String.valueOf(value), value);
+      Preferences.setObject(
+          user, name, String.valueOf(value), (store, key) -> store.putDouble(key, value));
     }
   }
 
+  private interface Setter {
+    void put(PreferenceStore store, String key);
+  }
+
   private static void setObject(
-      final String user, final String name, final String value, final Object object) {
-    if (Preferences.getBoolean("logPreferenceChange")) {
-      Set<String> preferenceFilter = new HashSet<>();
-      Collections.addAll(
-          preferenceFilter, Preferences.getString("logPreferenceChangeFilter").split(","));
-      if (!preferenceFilter.contains(name)) {
-        String message =
-            "Preference " + name + " changed from " + Preferences.getString(name) + " to " + value;
-        RequestLogger.printLine(message);
-        RequestLogger.updateSessionLog(message);
-      }
+      final String user, final String name, final String value, final Setter setter) {
+    Set<String> filter = Preferences.changeLogFilter;
+    if (filter != null && !filter.contains(name)) {
+      String message =
+          "Preference " + name + " changed from " + Preferences.getString(name) + " to " + value;
+      RequestLogger.printLine(message);
+      RequestLogger.updateSessionLog(message);
     }
 
     if (Preferences.isGlobalProperty(name)) {
-      String actualName = Preferences.propertyName(user, name);
-
-      // We might be changing the structure of the map.
-      // globalValues is a synchronized map.
-
-      Preferences.globalValues.put(actualName, object);
+      setter.put(Preferences.globalValues, Preferences.propertyName(user, name));
+      if (name.equals("logPreferenceChange") || name.equals("logPreferenceChangeFilter")) {
+        Preferences.updateChangeLogFilter();
+      }
       if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
+        Preferences.saveSoon(Preferences.globalValues);
       }
     } else if (Preferences.userPropertiesFile != null) {
-      // We might be changing the structure of the map.
-      // userValues is a synchronized map.
-
-      Preferences.userValues.put(name, object);
+      setter.put(Preferences.userValues, name);
       if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
+        Preferences.saveSoon(Preferences.userValues);
       }
     }
 
@@ -1043,52 +971,74 @@ public class Preferences {
     }
   }
 
+  // The change log filter is only split into names when it changes, rather
+  // than on every change it might apply to.
+  private static void updateChangeLogFilter() {
+    if (!Preferences.globalValues.getBoolean("logPreferenceChange")) {
+      Preferences.changeLogFilter = null;
+      return;
+    }
+
+    Set<String> filter = new HashSet<>();
+    String names = Preferences.globalValues.getString("logPreferenceChangeFilter");
+    if (names != null) {
+      Collections.addAll(filter, names.split(","));
+    }
+    Preferences.changeLogFilter = filter;
+  }
+
   private static String propertyName(final String user, final String name) {
     return user == null ? name : name + "." + Preferences.baseUserName(user);
   }
 
-  private static void saveToFile(File file, Map<String, Object> data) {
+  private static PreferencesPersister getPersister(PreferenceStore data) {
+    return data == Preferences.globalValues
+        ? Preferences.globalPersister
+        : Preferences.userPersister;
+  }
+
+  // Marks the map as changed; it is written to the file after a short delay,
+  // so that a burst of changes only rewrites the file once.  The file is
+  // looked up under the same lock reset holds while it switches users, so
+  // that a change made meanwhile is never written to the previous user's file.
+  private static void saveSoon(PreferenceStore data) {
     if (!Preferences.saveSettingsToFile) {
       return;
     }
 
-    // See Collections.synchronizedSortedMap
-    //
-    // We are essentially iterating over the map. Not exactly - we
-    // are iterating over the entrySet - but let's keep the map and
-    // the file in synch atomically
+    synchronized (data) {
+      File file =
+          data == Preferences.globalValues
+              ? Preferences.globalPropertiesFile
+              : Preferences.userPropertiesFile;
+      Preferences.getPersister(data).markDirty(file);
+    }
+  }
 
-    synchronized (lock) {
-      // Determine the contents of the file by
-      // actually printing them.
+  private static void saveToFile(File file, PreferenceStore data) {
+    if (!Preferences.saveSettingsToFile) {
+      return;
+    }
 
-      ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    Preferences.getPersister(data).save(file);
+  }
 
-      try {
-        for (Entry<String, Object> current : data.entrySet()) {
-          ostream.write(
-              Preferences.encodeProperty(current.getKey(), current.getValue().toString())
-                  .getBytes());
-          ostream.write(LINE_BREAK_AS_BYTES);
-        }
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to write preferences as byte array.");
-      }
+  /** Writes any changed preferences to disk now, rather than waiting. */
+  public static void flush() {
+    Preferences.globalPersister.flush();
+    Preferences.userPersister.flush();
+  }
 
-      OutputStream fstream = DataUtilities.getOutputStream(file);
+  public static long getFlushCount() {
+    return PreferencesPersister.getFlushCount();
+  }
 
-      try {
-        ostream.writeTo(fstream);
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to write preferences as stream.");
-      }
+  public static double getAverageFlushMillis() {
+    return PreferencesPersister.getAverageFlushMillis();
+  }
 
-      try {
-        fstream.close();
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to close preferences stream.");
-      }
-    }
+  public static double getMaximumFlushMillis() {
+    return PreferencesPersister.getMaximumFlushMillis();
   }
 
   public static void resetToDefault(String name) {
@@ -1125,19 +1075,13 @@ public class Preferences {
   }
 
   public static void resetDailies() {
-    // See Collections.synchronizedSortedMap
-    //
-    // userValues is a synchronized map, but we are doing a mass
-    // change to it.
-
+    // Keep reset from loading another user's preferences part way through
     synchronized (Preferences.userValues) {
-      Iterator<String> it = Preferences.userValues.keySet().iterator();
-      while (it.hasNext()) {
-        String name = it.next();
+      for (String name : Preferences.userValues.names()) {
         if (isDaily(name)) {
           if (!Preferences.containsDefault(name)) {
             // fully delete preferences that start with _ and aren't in defaults.txt
-            it.remove();
+            Preferences.userValues.remove(name);
             continue;
           }
           String val = Preferences.userNames.get(name);
@@ -1153,13 +1097,8 @@ public class Preferences {
   }
 
   public static void resetGlobalDailies() {
-    // See Collections.synchronizedSortedMap
-    //
-    // globalValues is a synchronized map, but we are doing a mass
-    // change to it.
-
     synchronized (Preferences.globalValues) {
-      for (String name : Preferences.globalValues.keySet()) {
+      for (String name : Preferences.globalValues.names()) {
         if (isDaily(name)) {
           String val = Preferences.globalNames.get(name);
           if (val == null) val = "";
@@ -0,0 +1,199 @@
+package net.sourceforge.kolmafia.preferences;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Writes one preference store to its file.
+ *
+ * <p>Changes only mark the store as dirty and schedule a write shortly afterwards, so that a burst
+ * of changes - the dozen daily preferences set while parsing a fight, say - is written once. Each
+ * write goes to a temporary file which then replaces the real one, so the file on disk is always
+ * either the old or the new contents, never a partial write.
+ *
+ * <p>The file and the values written to it are taken together under the store's lock, which
+ * Preferences.reset holds while it switches users, so the values loaded for one user are never
+ * written to the previous user's file.
+ */
+class PreferencesPersister {
+  // How long to wait after a change for others to arrive
+  static final long DEBOUNCE_MILLIS = 250;
+
+  private static final byte[] LINE_BREAK_AS_BYTES = KoLConstants.LINE_BREAK.getBytes();
+
+  private static final ScheduledExecutorService WRITER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "PreferencesPersister");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private static final AtomicLong flushCount = new AtomicLong();
+  private static final AtomicLong flushNanos = new AtomicLong();
+  private static final AtomicLong maxFlushNanos = new AtomicLong();
+
+  private final PreferenceStore data;
+
+  // Guarded by this
+  private File file = null;
+  private boolean dirty = false;
+  private boolean scheduled = false;
+
+  // The number of snapshots taken, so that a write can tell if a later
+  // snapshot has already reached the file.
+  private final AtomicLong snapshots = new AtomicLong();
+
+  // The last snapshot written to each file, guarded by itself. A newer
+  // write to another user's file must not stop this one.
+  private final Map<File, Long> written = new HashMap<>();
+
+  PreferencesPersister(PreferenceStore data) {
+    this.data = data;
+  }
+
+  /** Notes that the store has changed, and arranges for it to be written to the file soon. */
+  void markDirty(File file) {
+    synchronized (this) {
+      this.file = file;
+      this.dirty = true;
+      if (this.scheduled) {
+        return;
+      }
+      this.scheduled = true;
+    }
+    PreferencesPersister.WRITER.schedule(
+        this::flushScheduled, PreferencesPersister.DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void flushScheduled() {
+    synchronized (this) {
+      this.scheduled = false;
+    }
+    this.flush();
+  }
+
+  /** Writes any outstanding changes now. */
+  void flush() {
+    File file;
+    Map<String, String> values;
+    long snapshot;
+    synchronized (this.data) {
+      synchronized (this) {
+        if (!this.dirty) {
+          return;
+        }
+        this.dirty = false;
+        file = this.file;
+      }
+      if (file == null) {
+        return;
+      }
+      values = this.data.snapshot();
+      snapshot = this.snapshots.incrementAndGet();
+    }
+    this.write(file, values, snapshot);
+  }
+
+  /** Writes the whole store to the file now, whether or not it has changed. */
+  void save(File file) {
+    if (file == null) {
+      return;
+    }
+    Map<String, String> values;
+    long snapshot;
+    synchronized (this.data) {
+      synchronized (this) {
+        if (file == this.file) {
+          this.dirty = false;
+        }
+      }
+      values = this.data.snapshot();
+      snapshot = this.snapshots.incrementAndGet();
+    }
+    this.write(file, values, snapshot);
+  }
+
+  private void write(File file, Map<String, String> values, long snapshot) {
+    long start = System.nanoTime();
+
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    try {
+      for (Entry<String, String> current : values.entrySet()) {
+        ostream.write(Preferences.encodeProperty(current.getKey(), current.getValue()).getBytes());
+        ostream.write(LINE_BREAK_AS_BYTES);
+      }
+    } catch (IOException e) {
+      System.out.println(e.getMessage() + " trying to write preferences as byte array.");
+    }
+
+    synchronized (this.written) {
+      // Someone else already wrote something newer
+      Long last = this.written.get(file);
+      if (last != null && last > snapshot) {
+        return;
+      }
+      this.written.put(file, snapshot);
+      PreferencesPersister.replaceFile(file, ostream);
+    }
+
+    long elapsed = System.nanoTime() - start;
+    PreferencesPersister.flushCount.incrementAndGet();
+    PreferencesPersister.flushNanos.addAndGet(elapsed);
+    PreferencesPersister.maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+  }
+
+  private static void replaceFile(File file, ByteArrayOutputStream contents) {
+    File directory = file.getAbsoluteFile().getParentFile();
+    if (directory != null && !directory.exists()) {
+      directory.mkdirs();
+    }
+
+    File temp = new File(directory, file.getName() + ".tmp");
+    try {
+      Files.write(temp.toPath(), contents.toByteArray());
+    } catch (IOException e) {
+      System.out.println(e.getMessage() + " trying to write preferences as stream.");
+      return;
+    }
+
+    try {
+      try {
+        Files.move(
+            temp.toPath(),
+            file.toPath(),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      System.out.println(e.getMessage() + " trying to replace preferences file.");
+    }
+  }
+
+  static long getFlushCount() {
+    return PreferencesPersister.flushCount.get();
+  }
+
+  static double getAverageFlushMillis() {
+    long count = PreferencesPersister.flushCount.get();
+    return count == 0 ? 0.0 : PreferencesPersister.flushNanos.get() / 1e6 / count;
+  }
+
+  static double getMaximumFlushMillis() {
+    return PreferencesPersister.maxFlushNanos.get() / 1e6;
+  }
+}
@@ -15,7 +15,6 @@ import java.net.URLEncoder;
 import java.net.UnknownHostException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -27,7 +26,6 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 import net.sourceforge.kolmafia.AdventureResult;
 import net.sourceforge.kolmafia.KoLAdventure;
 import net.sourceforge.kolmafia.KoLCharacter;
@@ -68,11 +66,11 @@ import net.sourceforge.kolmafia.session.ValhallaManager;
 import net.sourceforge.kolmafia.swingui.RequestSynchFrame;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
-import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.HttpUtilities;
 import net.sourceforge.kolmafia.utilities.InputFieldUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
+import net.sourceforge.kolmafia.utilities.ResponseReader;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.webui.BarrelDecorator;
 import net.sourceforge.kolmafia.webui.RelayAgent;
@@ -1611,9 +1609,6 @@ public class GenericRequest implements Runnable {
 
     try {
       istream = this.formConnection.getInputStream();
-      if ("gzip".equals(this.formConnection.getContentEncoding())) {
-        istream = new GZIPInputStream(istream);
-      }
       this.responseCode = this.formConnection.getResponseCode();
 
       // Handle HTTP 3xx Redirections
@@ -2087,7 +2082,11 @@ public class GenericRequest implements Runnable {
       RequestLogger.updateDebugLog("Retrieving server reply");
     }
 
-    this.responseText = new String(ByteBufferUtilities.read(istream), StandardCharsets.UTF_8);
+    this.responseText =
+        ResponseReader.read(
+            this.getClass().getSimpleName(),
+            istream,
+            "gzip".equals(this.formConnection.getContentEncoding()));
 
     if (this.responseCode == 200 && RequestLogger.isTracing()) {
       String buffer =
@@ -1,10 +1,12 @@
 package net.sourceforge.kolmafia.request;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -69,11 +71,11 @@ import net.sourceforge.kolmafia.session.TurnCounter;
 import net.sourceforge.kolmafia.session.VoteMonsterManager;
 import net.sourceforge.kolmafia.swingui.AdventureFrame;
 import net.sourceforge.kolmafia.swingui.CommandDisplayFrame;
-import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.utilities.WikiUtilities;
+import net.sourceforge.kolmafia.webui.RelayFileCache;
 import net.sourceforge.kolmafia.webui.RelayServer;
 import net.sourceforge.kolmafia.webui.StationaryButtonDecorator;
 import org.json.JSONObject;
@@ -530,6 +532,52 @@ public class RelayRequest extends PasswordHashRequest {
     this.headers.add("Connection: close");
   }
 
+  /**
+   * Tells whether the browser already has the file in this response, as it was served with an ETag
+   * the browser now sends back.
+   *
+   * @param ifNoneMatch The browser's If-None-Match header
+   */
+  public boolean isNotModified(final String ifNoneMatch) {
+    if (this.responseCode != 200) {
+      return false;
+    }
+
+    String entityTag = "";
+    for (String header : this.headers) {
+      if (header.startsWith("ETag: ")) {
+        entityTag = header.substring(6);
+      }
+    }
+
+    if (entityTag.isEmpty()) {
+      return false;
+    }
+
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(entityTag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  public void sendNotModified() {
+    String entityTag = this.getHeaderField("ETag");
+    this.headers.clear();
+    this.pseudoResponse("HTTP/1.1 304 Not Modified", "");
+    if (!entityTag.isEmpty()) {
+      this.headers.add("ETag: " + entityTag);
+    }
+    this.responseCode = 304;
+    this.rawByteBuffer = this.responseText.getBytes(StandardCharsets.UTF_8);
+  }
+
   private StringBuffer readContents(final BufferedReader reader) {
     StringBuffer contentBuffer = new StringBuffer();
     if (reader == null) {
@@ -629,9 +677,17 @@ public class RelayRequest extends PasswordHashRequest {
       return;
     }
 
-    this.lastModified = imageFile.lastModified();
-    this.rawByteBuffer = ByteBufferUtilities.read(imageFile);
+    RelayFileCache.CachedFile cached = RelayFileCache.get(imageFile);
+    if (cached == null) {
+      this.sendNotFound();
+      return;
+    }
+
+    this.lastModified = cached.getLastModified();
+    this.rawByteBuffer = cached.getBytes();
     this.headers.add("Access-Control-Allow-Origin: *");
+    this.headers.add("ETag: " + cached.getEntityTag());
+    this.headers.add("Cache-Control: max-age=86400");
     this.pseudoResponse("HTTP/1.1 200 OK", "");
   }
 
@@ -668,10 +724,12 @@ public class RelayRequest extends PasswordHashRequest {
 
     // Read the file
     StringBuffer replyBuffer;
+    RelayFileCache.CachedFile cached = RelayFileCache.get(override);
 
-    if (override.exists()) {
+    if (cached != null) {
       // If the file is in the file system, it is a local override
-      replyBuffer = this.readContents(DataUtilities.getReader(override));
+      replyBuffer =
+          this.readContents(DataUtilities.getReader(new ByteArrayInputStream(cached.getBytes())));
     } else {
       // If the file is not in the file system, it's probably a KoL
       // file which is not in the image directory for some reason.
@@ -679,27 +737,45 @@ public class RelayRequest extends PasswordHashRequest {
       replyBuffer = FileUtilities.downloadFile("http://www.kingdomofloathing.com/" + filename);
     }
 
+    // Whether what is sent is just what is in the file
+    boolean unchanged = cached != null;
+
     // If it is a KoLmafia built-in file, as opposed to the
     // user-supplied relay script, do special things
     if (RelayRequest.builtinRelayFile(filename)) {
       if (replyBuffer.indexOf("MAFIAHIT") != -1) {
         StringUtilities.globalStringReplace(
             replyBuffer, "MAFIAHIT", "pwd=" + GenericRequest.passwordHash);
+        unchanged = false;
       } else if (!filename.endsWith(".html")) {
-        long lastModified = override.lastModified();
         long now = (new Date()).getTime();
         long expires = now + (1000L * 60 * 60 * 24 * 30);
-        this.headers.add("Last-Modified: " + StringUtilities.formatDate(lastModified));
+        this.lastModified = override.lastModified();
         this.headers.add("Expires: " + StringUtilities.formatDate(expires));
       }
     }
 
     if (this.isChatRequest) {
       StringUtilities.globalStringReplace(replyBuffer, "<br>", "</font><br>");
+      unchanged = false;
     }
 
     if (filename.endsWith("chat.html")) {
       RequestEditorKit.addChatFeatures(replyBuffer);
+      unchanged = false;
+    }
+
+    // Tell the browser which version of the file it has, so that it
+    // need not be sent again until the file changes
+    if (unchanged) {
+      // Unless it may be kept for a while, the browser should ask each time
+      if (this.headers.isEmpty() && !this.contentType.equals("text/html")) {
+        this.headers.add("Cache-Control: no-cache");
+      }
+      this.lastModified = cached.getLastModified();
+      // RelayAgent points KoL's image links at the image cache when it is in use
+      String images = Preferences.getBoolean("useImageCache") ? "cached" : "remote";
+      this.headers.add("ETag: " + cached.getEntityTag(images));
     }
 
     // Return the reply buffer as the response text to the local request
@@ -1,11 +1,16 @@
 package net.sourceforge.kolmafia.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -18,8 +23,28 @@ import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.StandardRequest;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
+/**
+ * Tracks which monsters are banished, and by what.
+ *
+ * <p>Areas work out their encounter chances in parallel, so the banishes are guarded by the class
+ * lock. The banishedMonsters preference is only set once the lock is released, as its listeners may
+ * ask for the banishes from another thread.
+ */
 public class BanishManager {
   private static final Set<BanishedMonster> banishedMonsters = new LinkedHashSet<>();
+  // The same banishes, by the name of the monster in any case, and by banisher, oldest first
+  private static final Map<String, List<BanishedMonster>> banishesByMonster =
+      new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private static final Map<Banisher, List<BanishedMonster>> banishesByBanisher =
+      new EnumMap<>(Banisher.class);
+  // Banishes which run out after a number of turns, by the last turn they last, soonest first
+  private static final PriorityQueue<BanishedMonster> turnBanishes =
+      new PriorityQueue<>(Comparator.comparingInt(BanishedMonster::getLastTurn));
+  // What was last saved to the banishedMonsters preference, or null if the banishes have changed.
+  // The preference keeps the very String it was set to, so it is first compared by identity.
+  private static String savedBanishes = null;
+  // The turn at which banishes were last checked for having run out, or -1 if they must be again
+  private static int checkedRun = -1;
 
   private BanishManager() {}
 
@@ -184,7 +209,11 @@ public class BanishManager {
     }
 
     public final Integer turnsLeft() {
-      return (turnBanished + banisher.getDuration()) - KoLCharacter.getCurrentRun();
+      return this.getLastTurn() - KoLCharacter.getCurrentRun();
+    }
+
+    public final int getLastTurn() {
+      return this.turnBanished + this.banisher.getDuration();
     }
 
     public final boolean isValid() {
@@ -224,14 +253,23 @@ public class BanishManager {
     }
   }
 
-  public static final void clearCache() {
+  public static final synchronized void clearCache() {
     BanishManager.banishedMonsters.clear();
+    BanishManager.banishesByMonster.clear();
+    BanishManager.banishesByBanisher.clear();
+    BanishManager.turnBanishes.clear();
+    BanishManager.savedBanishes = null;
+    BanishManager.checkedRun = -1;
   }
 
   public static final void loadBanishedMonsters() {
-    BanishManager.banishedMonsters.clear();
-
     String banishes = Preferences.getString("banishedMonsters");
+    BanishManager.loadBanishedMonsters(banishes);
+  }
+
+  private static synchronized void loadBanishedMonsters(final String banishes) {
+    BanishManager.clearCache();
+
     if (banishes.length() == 0) {
       return;
     }
@@ -257,13 +295,57 @@ public class BanishManager {
   }
 
   private static final void saveBanishedMonsters() {
-    Preferences.setString(
-        "banishedMonsters",
+    String banishes = BanishManager.getBanishesToSave();
+    if (banishes != null) {
+      Preferences.setString("banishedMonsters", banishes);
+    }
+  }
+
+  // Returns the banishes as the preference holds them, or null if it already does
+  private static synchronized String getBanishesToSave() {
+    String current = Preferences.getString("banishedMonsters");
+    if (current == BanishManager.savedBanishes) {
+      return null;
+    }
+
+    String banishes =
         banishedMonsters.stream()
             .flatMap(
                 m -> Stream.of(m.getMonsterName(), m.getBanisher().getName(), m.getTurnBanished()))
             .map(Object::toString)
-            .collect(Collectors.joining(":")));
+            .collect(Collectors.joining(":"));
+
+    // An equal value already there is not replaced, so remember that one instead
+    if (banishes.equals(current)) {
+      BanishManager.savedBanishes = current;
+      return null;
+    }
+
+    BanishManager.savedBanishes = banishes;
+    return banishes;
+  }
+
+  private static void removeBanishedMonster(final BanishedMonster banishedMonster) {
+    if (!banishedMonsters.remove(banishedMonster)) {
+      return;
+    }
+
+    BanishManager.removeFrom(banishesByMonster, banishedMonster.getMonsterName(), banishedMonster);
+    BanishManager.removeFrom(banishesByBanisher, banishedMonster.getBanisher(), banishedMonster);
+    if (banishedMonster.getBanisher().getResetType().isTurnReset()) {
+      turnBanishes.remove(banishedMonster);
+    }
+    BanishManager.savedBanishes = null;
+  }
+
+  private static <K> void removeFrom(
+      final Map<K, List<BanishedMonster>> banishes,
+      final K key,
+      final BanishedMonster banishedMonster) {
+    List<BanishedMonster> list = banishes.get(key);
+    if (list != null && list.remove(banishedMonster) && list.isEmpty()) {
+      banishes.remove(key);
+    }
   }
 
   /**
@@ -272,7 +354,12 @@ public class BanishManager {
    * @param predicate Predicate dictating removal
    */
   private static final void resetIf(Predicate<BanishedMonster> predicate) {
-    BanishManager.banishedMonsters.removeIf(predicate);
+    synchronized (BanishManager.class) {
+      banishedMonsters.stream()
+          .filter(predicate)
+          .collect(Collectors.toList())
+          .forEach(BanishManager::removeBanishedMonster);
+    }
     BanishManager.saveBanishedMonsters();
   }
 
@@ -302,8 +389,31 @@ public class BanishManager {
     resetIfType(r -> r == Reset.COSMIC_BOWLING_BALL_RESET);
   }
 
+  /**
+   * Removes the banishes which are no longer in effect, and saves the banishes if they have changed
+   * since they were last saved, or the preference was set to something else. Unless the turn has
+   * changed or a banish was added, this only compares a few fields.
+   */
   public static void recalculate() {
-    resetIf(Predicate.not(BanishedMonster::isValid));
+    BanishManager.removeExpiredBanishes();
+    BanishManager.saveBanishedMonsters();
+  }
+
+  private static synchronized void removeExpiredBanishes() {
+    // Only banishes which have run out of turns, found soonest first, or which last until a cosmic
+    // bowling ball returns, can end without being reset
+    int currentRun = KoLCharacter.getCurrentRun();
+    if (currentRun != BanishManager.checkedRun) {
+      while (!turnBanishes.isEmpty() && turnBanishes.peek().getLastTurn() < currentRun) {
+        BanishManager.removeBanishedMonster(turnBanishes.peek());
+      }
+      BanishManager.checkedRun = currentRun;
+    }
+
+    List<BanishedMonster> bowled = banishesByBanisher.get(Banisher.BOWL_A_CURVEBALL);
+    if (bowled != null && Preferences.getInteger("cosmicBowlingBallReturnCombats") <= 0) {
+      List.copyOf(bowled).forEach(BanishManager::removeBanishedMonster);
+    }
   }
 
   public static final void banishCurrentMonster(final Banisher banisher) {
@@ -326,21 +436,30 @@ public class BanishManager {
   }
 
   public static final void banishMonster(final MonsterData monster, final Banisher banisher) {
-    int queueSize = banisher.getQueueSize();
-
-    if (BanishManager.countBanishes(banisher) >= queueSize) {
-      // If we've rebanished a monster that wasn't going to run out anyway, there's nothing to do.
-      if (queueSize == 1
-          && monster.getName().equals(getBanishedMonster(banisher))
-          && !banisher.getResetType().isTurnReset()) {
-        return;
+    synchronized (BanishManager.class) {
+      BanishManager.removeExpiredBanishes();
+
+      int queueSize = banisher.getQueueSize();
+
+      if (BanishManager.countBanishes(banisher) >= queueSize) {
+        // If we've rebanished a monster that wasn't going to run out anyway, there's nothing to do.
+        if (queueSize == 1
+            && monster.getName().equals(banishesByBanisher.get(banisher).get(0).getMonsterName())
+            && !banisher.getResetType().isTurnReset()) {
+          return;
+        }
+
+        BanishManager.removeOldestBanish(banisher);
       }
 
-      BanishManager.removeOldestBanish(banisher);
+      // Banishes fail in some areas, monsters in them cannot be banished
+      if (!monster.isNoBanish()) {
+        int turnCost = banisher.isTurnFree() ? 0 : 1;
+        BanishManager.addBanishedMonster(
+            monster.getName(), banisher, KoLCharacter.getCurrentRun() + turnCost);
+      }
     }
 
-    // Banishes fail in some areas, monsters in them cannot be banished
-
     if (monster.isNoBanish()) {
       KoLmafia.updateDisplay(
           "Banish of "
@@ -348,15 +467,12 @@ public class BanishManager {
               + " by "
               + banisher.getName()
               + " failed, as monsters from this area cannot be banished.");
+      BanishManager.recalculate();
       return;
     }
 
     KoLmafia.updateDisplay(monster.getName() + " banished by " + banisher.getName() + ".");
 
-    int turnCost = banisher.isTurnFree() ? 0 : 1;
-    BanishManager.addBanishedMonster(
-        monster.getName(), banisher, KoLCharacter.getCurrentRun() + turnCost);
-
     BanishManager.recalculate();
 
     // Legacy support
@@ -399,6 +515,14 @@ public class BanishManager {
     }
 
     banishedMonsters.add(banishedMonster);
+    banishesByMonster.computeIfAbsent(monsterName, k -> new ArrayList<>()).add(banishedMonster);
+    banishesByBanisher.computeIfAbsent(banisher, k -> new ArrayList<>()).add(banishedMonster);
+    if (banisher.getResetType().isTurnReset()) {
+      turnBanishes.add(banishedMonster);
+      // It may already have run out, if it was loaded from an earlier turn
+      BanishManager.checkedRun = -1;
+    }
+    BanishManager.savedBanishes = null;
     return true;
   }
 
@@ -410,46 +534,61 @@ public class BanishManager {
     resetIf(m -> m.getMonsterName().equals(monster));
   }
 
+  // Leaves saving the banishes to the banish which replaces it
   private static final void removeOldestBanish(final Banisher banisher) {
-    banishedMonsters.stream()
-        .filter(b -> b.getBanisher().equals(banisher))
+    banishesByBanisher.getOrDefault(banisher, List.of()).stream()
         .min(Comparator.comparingInt(BanishedMonster::getTurnBanished))
         .map(BanishedMonster::getMonsterName)
-        .ifPresent(BanishManager::removeBanishByMonster);
+        .ifPresent(
+            monster ->
+                banishedMonsters.stream()
+                    .filter(m -> m.getMonsterName().equals(monster))
+                    .collect(Collectors.toList())
+                    .forEach(BanishManager::removeBanishedMonster));
   }
 
   public static final boolean isBanished(final String monster) {
     BanishManager.recalculate();
 
-    boolean iceHouseEffective = StandardRequest.isAllowed("Items", "ice house");
+    synchronized (BanishManager.class) {
+      List<BanishedMonster> banishes = monster == null ? null : banishesByMonster.get(monster);
+      if (banishes == null) {
+        return false;
+      }
 
-    return banishedMonsters.stream()
-        .anyMatch(
-            m -> {
-              if (!m.getMonsterName().equalsIgnoreCase(monster)) return false;
-              return (!m.getBanisher().equals(Banisher.ICE_HOUSE) || iceHouseEffective);
-            });
+      for (BanishedMonster banishedMonster : banishes) {
+        if (banishedMonster.getBanisher() != Banisher.ICE_HOUSE) {
+          return true;
+        }
+      }
+    }
+
+    // Only the ice house banishes it, which may not be allowed
+    return StandardRequest.isAllowed("Items", "ice house");
   }
 
   private static int countBanishes(final Banisher banisher) {
-    return (int) banishedMonsters.stream().filter(m -> m.getBanisher().equals(banisher)).count();
+    return banishesByBanisher.getOrDefault(banisher, List.of()).size();
   }
 
   public static final List<String> getBanishedMonsters() {
     BanishManager.recalculate();
 
-    return banishedMonsters.stream()
-        .map(BanishedMonster::getMonsterName)
-        .collect(Collectors.toList());
+    synchronized (BanishManager.class) {
+      return banishedMonsters.stream()
+          .map(BanishedMonster::getMonsterName)
+          .collect(Collectors.toList());
+    }
   }
 
   public static final List<String> getBanishedMonsters(Banisher banisher) {
     BanishManager.recalculate();
 
-    return banishedMonsters.stream()
-        .filter(m -> m.getBanisher().equals(banisher))
-        .map(BanishedMonster::getMonsterName)
-        .collect(Collectors.toList());
+    synchronized (BanishManager.class) {
+      return banishesByBanisher.getOrDefault(banisher, List.of()).stream()
+          .map(BanishedMonster::getMonsterName)
+          .collect(Collectors.toList());
+    }
   }
 
   public static final String getBanishedMonster(Banisher banisher) {
@@ -460,15 +599,17 @@ public class BanishManager {
   public static final String[][] getBanishData() {
     BanishManager.recalculate();
 
-    return banishedMonsters.stream()
-        .map(
-            b ->
-                new String[] {
-                  b.getMonsterName(),
-                  b.getBanisher().getName(),
-                  String.valueOf(b.getTurnBanished()),
-                  b.getDescription()
-                })
-        .toArray(String[][]::new);
+    synchronized (BanishManager.class) {
+      return banishedMonsters.stream()
+          .map(
+              b ->
+                  new String[] {
+                    b.getMonsterName(),
+                    b.getBanisher().getName(),
+                    String.valueOf(b.getTurnBanished()),
+                    b.getDescription()
+                  })
+          .toArray(String[][]::new);
+    }
   }
 }
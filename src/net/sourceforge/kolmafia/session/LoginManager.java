@@ -14,6 +14,7 @@ import net.sourceforge.kolmafia.persistence.AdventureDatabase;
 import net.sourceforge.kolmafia.persistence.AdventureQueueDatabase;
 import net.sourceforge.kolmafia.persistence.AdventureSpentDatabase;
 import net.sourceforge.kolmafia.persistence.ConcoctionDatabase;
+import net.sourceforge.kolmafia.persistence.DatabaseStartup;
 import net.sourceforge.kolmafia.persistence.HolidayDatabase;
 import net.sourceforge.kolmafia.persistence.ItemDatabase;
 import net.sourceforge.kolmafia.persistence.MallPriceDatabase;
@@ -154,6 +155,14 @@ public class LoginManager {
    * can begin adventuring.
    */
   public static void initialize(final String username) {
+    // Load every database the session will use, independent ones side by side if asked to.
+    // Without the GUI, only load those logging in uses; the rest load when they are first used.
+    if (StaticEntity.isGUIRequired()) {
+      DatabaseStartup.DATABASES.loadAll(Preferences.getBoolean("loadDatabasesInParallel"));
+    } else {
+      DatabaseStartup.DATABASES.load("adventures");
+    }
+
     // Load the JSON string first, so we can use it, if necessary.
     ActionBarManager.loadJSONString();
 
@@ -1,5 +1,6 @@
 package net.sourceforge.kolmafia.session;
 
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.AdventureResult;
@@ -12,6 +13,7 @@ import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.objectpool.SkillPool;
+import net.sourceforge.kolmafia.pages.PageHandlers;
 import net.sourceforge.kolmafia.pages.PageRegistry;
 import net.sourceforge.kolmafia.persistence.ConcoctionDatabase;
 import net.sourceforge.kolmafia.persistence.EffectDatabase;
@@ -216,409 +218,444 @@ public class ResponseTextParser {
     ResponseTextParser.externalUpdate(request.getURLString(), request.responseText);
   }
 
+  // Parses a page, or returns false if it is not one the parser wants after all
+  @FunctionalInterface
+  private interface PageParser {
+    boolean parse(String location, String responseText);
+  }
+
+  private static PageParser always(final BiConsumer<String, String> parser) {
+    return (location, responseText) -> {
+      parser.accept(location, responseText);
+      return true;
+    };
+  }
+
+  // The parsers for each page. Only the first which wants a page parses it.
+  private static final PageHandlers<PageParser> PARSERS = new PageHandlers<>();
+
+  static {
+    PARSERS
+        .add("account.php", always(AccountRequest::parseAccountData))
+        .add("account_contactlist.php", always(ContactListRequest::parseResponse))
+        .add("account_manageoutfits.php", always(CustomOutfitRequest::parseResponse))
+        .add("adventure.php", always(SeaMerkinRequest::parseColosseumResponse))
+        .add("api.php", always(ApiRequest::parseResponse))
+        .add(
+            "ascend.php",
+            (location, responseText) -> {
+              if (!location.contains("alttext=communityservice")
+                  || Preferences.getBoolean("kingLiberated")) {
+                return false;
+              }
+              // Redirect from donating body to science in Community Service
+              ChoiceManager.canWalkAway();
+              KoLCharacter.liberateKing();
+              return true;
+            })
+        .add("ascensionhistory.php", always(AscensionHistoryRequest::parseResponse))
+        .add("arena.php", always(CakeArenaRequest::parseResponse))
+        .add("backoffice.php", always(ManageStoreRequest::parseResponse))
+        .add(
+            "basement.php",
+            always((location, responseText) -> BasementRequest.checkBasement(responseText)))
+        .add(
+            "bedazzle.php",
+            always((location, responseText) -> EquipmentRequest.parseBedazzlements(responseText)))
+        .add("beerpong.php", always(BeerPongRequest::parseResponse))
+        .add("bigisland.php", always(IslandRequest::parseResponse))
+        .add("postwarisland.php", always(IslandRequest::parseResponse))
+        .add("bone_altar.php", always(AltarOfBonesRequest::parseResponse))
+        .add("bounty.php", always(BountyHunterHunterRequest::parseResponse))
+        .add("campground.php", always(CampgroundRequest::parseResponse))
+        .add(
+            "cafe.php",
+            always(
+                (location, responseText) -> {
+                  ChezSnooteeRequest.parseResponse(location, responseText);
+                  MicroBreweryRequest.parseResponse(location, responseText);
+                }))
+        .add("cave.php", always(NemesisRequest::parseResponse))
+        .add(
+            "charsheet.php",
+            (location, responseText) -> {
+              if (location.contains("ajax=1")) {
+                return false;
+              }
+              CharSheetRequest.parseStatus(responseText);
+              return true;
+            })
+        .add("choice.php?whichchoice=562", always(FudgeWandRequest::parseResponse))
+        .add("choice.php?whichchoice=585", always(ClanLoungeSwimmingPoolRequest::parseResponse))
+        .add("choice.php?whichchoice=922", always(SummoningChamberRequest::parseResponse))
+        .add("choice.php?whichchoice=1278", always(ClanFortuneRequest::parseResponse))
+        .add("clan_hall.php", always(ClanHallRequest::parseResponse))
+        .add("clan_rumpus.php", always(ClanRumpusRequest::parseResponse))
+        .add("clan_stash.php", always(ClanStashRequest::parseTransfer))
+        .add("clan_dreadsylvania.php", always(DreadsylvaniaRequest::parseResponse))
+        .add(
+            "clan_viplounge.php",
+            always(
+                (location, responseText) -> {
+                  if (location.contains("preaction=lovetester")) {
+                    ClanFortuneRequest.parseResponse(location, responseText);
+                  } else {
+                    ClanLoungeRequest.parseResponse(location, responseText);
+                  }
+                }))
+        .add("closet.php", always(ClosetRequest::parseTransfer))
+        .add("fillcloset.php", always(ClosetRequest::parseTransfer))
+        .add("craft.php", always(CreateItemRequest::parseCrafting))
+        .add("crimbo09.php", always(Crimbo09Request::parseResponse))
+        .add("crimbo10.php", always(Crimbo10Request::parseResponse))
+        .add("crimbo11.php", always(Crimbo11Request::parseResponse))
+        .add("crimbo21tree.php", always(Crimbo21TreeRequest::parseResponse))
+        .add("curse.php", always(CurseRequest::parseResponse))
+        .add("da.php", always(ShrineRequest::parseResponse))
+        .add("desc_skill.php", always(ResponseTextParser::parseSkillDescription))
+        .add(
+            "desc_item.php",
+            (location, responseText) -> {
+              if (location.contains("otherplayer=")) {
+                return false;
+              }
+              ResponseTextParser.parseItemDescription(location, responseText);
+              return true;
+            })
+        .add("desc_effect.php", always(ResponseTextParser::parseEffectDescription))
+        .add(
+            "diary.php",
+            always((location, responseText) -> UseItemRequest.handleDiary(responseText)))
+        .add("dig.php", always(DigRequest::parseResponse))
+        .add("dwarfcontraption.php", always(DwarfContraptionRequest::parseResponse))
+        .add("dwarffactory.php", always(DwarfFactoryRequest::parseResponse))
+        .add(
+            "familiar.php",
+            always(
+                (location, responseText) -> {
+                  FamiliarRequest.parseResponse(location, responseText);
+                  if (!location.contains("ajax=1")) {
+                    FamiliarData.registerFamiliarData(responseText);
+                  }
+                }))
+        .add("qterrarium.php", always(QuantumTerrariumRequest::parseResponse))
+        .add("famteam.php", always(FamTeamRequest::parseResponse))
+        .add("familiarbinger.php", always(UseItemRequest::parseBinge))
+        .add("gamestore.php", always(GameShoppeRequest::parseResponse))
+        .add("guild.php", always(GuildRequest::parseResponse))
+        .add("hermit.php", always(HermitRequest::parseHermitTrade))
+        .add("heydeze.php", always(HeyDezeRequest::parseResponse))
+        .add("friars.php", always(FriarRequest::parseResponse))
+        .add("gnomes.php", always(GnomeTinkerRequest::parseCreation))
+        // Keep your current equipment and familiars updated, if you
+        // visit the appropriate pages.
+        .add("inventory.php", always(ResponseTextParser::parseInventory))
+        .add(
+            "inv_equip.php",
+            (location, responseText) -> {
+              if (!location.contains("ajax=1")) {
+                return false;
+              }
+              // If we are changing equipment via a chat command,
+              // try to deduce what changed.
+              EquipmentRequest.parseEquipmentChange(location, responseText);
+              return true;
+            })
+        .add("inv_eat.php", ResponseTextParser::parseItemUse)
+        .add("inv_booze.php", ResponseTextParser::parseItemUse)
+        .add("inv_spleen.php", ResponseTextParser::parseItemUse)
+        .add("inv_use.php", ResponseTextParser::parseItemUse)
+        .add("inv_familiar.php", ResponseTextParser::parseItemUse)
+        .add("knoll_mushrooms.php", always(MushroomRequest::parseResponse))
+        .add("leaflet.php", always(LeafletRequest::parseResponse))
+        .add("mallstore.php", always(MallPurchaseRequest::parseResponse))
+        .add("managecollection.php", always(DisplayCaseRequest::parseDisplayTransfer))
+        .add("managecollectionshelves.php", always(DisplayCaseRequest::parseDisplayArrangement))
+        .add("managestore.php", always(AutoMallRequest::parseTransfer))
+        .add("mining.php", always(MineDecorator::parseResponse))
+        .add(
+            "monkeycastle.php",
+            always(
+                (location, responseText) -> {
+                  if (location.contains("who=2") || location.contains("action=buyitem")) {
+                    BigBrotherRequest.parseResponse(location, responseText);
+                  } else if (location.contains("who=4")) {
+                    MomRequest.parseResponse(location, responseText);
+                  }
+                }))
+        .add("mrstore.php", always(MrStoreRequest::parseResponse))
+        .add("multiuse.php", ResponseTextParser::parseMultiUse)
+        .add("skills.php", ResponseTextParser::parseMultiUse)
+        .add("pandamonium.php", always(PandamoniumRequest::parseResponse))
+        .add("peevpee.php", always(PeeVPeeRequest::parseResponse))
+        .add("place.php", always(PlaceRequest::parseResponse))
+        .add(
+            "questlog.php",
+            always(
+                (location, responseText) -> {
+                  MonsterManuelRequest.parseResponse(location, responseText);
+                  QuestLogRequest.registerQuests(true, location, responseText);
+                }))
+        .add("raffle.php", always(RaffleRequest::parseResponse))
+        .add("runskillz.php", always(UseSkillRequest::parseResponse))
+        .add("skillz.php", always(UseSkillRequest::parseResponse))
+        .add("sea_merkin.php", always(SeaMerkinRequest::parseResponse))
+        .add("sea_skatepark.php", always(SkateParkRequest::parseResponse))
+        .add("sellstuff.php", always(AutoSellRequest::parseCompactAutoSell))
+        .add("sellstuff_ugly.php", always(AutoSellRequest::parseDetailedAutoSell))
+        .add("sendmessage.php", always(SendMailRequest::parseTransfer))
+        .add("shop.php", always(NPCPurchaseRequest::parseShopResponse))
+        .add("showclan.php", always(ShowClanRequest::parseResponse))
+        .add(
+            "skills.php",
+            always(
+                (location, responseText) -> {
+                  if (location.contains("action=useditem")) {
+                    ResponseTextParser.parseConsumption(responseText);
+                  }
+                }))
+        .add("spaaace.php", always(SpaaaceRequest::parseResponse))
+        .add("storage.php", always(StorageRequest::parseTransfer))
+        .add("suburbandis.php", always(SuburbanDisRequest::parseResponse))
+        .add(
+            "sushi.php",
+            always(
+                (location, responseText) ->
+                    SushiRequest.parseConsumption(location, responseText, true)))
+        .add("tavern.php", always(TavernRequest::parseResponse))
+        .add("tiles.php", always(DvorakManager::parseResponse))
+        .add(
+            "topmenu.php",
+            always(
+                (location, responseText) -> {
+                  if (KoLCharacter.getLimitmode() == Limitmode.BATMAN) {
+                    BatManager.parseTopMenu(responseText);
+                  }
+                }))
+        .add("town_altar.php", always(AltarOfLiteracyRequest::parseResponse))
+        .add("town_right.php", always(GourdRequest::parseResponse))
+        .add("town_sendgift.php", always(SendGiftRequest::parseTransfer))
+        .add("traveler.php", always(TravelingTraderRequest::parseResponse))
+        .add("trophy.php", always(TrophyHutRequest::parseResponse))
+        .add("tutorial.php", always(TutorialRequest::parseResponse))
+        .add("typeii.php", always(TrendyRequest::parseResponse))
+        .add(
+            "volcanoisland.php",
+            always(
+                (location, responseText) -> {
+                  PhineasRequest.parseResponse(location, responseText);
+                  VolcanoIslandRequest.parseResponse(location, responseText);
+                }))
+        .add("volcanomaze.php", always(VolcanoMazeRequest::parseResponse))
+        .add("wand.php", always(ZapRequest::parseResponse))
+        .add("witchess.php", always(WitchessRequest::parseResponse))
+        .add(
+            "crypt.php",
+            always((location, responseText) -> ResponseTextParser.checkCrypt(responseText)));
+  }
+
   public static final void externalUpdate(final String location, final String responseText) {
     if (responseText == null || responseText.length() == 0) {
       return;
     }
 
-    if (location.startsWith("account.php")) {
-      AccountRequest.parseAccountData(location, responseText);
-    } else if (location.startsWith("account_contactlist.php")) {
-      ContactListRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("account_manageoutfits.php")) {
-      CustomOutfitRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("adventure.php")) {
-      SeaMerkinRequest.parseColosseumResponse(location, responseText);
-    } else if (location.startsWith("api.php")) {
-      ApiRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("ascend.php")
-        && location.contains("alttext=communityservice")
-        && !Preferences.getBoolean("kingLiberated")) {
-      // Redirect from donating body to science in Community Service
-      ChoiceManager.canWalkAway();
-      KoLCharacter.liberateKing();
-    } else if (location.startsWith("ascensionhistory.php")) {
-      AscensionHistoryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("arena.php")) {
-      CakeArenaRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("backoffice.php")) {
-      ManageStoreRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("basement.php")) {
-      BasementRequest.checkBasement(responseText);
-    } else if (location.startsWith("bedazzle.php")) {
-      EquipmentRequest.parseBedazzlements(responseText);
-    } else if (location.startsWith("beerpong.php")) {
-      BeerPongRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bigisland.php") || location.startsWith("postwarisland.php")) {
-      IslandRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bone_altar.php")) {
-      AltarOfBonesRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bounty.php")) {
-      BountyHunterHunterRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("campground.php")) {
-      CampgroundRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("cafe.php")) {
-      ChezSnooteeRequest.parseResponse(location, responseText);
-      MicroBreweryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("cave.php")) {
-      NemesisRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("charsheet.php") && !location.contains("ajax=1")) {
-      CharSheetRequest.parseStatus(responseText);
-    } else if (location.startsWith("choice.php")) {
-      if (location.contains("whichchoice=562")) {
-        FudgeWandRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=585")) {
-        ClanLoungeSwimmingPoolRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=922")) {
-        SummoningChamberRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=1278")) {
-        ClanFortuneRequest.parseResponse(location, responseText);
-      }
-    } else if (location.startsWith("clan_hall.php")) {
-      ClanHallRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_rumpus.php")) {
-      ClanRumpusRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_stash.php")) {
-      ClanStashRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("clan_dreadsylvania.php")) {
-      DreadsylvaniaRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_viplounge.php")) {
-      if (location.contains("preaction=lovetester")) {
-        ClanFortuneRequest.parseResponse(location, responseText);
-      } else {
-        ClanLoungeRequest.parseResponse(location, responseText);
-      }
-    } else if (location.startsWith("closet.php") || location.startsWith("fillcloset.php")) {
-      ClosetRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("craft.php")) {
-      CreateItemRequest.parseCrafting(location, responseText);
-    } else if (location.startsWith("crimbo09.php")) {
-      Crimbo09Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo10.php")) {
-      Crimbo10Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo11.php")) {
-      Crimbo11Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo21tree.php")) {
-      Crimbo21TreeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("curse.php")) {
-      CurseRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("da.php")) {
-      ShrineRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("desc_skill.php")) {
-      Matcher m = ResponseTextParser.NEWSKILL2_PATTERN.matcher(location);
-      if (m.find()) {
-        int skill = StringUtilities.parseInt(m.group(1));
-        String skillName = SkillDatabase.getSkillName(skill);
-        if (skillName == null) {
-          SkillDatabase.registerSkill(responseText, skill, null);
-        }
-        if (location.contains("self=true")) {
-          ConsequenceManager.parseSkillDesc(skill, responseText);
-        }
+    for (PageParser parser : PARSERS.get(location)) {
+      if (parser.parse(location, responseText)) {
+        break;
       }
-    } else if (location.startsWith("desc_item.php") && !location.contains("otherplayer=")) {
-      Matcher m = ResponseTextParser.DESCITEM_PATTERN.matcher(location);
-      if (m.find()) {
-        String descid = m.group(1);
-        ConsequenceManager.parseItemDesc(descid, responseText);
-        int itemId = ItemDatabase.getItemIdFromDescription(descid);
-
-        boolean changesFromTimeToTime = true;
-
-        switch (itemId) {
-          case ItemPool.YEARBOOK_CAMERA:
-            ItemDatabase.parseYearbookCamera(responseText);
-            break;
-          case ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE:
-            ItemDatabase.parseRetroCape(responseText);
-            break;
-          case ItemPool.HATSEAT:
-            ItemDatabase.parseCrownOfThrones(responseText);
-            break;
-          case ItemPool.BUDDY_BJORN:
-            ItemDatabase.parseBuddyBjorn(responseText);
-            break;
-          case ItemPool.FOURTH_SABER:
-            ItemDatabase.parseSaber(responseText);
-            break;
-          case ItemPool.VAMPIRE_VINTNER_WINE:
-            ItemDatabase.parseVampireVintnerWine(responseText);
-            break;
-          case ItemPool.COMBAT_LOVERS_LOCKET:
-            LocketManager.parseLocket(responseText);
-            break;
-          default:
-            changesFromTimeToTime = false;
-            break;
-        }
+    }
 
-        if (changesFromTimeToTime) {
-          SpadingManager.processDescItem(ItemPool.get(itemId), responseText);
-        }
-      }
-    } else if (location.startsWith("desc_effect.php")) {
-      Matcher m = ResponseTextParser.DESCEFFECT_PATTERN.matcher(location);
-      if (m.find()) {
-        String descid = m.group(1);
-        ConsequenceManager.parseEffectDesc(descid, responseText);
-        int effectId = EffectDatabase.getEffectIdFromDescription(descid);
-        switch (effectId) {
-          case EffectPool.WINE_FORTIFIED:
-          case EffectPool.WINE_HOT:
-          case EffectPool.WINE_FRISKY:
-          case EffectPool.WINE_COLD:
-          case EffectPool.WINE_DARK:
-          case EffectPool.WINE_BEFOULED:
-          case EffectPool.WINE_FRIENDLY:
-            EffectDatabase.parseVampireVintnerWineEffect(responseText, effectId);
-            break;
-        }
-      }
-    } else if (location.startsWith("diary.php")) {
-      UseItemRequest.handleDiary(responseText);
-    } else if (location.startsWith("dig.php")) {
-      DigRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("dwarfcontraption.php")) {
-      DwarfContraptionRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("dwarffactory.php")) {
-      DwarfFactoryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("familiar.php")) {
-      FamiliarRequest.parseResponse(location, responseText);
-      if (!location.contains("ajax=1")) {
-        FamiliarData.registerFamiliarData(responseText);
+    // You can learn a skill on many pages.
+    ResponseTextParser.learnSkill(location, responseText);
+
+    // Currently, required recipes can only be learned via using an
+    // item, but that's probably not guaranteed to be true forever.
+    // Update: you can now learn them from the April Shower
+    ResponseTextParser.learnRecipe(location, responseText);
+
+    // New items may show up on many pages.
+    ResponseTextParser.findNewItems(responseText);
+  }
+
+  private static void parseConsumption(final String responseText) {
+    AdventureResult item = UseItemRequest.getLastItemUsed();
+    UseItemRequest.parseConsumption(responseText, false);
+    SpadingManager.processConsumeItem(item, responseText);
+  }
+
+  private static boolean parseItemUse(final String location, final String responseText) {
+    if (!location.contains("whichitem")) {
+      return false;
+    }
+    ResponseTextParser.parseConsumption(responseText);
+    return true;
+  }
+
+  private static boolean parseMultiUse(final String location, final String responseText) {
+    if (!location.contains("useitem")) {
+      return false;
+    }
+    ResponseTextParser.parseConsumption(responseText);
+    return true;
+  }
+
+  private static void parseSkillDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.NEWSKILL2_PATTERN.matcher(location);
+    if (m.find()) {
+      int skill = StringUtilities.parseInt(m.group(1));
+      String skillName = SkillDatabase.getSkillName(skill);
+      if (skillName == null) {
+        SkillDatabase.registerSkill(responseText, skill, null);
       }
-    } else if (location.startsWith("qterrarium.php")) {
-      QuantumTerrariumRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("famteam.php")) {
-      FamTeamRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("familiarbinger.php")) {
-      UseItemRequest.parseBinge(location, responseText);
-    } else if (location.startsWith("gamestore.php")) {
-      GameShoppeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("guild.php")) {
-      GuildRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("hermit.php")) {
-      HermitRequest.parseHermitTrade(location, responseText);
-    } else if (location.startsWith("heydeze.php")) {
-      HeyDezeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("friars.php")) {
-      FriarRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("gamestore")) {
-      GameShoppeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("gnomes.php")) {
-      GnomeTinkerRequest.parseCreation(location, responseText);
-    }
-
-    // Keep your current equipment and familiars updated, if you
-    // visit the appropriate pages.
-
-    else if (location.startsWith("inventory.php")) {
-      // If KoL is showing us our current equipment, parse it.
-      if (location.contains("which=2") || location.contains("curequip=1")) {
-        EquipmentRequest.parseEquipment(location, responseText);
-
-        // Slimeling binge requests come here, too
-        if (location.contains("action=slime")) {
-          UseItemRequest.parseBinge(location, responseText);
-        }
-        // Certain requests, like inserting cards into
-        // an El Vibrato helmet, have a usage message,
-        // not an equipment page. Check for that, too.
-        else {
-          AdventureResult item = UseItemRequest.getLastItemUsed();
-          UseItemRequest.parseConsumption(responseText, false);
-          SpadingManager.processConsumeItem(item, responseText);
-        }
+      if (location.contains("self=true")) {
+        ConsequenceManager.parseSkillDesc(skill, responseText);
       }
+    }
+  }
 
-      // If there is a consumption message, parse it
-      else if (location.contains("action=message")) {
-        AdventureResult item = UseItemRequest.getLastItemUsed();
-        UseItemRequest.parseConsumption(responseText, false);
-        AWOLQuartermasterRequest.parseResponse(responseText);
-        BURTRequest.parseResponse(responseText);
-        SpadingManager.processConsumeItem(item, responseText);
-      }
+  private static void parseItemDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.DESCITEM_PATTERN.matcher(location);
+    if (m.find()) {
+      String descid = m.group(1);
+      ConsequenceManager.parseItemDesc(descid, responseText);
+      int itemId = ItemDatabase.getItemIdFromDescription(descid);
 
-      // If there is a bricko message, parse it
-      else if (location.contains("action=breakbricko")) {
-        UseItemRequest.parseBricko(responseText);
-      }
+      boolean changesFromTimeToTime = true;
 
-      // If there is a binge message, parse it
-      else if (location.contains("action=ghost")
-          || location.contains("action=hobo")
-          || location.contains("action=slime")
-          || location.contains("action=candy")) {
-        UseItemRequest.parseBinge(location, responseText);
+      switch (itemId) {
+        case ItemPool.YEARBOOK_CAMERA:
+          ItemDatabase.parseYearbookCamera(responseText);
+          break;
+        case ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE:
+          ItemDatabase.parseRetroCape(responseText);
+          break;
+        case ItemPool.HATSEAT:
+          ItemDatabase.parseCrownOfThrones(responseText);
+          break;
+        case ItemPool.BUDDY_BJORN:
+          ItemDatabase.parseBuddyBjorn(responseText);
+          break;
+        case ItemPool.FOURTH_SABER:
+          ItemDatabase.parseSaber(responseText);
+          break;
+        case ItemPool.VAMPIRE_VINTNER_WINE:
+          ItemDatabase.parseVampireVintnerWine(responseText);
+          break;
+        case ItemPool.COMBAT_LOVERS_LOCKET:
+          LocketManager.parseLocket(responseText);
+          break;
+        default:
+          changesFromTimeToTime = false;
+          break;
       }
 
-      // Robortender consumption
-      else if (location.contains("action=robooze")) {
-        UseItemRequest.parseRobortenderBinge(location, responseText);
+      if (changesFromTimeToTime) {
+        SpadingManager.processDescItem(ItemPool.get(itemId), responseText);
       }
+    }
+  }
 
-      // If there is an absorb message, parse it
-      else if (location.contains("absorb=")) {
-        UseItemRequest.parseAbsorb(location, responseText);
+  private static void parseEffectDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.DESCEFFECT_PATTERN.matcher(location);
+    if (m.find()) {
+      String descid = m.group(1);
+      ConsequenceManager.parseEffectDesc(descid, responseText);
+      int effectId = EffectDatabase.getEffectIdFromDescription(descid);
+      switch (effectId) {
+        case EffectPool.WINE_FORTIFIED:
+        case EffectPool.WINE_HOT:
+        case EffectPool.WINE_FRISKY:
+        case EffectPool.WINE_COLD:
+        case EffectPool.WINE_DARK:
+        case EffectPool.WINE_BEFOULED:
+        case EffectPool.WINE_FRIENDLY:
+          EffectDatabase.parseVampireVintnerWineEffect(responseText, effectId);
+          break;
       }
+    }
+  }
 
-      // Closet transfers can come via inventory.php
-      else if (location.contains("action=closetpush") || location.contains("action=closetpull")) {
-        ClosetRequest.parseTransfer(location, responseText);
-      }
+  private static void parseInventory(final String location, final String responseText) {
+    // If KoL is showing us our current equipment, parse it.
+    if (location.contains("which=2") || location.contains("curequip=1")) {
+      EquipmentRequest.parseEquipment(location, responseText);
 
-      // Emptying storage can come via inventory.php
-      else if (location.contains("action=pullall")) {
-        StorageRequest.parseTransfer(location, responseText);
+      // Slimeling binge requests come here, too
+      if (location.contains("action=slime")) {
+        UseItemRequest.parseBinge(location, responseText);
       }
-    } else if (location.startsWith("inv_equip.php") && location.contains("ajax=1")) {
-      // If we are changing equipment via a chat command,
-      // try to deduce what changed.
-      EquipmentRequest.parseEquipmentChange(location, responseText);
-    } else if ((location.startsWith("inv_eat.php")
-            || location.startsWith("inv_booze.php")
-            || location.startsWith("inv_spleen.php")
-            || location.startsWith("inv_use.php")
-            || location.startsWith("inv_familiar.php"))
-        && location.contains("whichitem")) {
-      AdventureResult item = UseItemRequest.getLastItemUsed();
-      UseItemRequest.parseConsumption(responseText, false);
-      SpadingManager.processConsumeItem(item, responseText);
-    } else if (location.startsWith("knoll_mushrooms.php")) {
-      MushroomRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("leaflet.php")) {
-      LeafletRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("mallstore.php")) {
-      MallPurchaseRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("managecollection.php")) {
-      DisplayCaseRequest.parseDisplayTransfer(location, responseText);
-    } else if (location.startsWith("managecollectionshelves.php")) {
-      DisplayCaseRequest.parseDisplayArrangement(location, responseText);
-    } else if (location.startsWith("managestore.php")) {
-      AutoMallRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("mining.php")) {
-      MineDecorator.parseResponse(location, responseText);
-    } else if (location.startsWith("monkeycastle.php")) {
-      if (location.contains("who=2") || location.contains("action=buyitem")) {
-        BigBrotherRequest.parseResponse(location, responseText);
-      } else if (location.contains("who=4")) {
-        MomRequest.parseResponse(location, responseText);
+      // Certain requests, like inserting cards into
+      // an El Vibrato helmet, have a usage message,
+      // not an equipment page. Check for that, too.
+      else {
+        ResponseTextParser.parseConsumption(responseText);
       }
-    } else if (location.startsWith("mrstore.php")) {
-      MrStoreRequest.parseResponse(location, responseText);
-    } else if ((location.startsWith("multiuse.php") || location.startsWith("skills.php"))
-        && location.contains("useitem")) {
+    }
+
+    // If there is a consumption message, parse it
+    else if (location.contains("action=message")) {
       AdventureResult item = UseItemRequest.getLastItemUsed();
       UseItemRequest.parseConsumption(responseText, false);
+      AWOLQuartermasterRequest.parseResponse(responseText);
+      BURTRequest.parseResponse(responseText);
       SpadingManager.processConsumeItem(item, responseText);
-    } else if (location.startsWith("pandamonium.php")) {
-      PandamoniumRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("peevpee.php")) {
-      PeeVPeeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("place.php")) {
-      PlaceRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("questlog.php")) {
-      MonsterManuelRequest.parseResponse(location, responseText);
-      QuestLogRequest.registerQuests(true, location, responseText);
-    } else if (location.startsWith("raffle.php")) {
-      RaffleRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("runskillz.php") || location.startsWith("skillz.php")) {
-      UseSkillRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sea_merkin.php")) {
-      SeaMerkinRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sea_skatepark.php")) {
-      SkateParkRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sellstuff.php")) {
-      AutoSellRequest.parseCompactAutoSell(location, responseText);
-    } else if (location.startsWith("sellstuff_ugly.php")) {
-      AutoSellRequest.parseDetailedAutoSell(location, responseText);
-    } else if (location.startsWith("sendmessage.php")) {
-      SendMailRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("shop.php")) {
-      NPCPurchaseRequest.parseShopResponse(location, responseText);
-    } else if (location.startsWith("showclan.php")) {
-      ShowClanRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("skills.php")) {
-      if (location.contains("action=useditem")) {
-        AdventureResult item = UseItemRequest.getLastItemUsed();
-        UseItemRequest.parseConsumption(responseText, false);
-        SpadingManager.processConsumeItem(item, responseText);
-      }
-    } else if (location.startsWith("spaaace.php")) {
-      SpaaaceRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("storage.php")) {
-      StorageRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("suburbandis.php")) {
-      SuburbanDisRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sushi.php")) {
-      SushiRequest.parseConsumption(location, responseText, true);
-    } else if (location.startsWith("tavern.php")) {
-      TavernRequest.parseResponse(location, responseText);
-    }
-
-    if (location.startsWith("tiles.php")) {
-      DvorakManager.parseResponse(location, responseText);
-    } else if (location.startsWith("topmenu.php")) {
-      if (KoLCharacter.getLimitmode() == Limitmode.BATMAN) {
-        BatManager.parseTopMenu(responseText);
-      }
-    } else if (location.startsWith("town_altar.php")) {
-      AltarOfLiteracyRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("town_right.php")) {
-      GourdRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("town_sendgift.php")) {
-      SendGiftRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("traveler.php")) {
-      TravelingTraderRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("trophy.php")) {
-      TrophyHutRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("tutorial.php")) {
-      TutorialRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("typeii.php")) {
-      TrendyRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("volcanoisland.php")) {
-      PhineasRequest.parseResponse(location, responseText);
-      VolcanoIslandRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("volcanomaze.php")) {
-      VolcanoMazeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("wand.php")) {
-      ZapRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("witchess.php")) {
-      WitchessRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("crypt.php")) {
-      // Check if crypt areas have unexpectedly vanished and correct if so
-      if (!responseText.contains("The Defiled Alcove")
-              && Preferences.getInteger("cyrptAlcoveEvilness") > 0
-          || !responseText.contains("The Defiled Cranny")
-              && Preferences.getInteger("cyrptCrannyEvilness") > 0
-          || !responseText.contains("The Defiled Niche")
-              && Preferences.getInteger("cyrptNicheEvilness") > 0
-          || !responseText.contains("The Defiled Nook")
-              && Preferences.getInteger("cyrptNookEvilness") > 0) {
-        if (InventoryManager.hasItem(ItemPool.EVILOMETER)) {
-          RequestThread.postRequest(UseItemRequest.getInstance(ItemPool.EVILOMETER));
-        } else {
-          // Must have completed quest and already used and lost Evilometer
-          Preferences.setInteger("cyrptAlcoveEvilness", 0);
-          Preferences.setInteger("cyrptCrannyEvilness", 0);
-          Preferences.setInteger("cyrptNicheEvilness", 0);
-          Preferences.setInteger("cyrptNookEvilness", 0);
-          Preferences.setInteger("cyrptTotalEvilness", 0);
-        }
-      }
     }
 
-    // You can learn a skill on many pages.
-    ResponseTextParser.learnSkill(location, responseText);
+    // If there is a bricko message, parse it
+    else if (location.contains("action=breakbricko")) {
+      UseItemRequest.parseBricko(responseText);
+    }
 
-    // Currently, required recipes can only be learned via using an
-    // item, but that's probably not guaranteed to be true forever.
-    // Update: you can now learn them from the April Shower
-    ResponseTextParser.learnRecipe(location, responseText);
+    // If there is a binge message, parse it
+    else if (location.contains("action=ghost")
+        || location.contains("action=hobo")
+        || location.contains("action=slime")
+        || location.contains("action=candy")) {
+      UseItemRequest.parseBinge(location, responseText);
+    }
 
-    // New items may show up on many pages.
-    ResponseTextParser.findNewItems(responseText);
+    // Robortender consumption
+    else if (location.contains("action=robooze")) {
+      UseItemRequest.parseRobortenderBinge(location, responseText);
+    }
+
+    // If there is an absorb message, parse it
+    else if (location.contains("absorb=")) {
+      UseItemRequest.parseAbsorb(location, responseText);
+    }
+
+    // Closet transfers can come via inventory.php
+    else if (location.contains("action=closetpush") || location.contains("action=closetpull")) {
+      ClosetRequest.parseTransfer(location, responseText);
+    }
+
+    // Emptying storage can come via inventory.php
+    else if (location.contains("action=pullall")) {
+      StorageRequest.parseTransfer(location, responseText);
+    }
+  }
+
+  private static void checkCrypt(final String responseText) {
+    // Check if crypt areas have unexpectedly vanished and correct if so
+    if (!responseText.contains("The Defiled Alcove")
+            && Preferences.getInteger("cyrptAlcoveEvilness") > 0
+        || !responseText.contains("The Defiled Cranny")
+            && Preferences.getInteger("cyrptCrannyEvilness") > 0
+        || !responseText.contains("The Defiled Niche")
+            && Preferences.getInteger("cyrptNicheEvilness") > 0
+        || !responseText.contains("The Defiled Nook")
+            && Preferences.getInteger("cyrptNookEvilness") > 0) {
+      if (InventoryManager.hasItem(ItemPool.EVILOMETER)) {
+        RequestThread.postRequest(UseItemRequest.getInstance(ItemPool.EVILOMETER));
+      } else {
+        // Must have completed quest and already used and lost Evilometer
+        Preferences.setInteger("cyrptAlcoveEvilness", 0);
+        Preferences.setInteger("cyrptCrannyEvilness", 0);
+        Preferences.setInteger("cyrptNicheEvilness", 0);
+        Preferences.setInteger("cyrptNookEvilness", 0);
+        Preferences.setInteger("cyrptTotalEvilness", 0);
+      }
+    }
   }
 
   private static final Pattern DIV_LINK_PATTERN =
@@ -1243,7 +1243,7 @@ public class ResultProcessor {
     } else if (resultName.equals(AdventureResult.MEAT)) {
       KoLCharacter.setAvailableMeat(KoLCharacter.getAvailableMeat() + result.getLongCount());
       if (updateCalculatedLists) {
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setMeatRefreshNeeded();
       }
     } else if (resultName.equals(AdventureResult.ADV)) {
       if (result.getCount() < 0) {
@@ -6,9 +6,13 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.WeakHashMap;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
@@ -17,10 +21,12 @@ import net.sourceforge.kolmafia.RequestThread;
 import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.SendMailRequest;
+import net.sourceforge.kolmafia.textui.parsetree.BasicScope;
 import net.sourceforge.kolmafia.textui.parsetree.Evaluable;
 import net.sourceforge.kolmafia.textui.parsetree.Function;
 import net.sourceforge.kolmafia.textui.parsetree.FunctionList;
 import net.sourceforge.kolmafia.textui.parsetree.Scope;
+import net.sourceforge.kolmafia.textui.parsetree.StaticScope;
 import net.sourceforge.kolmafia.textui.parsetree.Type;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
 import net.sourceforge.kolmafia.textui.parsetree.VariableList;
@@ -52,6 +58,21 @@ public class AshRuntime extends AbstractRuntime {
   private final ArrayList<CallFrame> frameStack;
   // Limit object churn across function calls.
   private final ArrayList<CallFrame> unusedCallFrames;
+  // Argument arrays for function calls, indexed by length
+  private final ArrayList<ArrayList<Object[]>> unusedArguments;
+
+  // Longer argument arrays are rare enough to simply allocate
+  private static final int POOLED_ARGUMENTS_LIMIT = 8;
+
+  // The values of the variables of libraries shared with other runtimes, by library and slot
+  private Value[][] libraryValues = new Value[0][];
+  // The static scopes this runtime has run, which it never runs again
+  private final Set<StaticScope> executedScopes = Collections.newSetFromMap(new WeakHashMap<>());
+  // The variables of each call to a user-defined function under way, innermost last, with the
+  // scope of the function called. The frames are kept for the calls which follow.
+  private Value[][] locals = new Value[16][];
+  private BasicScope[] localScopes = new BasicScope[16];
+  private int localDepth = 0;
 
   public static final int STACK_LIMIT = 10;
 
@@ -61,6 +82,7 @@ public class AshRuntime extends AbstractRuntime {
     this.hadPendingState = false;
     this.frameStack = new ArrayList<>();
     this.unusedCallFrames = new ArrayList<>();
+    this.unusedArguments = new ArrayList<>();
   }
 
   public Parser getParser() {
@@ -79,6 +101,76 @@ public class AshRuntime extends AbstractRuntime {
     return this.scope.getFunctions();
   }
 
+  /** Returns this runtime's value of a variable of a shared library, or null if it has none. */
+  public Value getLibraryValue(final int library, final int slot) {
+    if (library >= this.libraryValues.length) {
+      return null;
+    }
+
+    Value[] values = this.libraryValues[library];
+    return values != null && slot < values.length ? values[slot] : null;
+  }
+
+  public void setLibraryValue(final int library, final int slot, final Value value) {
+    if (library >= this.libraryValues.length) {
+      int length = Math.max(library + 1, this.libraryValues.length * 2);
+      this.libraryValues = Arrays.copyOf(this.libraryValues, length);
+    }
+
+    Value[] values = this.libraryValues[library];
+    if (values == null || slot >= values.length) {
+      int length = Math.max(slot + 1, values == null ? 16 : values.length * 2);
+      values = values == null ? new Value[length] : Arrays.copyOf(values, length);
+      this.libraryValues[library] = values;
+    }
+
+    values[slot] = value;
+  }
+
+  /** Starts a frame for the variables of a call to the user-defined function with a scope. */
+  public void pushLocals(final BasicScope scope, final int size) {
+    if (this.localDepth == this.locals.length) {
+      this.locals = Arrays.copyOf(this.locals, this.localDepth * 2);
+      this.localScopes = Arrays.copyOf(this.localScopes, this.localDepth * 2);
+    }
+
+    Value[] frame = this.locals[this.localDepth];
+    if (frame == null || frame.length < size) {
+      this.locals[this.localDepth] = new Value[size];
+    }
+    this.localScopes[this.localDepth++] = scope;
+  }
+
+  /** Ends the frame of the call which returned, which used the given number of slots. */
+  public void popLocals(final int size) {
+    --this.localDepth;
+    // Don't keep the values alive
+    Arrays.fill(this.locals[this.localDepth], 0, size, null);
+    this.localScopes[this.localDepth] = null;
+  }
+
+  /**
+   * Returns the frame of the innermost call under way to the function with a scope, which holds
+   * the variables a function declared inside it also sees, or null if there is none.
+   */
+  public Value[] getLocals(final BasicScope scope) {
+    for (int i = this.localDepth - 1; i >= 0; --i) {
+      if (this.localScopes[i] == scope) {
+        return this.locals[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Notes that this runtime is running a static scope.
+   *
+   * @return false if it already has
+   */
+  public boolean markExecuted(final StaticScope scope) {
+    return this.executedScopes.add(scope);
+  }
+
   @Override
   public void setState(final ScriptRuntime.State state) {
     super.setState(state);
@@ -393,6 +485,36 @@ public class AshRuntime extends AbstractRuntime {
     return frame;
   }
 
+  /**
+   * Returns an empty argument array of the given length, reusing one released by an earlier call
+   * if possible.
+   */
+  public Object[] getArguments(final int length) {
+    if (length < this.unusedArguments.size()) {
+      ArrayList<Object[]> unused = this.unusedArguments.get(length);
+      if (unused.size() != 0) {
+        return unused.remove(unused.size() - 1);
+      }
+    }
+    return new Object[length];
+  }
+
+  /** Makes an argument array available for reuse once the call it was for has returned. */
+  public void releaseArguments(final Object[] arguments) {
+    int length = arguments.length;
+    if (length > POOLED_ARGUMENTS_LIMIT) {
+      return;
+    }
+
+    // Don't keep the values alive
+    Arrays.fill(arguments, null);
+
+    while (this.unusedArguments.size() <= length) {
+      this.unusedArguments.add(new ArrayList<>());
+    }
+    this.unusedArguments.get(length).add(arguments);
+  }
+
   public List<CallFrame> getCallFrames() {
     return new ArrayList<>(frameStack);
   }
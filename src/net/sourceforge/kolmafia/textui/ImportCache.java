@@ -0,0 +1,437 @@
+package net.sourceforge.kolmafia.textui;
+
+import static org.eclipse.lsp4j.DiagnosticSeverity.Error;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.KoLmafiaCLI;
+import net.sourceforge.kolmafia.textui.parsetree.BasicScope;
+import net.sourceforge.kolmafia.textui.parsetree.Command;
+import net.sourceforge.kolmafia.textui.parsetree.Function;
+import net.sourceforge.kolmafia.textui.parsetree.Scope;
+import net.sourceforge.kolmafia.textui.parsetree.Type;
+import net.sourceforge.kolmafia.textui.parsetree.UserDefinedFunction;
+import net.sourceforge.kolmafia.textui.parsetree.Variable;
+
+/**
+ * Parses of ASH libraries, each made once and shared by every script which imports the library,
+ * rather than parsed again into each of them.
+ *
+ * <p>A library is parsed on its own, seeing only what it imports itself, and then linked into an
+ * importing script by adding its functions, variables, types and top-level commands to the
+ * script's top-level scope, as parsing it there would have. That is only done when the script
+ * sees it just as its own parse would: when nothing the script already declared has a name used
+ * in the library. Otherwise, the library is parsed into the script as it always was.
+ *
+ * <p>The parse tree of a shared library is never changed by running it. Each runtime keeps its own
+ * values of the library's variables, and its own record of which static scopes it has run.
+ *
+ * <p>A parse is used until the library, or anything it imports, changes, or an import it names
+ * would now be found somewhere else. Where each import is found is looked up again only once the
+ * script directories have changed. Only the libraries most recently imported are kept, and a
+ * library which cannot be shared keeps no more than is needed to tell when it has changed.
+ */
+public class ImportCache {
+  private static final int MAX_LIBRARIES = 64;
+
+  // Libraries, by canonical file, least recently imported first
+  private static final Map<File, Library> LIBRARIES =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<File, Library> eldest) {
+          return this.size() > ImportCache.MAX_LIBRARIES;
+        }
+      };
+  // Libraries being parsed, which would be imported by themselves
+  private static final Set<File> PARSING = new HashSet<>();
+
+  // The file each import names, or null if it is not found just once, since the script
+  // directories last changed
+  private static final Map<String, File> RESOLVED = new HashMap<>();
+  private static long resolvedChanges = -1;
+
+  private static final Pattern NAME = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_]*");
+
+  private static int nextLibrary = 0;
+
+  private ImportCache() {}
+
+  public static class Library {
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    // The parse, if the library can be shared
+    private final Parser parser;
+    // When each file the parse imported, in any way, was last modified
+    private final Map<File, Long> importedModified = new HashMap<>();
+    private final Map<String, File> importedFiles;
+
+    // Whether the library can be shared, and what else it needs to be
+    private final boolean shared;
+    private final List<Library> dependencies;
+
+    // The names used anywhere in the library, lowercase
+    private final Set<String> names;
+
+    // What linking the library adds to a scope
+    private final List<Function> functions = new ArrayList<>();
+    private final List<Variable> variables = new ArrayList<>();
+    private final List<Type> types = new ArrayList<>();
+    private final List<Command> commands = new ArrayList<>();
+    private final List<Parser.AshDiagnostic> diagnostics = new ArrayList<>();
+
+    private Library(
+        final File file,
+        final long lastModified,
+        final long length,
+        final Parser parser,
+        final Scope scope,
+        final Set<String> names) {
+      this.file = file;
+      this.lastModified = lastModified;
+      this.length = length;
+      for (Map.Entry<File, Parser> entry : parser.getImports().entrySet()) {
+        this.importedModified.put(entry.getKey(), entry.getValue().getModificationTimestamp());
+      }
+      this.importedFiles = new HashMap<>(parser.getImportedFiles());
+      this.dependencies = new ArrayList<>(parser.getLinkedLibraries());
+      this.shared = scope != null && this.isShareable(parser, scope);
+      this.parser = this.shared ? parser : null;
+      this.names = this.shared ? names : Set.of();
+
+      if (this.shared) {
+        this.collect(scope);
+      }
+    }
+
+    // A library is shared if it parsed cleanly, running it depends only on what it declares
+    // itself, and everything it imports is shared
+    private boolean isShareable(final Parser parser, final Scope scope) {
+      for (Parser.AshDiagnostic diagnostic : parser.getDiagnostics()) {
+        if (diagnostic.severity == Error) {
+          return false;
+        }
+      }
+
+      if (parser.invokesByName() || scope.assertBarrier()) {
+        return false;
+      }
+
+      for (Function function : scope.getFunctions()) {
+        if (function instanceof UserDefinedFunction
+            && ((UserDefinedFunction) function).getScope() == null) {
+          // A forward declaration the importer could define
+          return false;
+        }
+      }
+
+      for (Parser imported : parser.getImports().values()) {
+        if (imported != parser && !this.dependsOn(imported)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean dependsOn(final Parser parser) {
+      for (Library dependency : this.dependencies) {
+        if (dependency.parser == parser) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean dependsOn(final Library library) {
+      for (Library dependency : this.dependencies) {
+        if (dependency == library) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // Separates what the library declared from what linking its imports added to its scope, and
+    // gives each of its variables outside the frames of function calls a slot in a runtime's
+    // values of the library
+    private void collect(final Scope scope) {
+      Set<Object> imported = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Library dependency : this.dependencies) {
+        imported.addAll(dependency.functions);
+        imported.addAll(dependency.variables);
+        imported.addAll(dependency.types);
+        imported.addAll(dependency.commands);
+      }
+
+      for (Function function : scope.getFunctions()) {
+        if (!imported.contains(function)) {
+          this.functions.add(function);
+        }
+      }
+      UserDefinedFunction alias = this.parser.makeMainAlias();
+      if (alias != null) {
+        this.functions.add(alias);
+      }
+
+      for (Variable variable : scope.getVariables()) {
+        if (!imported.contains(variable)) {
+          this.variables.add(variable);
+        }
+      }
+      for (Type type : scope.getTypes()) {
+        if (!imported.contains(type)) {
+          this.types.add(type);
+        }
+      }
+      for (Command command : scope.getCommandList()) {
+        if (!imported.contains(command)) {
+          this.commands.add(command);
+        }
+      }
+
+      String uri = this.parser.getStringUri();
+      for (Parser.AshDiagnostic diagnostic : this.parser.getDiagnostics()) {
+        if (uri.equals(diagnostic.location.getUri())) {
+          this.diagnostics.add(diagnostic);
+        }
+      }
+
+      int library = ImportCache.nextLibrary++;
+      int slot = 0;
+      for (BasicScope nested : scope.getScopes()) {
+        for (Variable variable : nested.getVariables()) {
+          if (!variable.isShared() && variable.getFrameScope() == null) {
+            variable.share(library, slot++);
+          }
+        }
+      }
+    }
+
+    public boolean isShared() {
+      return this.shared;
+    }
+
+    // Whether the library, and everything it imports, is just as it was when it was parsed
+    private boolean isCurrent(final Map<Library, Boolean> checked) {
+      Boolean current = checked.get(this);
+      if (current != null) {
+        return current;
+      }
+
+      current = this.file.lastModified() == this.lastModified && this.file.length() == this.length;
+
+      for (Map.Entry<File, Long> entry : this.importedModified.entrySet()) {
+        if (!current) {
+          break;
+        }
+        current = entry.getKey().lastModified() == entry.getValue();
+      }
+
+      for (Map.Entry<String, File> entry : this.importedFiles.entrySet()) {
+        if (!current) {
+          break;
+        }
+        current = Objects.equals(ImportCache.resolve(entry.getKey()), entry.getValue());
+      }
+
+      for (Library dependency : this.dependencies) {
+        if (!current) {
+          break;
+        }
+        current =
+            ImportCache.LIBRARIES.get(ImportCache.canonical(dependency.file)) == dependency
+                && dependency.isCurrent(checked);
+      }
+
+      checked.put(this, current);
+      return current;
+    }
+
+    /**
+     * Adds the library, after any of the libraries it imports which are not already there, to the
+     * top-level scope of a file being parsed.
+     *
+     * @return false, having added nothing, if the file's parse would not see the library just as
+     *     the library's own parse did
+     */
+    public boolean linkInto(final Parser parser, final Scope scope) {
+      if (!this.shared || scope.assertBarrier()) {
+        return false;
+      }
+
+      Map<File, Parser> imports = parser.getImports();
+      List<Library> linking = new ArrayList<>();
+      Set<Object> declared = Collections.newSetFromMap(new IdentityHashMap<>());
+
+      List<Library> libraries = new ArrayList<>(this.dependencies);
+      libraries.add(this);
+      for (Library library : libraries) {
+        Parser present = imports.get(library.file);
+        if (present == null) {
+          linking.add(library);
+        } else if (present != library.parser) {
+          // Imported, but not from this parse
+          return false;
+        }
+
+        declared.addAll(library.functions);
+        declared.addAll(library.variables);
+        declared.addAll(library.types);
+      }
+
+      // Nothing else already declared can have a name which the libraries use
+      for (Library library : linking) {
+        for (Function function : scope.getFunctions()) {
+          if (!declared.contains(function) && library.uses(function.getName())) {
+            return false;
+          }
+        }
+        for (Variable variable : scope.getVariables()) {
+          if (!declared.contains(variable) && library.uses(variable.getName())) {
+            return false;
+          }
+        }
+        for (Type type : scope.getTypes()) {
+          if (!declared.contains(type) && library.uses(type.getName())) {
+            return false;
+          }
+        }
+      }
+
+      for (Library library : linking) {
+        for (Function function : library.functions) {
+          scope.addFunction(function);
+        }
+        for (Variable variable : library.variables) {
+          scope.addVariable(variable);
+        }
+        for (Type type : library.types) {
+          scope.addType(type);
+        }
+        for (Command command : library.commands) {
+          scope.addCommand(command, parser);
+        }
+
+        imports.put(library.file, library.parser);
+        parser.getDiagnostics().addAll(library.diagnostics);
+        parser.getLinkedLibraries().add(library);
+      }
+
+      return true;
+    }
+
+    private boolean uses(final String name) {
+      return name != null && this.names.contains(name.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * Returns the shared parse of a library, parsing it if it has not been parsed since it last
+   * changed, or null if the library is being parsed already, and so imports itself.
+   */
+  public static synchronized Library getLibrary(final File file) throws InterruptedException {
+    File key = ImportCache.canonical(file);
+
+    long changes = KoLmafiaCLI.getScriptFileChanges();
+    if (changes != resolvedChanges) {
+      RESOLVED.clear();
+      resolvedChanges = changes;
+    }
+
+    Library library = LIBRARIES.get(key);
+    if (library != null && library.isCurrent(new HashMap<>())) {
+      return library;
+    }
+
+    if (!PARSING.add(key)) {
+      return null;
+    }
+
+    try {
+      library = ImportCache.parse(file);
+    } finally {
+      PARSING.remove(key);
+    }
+
+    Library replaced = library != null ? LIBRARIES.put(key, library) : LIBRARIES.remove(key);
+    if (replaced != null) {
+      // Nothing which imported the old parse can be current any more
+      LIBRARIES.values().removeIf(other -> other.dependsOn(replaced));
+    }
+    return library;
+  }
+
+  private static File resolve(final String name) {
+    if (RESOLVED.containsKey(name)) {
+      return RESOLVED.get(name);
+    }
+
+    List<File> matches = KoLmafiaCLI.findScriptFile(name);
+    File found = matches.size() == 1 ? matches.get(0) : null;
+    RESOLVED.put(name, found);
+    return found;
+  }
+
+  private static Library parse(final File file) throws InterruptedException {
+    long lastModified = file.lastModified();
+    long length = file.length();
+
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      return null;
+    }
+
+    Set<String> names = new HashSet<>();
+    Matcher matcher = NAME.matcher(new String(bytes, StandardCharsets.UTF_8));
+    while (matcher.find()) {
+      names.add(matcher.group().toLowerCase(Locale.ROOT));
+    }
+
+    Parser parser = new Parser(file, new ByteArrayInputStream(bytes), null);
+    Scope scope;
+    try {
+      scope = parser.parse();
+    } catch (RuntimeException e) {
+      // Parsing it into the importer will fail just as well
+      scope = null;
+    }
+
+    return new Library(file, lastModified, length, parser, scope, names);
+  }
+
+  /** Forgets every library, so that each is parsed again when it is next imported. */
+  public static synchronized void clear() {
+    LIBRARIES.clear();
+    RESOLVED.clear();
+  }
+
+  public static synchronized int size() {
+    return LIBRARIES.size();
+  }
+
+  private static File canonical(final File file) {
+    try {
+      return file.getCanonicalFile();
+    } catch (IOException e) {
+      return file.getAbsoluteFile();
+    }
+  }
+}
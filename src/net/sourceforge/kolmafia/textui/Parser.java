@@ -116,9 +116,17 @@ public class Parser {
   private Token currentToken;
 
   private final Map<File, Parser> imports;
+  // The file each import named was found as, or null if it was not found just once
+  private final Map<String, File> importedFiles = new LinkedHashMap<>();
+  // The shared libraries linked into this file, in the order they were linked
+  private final List<ImportCache.Library> linkedLibraries = new ArrayList<>();
+  // Whether this file calls functions by names only known when it runs
+  private boolean invokesByName = false;
   private final List<AshDiagnostic> diagnostics = new ArrayList<>();
   private Function mainMethod = null;
   private String notifyRecipient = null;
+  // Whether maps declared in this file may iterate in insertion order
+  private boolean unorderedMaps = false;
 
   public Parser() {
     this(null, null, null);
@@ -235,6 +243,18 @@ public class Parser {
     return this.mainMethod;
   }
 
+  Map<String, File> getImportedFiles() {
+    return this.importedFiles;
+  }
+
+  List<ImportCache.Library> getLinkedLibraries() {
+    return this.linkedLibraries;
+  }
+
+  boolean invokesByName() {
+    return this.invokesByName;
+  }
+
   public String getNotifyRecipient() {
     return this.notifyRecipient;
   }
@@ -355,6 +375,7 @@ public class Parser {
     final ErrorManager importErrors = new ErrorManager();
 
     List<File> matches = KoLmafiaCLI.findScriptFile(fileName);
+    this.importedFiles.put(fileName, matches.size() == 1 ? matches.get(0) : null);
     if (matches.size() > 1) {
       StringBuilder s = new StringBuilder();
       for (File f : matches) {
@@ -377,28 +398,55 @@ public class Parser {
       return scope;
     }
 
+    // Use the parse of the library that other scripts share, if this file sees it just as its own
+    // parse would
+    if (this.sharesImports(scope)) {
+      ImportCache.Library library = ImportCache.getLibrary(scriptFile);
+      if (library != null && library.linkInto(this, scope)) {
+        return scope;
+      }
+    }
+
     Parser parser = this.makeChild(scriptFile);
     Scope result = parser.parseFile(scope);
 
     this.diagnostics.addAll(parser.diagnostics);
 
-    if (parser.mainMethod
-        != null) { // Make imported script's main() available under a different name
-      UserDefinedFunction f =
-          new UserDefinedFunction(
-              parser.mainMethod.getName()
-                  + "@"
-                  + parser.getScriptName().replace(".ash", "").replaceAll("[^a-zA-Z0-9]", "_"),
-              parser.mainMethod.getType(),
-              parser.mainMethod.getVariableReferences(),
-              parser.mainMethod.getDefinitionLocation());
-      f.setScope(((UserDefinedFunction) parser.mainMethod).getScope());
+    // Make imported script's main() available under a different name
+    UserDefinedFunction f = parser.makeMainAlias();
+    if (f != null) {
       result.addFunction(f);
     }
 
     return result;
   }
 
+  // Shared libraries are only used by this class, and only at the top of a file
+  private boolean sharesImports(final Scope scope) {
+    return this.getClass() == Parser.class
+        && Preferences.getBoolean("shareParsedImports")
+        && scope.getParentScope() != null
+        && scope.getParentScope().getParentScope() == null;
+  }
+
+  /** Returns the main function of this file, named for the file, or null if it has none. */
+  UserDefinedFunction makeMainAlias() {
+    if (this.mainMethod == null) {
+      return null;
+    }
+
+    UserDefinedFunction f =
+        new UserDefinedFunction(
+            this.mainMethod.getName()
+                + "@"
+                + this.getScriptName().replace(".ash", "").replaceAll("[^a-zA-Z0-9]", "_"),
+            this.mainMethod.getType(),
+            this.mainMethod.getVariableReferences(),
+            this.mainMethod.getDefinitionLocation());
+    f.setScope(((UserDefinedFunction) this.mainMethod).getScope());
+    return f;
+  }
+
   /**
    * Makes a new instance of the first class we can find that has a public constructor expecting
    * File + InputStream + Map
@@ -509,6 +557,9 @@ public class Parser {
     this.parseScriptName();
     this.parseNotify();
     this.parseSince();
+    if (wholeFile) {
+      this.parseUnorderedMaps();
+    }
 
     while ((importDirective = this.parseImport()) != null) {
       result =
@@ -1574,7 +1625,7 @@ public class Parser {
 
     Type type =
         indexType != null
-            ? new AggregateType(dataType, indexType)
+            ? new AggregateType(dataType, indexType, false, !this.unorderedMaps)
             : new AggregateType(dataType, size);
 
     return type.reference(Parser.makeLocation(dataType.getLocation(), this.peekPreviousToken()));
@@ -3293,6 +3344,7 @@ public class Parser {
     Location invokeLocation = this.makeLocation(invokeStartToken, this.peekPreviousToken());
     FunctionInvocation call =
         new FunctionInvocation(invokeLocation, scope, type, name, params, this);
+    this.invokesByName = true;
 
     return this.parsePostCall(scope, call);
   }
@@ -4742,6 +4794,14 @@ public class Parser {
     }
   }
 
+  private void parseUnorderedMaps() throws InterruptedException {
+    // Maps in this file needn't iterate in sorted order, so they can be
+    // backed by a hash table instead of a tree.
+    if (this.parseDirective("unordered_maps") != null) {
+      this.unorderedMaps = true;
+    }
+  }
+
   private Directive parseImport() throws InterruptedException {
     return this.parseDirective("import");
   }
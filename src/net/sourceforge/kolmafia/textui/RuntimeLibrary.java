@@ -2127,6 +2127,15 @@ public abstract class RuntimeLibrary {
             new AggregateType(DataTypes.FLOAT_TYPE, DataTypes.MONSTER_TYPE),
             params));
 
+    params = new Type[] {DataTypes.BOOLEAN_TYPE};
+    functions.add(
+        new LibraryFunction(
+            "appearance_rates_by_location",
+            new AggregateType(
+                new AggregateType(DataTypes.FLOAT_TYPE, DataTypes.MONSTER_TYPE),
+                DataTypes.LOCATION_TYPE),
+            params));
+
     params = new Type[] {};
     functions.add(new LibraryFunction("expected_damage", DataTypes.INT_TYPE, params));
 
@@ -8155,15 +8164,55 @@ public abstract class RuntimeLibrary {
     AreaCombatData data = adventure == null ? null : adventure.getAreaSummary();
     boolean stateful = includeQueue.intValue() == 1;
 
+    if (data == null) {
+      return new MapValue(new AggregateType(DataTypes.FLOAT_TYPE, DataTypes.MONSTER_TYPE));
+    }
+
+    return RuntimeLibrary.makeAppearanceRates(data, data.getMonsterData(stateful));
+  }
+
+  public static Value appearance_rates_by_location(
+      ScriptRuntime controller, final Value includeQueue) {
+    boolean stateful = includeQueue.intValue() == 1;
+
+    Map<AreaCombatData, KoLAdventure> adventures = new LinkedHashMap<>();
+    for (KoLAdventure adventure : AdventureDatabase.getAsLockableListModel()) {
+      AreaCombatData data = adventure.getAreaSummary();
+      if (data != null) {
+        adventures.putIfAbsent(data, adventure);
+      }
+    }
+
+    // Work out the rates of every area at once
+    Map<AreaCombatData, Map<MonsterData, Double>> rates =
+        AreaCombatData.getMonsterData(adventures.keySet(), stateful);
+
+    AggregateType type =
+        new AggregateType(
+            new AggregateType(DataTypes.FLOAT_TYPE, DataTypes.MONSTER_TYPE),
+            DataTypes.LOCATION_TYPE);
+    MapValue value = new MapValue(type);
+
+    for (Map.Entry<AreaCombatData, KoLAdventure> entry : adventures.entrySet()) {
+      AreaCombatData data = entry.getKey();
+      value.aset(
+          DataTypes.makeLocationValue(entry.getValue()),
+          RuntimeLibrary.makeAppearanceRates(data, rates.get(data)));
+    }
+
+    return value;
+  }
+
+  private static MapValue makeAppearanceRates(
+      final AreaCombatData data, final Map<MonsterData, Double> rates) {
     AggregateType type = new AggregateType(DataTypes.FLOAT_TYPE, DataTypes.MONSTER_TYPE);
     MapValue value = new MapValue(type);
-    if (data == null) return value;
 
     value.aset(
         DataTypes.MONSTER_INIT,
         new Value(data.combats() < 0 ? -1.0F : 100.0f - data.areaCombatPercent()));
 
-    for (Map.Entry<MonsterData, Double> entry : data.getMonsterData(stateful).entrySet()) {
+    for (Map.Entry<MonsterData, Double> entry : rates.entrySet()) {
       value.aset(DataTypes.makeMonsterValue(entry.getKey()), new Value(entry.getValue()));
     }
 
@@ -1,15 +1,22 @@
 package net.sourceforge.kolmafia.textui.command;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.listener.ListenerRegistry;
+import net.sourceforge.kolmafia.persistence.DatabaseStartup;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
+import net.sourceforge.kolmafia.utilities.ResponseReader;
+import net.sourceforge.kolmafia.webui.RelayFileCache;
+import net.sourceforge.kolmafia.webui.RelayServer;
 
 public class DebugRequestCommand extends AbstractCommand {
   public DebugRequestCommand() {
     this.usage =
-        " [on] | off | ? | note | trace [ [on] | off | ? ] | ash [ [on] | off ] | listener [ [on] | off ] - start or stop logging of debugging data.";
+        " [on] | off | ? | note | trace [ [on] | off | ? ] | ash [ [on] | off ] | listener [ [on] | off ] | responses [reset] | relay [reset] | startup [stage] - start or stop logging of debugging data.";
   }
 
   @Override
@@ -54,6 +61,28 @@ public class DebugRequestCommand extends AbstractCommand {
       } else if (command.equals("off")) {
         ListenerRegistry.setLogging(false);
       }
+    } else if (command.equals("responses")) {
+      command = split.length < 2 ? "" : split[1];
+      if (command.equals("reset")) {
+        ResponseReader.resetStatistics();
+      } else {
+        DebugRequestCommand.printResponseStatistics();
+      }
+    } else if (command.equals("relay")) {
+      command = split.length < 2 ? "" : split[1];
+      if (command.equals("reset")) {
+        RelayServer.resetPathStatistics();
+        RelayFileCache.clear();
+      } else {
+        DebugRequestCommand.printRelayStatistics();
+      }
+    } else if (command.equals("startup")) {
+      String stage = parameters.substring(command.length()).trim();
+      if (!stage.equals("") && !DatabaseStartup.DATABASES.load(stage)) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "There is no startup stage named " + stage + ".");
+        return;
+      }
+      DebugRequestCommand.printStartupStatistics();
     } else if (command.equals("note")) {
       String debugNote = parameters.substring(command.length()).trim();
       if (debugNote.equals("")) {
@@ -75,4 +104,93 @@ public class DebugRequestCommand extends AbstractCommand {
       KoLmafia.updateDisplay("I don't know how to debug " + command);
     }
   }
+
+  private static void printResponseStatistics() {
+    Map<String, ResponseReader.Statistics> statistics = ResponseReader.getStatistics();
+    if (statistics.isEmpty()) {
+      RequestLogger.printLine("No responses have been read.");
+      return;
+    }
+
+    RequestLogger.printLine("request: count, KB received, KB decoded, KB allocated");
+    for (Entry<String, ResponseReader.Statistics> entry : statistics.entrySet()) {
+      ResponseReader.Statistics value = entry.getValue();
+      RequestLogger.printLine(
+          entry.getKey()
+              + ": "
+              + value.getCount()
+              + ", "
+              + value.getBytesReceived() / 1024
+              + ", "
+              + value.getBytesDecoded() / 1024
+              + ", "
+              + value.getBytesAllocated() / 1024);
+    }
+  }
+
+  private static void printStartupStatistics() {
+    Collection<DatabaseStartup.Stage> stages = DatabaseStartup.DATABASES.getStages();
+
+    long loadNanos = DatabaseStartup.DATABASES.getLoadNanos();
+    if (loadNanos > 0) {
+      RequestLogger.printLine(
+          "All stages loaded in " + String.format("%.1f", loadNanos / 1e6) + " ms");
+    }
+
+    long firstStart = Long.MAX_VALUE;
+    for (DatabaseStartup.Stage stage : stages) {
+      if (stage.isLoaded()) {
+        firstStart = Math.min(firstStart, stage.getStartNanos());
+      }
+    }
+
+    RequestLogger.printLine("stage: ms, started at ms, thread");
+    for (DatabaseStartup.Stage stage : stages) {
+      if (!stage.isLoaded()) {
+        RequestLogger.printLine(stage.getName() + ": not loaded");
+        continue;
+      }
+      RequestLogger.printLine(
+          stage.getName()
+              + ": "
+              + String.format("%.1f", stage.getNanos() / 1e6)
+              + ", "
+              + String.format("%.1f", (stage.getStartNanos() - firstStart) / 1e6)
+              + ", "
+              + stage.getThreadName());
+    }
+  }
+
+  private static void printRelayStatistics() {
+    RequestLogger.printLine("Connections waiting: " + RelayServer.getQueuedConnections());
+    RequestLogger.printLine("Requests in progress: " + RelayServer.getActiveRequests());
+    RequestLogger.printLine(
+        "Cached files: "
+            + RelayFileCache.getCachedFiles()
+            + " ("
+            + RelayFileCache.getCachedBytes() / 1024
+            + " KB), "
+            + RelayFileCache.getHits()
+            + " hits, "
+            + RelayFileCache.getMisses()
+            + " misses");
+
+    Map<String, RelayServer.PathStatistics> statistics = RelayServer.getPathStatistics();
+    if (statistics.isEmpty()) {
+      return;
+    }
+
+    RequestLogger.printLine("path: count, average ms, maximum ms");
+    for (Entry<String, RelayServer.PathStatistics> entry : statistics.entrySet()) {
+      RelayServer.PathStatistics value = entry.getValue();
+      RequestLogger.printLine(
+          entry.getKey()
+              + ": "
+              + value.getCount()
+              + ", "
+              + String.format("%.1f", value.getAverageMillis())
+              + ", "
+              + String.format("%.1f", value.getMaximumMillis()));
+    }
+  }
 }
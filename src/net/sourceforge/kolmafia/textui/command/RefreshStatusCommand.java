@@ -3,6 +3,7 @@ package net.sourceforge.kolmafia.textui.command;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.KoLmafiaCLI;
 import net.sourceforge.kolmafia.RequestThread;
 import net.sourceforge.kolmafia.request.ApiRequest;
 import net.sourceforge.kolmafia.request.CampgroundRequest;
@@ -20,7 +21,7 @@ import net.sourceforge.kolmafia.session.Limitmode;
 public class RefreshStatusCommand extends AbstractCommand {
   public RefreshStatusCommand() {
     this.usage =
-        " all | [status | effects] | [gear | equip | outfit] | inv | camp | storage | stash | [familiar | terarrium] | stickers | quests | shop - resynchronize with KoL.";
+        " all | [status | effects] | [gear | equip | outfit] | inv | camp | storage | stash | [familiar | terarrium] | stickers | quests | shop | scripts - resynchronize with KoL, or look for scripts afresh.";
   }
 
   @Override
@@ -63,6 +64,9 @@ public class RefreshStatusCommand extends AbstractCommand {
     } else if (parameters.equals("shop")) {
       RequestThread.postRequest(new ManageStoreRequest());
       return;
+    } else if (parameters.equals("scripts")) {
+      KoLmafiaCLI.rescanScriptFiles();
+      return;
     } else {
       KoLmafia.updateDisplay(MafiaState.ERROR, parameters + " cannot be refreshed.");
       return;
@@ -29,6 +29,11 @@ public abstract class AshStub extends BaseFunction {
     this.ashFunctionName = ashFunctionName;
   }
 
+  /** Returns the runtime on whose behalf this function is called. */
+  protected ScriptRuntime getController() {
+    return controller;
+  }
+
   @Override
   public String getFunctionName() {
     return JavascriptRuntime.toCamelCase(ashFunctionName);
@@ -64,6 +69,8 @@ public abstract class AshStub extends BaseFunction {
   public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
     JavascriptRuntime.checkInterrupted();
 
+    ScriptRuntime controller = getController();
+    scope = JavascriptRuntime.getCurrentScope(scope);
     ValueConverter coercer = new ValueConverter(cx, scope);
 
     // Find library function matching arguments, in two stages.
@@ -106,7 +113,7 @@ public abstract class AshStub extends BaseFunction {
     // capturing the return
     // value of those functions. In JavaScript we don't want this behaviour at all
     if (!KoLmafia.refusesContinue() && ashReturnValue != null) {
-      this.controller.setState(ScriptRuntime.State.NORMAL);
+      controller.setState(ScriptRuntime.State.NORMAL);
       KoLmafia.forceContinue();
     }
 
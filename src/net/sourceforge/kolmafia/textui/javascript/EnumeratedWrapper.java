@@ -32,9 +32,13 @@ public class EnumeratedWrapper extends ScriptableObject {
   }
 
   public static EnumeratedWrapper wrap(Scriptable scope, Class<?> recordValueClass, Value wrapped) {
+    // Modules inherit from their script's top scope, which inherits from the shared scope. Keep one
+    // registry for the whole script.
     scope = getTopLevelScope(scope);
     Scriptable proto = scope.getPrototype();
-    while (proto != null && proto != getObjectPrototype(scope)) {
+    while (proto != null
+        && proto != getObjectPrototype(scope)
+        && !JavascriptRuntime.isSharedScope(proto)) {
       scope = proto;
       proto = scope.getPrototype();
     }
@@ -115,7 +119,8 @@ public class EnumeratedWrapper extends ScriptableObject {
     String typeName = (String) ScriptableObject.getProperty(functionObject, "typeName");
     Type type = DataTypes.simpleTypes.find(typeName);
 
-    Scriptable scope = ScriptableObject.getTopLevelScope(thisObject);
+    Scriptable scope =
+        JavascriptRuntime.getCurrentScope(ScriptableObject.getTopLevelScope(thisObject));
 
     Object arg = args[0];
     if (arg instanceof Iterable) {
@@ -138,7 +143,8 @@ public class EnumeratedWrapper extends ScriptableObject {
     String typeName = (String) ScriptableObject.getProperty(functionObject, "typeName");
     Type type = DataTypes.simpleTypes.find(typeName);
 
-    Scriptable scope = ScriptableObject.getTopLevelScope(thisObject);
+    Scriptable scope =
+        JavascriptRuntime.getCurrentScope(ScriptableObject.getTopLevelScope(thisObject));
     ValueConverter coercer = new ValueConverter(cx, scope);
 
     return cx.newArray(
@@ -44,6 +44,8 @@ public class JavascriptRuntime extends AbstractRuntime {
   static final Set<JavascriptRuntime> runningRuntimes = ConcurrentHashMap.newKeySet();
   static final ContextFactory contextFactory = new ObservingContextFactory();
 
+  private static final ThreadLocal<JavascriptRuntime> currentRuntime = new ThreadLocal<>();
+
   private File scriptFile = null;
   private String scriptString = null;
 
@@ -108,29 +110,64 @@ public class JavascriptRuntime extends AbstractRuntime {
     return functions;
   }
 
-  private Scriptable initRuntimeLibrary(Context cx, Scriptable scope, boolean addToTopScope) {
+  private static ScriptableObject sharedScope = null;
+  private static ScriptableObject sharedCommandLineScope = null;
+  private static Scriptable sharedStdLib = null;
+
+  /**
+   * Builds the scope every script's own top scope inherits from, the first time it is needed: the
+   * standard objects, the runtime library and the enumerated types. It is built once, sealed, and
+   * shared; the library's functions work for whichever script is calling them.
+   *
+   * <p>Scripts run from the gCLI inherit instead from a scope which also has the library's
+   * functions at the top level.
+   */
+  private static synchronized void initSharedScopes(Context cx) {
+    if (sharedScope != null) {
+      return;
+    }
+
+    ScriptableObject scope = cx.initSafeStandardObjects(null, true);
+    ScriptableObject stdLib = initRuntimeLibrary(cx, scope);
+    initEnumeratedTypes(cx, scope, stdLib);
+    stdLib.sealObject();
+
+    ScriptableObject commandLineScope = (ScriptableObject) cx.newObject(scope);
+    commandLineScope.setPrototype(scope);
+    commandLineScope.setParentScope(null);
+    for (Object id : stdLib.getIds()) {
+      ScriptableObject.defineProperty(
+          commandLineScope,
+          (String) id,
+          stdLib.get((String) id, stdLib),
+          ScriptableObject.DONTENUM);
+    }
+    commandLineScope.sealObject();
+    scope.sealObject();
+
+    sharedStdLib = stdLib;
+    sharedCommandLineScope = commandLineScope;
+    sharedScope = scope;
+  }
+
+  static boolean isSharedScope(Scriptable scope) {
+    return scope != null && (scope == sharedScope || scope == sharedCommandLineScope);
+  }
+
+  private static ScriptableObject initRuntimeLibrary(Context cx, Scriptable scope) {
     Set<String> uniqueFunctionNames =
         getFunctions().stream().map(Symbol::getName).collect(Collectors.toCollection(TreeSet::new));
 
-    Scriptable stdLib = cx.newObject(scope);
+    ScriptableObject stdLib = (ScriptableObject) cx.newObject(scope);
     int permanentReadOnly = ScriptableObject.PERMANENT | ScriptableObject.READONLY;
 
     for (String libraryFunctionName : uniqueFunctionNames) {
-      String jsName = toCamelCase(libraryFunctionName);
       ScriptableObject.defineProperty(
           stdLib,
-          jsName,
+          toCamelCase(libraryFunctionName),
           new LibraryFunctionStub(
-              stdLib, ScriptableObject.getFunctionPrototype(stdLib), this, libraryFunctionName),
+              stdLib, ScriptableObject.getFunctionPrototype(stdLib), libraryFunctionName),
           permanentReadOnly);
-      if (addToTopScope) {
-        ScriptableObject.defineProperty(
-            scope,
-            jsName,
-            new LibraryFunctionStub(
-                scope, ScriptableObject.getFunctionPrototype(scope), this, libraryFunctionName),
-            ScriptableObject.DONTENUM);
-      }
     }
 
     ScriptableObject.defineProperty(
@@ -163,17 +200,47 @@ public class JavascriptRuntime extends AbstractRuntime {
     }
   }
 
+  /** Returns the runtime running a script on this thread, if there is one. */
+  static JavascriptRuntime getCurrentRuntime() {
+    return currentRuntime.get();
+  }
+
+  /**
+   * Returns the top scope of the script running on this thread. Functions in the shared runtime
+   * library are called with their own scope, but must create objects in the calling script's.
+   */
+  static Scriptable getCurrentScope(Scriptable scope) {
+    JavascriptRuntime runtime = currentRuntime.get();
+    Scriptable topScope = runtime != null ? runtime.currentTopScope : null;
+    return topScope != null ? topScope : scope;
+  }
+
   @Override
   public Value execute(
       final String functionName, final Object[] arguments, final boolean executeTopLevel) {
-    if (!executeTopLevel) {
-      if (currentTopScope == null) {
-        throw new ScriptException(
-            "Cannot run with executeTopLevel = false without running once first.");
+    JavascriptRuntime previous = currentRuntime.get();
+    currentRuntime.set(this);
+
+    try {
+      if (!executeTopLevel) {
+        if (currentTopScope == null) {
+          throw new ScriptException(
+              "Cannot run with executeTopLevel = false without running once first.");
+        }
+        return executeRun(functionName, arguments, false);
+      }
+
+      return executeScript(functionName, arguments);
+    } finally {
+      if (previous == null) {
+        currentRuntime.remove();
+      } else {
+        currentRuntime.set(previous);
       }
-      return executeRun(functionName, arguments, false);
     }
+  }
 
+  private Value executeScript(final String functionName, final Object[] arguments) {
     // TODO: Support for requesting user arguments if missing.
     Context cx = contextFactory.enterContext();
 
@@ -181,15 +248,16 @@ public class JavascriptRuntime extends AbstractRuntime {
     cx.setOptimizationLevel(1);
     runningRuntimes.add(this);
 
-    // TODO: Use a shared parent scope and initialize this with that as a prototype.
-    // But be careful. May mess up our EnumeratedWrapper registries.
-    Scriptable scope = cx.initSafeStandardObjects();
+    // If executing from GCLI (and not file), inherit a scope with the std lib at the top level.
+    initSharedScopes(cx);
+    Scriptable parentScope = scriptFile == null ? sharedCommandLineScope : sharedScope;
+    Scriptable scope = cx.newObject(parentScope);
+    scope.setPrototype(parentScope);
+    scope.setParentScope(null);
     currentTopScope = scope;
 
     try {
-      // If executing from GCLI (and not file), add std lib to top scope.
-      currentStdLib = initRuntimeLibrary(cx, scope, scriptFile == null);
-      initEnumeratedTypes(cx, scope, currentStdLib);
+      currentStdLib = sharedStdLib;
 
       setState(State.NORMAL);
 
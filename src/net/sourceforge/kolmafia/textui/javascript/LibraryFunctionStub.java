@@ -6,6 +6,7 @@ import net.sourceforge.kolmafia.combat.Macrofier;
 import net.sourceforge.kolmafia.textui.DataTypes;
 import net.sourceforge.kolmafia.textui.Parser;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
+import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import net.sourceforge.kolmafia.textui.parsetree.Function;
 import net.sourceforge.kolmafia.textui.parsetree.FunctionList;
@@ -18,9 +19,18 @@ import org.mozilla.javascript.Scriptable;
 public class LibraryFunctionStub extends AshStub {
   private static final long serialVersionUID = 1L;
 
-  public LibraryFunctionStub(
-      Scriptable scope, Scriptable prototype, ScriptRuntime controller, String ashFunctionName) {
-    super(scope, prototype, controller, ashFunctionName);
+  public LibraryFunctionStub(Scriptable scope, Scriptable prototype, String ashFunctionName) {
+    super(scope, prototype, null, ashFunctionName);
+  }
+
+  @Override
+  protected ScriptRuntime getController() {
+    // The runtime library is shared, so work for whichever script is calling.
+    JavascriptRuntime runtime = JavascriptRuntime.getCurrentRuntime();
+    if (runtime == null) {
+      throw new ScriptException("No script is running.");
+    }
+    return runtime;
   }
 
   @Override
@@ -30,6 +40,7 @@ public class LibraryFunctionStub extends AshStub {
 
   @Override
   protected Value execute(Function function, List<Value> ashArgs) {
+    ScriptRuntime controller = getController();
     LibraryFunction ashFunction;
     if (function instanceof LibraryFunction) {
       ashFunction = (LibraryFunction) function;
@@ -83,7 +94,8 @@ public class LibraryFunctionStub extends AshStub {
     int functionReferenceArgIndex = findFunctionReference(args);
     if (functionReferenceArgIndex >= 0) {
       BaseFunction callback = (BaseFunction) args[functionReferenceArgIndex];
-      Macrofier.setJavaScriptMacroOverride(callback, scope, thisObj);
+      Macrofier.setJavaScriptMacroOverride(
+          callback, JavascriptRuntime.getCurrentScope(scope), thisObj);
       args[functionReferenceArgIndex] = "[" + callback.toString() + "]";
     }
 
@@ -26,6 +26,8 @@ public class ProxyRecordMethodWrapper extends BaseFunction {
       return null;
     }
 
+    scope = JavascriptRuntime.getCurrentScope(scope);
+
     try {
       Object returnValue = method.invoke(((EnumeratedWrapper) thisObj).getWrapped().asProxy());
 
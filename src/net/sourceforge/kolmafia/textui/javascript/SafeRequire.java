@@ -17,27 +17,30 @@ import net.sourceforge.kolmafia.textui.parsetree.UserDefinedFunction;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.Require;
+import org.mozilla.javascript.commonjs.module.provider.DefaultUrlConnectionExpiryCalculator;
 import org.mozilla.javascript.commonjs.module.provider.SoftCachingModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.provider.UrlModuleSourceProvider;
 
 public class SafeRequire extends Require {
   private static final long serialVersionUID = 1L;
 
+  // Compiled scripts, shared by every run and keyed by their location. Each time one is required,
+  // its file's modification time is checked, and it is compiled again only if that has changed.
+  private static final ModuleScriptProvider moduleScriptProvider =
+      new SoftCachingModuleScriptProvider(
+          new UrlModuleSourceProvider(
+              Arrays.asList(
+                  KoLConstants.ROOT_LOCATION.toURI(), KoLConstants.SCRIPT_LOCATION.toURI()),
+              null,
+              new DefaultUrlConnectionExpiryCalculator(0),
+              null));
+
   private final Scriptable stdLib;
 
   public SafeRequire(Context cx, Scriptable nativeScope, Scriptable stdLib) {
-    super(
-        cx,
-        nativeScope,
-        new SoftCachingModuleScriptProvider(
-            new UrlModuleSourceProvider(
-                Arrays.asList(
-                    KoLConstants.ROOT_LOCATION.toURI(), KoLConstants.SCRIPT_LOCATION.toURI()),
-                null)),
-        null,
-        new MainWarningScript(),
-        true);
+    super(cx, nativeScope, moduleScriptProvider, null, new MainWarningScript(), true);
     this.stdLib = stdLib;
   }
 
@@ -7,6 +7,7 @@ public class AggregateType extends CompositeType {
   protected final Type dataType;
   protected final Type indexType;
   protected final boolean caseInsensitive;
+  protected final boolean ordered;
   protected int size;
 
   private AggregateType(
@@ -14,8 +15,9 @@ public class AggregateType extends CompositeType {
       final Type dataType,
       final Type indexType,
       final int size,
-      final boolean caseInsensitive) {
-    this(name, dataType, indexType, size, caseInsensitive, null);
+      final boolean caseInsensitive,
+      final boolean ordered) {
+    this(name, dataType, indexType, size, caseInsensitive, ordered, null);
   }
 
   private AggregateType(
@@ -24,12 +26,14 @@ public class AggregateType extends CompositeType {
       final Type indexType,
       final int size,
       final boolean caseInsensitive,
+      final boolean ordered,
       final Location location) {
     super(name, DataTypes.TYPE_AGGREGATE, location);
     this.dataType = dataType;
     this.indexType = indexType;
     this.size = size;
     this.caseInsensitive = caseInsensitive && indexType.equals(DataTypes.STRING_TYPE);
+    this.ordered = ordered;
   }
 
   public AggregateType(final AggregateType original) {
@@ -43,28 +47,35 @@ public class AggregateType extends CompositeType {
         original.indexType,
         original.size,
         original.caseInsensitive,
+        original.ordered,
         location);
   }
 
   // Map
   public AggregateType(final Type dataType, final Type indexType) {
-    this("aggregate", dataType, indexType, -1, false);
+    this("aggregate", dataType, indexType, -1, false, true);
   }
 
   // Map with case-insensitive string keys
   public AggregateType(final Type dataType, final Type indexType, boolean caseInsensitive) {
-    this("aggregate", dataType, indexType, -1, caseInsensitive);
+    this("aggregate", dataType, indexType, -1, caseInsensitive, true);
+  }
+
+  // Map whose keys need not iterate in sorted order
+  public AggregateType(
+      final Type dataType, final Type indexType, boolean caseInsensitive, boolean ordered) {
+    this("aggregate", dataType, indexType, -1, caseInsensitive, ordered);
   }
 
   // Array
   public AggregateType(final Type dataType, final int size) {
-    this("aggregate", dataType, DataTypes.INT_TYPE, size, false);
+    this("aggregate", dataType, DataTypes.INT_TYPE, size, false, true);
   }
 
   // VarArg
   public AggregateType(
       final String name, final Type dataType, final int size, final Location location) {
-    this(name, dataType, DataTypes.INT_TYPE, size, false, location);
+    this(name, dataType, DataTypes.INT_TYPE, size, false, true, location);
   }
 
   @Override
@@ -87,6 +98,10 @@ public class AggregateType extends CompositeType {
     return key;
   }
 
+  public boolean isOrdered() {
+    return this.ordered;
+  }
+
   public int getSize() {
     return this.size;
   }
@@ -132,7 +147,9 @@ public class AggregateType extends CompositeType {
 
   @Override
   public Value initialValue() {
-    return (this.size != -1) ? new ArrayValue(this) : new MapValue(this, this.caseInsensitive);
+    return (this.size != -1)
+        ? new ArrayValue(this)
+        : new MapValue(this, this.caseInsensitive, this.ordered);
   }
 
   @Override
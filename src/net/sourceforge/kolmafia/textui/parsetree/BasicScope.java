@@ -28,7 +28,6 @@ public abstract class BasicScope extends Command {
   protected FunctionList functions;
   protected BasicScope parentScope;
   protected List<BasicScope> nestedScopes;
-  boolean executed;
 
   public BasicScope(
       FunctionList functions, VariableList variables, TypeList types, BasicScope parentScope) {
@@ -45,7 +44,6 @@ public abstract class BasicScope extends Command {
       parentScope.nestedScopes.add(this);
       parentScope = parentScope.parentScope;
     }
-    this.executed = false;
   }
 
   public BasicScope(VariableList variables, final BasicScope parentScope) {
@@ -413,38 +411,34 @@ public abstract class BasicScope extends Command {
       this.pauser.pause(1);
     }
 
-    try {
-      Value result = DataTypes.VOID_VALUE;
-      interpreter.traceIndent();
+    Value result = DataTypes.VOID_VALUE;
+    interpreter.traceIndent();
 
-      Iterator<Command> it = this.getCommands();
-      while (it.hasNext()) {
-        Command current = it.next();
-        result = current.execute(interpreter);
-
-        // Abort processing now if command failed
-        if (!KoLmafia.permitsContinue()) {
-          interpreter.setState(ScriptRuntime.State.EXIT);
-        }
+    Iterator<Command> it = this.getCommands();
+    while (it.hasNext()) {
+      Command current = it.next();
+      result = current.execute(interpreter);
 
-        if (result == null) {
-          result = DataTypes.VOID_VALUE;
-        }
+      // Abort processing now if command failed
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+      }
 
-        if (ScriptRuntime.isTracing()) {
-          interpreter.trace("[" + interpreter.getState() + "] <- " + result.toQuotedString());
-        }
+      if (result == null) {
+        result = DataTypes.VOID_VALUE;
+      }
 
-        if (interpreter.getState() != ScriptRuntime.State.NORMAL) {
-          break;
-        }
+      if (ScriptRuntime.isTracing()) {
+        interpreter.trace("[" + interpreter.getState() + "] <- " + result.toQuotedString());
       }
 
-      interpreter.traceUnindent();
-      return result;
-    } finally {
-      this.executed = true;
+      if (interpreter.getState() != ScriptRuntime.State.NORMAL) {
+        break;
+      }
     }
+
+    interpreter.traceUnindent();
+    return result;
   }
 
   public abstract void addCommand(final Command c, final Parser p);
@@ -13,10 +13,6 @@ import org.eclipse.lsp4j.Location;
 public class CompositeReference extends VariableReference {
   private final List<Evaluable> indices;
 
-  // Derived from indices: Final slice and index into it
-  private CompositeValue slice;
-  private Value index;
-
   // For runtime error messages
   private final String fileName;
   private final int lineNumber;
@@ -80,23 +76,29 @@ public class CompositeReference extends VariableReference {
     return this.getValue(interpreter);
   }
 
+  // Derived from indices: Final slice and index into it
+  private static class Slice {
+    private CompositeValue slice;
+    private Value index;
+  }
+
   // Evaluate all the indices and step through the slices.
   //
-  // When done, this.slice has the final slice and this.index has
-  // the final evaluated index.
+  // When done, the result has the final slice and the final
+  // evaluated index, or is null if the script is exiting.
 
-  private boolean getSlice(final AshRuntime interpreter) {
+  private Slice getSlice(final AshRuntime interpreter) {
     if (!KoLmafia.permitsContinue()) {
       interpreter.setState(ScriptRuntime.State.EXIT);
-      return false;
+      return null;
     }
 
-    this.slice = (CompositeValue) Value.asProxy(this.target.getValue(interpreter));
-    this.index = null;
+    Slice slice = new Slice();
+    slice.slice = (CompositeValue) Value.asProxy(this.target.getValue(interpreter));
 
     interpreter.traceIndent();
     if (ScriptRuntime.isTracing()) {
-      interpreter.trace("AREF: " + this.slice.toString());
+      interpreter.trace("AREF: " + slice.slice.toString());
     }
 
     Iterator<Evaluable> it = this.indices.iterator();
@@ -109,55 +111,56 @@ public class CompositeReference extends VariableReference {
         interpreter.trace("Key #" + (i + 1) + ": " + exp.toQuotedString());
       }
 
-      this.index = exp.execute(interpreter);
-      interpreter.captureValue(this.index);
-      if (this.index == null) {
-        this.index = DataTypes.VOID_VALUE;
+      slice.index = exp.execute(interpreter);
+      interpreter.captureValue(slice.index);
+      if (slice.index == null) {
+        slice.index = DataTypes.VOID_VALUE;
       }
 
       if (ScriptRuntime.isTracing()) {
-        interpreter.trace("[" + interpreter.getState() + "] <- " + this.index.toQuotedString());
+        interpreter.trace("[" + interpreter.getState() + "] <- " + slice.index.toQuotedString());
       }
       interpreter.traceUnindent();
 
       if (interpreter.getState() == ScriptRuntime.State.EXIT) {
         interpreter.traceUnindent();
-        return false;
+        return null;
       }
 
       if (it.hasNext()) {
         CompositeValue result =
-            (CompositeValue) Value.asProxy(this.slice.aref(this.index, interpreter));
+            (CompositeValue) Value.asProxy(slice.slice.aref(slice.index, interpreter));
 
         // Create missing intermediate slices
         if (result == null) { // ...but don't actually save a proxy in the parent object
-          Value temp = this.slice.initialValue(this.index);
-          this.slice.aset(this.index, temp, interpreter);
+          Value temp = slice.slice.initialValue(slice.index);
+          slice.slice.aset(slice.index, temp, interpreter);
           result = (CompositeValue) Value.asProxy(temp);
         }
 
-        this.slice = result;
+        slice.slice = result;
 
         if (ScriptRuntime.isTracing()) {
-          interpreter.trace("AREF <- " + this.slice.toString());
+          interpreter.trace("AREF <- " + slice.slice.toString());
         }
       }
     }
 
     interpreter.traceUnindent();
 
-    return true;
+    return slice;
   }
 
   @Override
-  public synchronized Value getValue(final AshRuntime interpreter) {
+  public Value getValue(final AshRuntime interpreter) {
     interpreter.setLineAndFile(this.fileName, this.lineNumber);
     // Iterate through indices to final slice
-    if (this.getSlice(interpreter)) {
-      Value result = this.slice.aref(this.index, interpreter);
+    Slice slice = this.getSlice(interpreter);
+    if (slice != null) {
+      Value result = slice.slice.aref(slice.index, interpreter);
 
       if (result == null) {
-        result = this.slice.initialValue(this.index);
+        result = slice.slice.initialValue(slice.index);
       }
 
       interpreter.traceIndent();
@@ -173,21 +176,21 @@ public class CompositeReference extends VariableReference {
   }
 
   @Override
-  public synchronized Value setValue(
-      AshRuntime interpreter, final Value targetValue, final Operator oper) {
+  public Value setValue(AshRuntime interpreter, final Value targetValue, final Operator oper) {
     interpreter.setLineAndFile(this.fileName, this.lineNumber);
     // Iterate through indices to final slice
-    if (this.getSlice(interpreter)) {
+    Slice slice = this.getSlice(interpreter);
+    if (slice != null) {
       Value newValue = targetValue;
 
       interpreter.traceIndent();
 
       if (oper != null) {
-        Value currentValue = this.slice.aref(this.index, interpreter);
+        Value currentValue = slice.slice.aref(slice.index, interpreter);
 
         if (currentValue == null) {
-          currentValue = this.slice.initialValue(this.index);
-          this.slice.aset(this.index, currentValue, interpreter);
+          currentValue = slice.slice.initialValue(slice.index);
+          slice.slice.aset(slice.index, currentValue, interpreter);
         }
 
         if (ScriptRuntime.isTracing()) {
@@ -197,7 +200,7 @@ public class CompositeReference extends VariableReference {
         newValue = oper.applyTo(interpreter, currentValue, targetValue);
       }
 
-      this.slice.aset(this.index, newValue, interpreter);
+      slice.slice.aset(slice.index, newValue, interpreter);
 
       if (ScriptRuntime.isTracing()) {
         interpreter.trace("ASET: " + newValue.toQuotedString());
@@ -211,13 +214,14 @@ public class CompositeReference extends VariableReference {
     return null;
   }
 
-  public synchronized Value removeKey(final AshRuntime interpreter) {
+  public Value removeKey(final AshRuntime interpreter) {
     interpreter.setLineAndFile(this.fileName, this.lineNumber);
     // Iterate through indices to final slice
-    if (this.getSlice(interpreter)) {
-      Value result = this.slice.remove(this.index, interpreter);
+    Slice slice = this.getSlice(interpreter);
+    if (slice != null) {
+      Value result = slice.slice.remove(slice.index, interpreter);
       if (result == null) {
-        result = this.slice.initialValue(this.index);
+        result = slice.slice.initialValue(slice.index);
       }
       interpreter.traceIndent();
       if (ScriptRuntime.isTracing()) {
@@ -233,8 +237,9 @@ public class CompositeReference extends VariableReference {
     interpreter.setLineAndFile(this.fileName, this.lineNumber);
     boolean result = false;
     // Iterate through indices to final slice
-    if (this.getSlice(interpreter)) {
-      result = this.slice.aref(index, interpreter) != null;
+    Slice slice = this.getSlice(interpreter);
+    if (slice != null) {
+      result = slice.slice.aref(index, interpreter) != null;
     }
     interpreter.traceIndent();
     if (ScriptRuntime.isTracing()) {
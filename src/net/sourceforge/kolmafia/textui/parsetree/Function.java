@@ -298,7 +298,27 @@ public abstract class Function extends Symbol {
     }
   }
 
+  private boolean hasVarArgs() {
+    for (VariableReference paramVarRef : this.variableReferences) {
+      if (paramVarRef.getType() instanceof VarArgType) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public Object[] bindVariableReferences(AshRuntime interpreter, Object[] values) {
+    if (values.length == this.variableReferences.size() + 1 && !this.hasVarArgs()) {
+      // Nothing to collect into an array, so the values can be used as they are
+      if (interpreter != null) {
+        int paramCount = 1;
+        for (VariableReference paramVarRef : this.variableReferences) {
+          paramVarRef.setValue(interpreter, (Value) values[paramCount++]);
+        }
+      }
+      return values;
+    }
+
     List<Object> newValues = new ArrayList<>();
 
     // This is the interpreter.
@@ -55,62 +55,67 @@ public class FunctionCall extends Evaluable {
 
     interpreter.traceIndent();
 
-    Object[] values = new Object[params.size() + 1];
-    values[0] = interpreter;
+    Object[] values = interpreter.getArguments(params.size() + 1);
+    Value result;
+    // The array is released however the call ends, so as not to keep its values alive
+    try {
+      values[0] = interpreter;
 
-    int paramCount = 1;
+      int paramCount = 1;
 
-    for (Evaluable paramValue : this.params) {
-      if (ScriptRuntime.isTracing()) {
-        interpreter.trace("Param #" + paramCount + ": " + paramValue.toQuotedString());
-      }
+      for (Evaluable paramValue : this.params) {
+        if (ScriptRuntime.isTracing()) {
+          interpreter.trace("Param #" + paramCount + ": " + paramValue.toQuotedString());
+        }
+
+        Value value = paramValue.execute(interpreter);
+        interpreter.captureValue(value);
+        if (value == null) {
+          value = DataTypes.VOID_VALUE;
+        }
 
-      Value value = paramValue.execute(interpreter);
-      interpreter.captureValue(value);
-      if (value == null) {
-        value = DataTypes.VOID_VALUE;
+        if (ScriptRuntime.isTracing()) {
+          interpreter.trace("[" + interpreter.getState() + "] <- " + value.toQuotedString());
+        }
+
+        if (interpreter.getState() == ScriptRuntime.State.EXIT) {
+          interpreter.traceUnindent();
+          return null;
+        }
+
+        values[paramCount++] = value;
       }
 
       if (ScriptRuntime.isTracing()) {
-        interpreter.trace("[" + interpreter.getState() + "] <- " + value.toQuotedString());
+        interpreter.trace("Entering function " + this.target.getName());
       }
 
-      if (interpreter.getState() == ScriptRuntime.State.EXIT) {
-        interpreter.traceUnindent();
-        return null;
+      interpreter.setLineAndFile(this.fileName, this.lineNumber);
+
+      // push to interpreter stack
+      interpreter.pushFrame(this.target.getName());
+
+      Profiler prev = interpreter.profiler;
+      if (prev != null) {
+        long t0 = System.nanoTime();
+        prev.net += t0 - prev.net0;
+        Profiler curr = Profiler.create(this.target.getSignature());
+        curr.net0 = t0;
+        interpreter.profiler = curr;
+
+        result = this.target.execute(interpreter, values);
+
+        long t1 = System.nanoTime();
+        prev.net0 = t1;
+        interpreter.profiler = prev;
+        curr.total = t1 - t0;
+        curr.net += t1 - curr.net0;
+        curr.finish();
+      } else {
+        result = this.target.execute(interpreter, values);
       }
-
-      values[paramCount++] = value;
-    }
-
-    if (ScriptRuntime.isTracing()) {
-      interpreter.trace("Entering function " + this.target.getName());
-    }
-
-    interpreter.setLineAndFile(this.fileName, this.lineNumber);
-
-    // push to interpreter stack
-    interpreter.pushFrame(this.target.getName());
-
-    Value result;
-    Profiler prev = interpreter.profiler;
-    if (prev != null) {
-      long t0 = System.nanoTime();
-      prev.net += t0 - prev.net0;
-      Profiler curr = Profiler.create(this.target.getSignature());
-      curr.net0 = t0;
-      interpreter.profiler = curr;
-
-      result = this.target.execute(interpreter, values);
-
-      long t1 = System.nanoTime();
-      prev.net0 = t1;
-      interpreter.profiler = prev;
-      curr.total = t1 - t0;
-      curr.net += t1 - curr.net0;
-      curr.finish();
-    } else {
-      result = this.target.execute(interpreter, values);
+    } finally {
+      interpreter.releaseArguments(values);
     }
 
     if (ScriptRuntime.isTracing()) {
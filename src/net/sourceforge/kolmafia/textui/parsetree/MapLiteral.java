@@ -18,7 +18,7 @@ public class MapLiteral extends AggregateLiteral {
 
   @Override
   public Value execute(final AshRuntime interpreter) {
-    this.aggr = (AggregateValue) this.type.initialValue();
+    AggregateValue aggr = (AggregateValue) this.type.initialValue();
 
     Iterator<Evaluable> keyIterator = this.keys.iterator();
     Iterator<Evaluable> valIterator = this.values.iterator();
@@ -26,10 +26,11 @@ public class MapLiteral extends AggregateLiteral {
     while (keyIterator.hasNext() && valIterator.hasNext()) {
       Value key = keyIterator.next().execute(interpreter);
       Value val = valIterator.next().execute(interpreter);
-      this.aggr.aset(key, val);
+      aggr.aset(key, val);
     }
 
-    return this.aggr;
+    this.aggr = aggr;
+    return aggr;
   }
 
   @Override
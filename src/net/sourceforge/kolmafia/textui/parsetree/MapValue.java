@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -14,11 +15,24 @@ public class MapValue extends AggregateValue {
   }
 
   public MapValue(final AggregateType type, boolean caseInsensitive) {
+    this(type, caseInsensitive, true);
+  }
+
+  public MapValue(final AggregateType type, boolean caseInsensitive, boolean ordered) {
     super(type);
     this.content =
         caseInsensitive
             ? new TreeMap<Value, Value>(Value.ignoreCaseComparator)
-            : new TreeMap<Value, Value>();
+            : !ordered && MapValue.isHashable(type.getIndexType())
+                ? new LinkedHashMap<Value, Value>()
+                : new TreeMap<Value, Value>();
+  }
+
+  // Whether keys of this type hash consistently with how they compare
+  private static boolean isHashable(final Type indexType) {
+    return indexType.isPrimitive()
+        && !indexType.equals(DataTypes.ANY_TYPE)
+        && !indexType.equals(DataTypes.VYKEA_TYPE);
   }
 
   public MapValue(final AggregateType type, Map<?, ?> value) {
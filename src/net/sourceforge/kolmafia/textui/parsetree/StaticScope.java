@@ -10,7 +10,8 @@ public class StaticScope extends Scope {
 
   @Override
   public Value execute(final AshRuntime interpreter) {
-    if (!this.executed) {
+    // Each runtime runs the scope once
+    if (interpreter.markExecuted(this)) {
       return super.execute(interpreter);
     }
 
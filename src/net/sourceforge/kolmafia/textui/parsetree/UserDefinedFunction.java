@@ -1,9 +1,7 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
@@ -11,7 +9,7 @@ import org.eclipse.lsp4j.Location;
 
 public class UserDefinedFunction extends Function {
   private Scope scope;
-  private final Stack<ArrayList<Value>> callStack;
+  private int frameSize = 0;
 
   public UserDefinedFunction(
       final String name,
@@ -21,50 +19,43 @@ public class UserDefinedFunction extends Function {
     super(name, type, variableReferences, location);
 
     this.scope = null;
-    this.callStack = new Stack<>();
   }
 
   public void setScope(final Scope s) {
     this.scope = s;
+    if (s != null) {
+      this.assignSlots();
+    }
   }
 
   public Scope getScope() {
     return this.scope;
   }
 
-  private void saveBindings(AshRuntime interpreter) {
-    if (this.scope == null) {
-      return;
-    }
-
-    ArrayList<Value> values = new ArrayList<>();
-
-    for (BasicScope next : this.scope.getScopes()) {
-      for (Variable current : next.getVariables()) {
-        if (!current.isStatic()) {
-          values.add(current.getValue(interpreter));
-        }
-      }
-    }
-
-    this.callStack.push(values);
+  public int getFrameSize() {
+    return this.frameSize;
   }
 
-  private void restoreBindings(AshRuntime interpreter) {
-    if (this.scope == null) {
-      return;
-    }
-
-    ArrayList<Value> values = this.callStack.pop();
-    int i = 0;
-
+  // Gives each variable of the function a slot in the frame of a call to it. Those of functions
+  // declared inside this one, which were parsed first, already have theirs, and static ones
+  // keep a single value. The main alias, which shares the main function's scope, finds the slots
+  // already given.
+  private void assignSlots() {
+    int size = 0;
     for (BasicScope next : this.scope.getScopes()) {
       for (Variable current : next.getVariables()) {
-        if (!current.isStatic()) {
-          current.forceValue(values.get(i++));
+        if (current.isStatic()) {
+          continue;
+        }
+        if (current.getFrameScope() == null) {
+          current.setFrameSlot(this.scope, size);
+        }
+        if (current.getFrameScope() == this.scope) {
+          size = Math.max(size, current.getFrameSlot() + 1);
         }
       }
     }
+    this.frameSize = size;
   }
 
   @Override
@@ -78,16 +69,18 @@ public class UserDefinedFunction extends Function {
       throw interpreter.runtimeException("Calling undefined user function: " + this.getName());
     }
 
-    // Save current variable bindings
-    this.saveBindings(interpreter);
-
-    // Bind values to variable references
-    this.bindVariableReferences(interpreter, values);
-
-    Value result = this.scope.execute(interpreter);
-
-    // Restore initial variable bindings
-    this.restoreBindings(interpreter);
+    // The call's variables are kept in a frame of their own, leaving those of calls already
+    // under way as they are
+    Value result;
+    interpreter.pushLocals(this.scope, this.frameSize);
+    try {
+      // Bind values to variable references
+      this.bindVariableReferences(interpreter, values);
+
+      result = this.scope.execute(interpreter);
+    } finally {
+      interpreter.popLocals(this.frameSize);
+    }
 
     if (result.getType().equals(this.type.getBaseType())) {
       return result;
@@ -263,12 +263,8 @@ public class Value implements TypedNode, Comparable<Value> {
     return this.compareTo(o, true);
   }
 
-  private int compareTo(final Value o, final boolean ignoreCase) {
-    if (!(o instanceof Value)) {
-      throw new ClassCastException();
-    }
-
-    if (this.getType().equals(DataTypes.BOOLEAN_TYPE)
+  private boolean comparesByNumber() {
+    return this.getType().equals(DataTypes.BOOLEAN_TYPE)
         || this.getType().equals(DataTypes.INT_TYPE)
         || this.getType().equals(DataTypes.ITEM_TYPE)
         || this.getType().equals(DataTypes.EFFECT_TYPE)
@@ -277,7 +273,15 @@ public class Value implements TypedNode, Comparable<Value> {
         || this.getType().equals(DataTypes.FAMILIAR_TYPE)
         || this.getType().equals(DataTypes.SLOT_TYPE)
         || this.getType().equals(DataTypes.THRALL_TYPE)
-        || this.getType().equals(DataTypes.SERVANT_TYPE)) {
+        || this.getType().equals(DataTypes.SERVANT_TYPE);
+  }
+
+  private int compareTo(final Value o, final boolean ignoreCase) {
+    if (!(o instanceof Value)) {
+      throw new ClassCastException();
+    }
+
+    if (this.comparesByNumber()) {
       return Long.compare(this.contentLong, o.contentLong);
     }
 
@@ -327,11 +331,29 @@ public class Value implements TypedNode, Comparable<Value> {
 
   @Override
   public int hashCode() {
-    int hash;
-    hash = this.getType() != null ? this.getType().hashCode() : 0;
-    hash = hash + 31 * (int) this.contentLong;
-    hash = hash + 31 * (this.contentString != null ? this.contentString.hashCode() : 0);
-    return hash;
+    // Values which compareTo says are equal must hash alike, so hash only
+    // what compareTo looks at.
+    if (this.getType() == null) {
+      return 0;
+    }
+
+    if (this.comparesByNumber()) {
+      return Long.hashCode(this.contentLong);
+    }
+
+    if (this.getType().equals(DataTypes.VYKEA_TYPE)) {
+      return 0;
+    }
+
+    if (this.getType().equals(DataTypes.FLOAT_TYPE)) {
+      return Double.hashCode(Double.longBitsToDouble(this.contentLong));
+    }
+
+    if (this.getType().equals(DataTypes.MONSTER_TYPE) && this.contentLong != 0) {
+      return Long.hashCode(this.contentLong);
+    }
+
+    return this.contentString != null ? this.contentString.hashCode() : 0;
   }
 
   public static String escapeString(String string) {
@@ -11,6 +11,16 @@ public class Variable extends Symbol {
   Evaluable expression = null;
   boolean isStatic = false;
 
+  // A variable of a library shared between runtimes has its value kept by each runtime, in the
+  // slot the library gave it
+  private int library = -1;
+  private int slot = 0;
+
+  // A variable of a user-defined function has its value kept in the frame of each call to the
+  // function with the given scope, in the slot the function gave it
+  private BasicScope frameScope = null;
+  private int frameSlot = 0;
+
   public Variable(final Type type) {
     this(null, type, null);
   }
@@ -37,9 +47,48 @@ public class Variable extends Symbol {
     this.isStatic = true;
   }
 
+  public boolean isShared() {
+    return this.library >= 0;
+  }
+
+  /** Makes each runtime keep its own value of the variable, as that of a library's slot. */
+  public void share(final int library, final int slot) {
+    this.library = library;
+    this.slot = slot;
+  }
+
+  public BasicScope getFrameScope() {
+    return this.frameScope;
+  }
+
+  public int getFrameSlot() {
+    return this.frameSlot;
+  }
+
+  void setFrameSlot(final BasicScope scope, final int slot) {
+    this.frameScope = scope;
+    this.frameSlot = slot;
+  }
+
   public Value getValue(final AshRuntime interpreter) {
     if (this.expression != null) {
-      this.content = this.expression.execute(interpreter);
+      return this.expression.execute(interpreter);
+    }
+
+    if (this.frameScope != null) {
+      Value[] frame = interpreter.getLocals(this.frameScope);
+      Value value = frame != null ? frame[this.frameSlot] : null;
+      // Until the call sets it, the variable has its initial value
+      return value != null ? value : this.content;
+    }
+
+    if (this.library >= 0) {
+      Value value = interpreter.getLibraryValue(this.library, this.slot);
+      if (value == null) {
+        value = new Value(this.type);
+        interpreter.setLibraryValue(this.library, this.slot, value);
+      }
+      return value;
     }
 
     return this.content;
@@ -69,28 +118,37 @@ public class Variable extends Symbol {
     this.expression = targetExpression;
   }
 
-  public void forceValue(final Value targetValue) {
-    this.content = targetValue;
+  public void forceValue(final AshRuntime interpreter, final Value targetValue) {
     this.expression = null;
+
+    if (this.frameScope != null) {
+      Value[] frame = interpreter.getLocals(this.frameScope);
+      if (frame != null) {
+        frame[this.frameSlot] = targetValue;
+        return;
+      }
+    }
+
+    if (this.library >= 0) {
+      interpreter.setLibraryValue(this.library, this.slot, targetValue);
+    } else {
+      this.content = targetValue;
+    }
   }
 
   public void setValue(AshRuntime interpreter, final Value targetValue) {
     if (this.getBaseType().equals(DataTypes.ANY_TYPE)
         || this.getBaseType().equals(targetValue.getType())) {
-      this.content = targetValue;
-      this.expression = null;
+      this.forceValue(interpreter, targetValue);
     } else if (this.getBaseType().equals(DataTypes.TYPE_STRICT_STRING)
         || this.getBaseType().equals(DataTypes.TYPE_STRING)) {
-      this.content = targetValue.toStringValue();
-      this.expression = null;
+      this.forceValue(interpreter, targetValue.toStringValue());
     } else if (this.getBaseType().equals(DataTypes.TYPE_INT)
         && targetValue.getType().equals(DataTypes.TYPE_FLOAT)) {
-      this.content = targetValue.toIntValue();
-      this.expression = null;
+      this.forceValue(interpreter, targetValue.toIntValue());
     } else if (this.getBaseType().equals(DataTypes.TYPE_FLOAT)
         && targetValue.getType().equals(DataTypes.TYPE_INT)) {
-      this.content = targetValue.toFloatValue();
-      this.expression = null;
+      this.forceValue(interpreter, targetValue.toFloatValue());
     } else {
       throw interpreter.runtimeException(
           "Internal error: Cannot assign " + targetValue.getType() + " to " + this.getType());
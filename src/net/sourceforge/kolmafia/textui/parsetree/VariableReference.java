@@ -45,8 +45,8 @@ public class VariableReference extends Evaluable implements Comparable<VariableR
     return this.target.getValue(interpreter);
   }
 
-  public void forceValue(final Value targetValue) {
-    this.target.forceValue(targetValue);
+  public void forceValue(final AshRuntime interpreter, final Value targetValue) {
+    this.target.forceValue(interpreter, targetValue);
   }
 
   public Value setValue(final AshRuntime interpreter, final Value targetValue) {
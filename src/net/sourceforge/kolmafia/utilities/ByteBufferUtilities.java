@@ -6,17 +6,27 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class ByteBufferUtilities {
   private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
-  private static final ArrayList<byte[]> BYTEARRAYS = new ArrayList<byte[]>();
-  private static final ArrayList<Boolean> BYTEARRAYS_STATUS = new ArrayList<Boolean>();
+  // A stream grown past this for an unusually large file is dropped, not kept
+  private static final int MAX_RETAINED_SIZE = 1024 * 1024;
 
-  private static final ArrayList<ByteArrayOutputStream> BYTESTREAMS =
-      new ArrayList<ByteArrayOutputStream>();
-  private static final ArrayList<Boolean> BYTESTREAMS_STATUS = new ArrayList<Boolean>();
+  // Enough for the reads that are usually in progress at once
+  static final int MAX_POOLED_BUFFERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+  // Buffers are kept in a small pool shared by every thread, as ResponseReader's readers are, so
+  // that a thread which only ever reads once does not keep its own
+  private static final BlockingQueue<Buffers> BUFFERS =
+      new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+  private static class Buffers {
+    private final byte[] buffer = new byte[8192];
+    private final ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+  }
 
   private ByteBufferUtilities() {}
 
@@ -35,12 +45,13 @@ public class ByteBufferUtilities {
       return EMPTY_BYTE_ARRAY;
     }
 
-    ByteArrayOutputStream ostream = ByteBufferUtilities.getOutputStream();
-    ByteBufferUtilities.read(istream, ostream);
-    byte[] data = ostream.toByteArray();
-    ByteBufferUtilities.returnOutputStream(ostream);
-
-    return data;
+    Buffers buffers = ByteBufferUtilities.getBuffers();
+    try {
+      ByteBufferUtilities.copy(istream, buffers.ostream, buffers.buffer);
+      return buffers.ostream.toByteArray();
+    } finally {
+      ByteBufferUtilities.returnBuffers(buffers);
+    }
   }
 
   public static void read(InputStream istream, OutputStream ostream) {
@@ -48,7 +59,15 @@ public class ByteBufferUtilities {
       return;
     }
 
-    byte[] buffer = ByteBufferUtilities.getBuffer();
+    Buffers buffers = ByteBufferUtilities.getBuffers();
+    try {
+      ByteBufferUtilities.copy(istream, ostream, buffers.buffer);
+    } finally {
+      ByteBufferUtilities.returnBuffers(buffers);
+    }
+  }
+
+  private static void copy(InputStream istream, OutputStream ostream, byte[] buffer) {
     int availableBytes = 0;
 
     try {
@@ -58,8 +77,6 @@ public class ByteBufferUtilities {
     } catch (IOException e) {
     }
 
-    ByteBufferUtilities.returnBuffer(buffer);
-
     try {
       ostream.flush();
     } catch (IOException e) {
@@ -71,55 +88,20 @@ public class ByteBufferUtilities {
     }
   }
 
-  private static synchronized byte[] getBuffer() {
-    for (int i = 0; i < ByteBufferUtilities.BYTEARRAYS_STATUS.size(); ++i) {
-      if (ByteBufferUtilities.BYTEARRAYS_STATUS.get(i) == Boolean.FALSE) {
-        ByteBufferUtilities.BYTEARRAYS_STATUS.set(i, Boolean.TRUE);
-        return ByteBufferUtilities.BYTEARRAYS.get(i);
-      }
-    }
-
-    byte[] buffer = new byte[8192];
-
-    ByteBufferUtilities.BYTEARRAYS.add(buffer);
-    ByteBufferUtilities.BYTEARRAYS_STATUS.add(Boolean.TRUE);
-
-    return buffer;
-  }
-
-  private static void returnBuffer(byte[] buffer) {
-    for (int i = 0; i < ByteBufferUtilities.BYTEARRAYS_STATUS.size(); ++i) {
-      if (ByteBufferUtilities.BYTEARRAYS.get(i) == buffer) {
-        ByteBufferUtilities.BYTEARRAYS_STATUS.set(i, Boolean.FALSE);
-        return;
-      }
-    }
+  private static Buffers getBuffers() {
+    Buffers buffers = ByteBufferUtilities.BUFFERS.poll();
+    return buffers != null ? buffers : new Buffers();
   }
 
-  private static synchronized ByteArrayOutputStream getOutputStream() {
-    for (int i = 0; i < ByteBufferUtilities.BYTESTREAMS_STATUS.size(); ++i) {
-      if (ByteBufferUtilities.BYTESTREAMS_STATUS.get(i) == Boolean.FALSE) {
-        ByteBufferUtilities.BYTESTREAMS_STATUS.set(i, Boolean.TRUE);
-        return ByteBufferUtilities.BYTESTREAMS.get(i);
-      }
+  private static void returnBuffers(Buffers buffers) {
+    if (buffers.ostream.size() > MAX_RETAINED_SIZE) {
+      return;
     }
-
-    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
-
-    ByteBufferUtilities.BYTESTREAMS.add(ostream);
-    ByteBufferUtilities.BYTESTREAMS_STATUS.add(Boolean.TRUE);
-
-    return ostream;
+    buffers.ostream.reset();
+    ByteBufferUtilities.BUFFERS.offer(buffers);
   }
 
-  private static void returnOutputStream(ByteArrayOutputStream outputStream) {
-    outputStream.reset();
-
-    for (int i = 0; i < ByteBufferUtilities.BYTEARRAYS_STATUS.size(); ++i) {
-      if (ByteBufferUtilities.BYTESTREAMS.get(i) == outputStream) {
-        ByteBufferUtilities.BYTESTREAMS_STATUS.set(i, Boolean.FALSE);
-        return;
-      }
-    }
+  static int getPooledBuffers() {
+    return ByteBufferUtilities.BUFFERS.size();
   }
 }
@@ -0,0 +1,10 @@
+package net.sourceforge.kolmafia.utilities;
+
+/**
+ * A list which counts the changes made to it, so that anything computed from its contents can tell
+ * whether it is still current without looking through the list again.
+ */
+public interface ChangeCountedList {
+  /** Returns a number which is different after every change to the list. */
+  long getChangeCount();
+}
@@ -0,0 +1,115 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/** An {@link ArrayList} which counts the changes made to it. */
+public class CountedList<E> extends ArrayList<E> implements ChangeCountedList {
+  private final AtomicLong changes = new AtomicLong();
+
+  // Changes are counted after they are made, so that anything computed
+  // from the list while it is changing is counted as out of date.
+  // Iterators make their changes through these methods as well.
+
+  @Override
+  public boolean add(final E e) {
+    boolean result = super.add(e);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public void add(final int index, final E element) {
+    super.add(index, element);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public boolean addAll(final Collection<? extends E> c) {
+    boolean result = super.addAll(c);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public boolean addAll(final int index, final Collection<? extends E> c) {
+    boolean result = super.addAll(index, c);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public E remove(final int index) {
+    E result = super.remove(index);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public boolean remove(final Object o) {
+    boolean result = super.remove(o);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public boolean removeAll(final Collection<?> c) {
+    boolean result = super.removeAll(c);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public boolean retainAll(final Collection<?> c) {
+    boolean result = super.retainAll(c);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public boolean removeIf(final Predicate<? super E> filter) {
+    boolean result = super.removeIf(filter);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  protected void removeRange(final int fromIndex, final int toIndex) {
+    super.removeRange(fromIndex, toIndex);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public E set(final int index, final E element) {
+    E result = super.set(index, element);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public void replaceAll(final UnaryOperator<E> operator) {
+    super.replaceAll(operator);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public void sort(final Comparator<? super E> c) {
+    super.sort(c);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public long getChangeCount() {
+    return this.changes.get();
+  }
+}
@@ -0,0 +1,66 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import net.java.dev.spellcast.utilities.LockableListModel;
+
+/** A {@link LockableListModel} which counts the changes made to it. */
+public class CountedListModel<E> extends LockableListModel<E> implements ChangeCountedList {
+  private final AtomicLong changes = new AtomicLong();
+
+  // Changes are counted after they are made, so that anything computed
+  // from the list while it is changing is counted as out of date. Every
+  // other change to a LockableListModel goes through one of these.
+
+  @Override
+  public void add(final int index, final E element) {
+    super.add(index, element);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public boolean addAll(final int index, final Collection<? extends E> c) {
+    boolean result = super.addAll(index, c);
+    this.changes.incrementAndGet();
+    return result;
+  }
+
+  @Override
+  public E remove(final int index) {
+    E removed = super.remove(index);
+    this.changes.incrementAndGet();
+    return removed;
+  }
+
+  @Override
+  public E set(final int index, final E element) {
+    E replaced = super.set(index, element);
+    this.changes.incrementAndGet();
+    return replaced;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public void sort() {
+    super.sort();
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void sort(final Comparator c) {
+    super.sort(c);
+    this.changes.incrementAndGet();
+  }
+
+  @Override
+  public long getChangeCount() {
+    return this.changes.get();
+  }
+}
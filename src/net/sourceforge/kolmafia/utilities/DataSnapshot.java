@@ -0,0 +1,307 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Keeps a binary snapshot of each data file, holding its lines already split into fields, with
+ * each distinct field stored once. Reading a snapshot saves decoding, scanning and splitting the
+ * text of the file, and every database reading the same value gets the same String.
+ *
+ * <p>A snapshot is written the first time a data file is read, and used for as long as the CRC and
+ * length of the data file are those it was made from. An override and the built-in file each have
+ * their own snapshot, so that reading one after the other does not replace either.
+ * Its header is checked with a plain read first, and only a current snapshot is memory-mapped, so
+ * a stale one is never mapped while it is being replaced.
+ *
+ * <p>The split lines are snapshotted, rather than each database's parsed tables, because every
+ * database builds its tables from them in its own code: one format serves all of them without a
+ * serializer per database, and none of them has to change. The gain is correspondingly modest, and
+ * is why snapshots are opt-in.
+ *
+ * <p>Snapshots are only used when KoLmafia is started with -DuseDataSnapshots=true.
+ */
+public class DataSnapshot {
+  // "KMDS"
+  private static final int MAGIC = 0x4B4D4453;
+  private static final int FORMAT = 1;
+  private static final int SIZE_OFFSET = 20;
+  private static final int HEADER_SIZE = 24;
+
+  private static boolean enabled = Boolean.getBoolean("useDataSnapshots");
+  static File location = new File(KoLConstants.DATA_LOCATION, "snapshots");
+
+  private DataSnapshot() {}
+
+  public static boolean isEnabled() {
+    return DataSnapshot.enabled;
+  }
+
+  public static void setEnabled(final boolean enabled) {
+    DataSnapshot.enabled = enabled;
+  }
+
+  /** Returns a reader for the lines of a built-in data file, as the method below does. */
+  public static SnapshotReader getReader(final String filename, final InputStream istream) {
+    return DataSnapshot.getReader(filename, false, istream);
+  }
+
+  /**
+   * Returns a reader for the lines of a data file which are neither blank nor comments. If the
+   * reader is passed to {@link FileUtilities#readData}, its lines come back already split.
+   *
+   * @param filename The name of the data file, for naming its snapshot
+   * @param override Whether the contents come from an override rather than the built-in file
+   * @param istream The contents of the data file, which is closed
+   */
+  public static SnapshotReader getReader(
+      final String filename, final boolean override, final InputStream istream) {
+    byte[] bytes = ByteBufferUtilities.read(istream);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    File file = new File(DataSnapshot.location, filename + (override ? ".override.bin" : ".bin"));
+
+    ByteBuffer snapshot = DataSnapshot.map(file, crc.getValue(), bytes.length);
+    if (snapshot != null) {
+      SnapshotReader reader = DataSnapshot.read(snapshot, crc.getValue(), bytes.length);
+      if (reader != null) {
+        return reader;
+      }
+    }
+
+    byte[] written = DataSnapshot.write(bytes, crc.getValue());
+    if (bytes.length > 0) {
+      DataSnapshot.save(file, written);
+    }
+    return DataSnapshot.read(ByteBuffer.wrap(written), crc.getValue(), bytes.length);
+  }
+
+  // Maps the snapshot only if its header matches the source. On Windows a file cannot be replaced
+  // while it is mapped, and a mapping lasts until it is garbage collected.
+  private static ByteBuffer map(final File file, final long crc, final int length) {
+    if (!file.exists()) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header) != -1) {}
+      header.flip();
+      if (!DataSnapshot.matches(header, crc, length, channel.size())) {
+        return null;
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean matches(
+      final ByteBuffer header, final long crc, final int length, final long size) {
+    return header.remaining() >= HEADER_SIZE
+        && header.getInt() == MAGIC
+        && header.getInt() == FORMAT
+        && header.getLong() == crc
+        && header.getInt() == length
+        && header.getInt() == size;
+  }
+
+  // Each writer has its own temporary file, so that two sessions saving the same snapshot at once
+  // cannot write into each other's
+  private static void save(final File file, final byte[] snapshot) {
+    File temporary = null;
+    try {
+      Files.createDirectories(DataSnapshot.location.toPath());
+      temporary = File.createTempFile(file.getName(), ".tmp", DataSnapshot.location);
+      Files.write(temporary.toPath(), snapshot);
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // The file will be parsed again next time
+      if (temporary != null) {
+        temporary.delete();
+      }
+    }
+  }
+
+  // Splits a data file as FileUtilities.readLine and readData would, and writes the result
+  private static byte[] write(final byte[] bytes, final long crc) {
+    List<String[]> rows = new ArrayList<>();
+    String text = new String(bytes, StandardCharsets.UTF_8);
+    int length = text.length();
+    int start = 0;
+    while (start < length) {
+      // Lines end with \n, \r or \r\n, as for BufferedReader
+      int end = start;
+      while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+        ++end;
+      }
+      String line = text.substring(start, end);
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        rows.add(line.split("\t", -1));
+      }
+      int next = end + 1;
+      if (end < length && text.charAt(end) == '\r' && next < length && text.charAt(next) == '\n') {
+        ++next;
+      }
+      start = next;
+    }
+
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    for (String[] row : rows) {
+      for (String field : row) {
+        if (!ids.containsKey(field)) {
+          ids.put(field, strings.size());
+          strings.add(field);
+        }
+      }
+    }
+
+    Output output = new Output();
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT);
+    output.writeLong(crc);
+    output.writeInt(bytes.length);
+    // The length of the snapshot itself, filled in below, tells if it was cut short
+    output.writeInt(0);
+
+    output.writeVarint(strings.size());
+    for (String string : strings) {
+      byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+      output.writeVarint(encoded.length);
+      output.write(encoded, 0, encoded.length);
+    }
+
+    output.writeVarint(rows.size());
+    for (String[] row : rows) {
+      output.writeVarint(row.length);
+      for (String field : row) {
+        output.writeVarint(ids.get(field));
+      }
+    }
+
+    byte[] snapshot = output.toByteArray();
+    ByteBuffer.wrap(snapshot).putInt(SIZE_OFFSET, snapshot.length);
+    return snapshot;
+  }
+
+  private static SnapshotReader read(final ByteBuffer buffer, final long crc, final int length) {
+    try {
+      if (!DataSnapshot.matches(buffer, crc, length, buffer.limit())) {
+        return null;
+      }
+
+      String[] strings = new String[DataSnapshot.readVarint(buffer)];
+      byte[] scratch = new byte[256];
+      for (int i = 0; i < strings.length; ++i) {
+        int size = DataSnapshot.readVarint(buffer);
+        if (size > scratch.length) {
+          scratch = new byte[Math.max(size, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, size);
+        strings[i] = new String(scratch, 0, size, StandardCharsets.UTF_8);
+      }
+
+      int rows = DataSnapshot.readVarint(buffer);
+      return new SnapshotReader(buffer, strings, rows);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      // A truncated or otherwise damaged snapshot is replaced
+      return null;
+    }
+  }
+
+  private static int readVarint(final ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  /** A reader whose lines come from a snapshot, and can be had already split into fields. */
+  public static class SnapshotReader extends BufferedReader {
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    private int rows;
+
+    private SnapshotReader(final ByteBuffer buffer, final String[] strings, final int rows) {
+      super(Reader.nullReader());
+      this.buffer = buffer;
+      this.strings = strings;
+      this.rows = rows;
+    }
+
+    /** Returns the fields of the next line, or null at the end of the file. */
+    public String[] readFields() {
+      if (this.rows == 0) {
+        return null;
+      }
+
+      --this.rows;
+      String[] fields = new String[DataSnapshot.readVarint(this.buffer)];
+      for (int i = 0; i < fields.length; ++i) {
+        fields[i] = this.strings[DataSnapshot.readVarint(this.buffer)];
+      }
+      return fields;
+    }
+
+    @Override
+    public String readLine() {
+      String[] fields = this.readFields();
+      return fields == null ? null : String.join("\t", fields);
+    }
+
+    @Override
+    public void close() {
+      this.rows = 0;
+    }
+  }
+
+  private static class Output extends ByteArrayOutputStream {
+    private Output() {
+      super(64 * 1024);
+    }
+
+    private void writeInt(final int value) {
+      this.write(value >>> 24);
+      this.write(value >>> 16);
+      this.write(value >>> 8);
+      this.write(value);
+    }
+
+    private void writeLong(final long value) {
+      this.writeInt((int) (value >>> 32));
+      this.writeInt((int) value);
+    }
+
+    private void writeVarint(int value) {
+      while ((value & ~0x7F) != 0) {
+        this.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.write(value);
+    }
+  }
+}
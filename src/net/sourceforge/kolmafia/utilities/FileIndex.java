@@ -0,0 +1,375 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import net.java.dev.spellcast.utilities.DataUtilities;
+
+/**
+ * Finds files by name in a list of directories, some of which are searched along with all of their
+ * subdirectories, as {@link #scan} does by looking in every directory, but from an index of which
+ * directories hold files of each name.
+ *
+ * <p>The index is built the first time it is needed, and kept up to date by watching every
+ * directory in it for files being created or deleted. Each file it finds is checked to exist, so a
+ * deleted file is never found, but a file created moments ago might not be found until the change
+ * has been noticed. If the directories cannot be watched, every search is a scan.
+ *
+ * <p>Where the JDK has no native way to watch directories, as on macOS, its WatchService polls
+ * every watched directory every few seconds. That costs more than the scans it would save, and
+ * would leave a new file unnoticed for as long, so every search is then a scan as well.
+ */
+public class FileIndex {
+  private final File[] roots;
+  private final boolean[] searchSubdirectories;
+
+  // Whether each root existed when the index was built
+  private final boolean[] existed;
+
+  // The files in each directory searched with its subdirectories, by lowercase name
+  private final Map<String, List<Entry>> files = new HashMap<>();
+  // A directory reached through links is indexed more than once, but watched once
+  private final Map<WatchKey, List<Directory>> watched = new HashMap<>();
+
+  private WatchService watcher = null;
+  private boolean built = false;
+  private boolean watching = false;
+  // How many times what the index finds might have changed
+  private long changes = 0;
+
+  private static class Directory {
+    private final File file;
+    private final Directory parent;
+    private final int root;
+    // The order in which a scan would look in the directory
+    private final int order;
+    private final Set<String> subdirectories = new HashSet<>();
+
+    private Directory(final File file, final Directory parent, final int root, final int order) {
+      this.file = file;
+      this.parent = parent;
+      this.root = root;
+      this.order = order;
+    }
+  }
+
+  private static class Entry {
+    private final Directory directory;
+    private final String name;
+
+    private Entry(final Directory directory, final String name) {
+      this.directory = directory;
+      this.name = name;
+    }
+  }
+
+  /**
+   * @param roots The directories to search, in the order they are searched
+   * @param searchSubdirectories For each directory, whether its subdirectories are searched too
+   */
+  public FileIndex(final File[] roots, final boolean[] searchSubdirectories) {
+    this.roots = roots.clone();
+    this.searchSubdirectories = searchSubdirectories.clone();
+    this.existed = new boolean[roots.length];
+  }
+
+  /** Makes the next search build the index again, from what is now in the directories. */
+  public synchronized void rescan() {
+    this.built = false;
+  }
+
+  public synchronized boolean isWatching() {
+    return this.watching;
+  }
+
+  /**
+   * Returns a count which changes whenever a search might find something different: when the index
+   * is built again, and when a file is noticed being created or deleted. Where the directories
+   * cannot be watched, it only changes when the index is rescanned, or one of the directories
+   * appears or disappears.
+   */
+  public synchronized long getChanges() {
+    this.update();
+    return this.changes;
+  }
+
+  /**
+   * Adds to a list every file which has a name, or a relative path, and is in one of the
+   * directories - or a subdirectory of one which is searched with its subdirectories. The files
+   * are in the order that {@link #scan} would find them.
+   */
+  public synchronized void find(final String filename, final List<File> matches) {
+    this.update();
+    if (!this.watching) {
+      this.scan(filename, matches);
+      return;
+    }
+
+    List<String> path = FileIndex.split(filename);
+    for (int root = 0; root < this.roots.length; ++root) {
+      if (!this.existed[root]) {
+        continue;
+      }
+
+      if (!this.searchSubdirectories[root] || path == null) {
+        FileIndex.scan(this.roots[root], filename, matches, this.searchSubdirectories[root]);
+        continue;
+      }
+
+      // Each file named as the last part of the path, in a directory named as the rest of it,
+      // is found from the directory that many levels up. Look for the path from each of those.
+      Map<Integer, File> found = new TreeMap<>();
+      String name = path.get(path.size() - 1);
+      for (Entry entry : this.files.getOrDefault(name.toLowerCase(Locale.ROOT), List.of())) {
+        Directory directory = entry.directory;
+        for (int i = path.size() - 2; directory != null && i >= 0; --i) {
+          boolean named = path.get(i).equalsIgnoreCase(directory.file.getName());
+          directory = named ? directory.parent : null;
+        }
+
+        if (directory == null || directory.root != root || found.containsKey(directory.order)) {
+          continue;
+        }
+
+        File file = new File(directory.file, filename);
+        if (file.exists() && !file.isDirectory()) {
+          found.put(directory.order, file);
+        }
+      }
+      matches.addAll(found.values());
+    }
+  }
+
+  // The parts of a relative path, or null if it has parts which are not simply names
+  private static List<String> split(final String filename) {
+    List<String> path = new ArrayList<>();
+    for (File file = new File(filename); file != null; file = file.getParentFile()) {
+      String name = file.getName();
+      if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+        return null;
+      }
+      path.add(0, name);
+    }
+
+    // A directory not searched for its own sake can still be part of the path
+    for (int i = 0; i < path.size() - 1; ++i) {
+      if (!FileIndex.isSearched(path.get(i))) {
+        return null;
+      }
+    }
+    return path;
+  }
+
+  // Whether DataUtilities.listFiles lists a directory, and so whether it is searched
+  private static boolean isSearched(final String name) {
+    return !name.startsWith(".")
+        && !name.endsWith("~")
+        && !name.endsWith(".bak")
+        && !name.endsWith(".map")
+        && !name.contains("datamaps");
+  }
+
+  /** Adds to a list every file with a name, or a relative path, by looking in every directory. */
+  public void scan(final String filename, final List<File> matches) {
+    for (int root = 0; root < this.roots.length; ++root) {
+      if (this.roots[root].exists()) {
+        FileIndex.scan(this.roots[root], filename, matches, this.searchSubdirectories[root]);
+      }
+    }
+  }
+
+  private static void scan(
+      final File directory,
+      final String filename,
+      final List<File> matches,
+      final boolean searchSubdirectories) {
+    File file = new File(directory, filename);
+    if (file.exists() && !file.isDirectory()) {
+      matches.add(file);
+    }
+
+    if (searchSubdirectories) {
+      for (File content : DataUtilities.listFiles(directory)) {
+        if (content.isDirectory()) {
+          FileIndex.scan(content, filename, matches, true);
+        }
+      }
+    }
+  }
+
+  private void update() {
+    for (int root = 0; root < this.roots.length; ++root) {
+      if (this.roots[root].exists() != this.existed[root]) {
+        this.built = false;
+      }
+    }
+
+    if (this.built && this.watching) {
+      this.poll();
+    }
+
+    if (!this.built) {
+      this.build();
+    }
+  }
+
+  private void build() {
+    this.close();
+    this.files.clear();
+    this.built = true;
+    this.changes++;
+
+    for (int root = 0; root < this.roots.length; ++root) {
+      this.existed[root] = this.roots[root].exists();
+    }
+
+    try {
+      this.watcher = FileSystems.getDefault().newWatchService();
+    } catch (IOException | UnsupportedOperationException e) {
+      return;
+    }
+    if (FileIndex.isPolling(this.watcher)) {
+      this.close();
+      return;
+    }
+    this.watching = true;
+
+    int order = 0;
+    for (int root = 0; root < this.roots.length; ++root) {
+      if (this.existed[root] && this.searchSubdirectories[root]) {
+        Directory directory = new Directory(this.roots[root], null, root, order++);
+        order = this.add(directory, order, new HashSet<>());
+      }
+      if (!this.watching) {
+        return;
+      }
+    }
+  }
+
+  // The JDK's fallback, sun.nio.fs.PollingWatchService, lists each directory on a timer
+  static boolean isPolling(final WatchService watcher) {
+    return watcher.getClass().getSimpleName().equals("PollingWatchService");
+  }
+
+  // Indexes a directory and, in the order a scan would look in them, its subdirectories
+  private int add(final Directory directory, int order, final Set<Path> ancestors) {
+    Path path;
+    try {
+      path = directory.file.toPath().toRealPath();
+      if (!ancestors.add(path)) {
+        // A link back to a directory it is in
+        return order;
+      }
+      WatchKey key = directory.file.toPath().register(this.watcher, ENTRY_CREATE, ENTRY_DELETE);
+      this.watched.computeIfAbsent(key, k -> new ArrayList<>()).add(directory);
+    } catch (IOException | RuntimeException e) {
+      // Perhaps too many directories to watch
+      this.close();
+      return order;
+    }
+
+    String[] names = directory.file.list();
+    if (names != null) {
+      for (String name : names) {
+        if (!new File(directory.file, name).isDirectory()) {
+          this.addFile(directory, name);
+        }
+      }
+    }
+
+    for (File content : DataUtilities.listFiles(directory.file)) {
+      if (content.isDirectory()) {
+        directory.subdirectories.add(content.getName());
+        Directory subdirectory = new Directory(content, directory, directory.root, order++);
+        order = this.add(subdirectory, order, ancestors);
+        if (!this.watching) {
+          break;
+        }
+      }
+    }
+
+    ancestors.remove(path);
+    return order;
+  }
+
+  private void addFile(final Directory directory, final String name) {
+    this.files
+        .computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+        .add(new Entry(directory, name));
+  }
+
+  private void removeFile(final Directory directory, final String name) {
+    List<Entry> entries = this.files.get(name.toLowerCase(Locale.ROOT));
+    if (entries != null) {
+      entries.removeIf(entry -> entry.directory == directory && entry.name.equals(name));
+    }
+  }
+
+  // Brings the index up to date with the changes noticed since it was last searched
+  private void poll() {
+    WatchKey key;
+    while (this.built && (key = this.watcher.poll()) != null) {
+      List<Directory> directories = this.watched.getOrDefault(key, List.of());
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW) {
+          this.built = false;
+          break;
+        }
+
+        String name = event.context().toString();
+        for (Directory directory : directories) {
+          this.apply(directory, event.kind() == ENTRY_CREATE, name);
+        }
+      }
+
+      if (!key.reset()) {
+        // The directory itself is gone
+        this.built = false;
+      }
+    }
+  }
+
+  private void apply(final Directory directory, final boolean created, final String name) {
+    this.changes++;
+    if (created && new File(directory.file, name).isDirectory()) {
+      // Index the new directory, and all within it, from scratch
+      this.built = false;
+    } else if (created) {
+      this.removeFile(directory, name);
+      this.addFile(directory, name);
+    } else if (directory.subdirectories.contains(name)) {
+      this.built = false;
+    } else {
+      this.removeFile(directory, name);
+    }
+  }
+
+  private void close() {
+    if (this.watcher != null) {
+      try {
+        this.watcher.close();
+      } catch (IOException e) {
+        // Nothing more can be done
+      }
+    }
+    this.watcher = null;
+    this.watched.clear();
+    this.watching = false;
+  }
+}
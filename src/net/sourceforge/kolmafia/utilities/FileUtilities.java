@@ -61,9 +61,7 @@ public class FileUtilities {
   }
 
   public static final BufferedReader getVersionedReader(final String filename, final int version) {
-    BufferedReader reader =
-        FileUtilities.getReader(
-            DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, true));
+    BufferedReader reader = FileUtilities.getReader(FileUtilities.getDataReader(filename, true));
 
     // If no file, no reader
     if (reader == null) {
@@ -103,12 +101,23 @@ public class FileUtilities {
 
     // Override file is wrong version. Get built-in file
 
-    reader = DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, false);
+    reader = FileUtilities.getDataReader(filename, false);
     // Don't forget to skip past its version number:
     FileUtilities.readLine(reader);
     return reader;
   }
 
+  private static BufferedReader getDataReader(final String filename, final boolean allowOverride) {
+    if (DataSnapshot.isEnabled()) {
+      boolean override = allowOverride && new File(KoLConstants.DATA_LOCATION, filename).exists();
+      return DataSnapshot.getReader(
+          filename,
+          override,
+          DataUtilities.getInputStream(KoLConstants.DATA_DIRECTORY, filename, allowOverride));
+    }
+    return DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, allowOverride);
+  }
+
   public static final String readLine(final BufferedReader reader) {
     if (reader == null) {
       return null;
@@ -138,6 +147,11 @@ public class FileUtilities {
       return null;
     }
 
+    // A snapshot has its lines already split
+    if (reader instanceof DataSnapshot.SnapshotReader) {
+      return ((DataSnapshot.SnapshotReader) reader).readFields();
+    }
+
     String line = readLine(reader);
     return line == null ? null : line.split("\t", -1);
   }
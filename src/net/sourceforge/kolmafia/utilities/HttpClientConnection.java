@@ -0,0 +1,367 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link HttpURLConnection} which sends its request through one {@link HttpClient} shared by
+ * every connection, so that connections to the server are kept alive and reused, and HTTP/2 is
+ * used where the server supports it.
+ *
+ * <p>Callers use it exactly like the connection {@link URL#openConnection()} returns: set request
+ * properties, write any body to the output stream, then read the response code, headers and input
+ * stream. The request is sent when the response is first asked for. The whole body is read at
+ * that point, so the connection to the server is free for the next request as soon as possible.
+ *
+ * <p>Redirects are not followed and cookies are not stored; as with the connections it replaces,
+ * the caller does both.
+ */
+public class HttpClientConnection extends HttpURLConnection {
+  // At most this many requests to one host are in flight at once
+  public static final int MAX_REQUESTS_PER_HOST = 6;
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+  // Headers the client sets itself and won't let us set
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+  private static HttpClient client = null;
+  private static HttpUtilities.ClientFactory clientFactory = null;
+
+  private static final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+
+  private static final AtomicLong requestCount = new AtomicLong();
+  private static final AtomicLong requestNanos = new AtomicLong();
+  private static final AtomicLong maxRequestNanos = new AtomicLong();
+  private static final AtomicLong bytesReceived = new AtomicLong();
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private HttpResponse<byte[]> response = null;
+  private Map<String, List<String>> headerFields = null;
+  private List<String> headerKeys = null;
+
+  public HttpClientConnection(final URL url) {
+    super(url);
+  }
+
+  /** Returns the shared client, building a new one if the way to build clients has changed. */
+  static synchronized HttpClient getClient() {
+    HttpUtilities.ClientFactory factory = HttpUtilities.getClientFactory();
+    if (HttpClientConnection.client == null || HttpClientConnection.clientFactory != factory) {
+      HttpClientConnection.client =
+          factory
+              .getClientBuilder()
+              .followRedirects(Redirect.NEVER)
+              .connectTimeout(CONNECT_TIMEOUT)
+              .proxy(ProxySelector.getDefault())
+              .build();
+      HttpClientConnection.clientFactory = factory;
+    }
+    return HttpClientConnection.client;
+  }
+
+  @Override
+  public void connect() {
+    // The request is sent when the response is first needed
+  }
+
+  @Override
+  public void disconnect() {
+    // The client decides when to close its connections
+  }
+
+  @Override
+  public boolean usingProxy() {
+    return false;
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException {
+    if (this.response != null) {
+      throw new ProtocolException("Cannot write output after reading input.");
+    }
+    if (!this.getDoOutput()) {
+      throw new ProtocolException("Output not enabled for this connection.");
+    }
+    if (this.method.equals("GET")) {
+      this.method = "POST";
+    }
+    return this.body;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    HttpResponse<byte[]> response = this.send();
+    if (response.statusCode() >= 400) {
+      throw new IOException(
+          "Server returned HTTP response code: " + response.statusCode() + " for URL: " + this.url);
+    }
+    return new ByteArrayInputStream(response.body());
+  }
+
+  @Override
+  public InputStream getErrorStream() {
+    HttpResponse<byte[]> response = this.response;
+    if (response == null || response.statusCode() < 400) {
+      return null;
+    }
+    return new ByteArrayInputStream(response.body());
+  }
+
+  @Override
+  public int getResponseCode() throws IOException {
+    return this.send().statusCode();
+  }
+
+  @Override
+  public String getResponseMessage() throws IOException {
+    this.send();
+    return this.responseMessage;
+  }
+
+  @Override
+  public Map<String, List<String>> getHeaderFields() {
+    try {
+      this.send();
+    } catch (IOException e) {
+      return Collections.emptyMap();
+    }
+    return this.headerFields;
+  }
+
+  @Override
+  public String getHeaderField(final String name) {
+    if (name == null) {
+      return this.getHeaderField(0);
+    }
+
+    for (Map.Entry<String, List<String>> entry : this.getHeaderFields().entrySet()) {
+      String key = entry.getKey();
+      if (key != null && key.equalsIgnoreCase(name)) {
+        List<String> values = entry.getValue();
+        return values.isEmpty() ? null : values.get(values.size() - 1);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String getHeaderFieldKey(final int n) {
+    this.getHeaderFields();
+    return this.headerKeys == null || n < 0 || n >= this.headerKeys.size()
+        ? null
+        : this.headerKeys.get(n);
+  }
+
+  @Override
+  public String getHeaderField(final int n) {
+    Map<String, List<String>> fields = this.getHeaderFields();
+    if (this.headerKeys == null || n < 0 || n >= this.headerKeys.size()) {
+      return null;
+    }
+    List<String> values = fields.get(this.headerKeys.get(n));
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  private HttpResponse<byte[]> send() throws IOException {
+    if (this.response != null) {
+      return this.response;
+    }
+
+    HttpRequest request = this.buildRequest();
+    Semaphore limit =
+        HttpClientConnection.hostLimits.computeIfAbsent(
+            this.url.getHost(), host -> new Semaphore(MAX_REQUESTS_PER_HOST));
+
+    long start = System.nanoTime();
+    try {
+      limit.acquire();
+      try {
+        HttpClient client = HttpClientConnection.getClient();
+        try {
+          this.response = client.send(request, BodyHandlers.ofByteArray());
+        } catch (HttpTimeoutException e) {
+          throw e;
+        } catch (IOException e) {
+          // The server may have closed a kept-alive connection just as we
+          // reused it. Like HttpURLConnection, try once more on a new one -
+          // but only for a GET or HEAD. There is no telling whether the
+          // server acted on anything else before the connection failed, and
+          // sending it again could use an item or spend a turn twice.
+          if (!HttpClientConnection.isIdempotent(this.method)) {
+            throw e;
+          }
+          this.response = client.send(request, BodyHandlers.ofByteArray());
+        }
+      } finally {
+        limit.release();
+      }
+    } catch (HttpTimeoutException e) {
+      throw new SocketTimeoutException(e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
+    long elapsed = System.nanoTime() - start;
+
+    HttpClientConnection.requestCount.incrementAndGet();
+    HttpClientConnection.requestNanos.addAndGet(elapsed);
+    HttpClientConnection.maxRequestNanos.accumulateAndGet(elapsed, Math::max);
+    byte[] bytes = this.response.body();
+    HttpClientConnection.bytesReceived.addAndGet(bytes == null ? 0 : bytes.length);
+
+    this.responseCode = this.response.statusCode();
+    this.responseMessage = HttpClientConnection.reasonPhrase(this.responseCode);
+    this.setHeaderFields(this.response);
+    return this.response;
+  }
+
+  static boolean isIdempotent(final String method) {
+    return method.equals("GET") || method.equals("HEAD");
+  }
+
+  private HttpRequest buildRequest() throws IOException {
+    HttpRequest.Builder builder;
+    try {
+      builder = HttpRequest.newBuilder(this.url.toURI());
+    } catch (URISyntaxException e) {
+      throw new IOException(e.getMessage());
+    }
+
+    if (this.getReadTimeout() > 0) {
+      builder.timeout(Duration.ofMillis(this.getReadTimeout()));
+    }
+
+    for (Map.Entry<String, List<String>> entry : this.getRequestProperties().entrySet()) {
+      String key = entry.getKey();
+      if (key == null || RESTRICTED_HEADERS.contains(key.toLowerCase())) {
+        continue;
+      }
+      for (String value : entry.getValue()) {
+        builder.header(key, value);
+      }
+    }
+
+    byte[] content = this.body.toByteArray();
+    if (content.length > 0 || this.method.equals("POST")) {
+      builder.method(this.method, HttpRequest.BodyPublishers.ofByteArray(content));
+    } else {
+      builder.method(this.method, HttpRequest.BodyPublishers.noBody());
+    }
+
+    return builder.build();
+  }
+
+  // The headers of an HTTP/2 response arrive in lower case. Callers look for
+  // "Set-Cookie" and the like, so give them the usual capitalization, with
+  // the status line under a null key as HttpURLConnection does.
+  private void setHeaderFields(final HttpResponse<byte[]> response) {
+    Map<String, List<String>> fields = new LinkedHashMap<>();
+    List<String> keys = new ArrayList<>();
+
+    fields.put(null, List.of("HTTP/1.1 " + this.responseCode + " " + this.responseMessage));
+    keys.add(null);
+
+    for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+      String key = HttpClientConnection.capitalize(entry.getKey());
+      if (key.startsWith(":")) {
+        continue;
+      }
+      fields.put(key, entry.getValue());
+      keys.add(key);
+    }
+
+    this.headerFields = Collections.unmodifiableMap(fields);
+    this.headerKeys = keys;
+  }
+
+  static String capitalize(final String name) {
+    StringBuilder buffer = new StringBuilder(name.length());
+    boolean upper = true;
+    for (int i = 0; i < name.length(); ++i) {
+      char ch = name.charAt(i);
+      buffer.append(upper ? Character.toUpperCase(ch) : Character.toLowerCase(ch));
+      upper = ch == '-';
+    }
+    return buffer.toString();
+  }
+
+  private static String reasonPhrase(final int code) {
+    switch (code) {
+      case 200:
+        return "OK";
+      case 301:
+        return "Moved Permanently";
+      case 302:
+        return "Found";
+      case 303:
+        return "See Other";
+      case 304:
+        return "Not Modified";
+      case 307:
+        return "Temporary Redirect";
+      case 308:
+        return "Permanent Redirect";
+      case 400:
+        return "Bad Request";
+      case 403:
+        return "Forbidden";
+      case 404:
+        return "Not Found";
+      case 500:
+        return "Internal Server Error";
+      case 502:
+        return "Bad Gateway";
+      case 503:
+        return "Service Unavailable";
+      case 504:
+        return "Gateway Timeout";
+      default:
+        return "";
+    }
+  }
+
+  public static long getRequestCount() {
+    return HttpClientConnection.requestCount.get();
+  }
+
+  public static double getAverageRequestMillis() {
+    long count = HttpClientConnection.requestCount.get();
+    return count == 0 ? 0.0 : HttpClientConnection.requestNanos.get() / 1e6 / count;
+  }
+
+  public static double getMaximumRequestMillis() {
+    return HttpClientConnection.maxRequestNanos.get() / 1e6;
+  }
+
+  public static long getBytesReceived() {
+    return HttpClientConnection.bytesReceived.get();
+  }
+}
@@ -5,6 +5,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.http.HttpClient;
 import java.net.http.HttpClient.Redirect;
+import net.sourceforge.kolmafia.preferences.Preferences;
 
 public class HttpUtilities {
   private HttpUtilities() {}
@@ -14,7 +15,18 @@ public class HttpUtilities {
     HttpURLConnection openConnection(URL url) throws IOException;
   }
 
-  private static ConnectionFactory factory = (URL url) -> (HttpURLConnection) url.openConnection();
+  private static ConnectionFactory factory = HttpUtilities::openDefaultConnection;
+
+  // Requests go through the shared HttpClient if the user has asked for it,
+  // or through a connection of their own otherwise.
+  private static HttpURLConnection openDefaultConnection(URL url) throws IOException {
+    String protocol = url.getProtocol();
+    if (Preferences.getBoolean("useHttpClientTransport")
+        && (protocol.equals("http") || protocol.equals("https"))) {
+      return new HttpClientConnection(url);
+    }
+    return (HttpURLConnection) url.openConnection();
+  }
 
   // Injects custom URL handling logic, especially in tests.
   public static void setOpen(ConnectionFactory function) {
@@ -38,6 +50,10 @@ public class HttpUtilities {
     HttpUtilities.clientFactory = function;
   }
 
+  public static ClientFactory getClientFactory() {
+    return HttpUtilities.clientFactory;
+  }
+
   public static HttpClient.Builder getClientBuilder() {
     return HttpUtilities.clientFactory.getClientBuilder();
   }
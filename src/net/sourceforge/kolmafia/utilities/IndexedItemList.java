@@ -0,0 +1,15 @@
+package net.sourceforge.kolmafia.utilities;
+
+import net.sourceforge.kolmafia.AdventureResult;
+
+/**
+ * A list of items which keeps an {@link ItemIndex} alongside its sorted contents, so that finding
+ * the entry for an item takes constant time rather than a search.
+ */
+public interface IndexedItemList {
+  /** Returns the entry matching the given item, or null if the list has none. */
+  AdventureResult find(AdventureResult item);
+
+  /** Returns the entry with the given item id, or null if the list has none. */
+  AdventureResult find(int itemId);
+}
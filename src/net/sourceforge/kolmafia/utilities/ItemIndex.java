@@ -0,0 +1,210 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/**
+ * An open-addressing map from item id to the one entry for that item in a list of items, so that
+ * the list can answer "how many of this do I have?" without searching.
+ *
+ * <p>Only real items (positive ids) are indexed. If a list holds more than one entry for an id -
+ * which the usual ways of adding items never do - the id is marked as ambiguous and lookups for it
+ * fall back to searching the list. After bulk changes the whole index is marked stale and rebuilt
+ * by the next lookup.
+ *
+ * <p>This is not thread safe by itself; the list owning it synchronizes access.
+ */
+public class ItemIndex {
+  // Stands for "more than one entry with this id"
+  private static final AdventureResult AMBIGUOUS = new AdventureResult("(ambiguous)", -1, 0, false);
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  // keys[i] == 0 marks an empty slot
+  private int[] keys = new int[INITIAL_CAPACITY];
+  private AdventureResult[] values = new AdventureResult[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean stale = false;
+
+  public static boolean isIndexed(final AdventureResult item) {
+    return item != null
+        && item.isItem()
+        && item.getItemId() > 0
+        && !(item instanceof AdventureResult.WildcardResult);
+  }
+
+  /** Notes that an entry was added to the list. */
+  public void add(final AdventureResult item) {
+    if (this.stale || !ItemIndex.isIndexed(item)) {
+      return;
+    }
+
+    int id = item.getItemId();
+    int slot = this.slotOf(id);
+    if (this.keys[slot] == id) {
+      this.values[slot] = AMBIGUOUS;
+      return;
+    }
+
+    this.keys[slot] = id;
+    this.values[slot] = item;
+    if (++this.size * 2 > this.keys.length) {
+      this.resize(this.keys.length * 2);
+    }
+  }
+
+  /** Notes that an entry was removed from the list. */
+  public void remove(final AdventureResult item) {
+    if (this.stale || !ItemIndex.isIndexed(item)) {
+      return;
+    }
+
+    int slot = this.slotOf(item.getItemId());
+    if (this.keys[slot] == 0 || this.values[slot] == AMBIGUOUS) {
+      // An ambiguous id stays that way until the list is cleared or rebuilt,
+      // which only costs a search.
+      return;
+    }
+
+    this.delete(slot);
+  }
+
+  /** Notes that an entry of the list was replaced by another. */
+  public void replace(final AdventureResult oldItem, final AdventureResult newItem) {
+    this.remove(oldItem);
+    this.add(newItem);
+  }
+
+  /** Notes that the list was emptied. */
+  public void clear() {
+    if (this.keys.length != INITIAL_CAPACITY) {
+      this.keys = new int[INITIAL_CAPACITY];
+      this.values = new AdventureResult[INITIAL_CAPACITY];
+    } else {
+      Arrays.fill(this.keys, 0);
+      Arrays.fill(this.values, null);
+    }
+    this.size = 0;
+    this.stale = false;
+  }
+
+  /** Notes that the list changed in some way the index did not follow. */
+  public void invalidate() {
+    this.stale = true;
+  }
+
+  /**
+   * Returns the entry of the list that matches the given item, or null if there is none.
+   *
+   * @param item The item to look for
+   * @param list The list this indexes, searched if the index can't answer
+   */
+  public AdventureResult find(final AdventureResult item, final List<AdventureResult> list) {
+    if (!ItemIndex.isIndexed(item)) {
+      int index = list.indexOf(item);
+      return index == -1 ? null : list.get(index);
+    }
+
+    AdventureResult entry = this.get(item.getItemId(), list);
+    if (entry == AMBIGUOUS) {
+      int index = list.indexOf(item);
+      return index == -1 ? null : list.get(index);
+    }
+
+    // The list is searched by comparison, so match the same way
+    return entry != null && entry.compareTo(item) == 0 ? entry : null;
+  }
+
+  /**
+   * Returns the first entry of the list with the given item id, or null if there is none.
+   *
+   * @param itemId The item id to look for
+   * @param list The list this indexes, searched if the index can't answer
+   */
+  public AdventureResult find(final int itemId, final List<AdventureResult> list) {
+    AdventureResult entry = itemId > 0 ? this.get(itemId, list) : AMBIGUOUS;
+    if (entry != AMBIGUOUS) {
+      return entry;
+    }
+
+    for (AdventureResult current : list) {
+      if (current.getItemId() == itemId) {
+        return current;
+      }
+    }
+    return null;
+  }
+
+  private AdventureResult get(final int id, final List<AdventureResult> list) {
+    if (this.stale) {
+      this.rebuild(list);
+    }
+
+    int slot = this.slotOf(id);
+    return this.keys[slot] == id ? this.values[slot] : null;
+  }
+
+  private void rebuild(final List<AdventureResult> list) {
+    this.clear();
+    for (int i = 0; i < list.size(); ++i) {
+      this.add(list.get(i));
+    }
+  }
+
+  private static int hash(final int id) {
+    int h = id * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  // Returns the slot holding the id, or the empty slot where it would go
+  private int slotOf(final int id) {
+    int mask = this.keys.length - 1;
+    int slot = ItemIndex.hash(id) & mask;
+    while (this.keys[slot] != 0 && this.keys[slot] != id) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Removes the entry in the slot, moving later entries of its run back so
+  // that every entry stays reachable from its home slot.
+  private void delete(int slot) {
+    int mask = this.keys.length - 1;
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      int key = this.keys[next];
+      if (key == 0) {
+        break;
+      }
+
+      int home = ItemIndex.hash(key) & mask;
+      boolean movable =
+          slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+      if (movable) {
+        this.keys[slot] = key;
+        this.values[slot] = this.values[next];
+        slot = next;
+      }
+    }
+
+    this.keys[slot] = 0;
+    this.values[slot] = null;
+    --this.size;
+  }
+
+  private void resize(final int capacity) {
+    int[] oldKeys = this.keys;
+    AdventureResult[] oldValues = this.values;
+    this.keys = new int[capacity];
+    this.values = new AdventureResult[capacity];
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != 0) {
+        int slot = this.slotOf(oldKeys[i]);
+        this.keys[slot] = oldKeys[i];
+        this.values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import net.java.dev.spellcast.utilities.LockableListModel;
 import net.java.dev.spellcast.utilities.SortedListModel;
+import net.sourceforge.kolmafia.AdventureResult;
 
 /**
  * {@link net.java.dev.spellcast.utilities.LockableListModel} is used to hold data, but it depends
@@ -43,6 +44,33 @@ public class LockableListFactory {
     return i;
   }
 
+  /**
+   * Get a sorted list of items which also indexes its entries by item id: a SortedItemListModel in
+   * a Swing environment, else a SortedItemList
+   *
+   * @return SortedItemListModel or SortedItemList if Swing cannot be loaded
+   */
+  public static List<AdventureResult> getItemInstance() {
+    if (SwinglessUIUtils.isSwingAvailable) {
+      return new SortedItemListModel();
+    }
+    return new SortedItemList();
+  }
+
+  /**
+   * Get a list which counts the changes made to it: a CountedListModel in a Swing environment,
+   * else a CountedList
+   *
+   * @param E Class
+   * @return CountedListModel<E> or CountedList<E> if Swing cannot be loaded
+   */
+  public static <E> List<E> getCountedInstance(Class<E> E) {
+    if (SwinglessUIUtils.isSwingAvailable) {
+      return new CountedListModel<>();
+    }
+    return new CountedList<>();
+  }
+
   /**
    * Calls {@link net.java.dev.spellcast.utilities.LockableListModel#getSize()} if possible, else
    * returns list size
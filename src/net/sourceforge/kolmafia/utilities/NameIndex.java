@@ -0,0 +1,228 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of which names in a table contain which characters and which pairs of adjacent
+ * characters, and which have words starting with them, so that a search for part of a name need
+ * only look at names which might match rather than at every name in the table.
+ *
+ * <p>The index is only built when {@link #build} is called; until then every name is looked at.
+ * Once built, it only narrows down the names to look at; each of those is still checked with
+ * {@link StringUtilities#substringMatches} or {@link StringUtilities#fuzzyMatches}, so a search
+ * finds exactly the names, and in the same order, that checking every name would.
+ */
+public class NameIndex {
+  private static final int[] NONE = new int[0];
+
+  private final String[] names;
+
+  // For each character, the positions of the names containing it, in ascending order
+  private Map<Integer, int[]> characters = null;
+
+  // For each pair of adjacent characters, likewise
+  private Map<Integer, int[]> pairs = null;
+
+  // For each character and pair of characters which starts a word, likewise
+  private Map<Integer, int[]> wordStarts = null;
+
+  // For each name, which characters are in it, folded onto 32 bits
+  private int[] masks = null;
+
+  // The positions of all the names
+  private int[] everyName = null;
+
+  public NameIndex(final String[] names) {
+    // Keep a copy: the index must not hold on to the table, which may be a weak key
+    this.names = names.clone();
+  }
+
+  public boolean isBuilt() {
+    return this.characters != null;
+  }
+
+  public void build() {
+    // Each entry is a key - a character, a pair, or either at the start of a word - in the high
+    // half and the position of a name containing it in the low half. Sorted, the entries for each
+    // key come together, in order of position.
+    Entries characters = new Entries();
+    Entries pairs = new Entries();
+    Entries wordStarts = new Entries();
+
+    int[] masks = new int[this.names.length];
+    int[] everyName = new int[this.names.length];
+
+    for (int i = 0; i < this.names.length; ++i) {
+      String name = this.names[i];
+      masks[i] = NameIndex.mask(name);
+      everyName[i] = i;
+      for (int j = 0; j < name.length(); ++j) {
+        char ch = name.charAt(j);
+        characters.add(ch, i);
+
+        boolean wordStart = j == 0 || !Character.isLetterOrDigit(name.charAt(j - 1));
+        if (wordStart) {
+          wordStarts.add(ch, i);
+        }
+
+        if (j + 1 < name.length()) {
+          int pair = NameIndex.pair(ch, name.charAt(j + 1));
+          pairs.add(pair, i);
+          if (wordStart) {
+            wordStarts.add(pair, i);
+          }
+        }
+      }
+    }
+
+    this.masks = masks;
+    this.everyName = everyName;
+    this.characters = characters.toMap();
+    this.pairs = pairs.toMap();
+    this.wordStarts = wordStarts.toMap();
+  }
+
+  // A character paired with the one after it. A single character is never mistaken for a pair,
+  // as names do not contain the character 0.
+  private static int pair(final char first, final char second) {
+    return (first << 16) | second;
+  }
+
+  // A mask of which characters, folded onto 32 bits, are in a string
+  private static int mask(final String s) {
+    int mask = 0;
+    for (int i = s.length() - 1; i >= 0; --i) {
+      char ch = s.charAt(i);
+      if (!Character.isWhitespace(ch)) {
+        mask |= 1 << (ch & 0x1F);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Adds to a list the names which contain a string, in the order they are in the table.
+   *
+   * @param substring The string to look for, which must not be empty
+   * @param checkBoundaries Whether it must be found at the start of a word
+   * @param matches The list to add names to
+   */
+  public void findSubstrings(
+      final String substring, final boolean checkBoundaries, final List<String> matches) {
+    if (!this.isBuilt()) {
+      for (String name : this.names) {
+        if (StringUtilities.substringMatches(name, substring, checkBoundaries)) {
+          matches.add(name);
+        }
+      }
+      return;
+    }
+
+    // A name containing the string contains every character and pair of characters in it, and
+    // if it must be found at the start of a word, a word starting as it does. Only names with
+    // the rarest of those, which have all of the characters, need be checked.
+    int[] candidates = this.characters.getOrDefault((int) substring.charAt(0), NONE);
+    for (int i = 1; i < substring.length(); ++i) {
+      int pair = NameIndex.pair(substring.charAt(i - 1), substring.charAt(i));
+      candidates = NameIndex.rarer(candidates, this.pairs.getOrDefault(pair, NONE));
+    }
+    if (checkBoundaries) {
+      int start =
+          substring.length() == 1
+              ? substring.charAt(0)
+              : NameIndex.pair(substring.charAt(0), substring.charAt(1));
+      candidates = NameIndex.rarer(candidates, this.wordStarts.getOrDefault(start, NONE));
+    }
+
+    int mask = NameIndex.mask(substring);
+    for (int i : candidates) {
+      if ((this.masks[i] & mask) == mask
+          && StringUtilities.substringMatches(this.names[i], substring, checkBoundaries)) {
+        matches.add(this.names[i]);
+      }
+    }
+  }
+
+  /**
+   * Adds to a list the names which fuzzy match a string, in the order they are in the table.
+   *
+   * @param searchString The string to look for, which must not be empty
+   * @param matches The list to add names to
+   */
+  public void findFuzzyMatches(final String searchString, final List<String> matches) {
+    if (!this.isBuilt()) {
+      for (String name : this.names) {
+        if (StringUtilities.fuzzyMatches(name, searchString)) {
+          matches.add(name);
+        }
+      }
+      return;
+    }
+
+    // A fuzzy match finds every character of the search string in the name except for
+    // whitespace, so "in the box" can match "chef-in-the-box". Only names with the rarest of
+    // those, which have all of them, need be checked.
+    int[] candidates = null;
+    for (int i = 0; i < searchString.length(); ++i) {
+      char ch = searchString.charAt(i);
+      if (!Character.isWhitespace(ch)) {
+        int[] postings = this.characters.getOrDefault((int) ch, NONE);
+        candidates = candidates == null ? postings : NameIndex.rarer(candidates, postings);
+      }
+    }
+
+    int mask = NameIndex.mask(searchString);
+    if (candidates == null) {
+      candidates = this.everyName;
+    }
+
+    for (int i : candidates) {
+      if ((this.masks[i] & mask) == mask
+          && StringUtilities.fuzzyMatches(this.names[i], searchString)) {
+        matches.add(this.names[i]);
+      }
+    }
+  }
+
+  private static int[] rarer(final int[] postings, final int[] others) {
+    return others.length < postings.length ? others : postings;
+  }
+
+  private static class Entries {
+    private long[] entries = new long[1024];
+    private int size = 0;
+
+    private void add(final int key, final int position) {
+      if (this.size == this.entries.length) {
+        this.entries = Arrays.copyOf(this.entries, this.size * 2);
+      }
+      this.entries[this.size++] = ((long) key << 32) | position;
+    }
+
+    private Map<Integer, int[]> toMap() {
+      Arrays.sort(this.entries, 0, this.size);
+
+      Map<Integer, int[]> map = new HashMap<>();
+      int[] positions = new int[this.size];
+      int start = 0;
+      while (start < this.size) {
+        int key = (int) (this.entries[start] >>> 32);
+        int count = 0;
+        int end = start;
+        for (; end < this.size && (int) (this.entries[end] >>> 32) == key; ++end) {
+          int position = (int) this.entries[end];
+          // A name containing a key more than once is listed once
+          if (count == 0 || positions[count - 1] != position) {
+            positions[count++] = position;
+          }
+        }
+        map.put(key, Arrays.copyOf(positions, count));
+        start = end;
+      }
+      return map;
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the body of a server response, gunzipping it if need be, and decodes it as UTF-8.
+ *
+ * <p>Readers, with their buffers and Inflater, are kept in a small pool shared by every thread, so
+ * reading a response allocates little more than the String it is decoded into, even on a thread
+ * which only ever reads one. A reader which does not fit back in the pool has its Inflater ended
+ * at once rather than left to the garbage collector. How many bytes were read for each type of
+ * request, and how much was allocated reading them, is kept in {@link Statistics}.
+ */
+public class ResponseReader {
+  private static final int INPUT_SIZE = 8192;
+  private static final int INITIAL_OUTPUT_SIZE = 64 * 1024;
+
+  // A buffer grown past this for an unusually large response is dropped, not kept
+  private static final int MAX_RETAINED_OUTPUT_SIZE = 1024 * 1024;
+
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  // Enough for the requests that are usually in flight at once
+  static final int MAX_POOLED_READERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+  private static final BlockingQueue<ResponseReader> READERS =
+      new ArrayBlockingQueue<>(MAX_POOLED_READERS);
+
+  private static final Map<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+
+  private static final com.sun.management.ThreadMXBean THREADS = ResponseReader.getThreadBean();
+
+  private final byte[] input = new byte[INPUT_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private long bytesRead = 0;
+
+  private byte[] output = new byte[INITIAL_OUTPUT_SIZE];
+  private int length = 0;
+
+  private final Inflater inflater = new Inflater(true);
+  private final CRC32 crc = new CRC32();
+
+  private ResponseReader() {}
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean;
+        }
+      }
+    } catch (LinkageError | UnsupportedOperationException e) {
+      // Allocations will not be counted
+    }
+    return null;
+  }
+
+  private static long allocatedBytes() {
+    return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Reads a response to the end and closes the stream. As when reading through a GZIPInputStream,
+   * an error part of the way through leaves whatever was read before it.
+   *
+   * @param type The type of request, under which the response is counted
+   * @param istream The body of the response, as received
+   * @param gzip Whether the body is gzipped
+   * @return The body, decoded
+   */
+  public static String read(final String type, final InputStream istream, final boolean gzip) {
+    if (istream == null) {
+      return "";
+    }
+
+    long allocated = ResponseReader.allocatedBytes();
+    ResponseReader reader = READERS.poll();
+    if (reader == null) {
+      reader = new ResponseReader();
+    }
+    String text;
+
+    try {
+      reader.position = 0;
+      reader.limit = 0;
+      reader.bytesRead = 0;
+      reader.length = 0;
+
+      try {
+        if (gzip) {
+          reader.readGzip(istream);
+        } else {
+          reader.readPlain(istream);
+        }
+      } catch (IOException e) {
+        // Keep what was read before the error
+      }
+
+      try {
+        istream.close();
+      } catch (IOException e) {
+      }
+
+      text = new String(reader.output, 0, reader.length, StandardCharsets.UTF_8);
+      STATISTICS
+          .computeIfAbsent(type, k -> new Statistics())
+          .add(
+              gzip ? reader.bytesRead : reader.length,
+              reader.length,
+              ResponseReader.allocatedBytes() - allocated);
+    } finally {
+      if (reader.output.length > MAX_RETAINED_OUTPUT_SIZE) {
+        reader.output = new byte[INITIAL_OUTPUT_SIZE];
+      }
+      if (!READERS.offer(reader)) {
+        reader.inflater.end();
+      }
+    }
+
+    return text;
+  }
+
+  private void grow() {
+    this.output = Arrays.copyOf(this.output, this.output.length * 2);
+  }
+
+  private void readPlain(final InputStream istream) throws IOException {
+    while (true) {
+      if (this.length == this.output.length) {
+        this.grow();
+      }
+      int count = istream.read(this.output, this.length, this.output.length - this.length);
+      if (count == -1) {
+        return;
+      }
+      this.length += count;
+    }
+  }
+
+  private int fill(final InputStream istream) throws IOException {
+    int count = istream.read(this.input, 0, this.input.length);
+    this.position = 0;
+    this.limit = Math.max(count, 0);
+    this.bytesRead += this.limit;
+    return count;
+  }
+
+  private int readUnsignedByte(final InputStream istream) throws IOException {
+    if (this.position == this.limit && this.fill(istream) == -1) {
+      throw new EOFException("Unexpected end of GZIP stream");
+    }
+    return this.input[this.position++] & 0xff;
+  }
+
+  private int readUnsignedShort(final InputStream istream) throws IOException {
+    return this.readUnsignedByte(istream) | (this.readUnsignedByte(istream) << 8);
+  }
+
+  private long readUnsignedInt(final InputStream istream) throws IOException {
+    long low = this.readUnsignedShort(istream);
+    long high = this.readUnsignedShort(istream);
+    return low | (high << 16);
+  }
+
+  private void skipBytes(final InputStream istream, int count) throws IOException {
+    while (count-- > 0) {
+      this.readUnsignedByte(istream);
+    }
+  }
+
+  private void skipString(final InputStream istream) throws IOException {
+    while (this.readUnsignedByte(istream) != 0) {}
+  }
+
+  private void readHeader(final InputStream istream) throws IOException {
+    if (this.readUnsignedShort(istream) != 0x8b1f) {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (this.readUnsignedByte(istream) != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+
+    int flags = this.readUnsignedByte(istream);
+
+    // Modification time, extra flags and operating system
+    this.skipBytes(istream, 6);
+
+    if ((flags & FEXTRA) != 0) {
+      this.skipBytes(istream, this.readUnsignedShort(istream));
+    }
+    if ((flags & FNAME) != 0) {
+      this.skipString(istream);
+    }
+    if ((flags & FCOMMENT) != 0) {
+      this.skipString(istream);
+    }
+    if ((flags & FHCRC) != 0) {
+      this.skipBytes(istream, 2);
+    }
+  }
+
+  private void readGzip(final InputStream istream) throws IOException {
+    do {
+      this.readHeader(istream);
+
+      int start = this.length;
+      this.inflater.reset();
+      this.inflater.setInput(this.input, this.position, this.limit - this.position);
+
+      try {
+        while (!this.inflater.finished()) {
+          if (this.inflater.needsInput()) {
+            if (this.fill(istream) == -1) {
+              throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            this.inflater.setInput(this.input, 0, this.limit);
+          }
+          if (this.inflater.needsDictionary()) {
+            throw new ZipException("Unsupported preset dictionary");
+          }
+          if (this.length == this.output.length) {
+            this.grow();
+          }
+          this.length +=
+              this.inflater.inflate(this.output, this.length, this.output.length - this.length);
+        }
+      } catch (DataFormatException e) {
+        throw new ZipException(e.getMessage());
+      }
+
+      this.position = this.limit - this.inflater.getRemaining();
+
+      this.crc.reset();
+      this.crc.update(this.output, start, this.length - start);
+      if (this.readUnsignedInt(istream) != this.crc.getValue()
+          || this.readUnsignedInt(istream) != ((this.length - start) & 0xffffffffL)) {
+        throw new ZipException("Corrupt GZIP trailer");
+      }
+    } while (this.hasAnotherMember(istream));
+  }
+
+  // A gzip stream may be several gzipped members, one after another
+  private boolean hasAnotherMember(final InputStream istream) throws IOException {
+    if (this.position == this.limit && this.fill(istream) == -1) {
+      return false;
+    }
+    return (this.input[this.position] & 0xff) == 0x1f;
+  }
+
+  /** Returns what has been read so far for each type of request, sorted by type. */
+  public static Map<String, Statistics> getStatistics() {
+    return new TreeMap<>(STATISTICS);
+  }
+
+  public static void resetStatistics() {
+    STATISTICS.clear();
+  }
+
+  static int getPooledReaders() {
+    return READERS.size();
+  }
+
+  public static class Statistics {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesDecoded = new AtomicLong();
+    private final AtomicLong bytesAllocated = new AtomicLong();
+
+    private void add(final long received, final long decoded, final long allocated) {
+      this.count.incrementAndGet();
+      this.bytesReceived.addAndGet(received);
+      this.bytesDecoded.addAndGet(decoded);
+      this.bytesAllocated.addAndGet(allocated);
+    }
+
+    public long getCount() {
+      return this.count.get();
+    }
+
+    /** Returns the bytes received, which are compressed if the responses were gzipped. */
+    public long getBytesReceived() {
+      return this.bytesReceived.get();
+    }
+
+    public long getBytesDecoded() {
+      return this.bytesDecoded.get();
+    }
+
+    /** Returns the bytes allocated reading and decoding responses, or 0 if it can't be told. */
+    public long getBytesAllocated() {
+      return this.bytesAllocated.get();
+    }
+  }
+}
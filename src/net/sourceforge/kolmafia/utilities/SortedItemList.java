@@ -0,0 +1,102 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/**
+ * A {@link SortedList} of items which indexes its entries by item id, for use where Swing is not
+ * available.
+ */
+public class SortedItemList extends SortedList<AdventureResult> implements IndexedItemList {
+  private final ItemIndex index = new ItemIndex();
+
+  @Override
+  public synchronized boolean add(final AdventureResult o) {
+    if (!super.add(o)) {
+      return false;
+    }
+    this.index.add(o);
+    return true;
+  }
+
+  @Override
+  public synchronized boolean addAll(
+      final int index, final Collection<? extends AdventureResult> c) {
+    this.index.invalidate();
+    return super.addAll(index, c);
+  }
+
+  @Override
+  public synchronized AdventureResult remove(final int index) {
+    AdventureResult removed = super.remove(index);
+    this.index.remove(removed);
+    return removed;
+  }
+
+  @Override
+  public synchronized boolean remove(final Object o) {
+    if (!super.remove(o)) {
+      return false;
+    }
+    this.index.remove((AdventureResult) o);
+    return true;
+  }
+
+  @Override
+  public synchronized AdventureResult set(final int index, final AdventureResult element) {
+    AdventureResult replaced = super.set(index, element);
+    this.index.replace(replaced, element);
+    return replaced;
+  }
+
+  @Override
+  public synchronized void clear() {
+    super.clear();
+    this.index.clear();
+  }
+
+  // The remaining bulk changes bypass the methods above, so the index is
+  // rebuilt after them.
+
+  @Override
+  public synchronized boolean removeAll(final Collection<?> c) {
+    this.index.invalidate();
+    return super.removeAll(c);
+  }
+
+  @Override
+  public synchronized boolean retainAll(final Collection<?> c) {
+    this.index.invalidate();
+    return super.retainAll(c);
+  }
+
+  @Override
+  public synchronized boolean removeIf(final Predicate<? super AdventureResult> filter) {
+    this.index.invalidate();
+    return super.removeIf(filter);
+  }
+
+  @Override
+  public synchronized void replaceAll(final UnaryOperator<AdventureResult> operator) {
+    this.index.invalidate();
+    super.replaceAll(operator);
+  }
+
+  @Override
+  public synchronized void sort() {
+    this.index.invalidate();
+    super.sort();
+  }
+
+  @Override
+  public synchronized AdventureResult find(final AdventureResult item) {
+    return this.index.find(item, this);
+  }
+
+  @Override
+  public synchronized AdventureResult find(final int itemId) {
+    return this.index.find(itemId, this);
+  }
+}
@@ -0,0 +1,72 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Collection;
+import net.java.dev.spellcast.utilities.SortedListModel;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/** A {@link SortedListModel} of items which indexes its entries by item id. */
+public class SortedItemListModel extends SortedListModel<AdventureResult>
+    implements IndexedItemList {
+  private final ItemIndex index = new ItemIndex();
+
+  @Override
+  public boolean add(final AdventureResult o) {
+    synchronized (this.actualElements) {
+      if (!super.add(o)) {
+        return false;
+      }
+      this.index.add(o);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean addAll(final int index, final Collection<? extends AdventureResult> c) {
+    synchronized (this.actualElements) {
+      this.index.invalidate();
+      return super.addAll(index, c);
+    }
+  }
+
+  @Override
+  public AdventureResult remove(final int index) {
+    synchronized (this.actualElements) {
+      AdventureResult removed = super.remove(index);
+      this.index.remove(removed);
+      return removed;
+    }
+  }
+
+  @Override
+  public AdventureResult set(final int index, final AdventureResult element) {
+    synchronized (this.actualElements) {
+      AdventureResult replaced = super.set(index, element);
+      if (replaced != null) {
+        this.index.replace(replaced, element);
+      }
+      return replaced;
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this.actualElements) {
+      super.clear();
+      this.index.clear();
+    }
+  }
+
+  @Override
+  public AdventureResult find(final AdventureResult item) {
+    synchronized (this.actualElements) {
+      return this.index.find(item, this);
+    }
+  }
+
+  @Override
+  public AdventureResult find(final int itemId) {
+    synchronized (this.actualElements) {
+      return this.index.find(itemId, this);
+    }
+  }
+}
@@ -27,7 +27,8 @@ public class StringUtilities {
   private static final HashMap<String, String> canonicalNameCache = new HashMap<String, String>();
 
   private static final HashMap<String, String> prepositionsMap = new HashMap<String, String>();
-  private static final WeakHashMap<String[], int[]> hashCache = new WeakHashMap<String[], int[]>();
+  private static final WeakHashMap<String[], NameIndex> nameIndexCache =
+      new WeakHashMap<String[], NameIndex>();
 
   private static final Pattern NONINTEGER_PATTERN = Pattern.compile("[^0-9\\-]+");
 
@@ -265,61 +266,34 @@ public class StringUtilities {
       return matchList;
     }
 
-    int nameCount = names.length;
-    int[] hashes = StringUtilities.hashCache.get(names);
-    if (hashes == null) {
-      hashes = new int[nameCount];
-      for (int i = 0; i < nameCount; ++i) {
-        hashes[i] = StringUtilities.stringHash(names[i]);
-      }
-      StringUtilities.hashCache.put(names, hashes);
-    }
-    int hash = StringUtilities.stringHash(searchString);
-
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash
-          && StringUtilities.substringMatches(names[i], searchString, true)) {
-        matchList.add(names[i]);
-      }
-    }
+    NameIndex index = StringUtilities.getNameIndex(names);
 
+    index.findSubstrings(searchString, true, matchList);
     if (!matchList.isEmpty()) {
       return matchList;
     }
 
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash
-          && StringUtilities.substringMatches(names[i], searchString, false)) {
-        matchList.add(names[i]);
-      }
-    }
-
+    index.findSubstrings(searchString, false, matchList);
     if (!matchList.isEmpty()) {
       return matchList;
     }
 
-    // There is an oddball special case here: a search string containing
-    // spaces can successfully fuzzy-match an item name with no spaces,
-    // for example "in the box" will match "chef-in-the-box".  However,
-    // the hash check would prevent us from even trying such a match.
-    // Therefore, strip out the bit representing a space in the hash:
-    hash &= ~StringUtilities.stringHash(" ");
-
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash && StringUtilities.fuzzyMatches(names[i], searchString)) {
-        matchList.add(names[i]);
-      }
-    }
-
+    index.findFuzzyMatches(searchString, matchList);
     return matchList;
   }
 
-  private static int stringHash(final String s) {
-    int hash = 0;
-    for (int i = s.length() - 1; i >= 0; --i) {
-      hash |= 1 << (s.charAt(i) & 0x1F);
+  private static NameIndex getNameIndex(final String[] names) {
+    synchronized (StringUtilities.nameIndexCache) {
+      NameIndex index = StringUtilities.nameIndexCache.get(names);
+      if (index == null) {
+        // A table searched only once, such as one made for a single search, is not worth indexing
+        index = new NameIndex(names);
+        StringUtilities.nameIndexCache.put(names, index);
+      } else if (!index.isBuilt()) {
+        index.build();
+      }
+      return index;
     }
-    return hash;
   }
 
   public static final boolean substringMatches(
@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.webui;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -29,6 +30,12 @@ import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class RelayAgent extends Thread {
+  // How long a kept-alive connection may sit idle before it is closed
+  private static final int KEEP_ALIVE_TIMEOUT = 10 * 1000;
+
+  // The agent serving a connection on a thread of the relay server's executor
+  private static final ThreadLocal<RelayAgent> CURRENT_AGENT = new ThreadLocal<>();
+
   private static GenericRequest errorRequest = null;
   private static String errorRequestPath = null;
 
@@ -44,6 +51,10 @@ public class RelayAgent extends Thread {
     RelayAgent.errorRequestPath = null;
   }
 
+  public static boolean isRelayThread() {
+    return Thread.currentThread() instanceof RelayAgent || RelayAgent.CURRENT_AGENT.get() != null;
+  }
+
   private final char[] data = new char[8192];
   private final StringBuffer buffer = new StringBuffer();
   private final PauseObject pauser = new PauseObject();
@@ -55,8 +66,14 @@ public class RelayAgent extends Thread {
   private String path;
   private String requestMethod;
   private String isCheckingModified;
+  private String isCheckingEntityTag;
   private final RelayRequest request;
 
+  // Whether this agent keeps connections open between requests, and whether the browser
+  // asked that the current one be kept open
+  private boolean keepsAlive = false;
+  private boolean keepAlive = false;
+
   public RelayAgent(final int id) {
     super("LocalRelayAgent" + id);
     this.request = new RelayRequest(true);
@@ -71,6 +88,27 @@ public class RelayAgent extends Thread {
     this.pauser.unpause();
   }
 
+  /**
+   * Serves requests from a connection until the browser closes it, or it sits idle for too long.
+   * This is how the relay server's executor uses an agent, which is then not started as a thread.
+   */
+  public void serve(final Socket socket) {
+    RelayAgent.CURRENT_AGENT.set(this);
+    this.socket = socket;
+    this.keepsAlive = true;
+
+    try {
+      socket.setSoTimeout(RelayAgent.KEEP_ALIVE_TIMEOUT);
+      do {
+        this.performRelay();
+      } while (this.keepAlive);
+    } catch (IOException e) {
+    } finally {
+      this.closeRelay();
+      RelayAgent.CURRENT_AGENT.remove();
+    }
+  }
+
   @Override
   public void run() {
     while (true) {
@@ -92,18 +130,30 @@ public class RelayAgent extends Thread {
     }
 
     this.path = null;
-    this.reader = null;
-    this.writer = null;
+    this.keepAlive = false;
 
     try {
       if (!this.readBrowserRequest()) {
+        this.keepAlive = false;
         return;
       }
 
-      this.readServerResponse();
-      this.sendServerResponse();
+      long start = System.nanoTime();
+      RelayServer.requestStarted();
+      try {
+        this.readServerResponse();
+        if (this.isCheckingEntityTag != null
+            && this.request.isNotModified(this.isCheckingEntityTag)) {
+          this.request.sendNotModified();
+        }
+        this.sendServerResponse();
+      } finally {
+        RelayServer.requestFinished(this.path, System.nanoTime() - start);
+      }
     } catch (IOException e) {
+      this.keepAlive = false;
     } catch (Exception e) {
+      this.keepAlive = false;
       StaticEntity.printStackTrace(e, "Horrible relay failure");
     }
   }
@@ -113,7 +163,9 @@ public class RelayAgent extends Thread {
         RequestLogger.isDebugging() && Preferences.getBoolean("logBrowserInteractions");
     boolean tracing = RequestLogger.isTracing();
 
-    this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+    if (this.reader == null) {
+      this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+    }
 
     String requestLine = this.reader.readLine();
 
@@ -137,6 +189,9 @@ public class RelayAgent extends Thread {
 
     int spaceIndex = requestLine.indexOf(" ");
 
+    // HTTP/1.1 connections stay open unless the browser says otherwise
+    this.keepAlive = this.keepsAlive;
+
     this.requestMethod = requestLine.substring(0, spaceIndex);
     boolean usePostMethod = this.requestMethod.equals("POST");
     this.path = requestLine.substring(spaceIndex + 1, requestLine.lastIndexOf(" "));
@@ -151,6 +206,7 @@ public class RelayAgent extends Thread {
     this.request.constructURLString(this.path, usePostMethod);
     this.request.responseText = null;
     this.isCheckingModified = null;
+    this.isCheckingEntityTag = null;
 
     String currentLine;
     int contentLength = 0;
@@ -180,9 +236,17 @@ public class RelayAgent extends Thread {
         case "if-modified-since":
           this.isCheckingModified = headerValue;
           break;
+        case "if-none-match":
+          this.isCheckingEntityTag = headerValue;
+          break;
         case "content-length":
           contentLength = StringUtilities.parseInt(headerValue);
           break;
+        case "connection":
+          if (headerValue.equalsIgnoreCase("close")) {
+            this.keepAlive = false;
+          }
+          break;
         case "user-agent":
           GenericRequest.saveUserAgent(headerValue);
           break;
@@ -364,9 +428,7 @@ public class RelayAgent extends Thread {
     // If sending a local page, check modification date of file
     if (this.isCheckingModified != null) {
       if (this.shouldSendNotModified()) {
-        this.request.pseudoResponse("HTTP/1.1 304 Not Modified", "");
-        this.request.responseCode = 304;
-        this.request.rawByteBuffer = this.request.responseText.getBytes(StandardCharsets.UTF_8);
+        this.request.sendNotModified();
         return;
       }
 
@@ -476,6 +538,7 @@ public class RelayAgent extends Thread {
       if (this.request.responseText == null) {
         // We did not make a request of KoL and did not
         // create a pseudoResponse
+        this.keepAlive = false;
         return;
       }
 
@@ -500,11 +563,19 @@ public class RelayAgent extends Thread {
       this.request.rawByteBuffer = this.request.responseText.getBytes(StandardCharsets.UTF_8);
     }
 
-    this.writer = new PrintStream(this.socket.getOutputStream(), false);
+    if (this.writer == null) {
+      this.writer = new PrintStream(this.socket.getOutputStream(), false);
+    }
     this.writer.println(this.request.statusLine);
-    this.request.printHeaders(this.writer);
+    if (this.keepAlive) {
+      this.printKeepAliveHeaders();
+    } else {
+      this.request.printHeaders(this.writer);
+    }
     this.writer.println();
-    this.writer.write(this.request.rawByteBuffer);
+    if (this.request.responseCode != 304 && !this.requestMethod.equals("HEAD")) {
+      this.writer.write(this.request.rawByteBuffer);
+    }
     this.writer.flush();
 
     if (RequestLogger.isTracing()) {
@@ -548,15 +619,43 @@ public class RelayAgent extends Thread {
     }
   }
 
+  // The browser can only tell where a response ends on a connection which stays open if it is
+  // told its length, so replace whatever the request says about that.
+  private void printKeepAliveHeaders() {
+    ByteArrayOutputStream headers = new ByteArrayOutputStream();
+    PrintStream ostream = new PrintStream(headers, false, StandardCharsets.UTF_8);
+    this.request.printHeaders(ostream);
+    ostream.flush();
+
+    for (String header : headers.toString(StandardCharsets.UTF_8).split("\r?\n")) {
+      String name = header.toLowerCase();
+      if (header.isEmpty()
+          || name.startsWith("connection:")
+          || name.startsWith("content-length:")) {
+        continue;
+      }
+      this.writer.println(header);
+    }
+
+    if (this.request.responseCode != 304) {
+      this.writer.println("Content-Length: " + this.request.rawByteBuffer.length);
+    }
+    this.writer.println("Connection: keep-alive");
+  }
+
   private void closeRelay() {
+    // The reader and writer are only created when missing, so they must be
+    // forgotten even if closing them fails, or the next connection served
+    // by this agent would keep using the dead streams of this one.
     try {
       if (this.reader != null) {
         this.reader.close();
-        this.reader = null;
       }
     } catch (IOException e) {
       // The only time this happens is if the
       // input is already closed.  Ignore.
+    } finally {
+      this.reader = null;
     }
 
     if (this.writer != null) {
@@ -567,11 +666,12 @@ public class RelayAgent extends Thread {
     try {
       if (this.socket != null) {
         this.socket.close();
-        this.socket = null;
       }
     } catch (IOException e) {
       // The only time this happens is if the
       // socket is already closed.  Ignore.
+    } finally {
+      this.socket = null;
     }
   }
 
@@ -0,0 +1,148 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the contents of recently served relay files and images in memory, so that the relay
+ * browser's constant reloading of the same style sheets, scripts and images need not go to disk
+ * each time.
+ *
+ * <p>A cached file is used only as long as the file's modification time and length are unchanged.
+ * The least recently used files are dropped once the cache holds more than MAX_CACHED_BYTES, and
+ * files larger than MAX_CACHED_FILE_SIZE are read each time they are asked for.
+ */
+public class RelayFileCache {
+  private static final long MAX_CACHED_BYTES = 16L * 1024 * 1024;
+  private static final long MAX_CACHED_FILE_SIZE = 1024 * 1024;
+
+  private static final Map<File, CachedFile> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+  private static long cachedBytes = 0;
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  private RelayFileCache() {}
+
+  public static class CachedFile {
+    private final byte[] bytes;
+    private final long lastModified;
+    private final String entityTag;
+
+    private CachedFile(final byte[] bytes, final long lastModified) {
+      this.bytes = bytes;
+      this.lastModified = lastModified;
+      // Like most web servers, tag a version of a file by its length and modification time
+      this.entityTag =
+          "\"" + Long.toHexString(bytes.length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /** Returns the contents of the file. They are shared, and must not be changed. */
+    public byte[] getBytes() {
+      return this.bytes;
+    }
+
+    public long getLastModified() {
+      return this.lastModified;
+    }
+
+    public String getEntityTag() {
+      return this.entityTag;
+    }
+
+    /**
+     * Returns the tag of a variant of the file, such as its contents rewritten as they are sent, so
+     * that a browser which has one variant is never told that it has another.
+     */
+    public String getEntityTag(final String variant) {
+      return this.entityTag.substring(0, this.entityTag.length() - 1) + "-" + variant + "\"";
+    }
+  }
+
+  /**
+   * Returns the contents of a file, from memory if they were read before and the file has not
+   * changed since.
+   *
+   * @param file The file to read
+   * @return The file's contents, or null if it does not exist or can't be read
+   */
+  public static CachedFile get(final File file) {
+    long lastModified = file.lastModified();
+    long length = file.length();
+    if (lastModified == 0L) {
+      return null;
+    }
+
+    synchronized (CACHE) {
+      CachedFile cached = CACHE.get(file);
+      if (cached != null && cached.lastModified == lastModified && cached.bytes.length == length) {
+        RelayFileCache.hits.incrementAndGet();
+        return cached;
+      }
+    }
+
+    RelayFileCache.misses.incrementAndGet();
+
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      return null;
+    }
+
+    CachedFile cached = new CachedFile(bytes, lastModified);
+    if (bytes.length > MAX_CACHED_FILE_SIZE) {
+      return cached;
+    }
+
+    synchronized (CACHE) {
+      CachedFile previous = CACHE.put(file, cached);
+      if (previous != null) {
+        RelayFileCache.cachedBytes -= previous.bytes.length;
+      }
+      RelayFileCache.cachedBytes += bytes.length;
+
+      Iterator<CachedFile> eldest = CACHE.values().iterator();
+      while (RelayFileCache.cachedBytes > MAX_CACHED_BYTES && eldest.hasNext()) {
+        RelayFileCache.cachedBytes -= eldest.next().bytes.length;
+        eldest.remove();
+      }
+    }
+
+    return cached;
+  }
+
+  public static void clear() {
+    synchronized (CACHE) {
+      CACHE.clear();
+      RelayFileCache.cachedBytes = 0;
+    }
+    RelayFileCache.hits.set(0);
+    RelayFileCache.misses.set(0);
+  }
+
+  public static int getCachedFiles() {
+    synchronized (CACHE) {
+      return CACHE.size();
+    }
+  }
+
+  public static long getCachedBytes() {
+    synchronized (CACHE) {
+      return RelayFileCache.cachedBytes;
+    }
+  }
+
+  public static long getHits() {
+    return RelayFileCache.hits.get();
+  }
+
+  public static long getMisses() {
+    return RelayFileCache.misses.get();
+  }
+}
@@ -1,11 +1,26 @@
 package net.sourceforge.kolmafia.webui;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.StaticEntity;
@@ -16,6 +31,21 @@ import net.sourceforge.kolmafia.utilities.StringUtilities;
 public class RelayServer implements Runnable {
   public static final Set<RelayAgent> agentThreads = new HashSet<RelayAgent>();
 
+  // Threads in the executor used when virtual threads are not available
+  private static final int MAX_POOLED_THREADS = 32;
+
+  // Paths counted separately before the rest are counted together
+  private static final int MAX_COUNTED_PATHS = 256;
+  private static final String OTHER_PATHS = "(other)";
+
+  private static ExecutorService executor = null;
+  private static final Queue<RelayAgent> idleAgents = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger agentCount = new AtomicInteger();
+
+  private static final AtomicInteger queuedConnections = new AtomicInteger();
+  private static final AtomicInteger activeRequests = new AtomicInteger();
+  private static final Map<String, PathStatistics> pathStatistics = new ConcurrentHashMap<>();
+
   private static long lastStatusMessage = 0;
   private static Thread relayThread = null;
 
@@ -113,11 +143,20 @@ public class RelayServer implements Runnable {
 
     if (startedSuccessfully) {
       RelayServer.listening = true;
+
+      if (Preferences.getBoolean("useRelayExecutor")) {
+        RelayServer.executor = RelayServer.createExecutor();
+      }
     }
 
     while (RelayServer.listening) {
       try {
-        this.dispatchAgent(this.serverSocket.accept());
+        Socket socket = this.serverSocket.accept();
+        if (RelayServer.executor != null) {
+          RelayServer.submitConnection(socket);
+        } else {
+          this.dispatchAgent(socket);
+        }
       } catch (Exception e) {
         // If an exception occurs here, that means
         // someone closed the thread; just reset
@@ -129,6 +168,12 @@ public class RelayServer implements Runnable {
 
     this.closeAgents();
 
+    if (RelayServer.executor != null) {
+      RelayServer.executor.shutdownNow();
+      RelayServer.executor = null;
+      RelayServer.idleAgents.clear();
+    }
+
     try {
       if (this.serverSocket != null) {
         this.serverSocket.close();
@@ -184,6 +229,134 @@ public class RelayServer implements Runnable {
     agent.start();
   }
 
+  private static ExecutorService createExecutor() {
+    try {
+      // Virtual threads are available from Java 21
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadPoolExecutor pool =
+          new ThreadPoolExecutor(
+              MAX_POOLED_THREADS,
+              MAX_POOLED_THREADS,
+              60,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              runnable -> {
+                Thread thread =
+                    new Thread(runnable, "LocalRelayWorker" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+              });
+      pool.allowCoreThreadTimeOut(true);
+      return pool;
+    }
+  }
+
+  // Serves a connection on the executor, with an agent no other connection is using
+  private static void submitConnection(final Socket socket) {
+    RelayServer.queuedConnections.incrementAndGet();
+
+    try {
+      RelayServer.executor.execute(
+          () -> {
+            RelayServer.queuedConnections.decrementAndGet();
+
+            RelayAgent agent = RelayServer.idleAgents.poll();
+            if (agent == null) {
+              agent = new RelayAgent(RelayServer.agentCount.getAndIncrement());
+            }
+
+            try {
+              agent.serve(socket);
+            } finally {
+              RelayServer.idleAgents.offer(agent);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      RelayServer.queuedConnections.decrementAndGet();
+      try {
+        socket.close();
+      } catch (IOException e2) {
+      }
+    }
+  }
+
+  static void requestStarted() {
+    RelayServer.activeRequests.incrementAndGet();
+  }
+
+  static void requestFinished(final String path, final long nanos) {
+    RelayServer.activeRequests.decrementAndGet();
+
+    String key = RelayServer.getPathKey(path);
+    PathStatistics statistics = RelayServer.pathStatistics.get(key);
+    if (statistics == null) {
+      if (RelayServer.pathStatistics.size() >= MAX_COUNTED_PATHS) {
+        key = OTHER_PATHS;
+      }
+      statistics = RelayServer.pathStatistics.computeIfAbsent(key, k -> new PathStatistics());
+    }
+    statistics.add(nanos);
+  }
+
+  // Requests are counted by page, and all images together
+  private static String getPathKey(final String path) {
+    if (path == null) {
+      return OTHER_PATHS;
+    }
+    if (path.startsWith("/images/")) {
+      return "/images/";
+    }
+    int query = path.indexOf('?');
+    return query == -1 ? path : path.substring(0, query);
+  }
+
+  /** Returns the number of connections waiting for the executor to serve them. */
+  public static int getQueuedConnections() {
+    return RelayServer.queuedConnections.get();
+  }
+
+  /** Returns the number of requests from the browser being handled right now. */
+  public static int getActiveRequests() {
+    return RelayServer.activeRequests.get();
+  }
+
+  /** Returns how long requests for each path have taken, sorted by path. */
+  public static Map<String, PathStatistics> getPathStatistics() {
+    return new TreeMap<>(RelayServer.pathStatistics);
+  }
+
+  public static void resetPathStatistics() {
+    RelayServer.pathStatistics.clear();
+  }
+
+  public static class PathStatistics {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private void add(final long nanos) {
+      this.count.incrementAndGet();
+      this.totalNanos.addAndGet(nanos);
+      this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+      return this.count.get();
+    }
+
+    public double getAverageMillis() {
+      long count = this.count.get();
+      return count == 0 ? 0.0 : this.totalNanos.get() / 1e6 / count;
+    }
+
+    public double getMaximumMillis() {
+      return this.maxNanos.get() / 1e6;
+    }
+  }
+
   public static final void addStatusMessage(final String message) {
     if (System.currentTimeMillis() - RelayServer.lastStatusMessage < 4000) {
       RelayServer.statusMessages.append(message);
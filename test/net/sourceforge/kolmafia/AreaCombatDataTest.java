@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.*;
 
 import internal.helpers.Cleanups;
 import java.io.File;
+import java.util.List;
 import java.util.Map;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
@@ -41,6 +42,7 @@ public class AreaCombatDataTest {
   public void beforeEach() {
     KoLCharacter.reset("fakeUserName");
     Preferences.reset("fakeUsername");
+    CrystalBallManager.reset();
   }
 
   @AfterAll
@@ -174,4 +176,58 @@ public class AreaCombatDataTest {
             hasEntry(SNAKE, 0.0),
             hasEntry(GHOST, 0.0)));
   }
+
+  @Test
+  public void reusesRatesUntilTheirInputsChange() {
+    AdventureQueueDatabase.resetQueue();
+    Preferences.setString("olfactedMonster", "smut orc pipelayer");
+
+    Map<MonsterData, Double> before = SMUT_ORC_CAMP.getMonsterData(true);
+    assertThat(SMUT_ORC_CAMP.getMonsterData(true), sameInstance(before));
+    assertThat(before, hasEntry(PIPELAYER, 25.0));
+
+    KoLConstants.activeEffects.add(EffectPool.get(EffectPool.ON_THE_TRAIL));
+
+    Map<MonsterData, Double> after = SMUT_ORC_CAMP.getMonsterData(true);
+    assertThat(after, not(sameInstance(before)));
+    assertThat(after, hasEntry(PIPELAYER, 1600 / 28.0));
+
+    Preferences.setString("olfactedMonster", "smut orc jacker");
+
+    assertThat(SMUT_ORC_CAMP.getMonsterData(true), hasEntry(JACKER, 1600 / 28.0));
+  }
+
+  @Test
+  public void recalculatesRatesWhenTheQueueChanges() {
+    AdventureQueueDatabase.resetQueue();
+    Map<MonsterData, Double> before = SMUT_ORC_CAMP.getMonsterData(true);
+
+    AdventureQueueDatabase.enqueue(SMUT_ORC_CAMP.getZone(), "smut orc jacker");
+
+    Map<MonsterData, Double> after = SMUT_ORC_CAMP.getMonsterData(true);
+    assertThat(after, not(sameInstance(before)));
+    assertThat(after.get(JACKER), lessThan(before.get(JACKER)));
+  }
+
+  @Test
+  public void findsRatesOfManyAreas() {
+    AdventureQueueDatabase.resetQueue();
+    Preferences.setString("olfactedMonster", "smut orc pipelayer");
+    KoLConstants.activeEffects.add(EffectPool.get(EffectPool.ON_THE_TRAIL));
+
+    AreaCombatData basement =
+        AdventureDatabase.getAreaCombatData("The Castle in the Clouds in the Sky (Basement)");
+    List<AreaCombatData> areas = List.of(SMUT_ORC_CAMP, basement);
+
+    Map<AreaCombatData, Map<MonsterData, Double>> rates =
+        AreaCombatData.getMonsterData(areas, true);
+
+    assertThat(rates, aMapWithSize(2));
+    assertThat(rates.get(SMUT_ORC_CAMP), hasEntry(PIPELAYER, 1600 / 28.0));
+    assertThat(rates.get(SMUT_ORC_CAMP), equalTo(SMUT_ORC_CAMP.getMonsterData(true)));
+    assertThat(rates.get(basement), equalTo(basement.getMonsterData(true)));
+    assertThat(
+        AreaCombatData.getMonsterData(areas, false).get(SMUT_ORC_CAMP),
+        equalTo(SMUT_ORC_CAMP.getMonsterData(false)));
+  }
 }
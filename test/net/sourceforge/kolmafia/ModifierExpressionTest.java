@@ -12,6 +12,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.GregorianCalendar;
@@ -460,4 +461,63 @@ public class ModifierExpressionTest {
     var exp = new ModifierExpression("basemox", "Base moxie");
     assertThat(exp.eval(), is(2.0));
   }
+
+  @Test
+  public void constantExpressionsAreCached() {
+    var exp = new ModifierExpression("3*(4+1)", "Constant");
+    assertTrue(exp.isCached());
+    assertThat(exp.eval(), is(15.0));
+    assertThat(exp.eval(), is(15.0));
+  }
+
+  @Test
+  public void untrackedInputsAreNotCached() {
+    var exp = new ModifierExpression("effect(Confused)+F", "Fullness");
+    assertFalse(exp.isCached());
+
+    KoLCharacter.setFullness(3);
+    assertThat(exp.eval(), is(3.0));
+    KoLCharacter.setFullness(4);
+    assertThat(exp.eval(), is(4.0));
+  }
+
+  @Test
+  public void cachedResultFollowsPreferences() {
+    var exp = new ModifierExpression("pref(_testCount)+pref(_testList,b)", "Preference");
+    assertTrue(exp.isCached());
+
+    Preferences.setInteger("_testCount", 3);
+    Preferences.setString("_testList", "a,c");
+    assertThat(exp.eval(), is(3.0));
+    assertThat(exp.eval(), is(3.0));
+
+    Preferences.setString("_testList", "a,b");
+    assertThat(exp.eval(), is(4.0));
+  }
+
+  @Test
+  public void cachedResultFollowsEffects() {
+    var exp = new ModifierExpression("effect(Confused)", "Effect");
+    assertTrue(exp.isCached());
+    assertThat(exp.eval(), is(0.0));
+
+    var cleanups = addEffect("Confused", 5);
+    try (cleanups) {
+      assertThat(exp.eval(), is(5.0));
+    }
+    assertThat(exp.eval(), is(0.0));
+  }
+
+  @Test
+  public void cachedResultFollowsLocation() {
+    var exp = new ModifierExpression("loc(Noob Cave)", "Location");
+    assertTrue(exp.isCached());
+
+    var cleanups = inLocation("Noob Cave");
+    try (cleanups) {
+      assertThat(exp.eval(), is(1.0));
+      inLocation("The Haunted Pantry");
+      assertThat(exp.eval(), is(0.0));
+    }
+  }
 }
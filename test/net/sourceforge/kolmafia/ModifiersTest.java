@@ -5,10 +5,16 @@ import static internal.helpers.Player.isDay;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.Map.Entry;
+import net.sourceforge.kolmafia.objectpool.EffectPool;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.ItemDatabase;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -93,6 +99,74 @@ public class ModifiersTest {
     }
   }
 
+  @Test
+  public void summarizesItemFlags() {
+    assertEquals(
+        Modifiers.ITEM_ROLLOVER_EFFECT,
+        Modifiers.getItemFlags(ItemDatabase.getItemId("ninjammies")));
+    assertEquals(
+        Modifiers.ITEM_BREAKABLE, Modifiers.getItemFlags(ItemDatabase.getItemId("antique helmet")));
+    assertEquals(
+        Modifiers.ITEM_DROPS_MEAT,
+        Modifiers.getItemFlags(ItemDatabase.getItemId("garbage sticker")));
+    assertEquals(0, Modifiers.getItemFlags(ItemDatabase.getItemId("helmet turtle")));
+  }
+
+  @Test
+  public void idLookupsFindTheSameModifiers() {
+    Modifiers byId = Modifiers.getItemModifiers(ItemPool.KREMLIN_BRIEFCASE);
+    assertSame(byId, Modifiers.getModifiers("Item", "Kremlin's Greatest Briefcase"));
+    assertEquals(25, byId.get(Modifiers.INITIATIVE));
+
+    Modifiers effect = Modifiers.getEffectModifiers(EffectPool.LEASH_OF_LINGUINI);
+    assertSame(effect, Modifiers.getModifiers("Effect", "Leash of Linguini"));
+    assertEquals(5, effect.get(Modifiers.FAMILIAR_WEIGHT));
+
+    assertNull(Modifiers.getItemModifiers(ItemPool.CHEWING_GUM));
+  }
+
+  @Test
+  public void idLookupsSeeOverrides() {
+    String lookup = "Item:[" + ItemPool.KREMLIN_BRIEFCASE + "]";
+    String original =
+        Modifiers.getItemModifiers(ItemPool.KREMLIN_BRIEFCASE).getString(Modifiers.MODIFIERS);
+    try {
+      Modifiers.overrideModifier(lookup, "Initiative: +50");
+      assertEquals(
+          50, Modifiers.getItemModifiers(ItemPool.KREMLIN_BRIEFCASE).get(Modifiers.INITIATIVE));
+
+      Modifiers.overrideModifier(lookup, null);
+      assertNull(Modifiers.getItemModifiers(ItemPool.KREMLIN_BRIEFCASE));
+    } finally {
+      Modifiers.overrideModifier(lookup, original);
+    }
+    assertEquals(
+        25, Modifiers.getItemModifiers(ItemPool.KREMLIN_BRIEFCASE).get(Modifiers.INITIATIVE));
+  }
+
+  @Test
+  public void prewarmedModifiersMatchLazyOnes() {
+    Modifiers.prewarmModifiers();
+
+    Modifiers mods = Modifiers.getItemModifiers(ItemDatabase.getItemId("antique helmet"));
+    assertSame(mods, Modifiers.getModifiers("Item", "antique helmet"));
+    assertEquals(
+        5,
+        Modifiers.getEffectModifiers(EffectPool.LEASH_OF_LINGUINI).get(Modifiers.FAMILIAR_WEIGHT));
+  }
+
+  @Test
+  public void reparsingModifiersTakesNoMoreBitmapBits() {
+    Modifiers first = Modifiers.parseModifiers("Item:reparsed test item", "Brimstone");
+    Modifiers again = Modifiers.parseModifiers("Item:reparsed test item", "Brimstone");
+    Modifiers other = Modifiers.parseModifiers("Item:other test item", "Brimstone");
+
+    int bits = first.getRawBitmap(Modifiers.BRIMSTONE);
+    assertNotEquals(0, bits);
+    assertEquals(bits, again.getRawBitmap(Modifiers.BRIMSTONE));
+    assertNotEquals(bits, other.getRawBitmap(Modifiers.BRIMSTONE));
+  }
+
   @ParameterizedTest
   @CsvSource({
     "+50% Spell Damage, Spell Damage Percent: +50",
@@ -0,0 +1,140 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import static internal.helpers.Player.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.Modifiers;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalModifiersTest {
+  @BeforeEach
+  public void init() {
+    KoLCharacter.reset(true);
+  }
+
+  private static MaximizerSpeculation speculation() {
+    MaximizerSpeculation spec = new MaximizerSpeculation(new Evaluator("item"));
+    spec.equip(EquipmentManager.HAT, AdventureResult.parseResult("helmet turtle"));
+    spec.equip(EquipmentManager.PANTS, AdventureResult.parseResult("old sweatpants"));
+    spec.equip(EquipmentManager.ACCESSORY1, AdventureResult.parseResult("observational glasses"));
+    spec.equip(EquipmentManager.ACCESSORY2, AdventureResult.parseResult("Mr. Accessory"));
+    spec.equip(EquipmentManager.ACCESSORY3, AdventureResult.parseResult("Brimstone Bracelet"));
+    return spec;
+  }
+
+  private static void assertSameModifiers(Modifiers expected, Modifiers actual) {
+    for (int i = 0; i < Modifiers.DOUBLE_MODIFIERS; ++i) {
+      assertEquals(expected.get(i), actual.get(i), 0.0001, Modifiers.getModifierName(i));
+    }
+    for (int i = 0; i < Modifiers.BITMAP_MODIFIERS; ++i) {
+      assertEquals(expected.getRawBitmap(i), actual.getRawBitmap(i));
+    }
+  }
+
+  @Test
+  public void onlySelfContainedItemsAreAdditive() {
+    assertTrue(
+        IncrementalModifiers.isAdditive(
+            EquipmentManager.ACCESSORY1, AdventureResult.parseResult("observational glasses")));
+    assertFalse(
+        IncrementalModifiers.isAdditive(
+            EquipmentManager.ACCESSORY1, AdventureResult.parseResult("Brimstone Bracelet")));
+    assertFalse(
+        IncrementalModifiers.isAdditive(
+            EquipmentManager.FAMILIAR, AdventureResult.parseResult("helmet turtle")));
+  }
+
+  @Test
+  public void incrementalModifiersMatchFullCalculation() {
+    MaximizerSpeculation spec = speculation();
+    Modifiers full = spec.clone().calculateFully();
+
+    spec.incremental = new IncrementalModifiers();
+    Modifiers incremental = spec.calculate();
+
+    assertSameModifiers(full, incremental);
+    // 5 from the glasses, 2 from the bracelet's brimstone bonus
+    assertEquals(7, incremental.get(Modifiers.ITEMDROP), 0.0001);
+  }
+
+  @Test
+  public void incrementalModifiersIncludeLateMultipliers() {
+    final var cleanups = new Cleanups(addEffect("Steely-Eyed Squint"));
+    try (cleanups) {
+      MaximizerSpeculation spec = speculation();
+      Modifiers full = spec.clone().calculateFully();
+
+      spec.incremental = new IncrementalModifiers();
+      Modifiers incremental = spec.calculate();
+
+      assertSameModifiers(full, incremental);
+      assertEquals(14, incremental.get(Modifiers.ITEMDROP), 0.0001);
+    }
+  }
+
+  @Test
+  public void baseOutfitIsReused() {
+    MaximizerSpeculation spec = speculation();
+    IncrementalModifiers incremental = new IncrementalModifiers();
+    spec.incremental = incremental;
+    spec.calculate();
+    assertEquals(1, incremental.getBaseCount());
+
+    MaximizerSpeculation other = spec.clone();
+    other.equip(EquipmentManager.ACCESSORY1, AdventureResult.parseResult("Mr. Accessory"));
+    Modifiers full = other.clone().calculateFully();
+
+    assertSameModifiers(full, other.calculate());
+    // Only an additive accessory changed, so the same base was used
+    assertEquals(1, incremental.getBaseCount());
+  }
+
+  @Test
+  public void incrementalScoresMatchFullScores() {
+    // Additive items, alongside ones with familiar weight, monster level, variable
+    // modifiers, brimstone, and the pieces of an outfit
+    String[] hats = {
+      "helmet turtle", "plexiglass pith helmet", "Brimstone Beret", "filthy knitted dread sack"
+    };
+    String[] pants = {"old sweatpants", "filthy corduroys"};
+    String[] containers = {null, "bakelite backpack"};
+    String[] accessories = {
+      "observational glasses", "Jekyllin hide belt", "Order of the Silver Wossname", "Mr. Accessory"
+    };
+
+    Evaluator eval = new Evaluator("item, meat, ML, familiar weight, exp, mox");
+    IncrementalModifiers incremental = new IncrementalModifiers();
+    for (String hat : hats) {
+      for (String pant : pants) {
+        for (String container : containers) {
+          for (String accessory : accessories) {
+            MaximizerSpeculation full = new MaximizerSpeculation(eval);
+            full.equip(EquipmentManager.HAT, AdventureResult.parseResult(hat));
+            full.equip(EquipmentManager.PANTS, AdventureResult.parseResult(pant));
+            if (container != null) {
+              full.equip(EquipmentManager.CONTAINER, AdventureResult.parseResult(container));
+            }
+            full.equip(EquipmentManager.ACCESSORY1, AdventureResult.parseResult(accessory));
+            full.equip(
+                EquipmentManager.ACCESSORY2, AdventureResult.parseResult("Brimstone Bracelet"));
+
+            MaximizerSpeculation spec = full.clone();
+            spec.incremental = incremental;
+
+            String outfit = hat + ", " + pant + ", " + container + ", " + accessory;
+            assertSameModifiers(full.calculate(), spec.calculate());
+            assertEquals(full.getScore(), spec.getScore(), 0.0001, outfit);
+          }
+        }
+      }
+    }
+    // Some combinations differed only in additive items
+    int combinations = hats.length * pants.length * containers.length * accessories.length;
+    assertTrue(incremental.getBaseCount() < combinations);
+  }
+}
@@ -0,0 +1,87 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import static internal.helpers.Maximizer.*;
+import static internal.helpers.Player.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import internal.helpers.Cleanups;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class MaximizerSearchTest {
+  @BeforeEach
+  public void init() {
+    KoLCharacter.reset(true);
+    Preferences.setBoolean("maximizerParallelSearch", false);
+  }
+
+  @AfterEach
+  public void restore() {
+    Preferences.setBoolean("maximizerParallelSearch", false);
+  }
+
+  private static Cleanups wardrobe() {
+    return new Cleanups(
+        setStats(100, 100, 100),
+        canUse("helmet turtle"),
+        canUse("hardened slime hat"),
+        canUse("bounty-hunting helmet"),
+        canUse("wreath of laurels"),
+        canUse("rave visor"),
+        canUse("baggy rave pants"),
+        canUse("rave whistle"),
+        canUse("clown wig"),
+        canUse("polka-dot bow tie"),
+        canUse("seal-clubbing club"),
+        canUse("old sweatpants"),
+        canUse("Fuzzy Slippers of Hatred"),
+        canUse("Brimstone Bracelet"),
+        canUse("Brimstone Beret"),
+        addSkill("Refusal to Freeze"));
+  }
+
+  private static List<Optional<AdventureResult>> recommendations(String expression) {
+    assertTrue(maximize(expression));
+    List<Optional<AdventureResult>> slots = new ArrayList<>();
+    for (int slot = 0; slot <= EquipmentManager.FAMILIAR; ++slot) {
+      slots.add(getSlot(slot));
+    }
+    return slots;
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "mus",
+        "mox",
+        "item drop",
+        "meat drop",
+        "-combat",
+        "cold res, 0.1 item drop",
+        "cold res 3 max, 0.1 item drop",
+        "spell damage, -tie"
+      })
+  public void parallelSearchMatchesSequentialSearch(String expression) {
+    final var cleanups = wardrobe();
+    try (cleanups) {
+      var sequential = recommendations(expression);
+      double score = modFor("Buffed Muscle") + modFor("Item Drop") + modFor("Cold Resistance");
+
+      Preferences.setBoolean("maximizerParallelSearch", true);
+      var parallel = recommendations(expression);
+
+      assertEquals(sequential, parallel);
+      assertEquals(
+          score, modFor("Buffed Muscle") + modFor("Item Drop") + modFor("Cold Resistance"), 0.01);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package net.sourceforge.kolmafia.pages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PageHandlersTest {
+  private PageHandlers<String> handlers;
+
+  @BeforeEach
+  public void buildHandlers() {
+    handlers =
+        new PageHandlers<String>()
+            .add("inventory.php", "inventory")
+            .add("choice.php?whichchoice=562", "fudge wand")
+            .add(PageHandlers.EVERY_PAGE, "everything")
+            .add("choice.php", "any choice")
+            .add(List.of("inv_use.php", "choice.php?whichchoice=1420"), "cargo shorts");
+  }
+
+  @Test
+  public void findsHandlersForPageInOrder() {
+    assertEquals(List.of("inventory", "everything"), handlers.get("inventory.php?which=2"));
+    assertEquals(List.of("everything"), handlers.get("fight.php"));
+    assertEquals(List.of("everything", "cargo shorts"), handlers.get("inv_use.php?whichitem=1"));
+  }
+
+  @Test
+  public void matchesFieldValuesExactly() {
+    assertEquals(
+        List.of("fudge wand", "everything", "any choice"),
+        handlers.get("choice.php?pwd&whichchoice=562&option=3"));
+    assertEquals(
+        List.of("everything", "any choice"), handlers.get("choice.php?whichchoice=5620&option=1"));
+    assertEquals(List.of("everything", "any choice"), handlers.get("choice.php"));
+    assertEquals(
+        List.of("everything", "any choice", "cargo shorts"),
+        handlers.get("choice.php?whichchoice=1420&option=1"));
+  }
+
+  @Test
+  public void doesNotMatchPagesByPrefix() {
+    assertEquals(List.of("everything"), handlers.get("inventory.phpx"));
+    assertEquals(List.of("everything"), handlers.get("choice.php.bak?whichchoice=562"));
+  }
+
+  @Test
+  public void addingAHandlerUpdatesLookups() {
+    assertEquals(List.of("everything"), handlers.get("place.php?whichplace=town"));
+    handlers.add("place.php", "place");
+    assertEquals(List.of("everything", "place"), handlers.get("place.php?whichplace=town"));
+  }
+}
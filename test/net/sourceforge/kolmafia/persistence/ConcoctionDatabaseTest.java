@@ -0,0 +1,86 @@
+package net.sourceforge.kolmafia.persistence;
+
+import static internal.helpers.Player.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.objectpool.Concoction;
+import net.sourceforge.kolmafia.objectpool.ConcoctionPool;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConcoctionDatabaseTest {
+  @BeforeEach
+  public void init() {
+    KoLCharacter.reset("concoctor");
+    KoLCharacter.reset(true);
+    Preferences.reset("concoctor");
+    KoLCharacter.setAvailableMeat(1000);
+    ConcoctionDatabase.refreshConcoctionsNow();
+  }
+
+  private static int getCreatable(String name) {
+    return ConcoctionPool.get(ItemDatabase.getItemId(name)).creatable;
+  }
+
+  @Test
+  public void changedItemsOnlyRefreshWhatUsesThem() {
+    final var cleanups = new Cleanups(addItem("bum cheek", 2));
+    try (cleanups) {
+      assertEquals(0, getCreatable("asshat"));
+
+      ConcoctionDatabase.setRefreshNeeded(ItemDatabase.getItemId("bum cheek"));
+      ConcoctionDatabase.refreshConcoctions(false);
+
+      assertTrue(ConcoctionDatabase.getLastRefreshSize() < ConcoctionPool.concoctions().size());
+      assertEquals(1, getCreatable("asshat"));
+    }
+  }
+
+  @Test
+  public void changedMeatRefreshesWhatCostsMeat() {
+    Concoction paste = ConcoctionPool.get(ItemPool.MEAT_PASTE);
+    assertEquals(100, paste.total);
+
+    KoLCharacter.setAvailableMeat(2000);
+    ConcoctionDatabase.setMeatRefreshNeeded();
+    ConcoctionDatabase.refreshConcoctions(false);
+
+    assertTrue(ConcoctionDatabase.getLastRefreshSize() < ConcoctionPool.concoctions().size());
+    assertEquals(200, paste.total);
+  }
+
+  @Test
+  public void otherChangesRefreshEverything() {
+    ConcoctionDatabase.setRefreshNeeded(false);
+    ConcoctionDatabase.refreshConcoctions(false);
+
+    assertEquals(ConcoctionPool.concoctions().size(), ConcoctionDatabase.getLastRefreshSize());
+  }
+
+  @Test
+  public void incrementalRefreshMatchesFullRefresh() {
+    final var cleanups = new Cleanups(addItem("bum cheek", 2), addItem("meat paste", 3));
+    try (cleanups) {
+      ConcoctionDatabase.setRefreshNeeded(ItemDatabase.getItemId("bum cheek"));
+      ConcoctionDatabase.setRefreshNeeded(ItemPool.MEAT_PASTE);
+      ConcoctionDatabase.refreshConcoctions(false);
+
+      int[] incremental = new int[ConcoctionPool.concoctions().size()];
+      int i = 0;
+      for (Concoction item : ConcoctionPool.concoctions()) {
+        incremental[i++] = item.total;
+      }
+
+      ConcoctionDatabase.refreshConcoctionsNow();
+
+      i = 0;
+      for (Concoction item : ConcoctionPool.concoctions()) {
+        assertEquals(item.total, incremental[i++], item.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package net.sourceforge.kolmafia.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class DatabaseStartupTest {
+  private final List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+
+  private Runnable loading(final String name) {
+    return () -> loaded.add(name);
+  }
+
+  // a <- b <- d, c <- d, e
+  private DatabaseStartup graph() {
+    DatabaseStartup startup = new DatabaseStartup();
+    startup.add("a", loading("a"));
+    startup.add("b", loading("b"), "a");
+    startup.add("c", loading("c"));
+    startup.add("d", loading("d"), "b", "c");
+    startup.add("e", loading("e"));
+    return startup;
+  }
+
+  private void assertLoadedBefore(final String first, final String second) {
+    assertTrue(loaded.indexOf(first) < loaded.indexOf(second), first + " before " + second);
+  }
+
+  @Test
+  public void loadsEveryStageOnceInOrder() {
+    DatabaseStartup startup = graph();
+    startup.loadAll(false);
+    startup.loadAll(false);
+
+    assertEquals(List.of("a", "b", "c", "d", "e"), loaded);
+    for (DatabaseStartup.Stage stage : startup.getStages()) {
+      assertTrue(stage.isLoaded());
+      assertEquals(Thread.currentThread().getName(), stage.getThreadName());
+    }
+    assertTrue(startup.getLoadNanos() > 0);
+  }
+
+  @Test
+  public void loadsDependenciesFirstInParallel() {
+    DatabaseStartup startup = graph();
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      startup.loadAll(pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(5, loaded.size());
+    assertLoadedBefore("a", "b");
+    assertLoadedBefore("b", "d");
+    assertLoadedBefore("c", "d");
+    assertNotEquals(Thread.currentThread().getName(), startup.getStage("d").getThreadName());
+  }
+
+  @Test
+  public void loadsIndependentStagesSideBySide() throws InterruptedException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    Runnable waitForOther =
+        () -> {
+          bothStarted.countDown();
+          try {
+            bothStarted.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            // The test will fail
+          }
+        };
+
+    DatabaseStartup startup = new DatabaseStartup();
+    startup.add("first", waitForOther);
+    startup.add("second", waitForOther);
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      startup.loadAll(pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertTrue(bothStarted.await(0, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void loadsOnlyWhatIsNeededOnDemand() {
+    DatabaseStartup startup = graph();
+
+    assertTrue(startup.load("b"));
+    assertEquals(List.of("a", "b"), loaded);
+    assertFalse(startup.getStage("d").isLoaded());
+
+    assertTrue(startup.load("d"));
+    assertEquals(List.of("a", "b", "c", "d"), loaded);
+
+    assertFalse(startup.load("f"));
+  }
+
+  @Test
+  public void reportsFailureOfAStage() {
+    DatabaseStartup startup = new DatabaseStartup();
+    startup.add(
+        "broken",
+        () -> {
+          throw new IllegalStateException("broken");
+        });
+    startup.add("after", loading("after"), "broken");
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      assertThrows(IllegalStateException.class, () -> startup.loadAll(pool));
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(List.of(), loaded);
+  }
+
+  @Test
+  public void rejectsUnknownDependencies() {
+    DatabaseStartup startup = graph();
+    assertThrows(IllegalArgumentException.class, () -> startup.add("f", loading("f"), "g"));
+    assertThrows(IllegalArgumentException.class, () -> startup.add("a", loading("a")));
+  }
+
+  @Test
+  public void loadsDatabaseStagesOnDemand() {
+    assertTrue(DatabaseStartup.DATABASES.load("skills"));
+    assertTrue(DatabaseStartup.DATABASES.getStage("effects").isLoaded());
+    assertEquals(
+        List.of("effects"), DatabaseStartup.DATABASES.getStage("skills").getDependencies());
+  }
+
+  @Test
+  public void loadsMonstersAndAdventuresAfterItems() {
+    assertEquals(
+        List.of("items"), DatabaseStartup.DATABASES.getStage("monsters").getDependencies());
+    assertEquals(
+        List.of("monsters"), DatabaseStartup.DATABASES.getStage("adventures").getDependencies());
+    assertEquals(
+        List.of("monsters"), DatabaseStartup.DATABASES.getStage("pockets").getDependencies());
+  }
+}
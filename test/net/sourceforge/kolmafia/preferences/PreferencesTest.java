@@ -2,9 +2,14 @@ package net.sourceforge.kolmafia.preferences;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.util.TreeMap;
 import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.RequestLogger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -571,4 +576,130 @@ class PreferencesTest {
     Preferences.reset("dot_is_....not_good");
     assertTrue(globalfile.exists());
   }
+
+  @Test
+  public void changesAreWrittenTogetherOnFlush() throws IOException {
+    Preferences.saveSettingsToFile = true;
+    File userfile = new File("settings/fakeprefuser_prefs.txt");
+    Preferences.flush();
+    long flushes = Preferences.getFlushCount();
+
+    for (int i = 0; i < 10; ++i) {
+      Preferences.setInteger("_coalescedPref" + i, i + 1);
+    }
+    Preferences.flush();
+
+    // Ten changes, one write
+    assertEquals(flushes + 1, Preferences.getFlushCount());
+    String contents = Files.readString(userfile.toPath());
+    assertTrue(contents.contains("_coalescedPref0=1"));
+    assertTrue(contents.contains("_coalescedPref9=10"));
+    assertFalse(new File("settings/fakeprefuser_prefs.txt.tmp").exists());
+    assertTrue(Preferences.getAverageFlushMillis() > 0.0);
+  }
+
+  @Test
+  public void changesAreWrittenAfterDelay() throws Exception {
+    Preferences.saveSettingsToFile = true;
+    File userfile = new File("settings/fakeprefuser_prefs.txt");
+    Preferences.flush();
+
+    Preferences.setString("delayedPref", "eventually");
+
+    // Poll rather than sleeping for a fixed time, which a slow machine can outlast
+    long deadline = System.currentTimeMillis() + PreferencesPersister.DEBOUNCE_MILLIS * 40;
+    boolean written = false;
+    while (!written && System.currentTimeMillis() < deadline) {
+      Thread.sleep(PreferencesPersister.DEBOUNCE_MILLIS / 5);
+      written =
+          userfile.exists()
+              && Files.readString(userfile.toPath()).contains("delayedPref=eventually");
+    }
+
+    assertTrue(written);
+  }
+
+  @Test
+  public void pendingWritesGoToTheUserWhoMadeThem() throws Exception {
+    Preferences.saveSettingsToFile = true;
+    File userfile = new File("settings/fakeprefuser_prefs.txt");
+    File otherfile = new File("settings/fakeprefuserb_prefs.txt");
+    try {
+      Preferences.reset("fakePrefUserB");
+      Preferences.setString("onlyForB", "true");
+      Preferences.flush();
+
+      // Switch users around the time the debounced write runs
+      long[] delays = {0, 5, 10, 15, 20, 25, 30};
+      for (int i = 0; i < delays.length; ++i) {
+        Preferences.reset("fakePrefUser");
+        Preferences.setString("racedPref", "value" + i);
+        Thread.sleep(PreferencesPersister.DEBOUNCE_MILLIS - 15 + delays[i]);
+        Preferences.reset("fakePrefUserB");
+        Preferences.flush();
+
+        long deadline = System.currentTimeMillis() + PreferencesPersister.DEBOUNCE_MILLIS * 40;
+        String contents = Files.readString(userfile.toPath());
+        while (!contents.contains("racedPref=value" + i)
+            && System.currentTimeMillis() < deadline) {
+          Thread.sleep(PreferencesPersister.DEBOUNCE_MILLIS / 5);
+          contents = Files.readString(userfile.toPath());
+        }
+
+        assertTrue(contents.contains("racedPref=value" + i));
+        assertFalse(contents.contains("onlyForB"));
+        assertFalse(Files.readString(otherfile.toPath()).contains("racedPref"));
+      }
+    } finally {
+      Preferences.reset("fakePrefUser");
+      otherfile.delete();
+    }
+  }
+
+  @Test
+  public void typedValuesFollowTheirText() {
+    Preferences.setString("typedPref", "12");
+    assertEquals(12, Preferences.getInteger("typedPref"));
+    assertEquals(12L, Preferences.getLong("typedPref"));
+    assertEquals("12", Preferences.getString("typedPref"));
+
+    Preferences.setString("typedPref", "34");
+    assertEquals(34, Preferences.getInteger("typedPref"));
+    assertEquals(34L, Preferences.getLong("typedPref"));
+
+    Preferences.setInteger("typedPref", 7);
+    assertEquals("7", Preferences.getString("typedPref"));
+    assertEquals(7.0, Preferences.getDouble("typedPref"), 0.0001);
+  }
+
+  @Test
+  public void changeLogFilterFollowsItsPreference() {
+    Preferences.setString("filteredPref", "0");
+    Preferences.setString("loggedPref", "0");
+
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(ostream, true)) {
+      RequestLogger.openCustom(out);
+      Preferences.setString("logPreferenceChangeFilter", "filteredPref");
+      Preferences.setBoolean("logPreferenceChange", true);
+
+      Preferences.setInteger("filteredPref", 1);
+      Preferences.setInteger("loggedPref", 1);
+      Preferences.setString("logPreferenceChangeFilter", "loggedPref");
+      Preferences.setInteger("filteredPref", 2);
+      Preferences.setInteger("loggedPref", 2);
+
+      Preferences.setBoolean("logPreferenceChange", false);
+      Preferences.setString("logPreferenceChangeFilter", "");
+      Preferences.setInteger("loggedPref", 3);
+      RequestLogger.closeCustom();
+    }
+
+    String output = ostream.toString();
+    assertFalse(output.contains("filteredPref changed from 0 to 1"));
+    assertTrue(output.contains("loggedPref changed from 0 to 1"));
+    assertTrue(output.contains("filteredPref changed from 1 to 2"));
+    assertFalse(output.contains("loggedPref changed from 1 to 2"));
+    assertFalse(output.contains("loggedPref changed from 2 to 3"));
+  }
 }
@@ -12,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.IntStream;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.MonsterData;
 import net.sourceforge.kolmafia.combat.MonsterStatusTracker;
@@ -116,6 +117,18 @@ class BanishManagerTest {
     assertThat("banishedMonsters", isSetTo("smut orc nailer:Reflex Hammer:420"));
   }
 
+  @Test
+  void recalculateLeavesUnchangedBanishesAlone() {
+    KoLCharacter.setCurrentRun(420);
+    BanishManager.banishMonster(SMUT_ORC_NAILER, Banisher.REFLEX_HAMMER);
+    BanishManager.recalculate();
+
+    long changes = Preferences.getChangeCount();
+    BanishManager.recalculate();
+    assertTrue(BanishManager.isBanished("smut orc nailer"));
+    assertEquals(changes, Preferences.getChangeCount());
+  }
+
   @Test
   void resetRollover() {
     KoLCharacter.setCurrentRun(128);
@@ -331,6 +344,48 @@ class BanishManagerTest {
     assertTrue(BanishManager.isBanished("scary pirate"));
   }
 
+  @Test
+  void isBanishedIgnoresCase() {
+    BanishManager.banishMonster(SCARY_PIRATE, Banisher.BEANCANNON);
+
+    assertTrue(BanishManager.isBanished("Scary Pirate"));
+    assertFalse(BanishManager.isBanished("scary pirates"));
+    assertFalse(BanishManager.isBanished(null));
+  }
+
+  @Test
+  void isBanishedUntilTheLastTurnPasses() {
+    KoLCharacter.setCurrentRun(100);
+    BanishManager.banishMonster(CRATE, Banisher.SNOKEBOMB);
+    BanishManager.banishMonster(SCARY_PIRATE, Banisher.BEANCANNON);
+
+    KoLCharacter.setCurrentRun(130);
+    assertTrue(BanishManager.isBanished("crate"));
+
+    KoLCharacter.setCurrentRun(131);
+    assertFalse(BanishManager.isBanished("crate"));
+    assertTrue(BanishManager.isBanished("scary pirate"));
+    assertThat("banishedMonsters", isSetTo("scary pirate:beancannon:101"));
+  }
+
+  @Test
+  void isBanishedFromManyThreadsExpiresBanishesOnce() {
+    KoLCharacter.setCurrentRun(100);
+    BanishManager.banishMonster(CRATE, Banisher.SNOKEBOMB);
+    BanishManager.banishMonster(TAN_GNAT, Banisher.SNOKEBOMB);
+    BanishManager.banishMonster(SCARY_PIRATE, Banisher.BEANCANNON);
+
+    KoLCharacter.setCurrentRun(131);
+    long banished =
+        IntStream.range(0, 1000)
+            .parallel()
+            .filter(i -> BanishManager.isBanished(i % 2 == 0 ? "crate" : "scary pirate"))
+            .count();
+
+    assertEquals(500, banished);
+    assertThat("banishedMonsters", isSetTo("scary pirate:beancannon:101"));
+  }
+
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   void isBanishedDoesNotApplyIceHouseInRestricted(boolean restricted) {
@@ -0,0 +1,70 @@
+package net.sourceforge.kolmafia.textui;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times ASH code which calls user-defined functions heavily: naive recursion, a small helper
+ * with many locals called from a loop, and a function building and returning a map.
+ *
+ * <p>This is not a test; run its main method by hand. Each workload is run several times, and the
+ * fastest run is reported.
+ */
+public class CallFrameBenchmark {
+  private static final int ROUNDS = 10;
+
+  private static final String SCRIPT =
+      String.join(
+          "\n",
+          "int fib(int n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }",
+          "int recursion() { return fib(24); }",
+          "",
+          "int clamp(int value, int low, int high) {",
+          "  int result = value;",
+          "  int span = high - low;",
+          "  boolean under = value < low;",
+          "  boolean over = value > high;",
+          "  if (under) result = low;",
+          "  if (over) result = high;",
+          "  string unused = span > 0 ? \"\" : \"empty\";",
+          "  return result;",
+          "}",
+          "int loops() {",
+          "  int total = 0;",
+          "  for i from 1 to 200000 { total += clamp(i % 100, 10, 90); }",
+          "  return total;",
+          "}",
+          "",
+          "int[string] row(int n) {",
+          "  int[string] result;",
+          "  for i from 1 to 8 { result[\"column\" + i] = n * i; }",
+          "  return result;",
+          "}",
+          "int maps() {",
+          "  int[int, string] table;",
+          "  for n from 1 to 10000 { table[n] = row(n); }",
+          "  return count(table);",
+          "}",
+          "");
+
+  public static void main(final String[] args) {
+    AshRuntime interpreter = new AshRuntime();
+    File file = new File("call_frame_benchmark.ash");
+    if (!interpreter.validate(
+        file, new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.UTF_8)))) {
+      throw new AssertionError("The benchmark script did not validate");
+    }
+
+    for (String workload : new String[] {"recursion", "loops", "maps"}) {
+      double fastest = Double.MAX_VALUE;
+      long result = 0;
+      for (int round = 0; round < ROUNDS; ++round) {
+        long start = System.nanoTime();
+        result = interpreter.execute(workload, null).intValue();
+        fastest = Math.min(fastest, (System.nanoTime() - start) / 1e6);
+      }
+      System.out.printf("%-10s %9.1f ms (%d)%n", workload, fastest, result);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package net.sourceforge.kolmafia.textui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Compares validating many scripts which import the same large library, parsing the library into
+ * each of them, with linking each to one shared parse of it.
+ *
+ * <p>This is not a test; run its main method by hand.
+ */
+public class ImportCacheBenchmark {
+  private static final int FUNCTIONS = 2000;
+  private static final int SCRIPTS = 20;
+  private static final int ROUNDS = 3;
+
+  public static void main(final String[] args) throws IOException {
+    Path directory = KoLConstants.SCRIPT_LOCATION.toPath().resolve("import_cache_benchmark");
+    Files.createDirectories(directory);
+    try {
+      File[] scripts = ImportCacheBenchmark.createScripts(directory);
+
+      for (int round = 0; round < ROUNDS; ++round) {
+        ImportCache.clear();
+        double separate = ImportCacheBenchmark.validate(scripts, false);
+        double shared = ImportCacheBenchmark.validate(scripts, true);
+        System.out.printf(
+            "%d scripts: %.1f ms parsing each, %.1f ms sharing%n", SCRIPTS, separate, shared);
+      }
+    } finally {
+      Preferences.resetToDefault("shareParsedImports");
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  // A framework of many small functions over a utility library, and scripts which import it
+  private static File[] createScripts(final Path directory) throws IOException {
+    StringBuilder utilities = new StringBuilder();
+    utilities.append("record benchmark_entry { int count; string name; };\n");
+    for (int i = 0; i < FUNCTIONS / 4; ++i) {
+      utilities.append("int benchmark_utility").append(i).append("(int x) {\n");
+      utilities.append("  int total = 0;\n");
+      utilities.append("  for i from 1 to x { total += i * ").append(i).append("; }\n");
+      utilities.append("  return total;\n}\n");
+    }
+    Files.writeString(directory.resolve("import_cache_benchmark_utilities.ash"), utilities);
+
+    StringBuilder framework = new StringBuilder();
+    framework.append("import <import_cache_benchmark_utilities.ash>;\n");
+    framework.append("benchmark_entry [string] benchmark_entries;\n");
+    for (int i = 0; i < FUNCTIONS; ++i) {
+      framework.append("boolean benchmark_step").append(i).append("(string name) {\n");
+      framework.append("  benchmark_entry entry = benchmark_entries[name];\n");
+      framework.append("  entry.count += benchmark_utility").append(i % (FUNCTIONS / 4));
+      framework.append("(3);\n");
+      framework.append("  if (entry.count > ").append(i).append(") {\n");
+      framework.append("    print(\"step ").append(i).append(" \" + entry.name);\n");
+      framework.append("    return true;\n  }\n  return false;\n}\n");
+    }
+    Files.writeString(directory.resolve("import_cache_benchmark_framework.ash"), framework);
+
+    File[] scripts = new File[SCRIPTS];
+    for (int i = 0; i < SCRIPTS; ++i) {
+      Path script = directory.resolve("import_cache_benchmark_script" + i + ".ash");
+      Files.writeString(
+          script,
+          "import <import_cache_benchmark_framework.ash>;\n"
+              + "void main() { benchmark_step"
+              + i
+              + "(\"script\"); }\n");
+      scripts[i] = script.toFile();
+    }
+    return scripts;
+  }
+
+  private static double validate(final File[] scripts, final boolean share) {
+    Preferences.setBoolean("shareParsedImports", share);
+    long start = System.nanoTime();
+    for (File script : scripts) {
+      if (!new AshRuntime().validate(script, null)) {
+        throw new AssertionError(script + " did not validate");
+      }
+    }
+    return (System.nanoTime() - start) / 1e6;
+  }
+}
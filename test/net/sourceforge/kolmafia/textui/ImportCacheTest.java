@@ -0,0 +1,181 @@
+package net.sourceforge.kolmafia.textui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.textui.parsetree.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ImportCacheTest {
+  private static final Path DIRECTORY =
+      KoLConstants.SCRIPT_LOCATION.toPath().resolve("import_cache_test");
+
+  @BeforeEach
+  public void createDirectory() throws IOException {
+    KoLmafia.forceContinue();
+    Files.createDirectories(DIRECTORY);
+  }
+
+  @AfterEach
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> paths = Files.walk(DIRECTORY)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  private static File write(final String name, final String... lines) throws IOException {
+    Path file = DIRECTORY.resolve(name);
+    Files.writeString(file, String.join("\n", lines) + "\n");
+    return file.toFile();
+  }
+
+  private static AshRuntime runtime(final File script) {
+    AshRuntime runtime = new AshRuntime();
+    assertTrue(runtime.validate(script, null), script.getName());
+    return runtime;
+  }
+
+  private static long run(final AshRuntime runtime, final String function) {
+    return runtime.execute(function, null).intValue();
+  }
+
+  private static Function function(final AshRuntime runtime, final String name) {
+    return runtime.getFunctions().findFunctions(name)[0];
+  }
+
+  @Test
+  public void sharesALibraryBetweenRuntimes() throws IOException {
+    write(
+        "import_cache_counter.ash",
+        "int counter = 10;",
+        "int bump() { counter += 1; return counter; }",
+        "int fib(int n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }");
+    String[] script = {
+      "import <import_cache_counter.ash>;",
+      "int run() { bump(); return bump(); }",
+      "int recurse() { return fib(15); }"
+    };
+    AshRuntime first = runtime(write("import_cache_first.ash", script));
+    AshRuntime second = runtime(write("import_cache_second.ash", script));
+
+    assertSame(function(first, "bump"), function(second, "bump"));
+
+    // Each runtime has its own counter, set again each time the script runs
+    assertEquals(12, run(first, "run"));
+    assertEquals(12, run(second, "run"));
+    assertEquals(12, run(first, "run"));
+
+    assertEquals(610, run(first, "recurse"));
+    assertEquals(610, run(second, "recurse"));
+  }
+
+  @Test
+  public void runsStaticScopesOncePerRuntime() throws IOException {
+    write(
+        "import_cache_static.ash",
+        "static int calls = 0;",
+        "int count() { calls += 1; return calls; }");
+    String[] script = {"import <import_cache_static.ash>;", "int run() { return count(); }"};
+    AshRuntime first = runtime(write("import_cache_first.ash", script));
+    AshRuntime second = runtime(write("import_cache_second.ash", script));
+
+    assertEquals(1, run(first, "run"));
+    assertEquals(2, run(first, "run"));
+    assertEquals(1, run(second, "run"));
+  }
+
+  @Test
+  public void parsesAgainWhenAnImportChanges() throws IOException {
+    File base = write("import_cache_base.ash", "int base() { return 1; }");
+    write(
+        "import_cache_value.ash",
+        "import <import_cache_base.ash>;",
+        "int value() { return base() + 1; }");
+    File script =
+        write(
+            "import_cache_first.ash",
+            "import <import_cache_value.ash>;",
+            "int run() { return value(); }");
+
+    AshRuntime before = runtime(script);
+    assertEquals(2, run(before, "run"));
+    assertSame(function(before, "value"), function(runtime(script), "value"));
+
+    write("import_cache_base.ash", "int base() { return 5; }");
+    assertTrue(base.setLastModified(base.lastModified() + 2000));
+
+    AshRuntime after = runtime(script);
+    assertEquals(6, run(after, "run"));
+    assertNotSame(function(before, "value"), function(after, "value"));
+    assertEquals(2, run(before, "run"));
+  }
+
+  @Test
+  public void forgetsWhatImportedAReplacedLibrary() throws IOException, InterruptedException {
+    File base = write("import_cache_base.ash", "int base() { return 1; }");
+    write(
+        "import_cache_value.ash",
+        "import <import_cache_base.ash>;",
+        "int value() { return base() + 1; }");
+    File script =
+        write(
+            "import_cache_first.ash",
+            "import <import_cache_value.ash>;",
+            "int run() { return value(); }");
+
+    ImportCache.clear();
+    runtime(script);
+    assertEquals(2, ImportCache.size());
+
+    write("import_cache_base.ash", "int base() { return 5; }");
+    assertTrue(base.setLastModified(base.lastModified() + 2000));
+
+    ImportCache.getLibrary(base);
+    assertEquals(1, ImportCache.size());
+  }
+
+  @Test
+  public void parsesIntoTheImporterWhenNamesCollide() throws IOException {
+    write("import_cache_helper.ash", "int helper() { return 1; }");
+    // Uses the helper without importing it, as only a script which imported it first can
+    write("import_cache_twice.ash", "int twice() { return helper() * 2; }");
+    String[] script = {
+      "import <import_cache_helper.ash>;",
+      "import <import_cache_twice.ash>;",
+      "int run() { return twice(); }"
+    };
+    AshRuntime first = runtime(write("import_cache_first.ash", script));
+    AshRuntime second = runtime(write("import_cache_second.ash", script));
+
+    assertEquals(2, run(first, "run"));
+    assertSame(function(first, "helper"), function(second, "helper"));
+    assertNotSame(function(first, "twice"), function(second, "twice"));
+  }
+
+  @Test
+  public void parsesIntoTheImporterWhenCallingByName() throws IOException {
+    write(
+        "import_cache_call.ash",
+        "int one() { return 1; }",
+        "int dispatch(string name) { return call int name(); }");
+    String[] script = {
+      "import <import_cache_call.ash>;",
+      "int two() { return 2; }",
+      "int run() { return dispatch(\"one\") + dispatch(\"two\"); }"
+    };
+    AshRuntime first = runtime(write("import_cache_first.ash", script));
+    AshRuntime second = runtime(write("import_cache_second.ash", script));
+
+    assertEquals(3, run(first, "run"));
+    assertNotSame(function(first, "dispatch"), function(second, "dispatch"));
+  }
+}
@@ -0,0 +1,98 @@
+package net.sourceforge.kolmafia.textui;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.textui.parsetree.Function;
+import net.sourceforge.kolmafia.textui.parsetree.LibraryFunction;
+import net.sourceforge.kolmafia.textui.parsetree.Type;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
+import net.sourceforge.kolmafia.textui.parsetree.VariableReference;
+
+/**
+ * Compares calling ASH library functions through reflection, as they used to be called, with
+ * calling them through their bound LibraryFunction.
+ *
+ * <p>This is not a test; run its main method by hand. Each case is warmed up before it is timed,
+ * and the time per call is printed.
+ */
+public class LibraryDispatchBenchmark {
+  private static final int WARMUP = 2_000_000;
+  private static final int ITERATIONS = 10_000_000;
+
+  // Keeps the JIT from discarding the calls
+  private static int sink = 0;
+
+  private interface Call {
+    Value call() throws Exception;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    KoLCharacter.reset("benchmark");
+    Preferences.reset("benchmark");
+
+    ScriptRuntime runtime = new AshRuntime();
+
+    benchmark(
+        runtime,
+        "item_amount",
+        DataTypes.ITEM_TYPE,
+        DataTypes.makeItemValue(ItemPool.SEAL_TOOTH, true));
+    benchmark(
+        runtime, "get_property", DataTypes.STRING_TYPE, DataTypes.makeStringValue("kingLiberated"));
+    benchmark(
+        runtime, "to_int", DataTypes.STRICT_STRING_TYPE, DataTypes.makeStringValue("12345"));
+    benchmark(runtime, "to_int", DataTypes.FLOAT_TYPE, DataTypes.makeFloatValue(3.5));
+
+    System.out.println("(" + sink + ")");
+  }
+
+  private static void benchmark(
+      final ScriptRuntime runtime, final String name, final Type type, final Value argument)
+      throws Exception {
+    LibraryFunction function = find(name, type);
+    Method method =
+        RuntimeLibrary.findMethod(name, new Class<?>[] {ScriptRuntime.class, Value.class});
+
+    // Both paths check whether the function is disabled, as the old one did
+    Call reflective =
+        () ->
+            StaticEntity.isDisabled(name)
+                ? null
+                : (Value) method.invoke(null, new Object[] {runtime, argument});
+    Call bound =
+        () -> function.executeWithoutInterpreter(runtime, new Object[] {runtime, argument});
+
+    double reflectiveNanos = time(reflective);
+    double boundNanos = time(bound);
+
+    System.out.printf(
+        "%-14s %-14s reflection %8.1f ns   bound %8.1f ns%n",
+        name, type, reflectiveNanos, boundNanos);
+  }
+
+  private static LibraryFunction find(final String name, final Type type) {
+    for (Function function : RuntimeLibrary.functions.findFunctions(name)) {
+      List<VariableReference> params = function.getVariableReferences();
+      if (params.size() == 1 && params.get(0).getType() == type) {
+        return (LibraryFunction) function;
+      }
+    }
+    throw new IllegalArgumentException("No function " + name + "(" + type + ")");
+  }
+
+  private static double time(final Call call) throws Exception {
+    for (int i = 0; i < WARMUP; ++i) {
+      sink += call.call().hashCode();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; ++i) {
+      sink += call.call().hashCode();
+    }
+    return (double) (System.nanoTime() - start) / ITERATIONS;
+  }
+}
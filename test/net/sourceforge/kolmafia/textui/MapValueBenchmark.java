@@ -0,0 +1,104 @@
+package net.sourceforge.kolmafia.textui;
+
+import java.util.Random;
+import net.sourceforge.kolmafia.textui.parsetree.AggregateType;
+import net.sourceforge.kolmafia.textui.parsetree.MapValue;
+import net.sourceforge.kolmafia.textui.parsetree.Type;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
+
+/**
+ * Compares sorted (tree) and unordered (hash) ASH maps on workloads like those of real scripts:
+ * a price table keyed by item, a large spading table keyed by string, and a tally keyed by int.
+ *
+ * <p>This is not a test; run its main method by hand. Each workload is run a few times to warm up
+ * before it is timed.
+ */
+public class MapValueBenchmark {
+  private static final int ROUNDS = 5;
+
+  // Keeps the JIT from discarding the work
+  private static long sink = 0;
+
+  private interface Workload {
+    void run(MapValue map);
+  }
+
+  public static void main(final String[] args) {
+    AshRuntime interpreter = new AshRuntime();
+
+    // A mallprices-style table: 7,500 items, then lookups while pricing
+    Value[] items = new Value[7500];
+    for (int i = 0; i < items.length; ++i) {
+      items[i] = new Value(DataTypes.ITEM_TYPE, i + 1, "item " + (i + 1));
+    }
+    benchmark(
+        "item prices",
+        DataTypes.ITEM_TYPE,
+        map -> {
+          for (int i = 0; i < items.length; ++i) {
+            map.aset(items[i], new Value(i * 10L), interpreter);
+          }
+          Random random = new Random(1);
+          for (int i = 0; i < 1_000_000; ++i) {
+            sink += map.aref(items[random.nextInt(items.length)], interpreter).intValue();
+          }
+        });
+
+    // A spading table: 50,000 rows keyed by string, then lookups
+    Value[] keys = new Value[50_000];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = new Value("monster " + (i % 1000) + " in location " + (i / 1000));
+    }
+    benchmark(
+        "spading table",
+        DataTypes.STRING_TYPE,
+        map -> {
+          for (int i = 0; i < keys.length; ++i) {
+            map.aset(keys[i], new Value((double) i), interpreter);
+          }
+          Random random = new Random(2);
+          for (int i = 0; i < 1_000_000; ++i) {
+            sink += map.aref(keys[random.nextInt(keys.length)], interpreter).intValue();
+          }
+        });
+
+    // A tally: counting how often each of 2,000 ints turns up
+    benchmark(
+        "int tally",
+        DataTypes.INT_TYPE,
+        map -> {
+          Random random = new Random(3);
+          for (int i = 0; i < 1_000_000; ++i) {
+            Value key = new Value(random.nextInt(2000));
+            Value count = map.aref(key, interpreter);
+            map.aset(key, new Value(count == null ? 1 : count.intValue() + 1), interpreter);
+          }
+          sink += map.count();
+        });
+
+    System.out.println("(" + sink + ")");
+  }
+
+  private static void benchmark(final String name, final Type indexType, final Workload workload) {
+    AggregateType sorted = new AggregateType(DataTypes.INT_TYPE, indexType);
+    AggregateType unordered = new AggregateType(DataTypes.INT_TYPE, indexType, false, false);
+
+    double sortedMillis = time(sorted, workload);
+    double unorderedMillis = time(unordered, workload);
+
+    System.out.printf(
+        "%-14s sorted %8.1f ms   unordered %8.1f ms%n", name, sortedMillis, unorderedMillis);
+  }
+
+  private static double time(final AggregateType type, final Workload workload) {
+    for (int i = 0; i < ROUNDS; ++i) {
+      workload.run((MapValue) type.initialValue());
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; ++i) {
+      workload.run((MapValue) type.initialValue());
+    }
+    return (System.nanoTime() - start) / 1e6 / ROUNDS;
+  }
+}
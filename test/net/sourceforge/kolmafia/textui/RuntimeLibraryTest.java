@@ -39,4 +39,23 @@ public class RuntimeLibraryTest extends AbstractCommandTestBase {
     assertContinueState();
     assertThat(output, containsString("Returned: 297"));
   }
+
+  @Test
+  void nestedLibraryCallsKeepTheirArguments() {
+    String output =
+        execute(
+            "int f(int n) { return n == 0 ? 0 : to_int(to_string(f(n - 1) + n)); }"
+                + " f(to_int(to_string(4)))");
+
+    assertContinueState();
+    assertThat(output, containsString("Returned: 10"));
+  }
+
+  @Test
+  void varargLibraryCallsCollectTheirArguments() {
+    String output = execute("to_int(max(3, 9, 4) + max(2, 1))");
+
+    assertContinueState();
+    assertThat(output, containsString("Returned: 11"));
+  }
 }
@@ -0,0 +1,90 @@
+package net.sourceforge.kolmafia.textui.javascript;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class JavascriptRuntimeTest {
+  private static final File SCRIPT_DIRECTORY =
+      new File(KoLConstants.SCRIPT_LOCATION, "javascript_runtime_test");
+
+  @AfterEach
+  void deleteScripts() {
+    File[] files = SCRIPT_DIRECTORY.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    SCRIPT_DIRECTORY.delete();
+  }
+
+  private static String run(String script) {
+    Value result = new JavascriptRuntime(script).execute(null, null, true);
+    return result == null ? null : result.toString();
+  }
+
+  private static File writeScript(String name, String contents, long lastModified)
+      throws IOException {
+    SCRIPT_DIRECTORY.mkdirs();
+    File file = new File(SCRIPT_DIRECTORY, name);
+    Files.writeString(file.toPath(), contents);
+    file.setLastModified(lastModified);
+    return file;
+  }
+
+  @Test
+  void runsShareTheRuntimeLibrary() {
+    assertEquals("true", run("require('kolmafia') === __runtimeLibrary__"));
+    assertEquals("42", run("toInt('42')"));
+    assertEquals("42", run("require('kolmafia').toInt('42')"));
+  }
+
+  @Test
+  void runsDoNotShareGlobals() {
+    assertEquals("here", run("var leaked = 'here'; leaked"));
+    assertEquals("undefined", run("typeof leaked"));
+  }
+
+  @Test
+  void wrappersAreSingletonsWithinARun() {
+    assertEquals("true", run("Item.get('seal tooth') === toItem('seal tooth')"));
+    assertEquals("true", run("Item.get('seal tooth') === Item.all().find(i => toInt(i) === 2)"));
+    assertEquals("true", run("toItem('seal tooth') instanceof Item"));
+  }
+
+  @Test
+  void changedScriptsAreCompiledAgain() throws IOException {
+    long lastModified = System.currentTimeMillis() - 60_000;
+    File file =
+        writeScript(
+            "main.js", "module.exports.main = function() { return 'first'; };", lastModified);
+    assertEquals("first", new JavascriptRuntime(file).execute("main", null, true).toString());
+    assertEquals("first", new JavascriptRuntime(file).execute("main", null, true).toString());
+
+    writeScript(
+        "main.js", "module.exports.main = function() { return 'second'; };", lastModified + 1000);
+    assertEquals("second", new JavascriptRuntime(file).execute("main", null, true).toString());
+  }
+
+  @Test
+  void changedModulesAreCompiledAgain() throws IOException {
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeScript("helper.js", "module.exports.value = 'first';", lastModified);
+    File file =
+        writeScript(
+            "main.js",
+            "module.exports.main = function() { return require('./helper.js').value; };",
+            lastModified);
+    assertEquals("first", new JavascriptRuntime(file).execute("main", null, true).toString());
+
+    writeScript("helper.js", "module.exports.value = 'second';", lastModified + 1000);
+    assertEquals("second", new JavascriptRuntime(file).execute("main", null, true).toString());
+  }
+}
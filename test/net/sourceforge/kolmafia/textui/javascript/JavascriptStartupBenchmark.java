@@ -0,0 +1,66 @@
+package net.sourceforge.kolmafia.textui.javascript;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Measures how long a JavaScript run takes to start: the first run, which builds the shared scope
+ * and compiles the script, and the runs after it, which reuse both.
+ *
+ * <p>This is not a test; run its main method by hand. The script run from a file requires a
+ * module of a few thousand lines, as bundled scripts do.
+ */
+public class JavascriptStartupBenchmark {
+  private static final int RUNS = 200;
+
+  public static void main(final String[] args) throws IOException {
+    KoLCharacter.reset("benchmark");
+    Preferences.reset("benchmark");
+
+    File directory = new File(KoLConstants.SCRIPT_LOCATION, "javascript_startup_benchmark");
+    directory.mkdirs();
+    File module = new File(directory, "library.js");
+    File main = new File(directory, "main.js");
+
+    try {
+      StringBuilder library = new StringBuilder();
+      for (int i = 0; i < 2000; ++i) {
+        library.append("module.exports.f").append(i).append(" = function(x) {\n");
+        library.append("  return require('kolmafia').toInt(x) + ").append(i).append(";\n");
+        library.append("};\n");
+      }
+      Files.writeString(module.toPath(), library.toString());
+      Files.writeString(
+          main.toPath(),
+          "const library = require('./library.js');\n"
+              + "module.exports.main = function() { return library.f1999('1'); };\n");
+
+      report(
+          "command line", () -> new JavascriptRuntime("toInt('1') + 1").execute(null, null, true));
+      report("file", () -> new JavascriptRuntime(main).execute("main", null, true));
+    } finally {
+      module.delete();
+      main.delete();
+      directory.delete();
+    }
+  }
+
+  private static void report(final String name, final Runnable run) {
+    long start = System.nanoTime();
+    run.run();
+    double firstMillis = (System.nanoTime() - start) / 1e6;
+
+    start = System.nanoTime();
+    for (int i = 0; i < RUNS; ++i) {
+      run.run();
+    }
+    double repeatedMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+    System.out.printf(
+        "%-14s first %8.2f ms   repeated %8.2f ms%n", name, firstMillis, repeatedMillis);
+  }
+}
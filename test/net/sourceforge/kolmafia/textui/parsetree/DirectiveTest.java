@@ -82,7 +82,12 @@ public class DirectiveTest {
             "since fails for not-a-number",
             "since yesterday;",
             "invalid 'since' format",
-            "char 1 to char 16"));
+            "char 1 to char 16"),
+        valid(
+            "unordered_maps directive",
+            "unordered_maps; int[string] m;",
+            Arrays.asList("unordered_maps", ";", "int", "[", "string", "]", "m", ";"),
+            Arrays.asList("1-1", "1-15", "1-17", "1-20", "1-21", "1-27", "1-29", "1-30")));
   }
 
   @ParameterizedTest
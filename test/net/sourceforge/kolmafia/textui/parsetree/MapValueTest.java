@@ -0,0 +1,94 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.textui.AshRuntime;
+import net.sourceforge.kolmafia.textui.DataTypes;
+import net.sourceforge.kolmafia.textui.command.AbstractCommandTestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MapValueTest extends AbstractCommandTestBase {
+  @BeforeEach
+  public void initEach() {
+    KoLCharacter.reset("MapValueTest");
+  }
+
+  public MapValueTest() {
+    this.command = "ash";
+  }
+
+  private static List<Value> keysOf(final MapValue map) {
+    List<Value> keys = new ArrayList<>();
+    map.iterator().forEachRemaining(keys::add);
+    return keys;
+  }
+
+  @Test
+  public void mapsAreSortedByDefault() {
+    MapValue map =
+        (MapValue) new AggregateType(DataTypes.INT_TYPE, DataTypes.STRING_TYPE).initialValue();
+    AshRuntime interpreter = new AshRuntime();
+
+    map.aset(new Value("b"), new Value(1), interpreter);
+    map.aset(new Value("a"), new Value(2), interpreter);
+
+    assertEquals(List.of(new Value("a"), new Value("b")), keysOf(map));
+  }
+
+  @Test
+  public void unorderedMapsKeepInsertionOrder() {
+    MapValue map =
+        (MapValue)
+            new AggregateType(DataTypes.INT_TYPE, DataTypes.STRING_TYPE, false, false)
+                .initialValue();
+    AshRuntime interpreter = new AshRuntime();
+
+    map.aset(new Value("b"), new Value(1), interpreter);
+    map.aset(new Value("a"), new Value(2), interpreter);
+    map.aset(new Value("b"), new Value(3), interpreter);
+
+    assertEquals(List.of(new Value("b"), new Value("a")), keysOf(map));
+    assertEquals(new Value(3), map.aref(new Value("b"), interpreter));
+    assertTrue(map.contains(new Value("a")));
+
+    map.remove(new Value("b"), interpreter);
+    assertEquals(1, map.count());
+  }
+
+  @Test
+  public void equalKeysHashAlike() {
+    // An item looked up by number finds the item stored by name
+    Value byName = DataTypes.makeItemValue("seal tooth");
+    Value byNumber = new Value(DataTypes.ITEM_TYPE, ItemPool.SEAL_TOOTH, null);
+
+    assertEquals(byName, byNumber);
+    assertEquals(byName.hashCode(), byNumber.hashCode());
+  }
+
+  @Test
+  public void directiveMakesScriptMapsUnordered() {
+    String output =
+        execute(
+            "unordered_maps; int[string] m; m[\"b\"] = 1; m[\"a\"] = 2;"
+                + " foreach k in m print(k);");
+
+    assertContinueState();
+    assertThat(output, startsWith("b\na\n"));
+  }
+
+  @Test
+  public void scriptMapsAreSortedWithoutDirective() {
+    String output =
+        execute("int[string] m; m[\"b\"] = 1; m[\"a\"] = 2; foreach k in m print(k);");
+
+    assertContinueState();
+    assertThat(output, startsWith("a\nb\n"));
+  }
+}
@@ -0,0 +1,58 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class ByteBufferUtilitiesTest {
+  private static byte[] bytes(final int length) {
+    byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte) 'a');
+    return bytes;
+  }
+
+  @Test
+  public void readsWholeStream() {
+    byte[] bytes = bytes(20000);
+
+    assertArrayEquals(bytes, ByteBufferUtilities.read(new ByteArrayInputStream(bytes)));
+
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    ByteBufferUtilities.read(new ByteArrayInputStream(bytes), ostream);
+    assertArrayEquals(bytes, ostream.toByteArray());
+  }
+
+  @Test
+  public void sharesBuffersBetweenThreads() throws Exception {
+    byte[] bytes = bytes(10 * 1024);
+
+    // Each read on a thread of its own, none of which keeps buffers of its own
+    byte[][] results = new byte[20][];
+    for (int i = 0; i < results.length; ++i) {
+      int index = i;
+      Thread thread =
+          new Thread(
+              () -> results[index] = ByteBufferUtilities.read(new ByteArrayInputStream(bytes)));
+      thread.start();
+      thread.join();
+      assertArrayEquals(bytes, results[index]);
+    }
+
+    assertTrue(ByteBufferUtilities.getPooledBuffers() >= 1);
+    assertTrue(ByteBufferUtilities.getPooledBuffers() <= ByteBufferUtilities.MAX_POOLED_BUFFERS);
+  }
+
+  @Test
+  public void dropsBuffersGrownForLargeStreams() {
+    ByteBufferUtilities.read(new ByteArrayInputStream(bytes(100)));
+    int pooled = ByteBufferUtilities.getPooledBuffers();
+
+    ByteBufferUtilities.read(new ByteArrayInputStream(bytes(2 * 1024 * 1024)));
+    assertEquals(pooled - 1, ByteBufferUtilities.getPooledBuffers());
+  }
+}
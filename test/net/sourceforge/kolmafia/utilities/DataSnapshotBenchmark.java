@@ -0,0 +1,86 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.java.dev.spellcast.utilities.DataUtilities;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Compares reading the data files the databases load at startup as text with reading them from
+ * snapshots, which are written to a temporary directory first.
+ *
+ * <p>This is not a test; run its main method by hand.
+ */
+public class DataSnapshotBenchmark {
+  private static final int RUNS = 20;
+
+  private static final String[] FILES = {
+    "adventures.txt",
+    "classskills.txt",
+    "coinmasters.txt",
+    "combats.txt",
+    "concoctions.txt",
+    "consequences.txt",
+    "defaults.txt",
+    "encounters.txt",
+    "equipment.txt",
+    "familiars.txt",
+    "fullness.txt",
+    "inebriety.txt",
+    "items.txt",
+    "modifiers.txt",
+    "monsters.txt",
+    "npcstores.txt",
+    "outfits.txt",
+    "spleenhit.txt",
+    "statuseffects.txt",
+    "zapgroups.txt",
+  };
+
+  private interface Opener {
+    BufferedReader open(String filename);
+  }
+
+  public static void main(final String[] args) throws IOException {
+    DataSnapshot.location = Files.createTempDirectory("snapshots").toFile();
+
+    Opener text = filename -> DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename);
+    Opener snapshot =
+        filename ->
+            DataSnapshot.getReader(
+                filename, DataUtilities.getInputStream(KoLConstants.DATA_DIRECTORY, filename));
+
+    System.out.printf("writing snapshots: %.1f ms%n", time(snapshot) / 1e6);
+
+    for (int i = 0; i < 3; ++i) {
+      long textNanos = 0;
+      long snapshotNanos = 0;
+      for (int run = 0; run < RUNS; ++run) {
+        textNanos += time(text);
+        snapshotNanos += time(snapshot);
+      }
+      System.out.printf(
+          "text %8.1f ms   snapshot %8.1f ms%n",
+          textNanos / 1e6 / RUNS, snapshotNanos / 1e6 / RUNS);
+    }
+  }
+
+  // Reads every line of every file, as the databases do
+  private static long time(final Opener opener) throws IOException {
+    long start = System.nanoTime();
+    long fields = 0;
+    for (String filename : FILES) {
+      try (BufferedReader reader = opener.open(filename)) {
+        String[] data;
+        while ((data = FileUtilities.readData(reader)) != null) {
+          fields += data.length;
+        }
+      }
+    }
+    if (fields == 0) {
+      throw new AssertionError("No data read");
+    }
+    return System.nanoTime() - start;
+  }
+}
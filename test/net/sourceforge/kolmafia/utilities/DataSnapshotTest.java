@@ -0,0 +1,147 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DataSnapshotTest {
+  private static final String TEXT =
+      "3\n"
+          + "# a comment\n"
+          + "\n"
+          + "1\tseal-clubbing club\tclub\r\n"
+          + "2\tseal tooth\t\t\r"
+          + "3\tspooky sapling\tclub\n"
+          + "4\tcafé\tnone";
+
+  @TempDir Path directory;
+  private File location;
+
+  @BeforeEach
+  public void useTemporaryDirectory() {
+    location = DataSnapshot.location;
+    DataSnapshot.location = directory.toFile();
+  }
+
+  @AfterEach
+  public void restoreDirectory() {
+    DataSnapshot.location = location;
+    DataSnapshot.setEnabled(false);
+  }
+
+  private static InputStream stream(final String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<List<String>> readAll(final BufferedReader reader) {
+    List<List<String>> rows = new ArrayList<>();
+    String[] data;
+    while ((data = FileUtilities.readData(reader)) != null) {
+      rows.add(List.of(data));
+    }
+    return rows;
+  }
+
+  @Test
+  public void readsWhatTextWouldRead() {
+    List<List<String>> expected = readAll(new BufferedReader(new StringReader(TEXT)));
+
+    assertEquals(expected, readAll(DataSnapshot.getReader("test.txt", stream(TEXT))));
+    assertTrue(new File(directory.toFile(), "test.txt.bin").exists());
+
+    // The second time, it comes from the snapshot
+    assertEquals(expected, readAll(DataSnapshot.getReader("test.txt", stream(TEXT))));
+  }
+
+  @Test
+  public void returnsLinesAsWell() {
+    BufferedReader reader = DataSnapshot.getReader("test.txt", stream(TEXT));
+    assertEquals("3", FileUtilities.readLine(reader));
+    assertEquals("1\tseal-clubbing club\tclub", FileUtilities.readLine(reader));
+    assertArrayEquals(new String[] {"2", "seal tooth", "", ""}, FileUtilities.readData(reader));
+  }
+
+  @Test
+  public void sharesEqualFields() {
+    BufferedReader reader = DataSnapshot.getReader("test.txt", stream(TEXT));
+    FileUtilities.readData(reader);
+    String[] club = FileUtilities.readData(reader);
+    FileUtilities.readData(reader);
+    String[] sapling = FileUtilities.readData(reader);
+    assertSame(club[2], sapling[2]);
+  }
+
+  @Test
+  public void replacesSnapshotWhenFileChanges() throws IOException {
+    readAll(DataSnapshot.getReader("test.txt", stream(TEXT)));
+    String changed = TEXT.replace("spooky", "sturdy");
+
+    List<List<String>> rows = readAll(DataSnapshot.getReader("test.txt", stream(changed)));
+    assertEquals("sturdy sapling", rows.get(3).get(1));
+
+    byte[] snapshot = Files.readAllBytes(directory.resolve("test.txt.bin"));
+    assertTrue(new String(snapshot, StandardCharsets.UTF_8).contains("sturdy sapling"));
+  }
+
+  @Test
+  public void keepsOverrideAndBuiltInSnapshotsApart() throws IOException {
+    String changed = TEXT.replace("spooky", "sturdy");
+    readAll(DataSnapshot.getReader("test.txt", false, stream(TEXT)));
+    readAll(DataSnapshot.getReader("test.txt", true, stream(changed)));
+    byte[] builtIn = Files.readAllBytes(directory.resolve("test.txt.bin"));
+    byte[] override = Files.readAllBytes(directory.resolve("test.txt.override.bin"));
+
+    // Reading each again uses its own snapshot rather than replacing the other
+    readAll(DataSnapshot.getReader("test.txt", false, stream(TEXT)));
+    readAll(DataSnapshot.getReader("test.txt", true, stream(changed)));
+    assertArrayEquals(builtIn, Files.readAllBytes(directory.resolve("test.txt.bin")));
+    assertArrayEquals(override, Files.readAllBytes(directory.resolve("test.txt.override.bin")));
+    assertTrue(new String(override, StandardCharsets.UTF_8).contains("sturdy sapling"));
+
+    // No temporary files are left behind
+    try (var files = Files.list(directory)) {
+      assertEquals(2, files.count());
+    }
+  }
+
+  @Test
+  public void replacesDamagedSnapshot() throws IOException {
+    readAll(DataSnapshot.getReader("test.txt", stream(TEXT)));
+    Path file = directory.resolve("test.txt.bin");
+    byte[] snapshot = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(snapshot, snapshot.length - 3));
+
+    assertEquals(5, readAll(DataSnapshot.getReader("test.txt", stream(TEXT))).size());
+    assertEquals(snapshot.length, Files.size(file));
+  }
+
+  @Test
+  public void versionedReaderUsesSnapshots() {
+    List<List<String>> expected =
+        readAll(FileUtilities.getVersionedReader("zapgroups.txt", KoLConstants.ZAPGROUPS_VERSION));
+
+    DataSnapshot.setEnabled(true);
+    for (int i = 0; i < 2; ++i) {
+      BufferedReader reader =
+          FileUtilities.getVersionedReader("zapgroups.txt", KoLConstants.ZAPGROUPS_VERSION);
+      assertTrue(reader instanceof DataSnapshot.SnapshotReader);
+      assertEquals(expected, readAll(reader));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares finding scripts in a large made-up tree of installed projects through a FileIndex with
+ * scanning every directory, as KoLmafiaCLI.findScriptFile used to, and checks that both find the
+ * same files.
+ *
+ * <p>This is not a test; run its main method by hand.
+ */
+public class FileIndexBenchmark {
+  private static final int PROJECTS = 40;
+  private static final int DIRECTORIES = 30;
+  private static final int FILES = 10;
+  private static final int RUNS = 20;
+
+  private static final String[] SEARCHES = {
+    "zlib.ash", "main.ash", "project7/lib/util3.ash", "relay_project12.ash", "autoscend", "nosuch",
+  };
+
+  private interface Finder {
+    void find(String filename, List<File> matches);
+  }
+
+  public static void main(final String[] args) throws IOException {
+    Path root = Files.createTempDirectory("FileIndexBenchmark");
+    try {
+      int directories = FileIndexBenchmark.createTree(root);
+      FileIndex index =
+          new FileIndex(
+              new File[] {
+                root.toFile(),
+                root.resolve("scripts").toFile(),
+                root.resolve("planting").toFile(),
+                root.resolve("relay").toFile()
+              },
+              new boolean[] {false, true, false, true});
+
+      long start = System.nanoTime();
+      index.find("zlib.ash", new ArrayList<>());
+      System.out.printf("building the index: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+      System.out.println(directories + " directories, watched: " + index.isWatching());
+
+      for (String search : SEARCHES) {
+        if (!FileIndexBenchmark.find(index::scan, search)
+            .equals(FileIndexBenchmark.find(index::find, search))) {
+          throw new AssertionError("Different files found for " + search);
+        }
+      }
+
+      for (int i = 0; i < 3; ++i) {
+        System.out.printf("%-24s %12s %12s%n", "search", "scan", "index");
+        for (String search : SEARCHES) {
+          double before = FileIndexBenchmark.time(index::scan, search);
+          double after = FileIndexBenchmark.time(index::find, search);
+          System.out.printf("%-24s %9.1f us %9.1f us%n", search, before, after);
+        }
+      }
+    } finally {
+      try (Stream<Path> paths = Files.walk(root)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  // Makes a tree of projects, each with scripts and relay scripts in many directories
+  private static int createTree(final Path root) throws IOException {
+    int directories = 0;
+    Files.createDirectories(root.resolve("planting"));
+    for (int project = 0; project < PROJECTS; ++project) {
+      String name = "project" + project;
+      Path scripts = root.resolve("scripts").resolve(name);
+      FileIndexBenchmark.createFile(scripts.resolve("main.ash"));
+      FileIndexBenchmark.createFile(scripts.resolve(".svn").resolve("entries"));
+      for (int directory = 0; directory < DIRECTORIES; ++directory) {
+        Path parent = directory % 3 == 0 ? scripts : scripts.resolve("lib");
+        Path path = parent.resolve(directory == 0 ? "lib" : "part" + directory);
+        for (int file = 0; file < FILES; ++file) {
+          FileIndexBenchmark.createFile(path.resolve("util" + file + ".ash"));
+        }
+        ++directories;
+      }
+      FileIndexBenchmark.createFile(root.resolve("relay").resolve("relay_" + name + ".ash"));
+      FileIndexBenchmark.createFile(root.resolve("relay").resolve(name).resolve("main.js"));
+      directories += 3;
+    }
+    FileIndexBenchmark.createFile(root.resolve("scripts").resolve("project3").resolve("zlib.ash"));
+    return directories;
+  }
+
+  private static void createFile(final Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, file.getFileName().toString());
+  }
+
+  // Finds a script as KoLmafiaCLI.findScriptFile does, trying extensions if there is none
+  private static List<File> find(final Finder finder, final String filename) {
+    List<File> matches = new ArrayList<>();
+    finder.find(filename, matches);
+    if (matches.isEmpty() && !filename.contains(".")) {
+      for (String extension : new String[] {".ash", ".js", ".cli", ".txt"}) {
+        finder.find(filename + extension, matches);
+      }
+    }
+    return matches;
+  }
+
+  private static double time(final Finder finder, final String search) {
+    long start = System.nanoTime();
+    for (int i = 0; i < RUNS; ++i) {
+      FileIndexBenchmark.find(finder, search);
+    }
+    return (System.nanoTime() - start) / 1e3 / RUNS;
+  }
+}
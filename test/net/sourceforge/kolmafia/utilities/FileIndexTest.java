@@ -0,0 +1,192 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileIndexTest {
+  @TempDir Path directory;
+  private FileIndex index;
+
+  private void create(final String path) throws IOException {
+    Path file = directory.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, path);
+  }
+
+  @BeforeEach
+  public void createFiles() throws IOException {
+    create("top.ash");
+    create("scripts/top.ash");
+    create("scripts/zlib.ash");
+    create("scripts/alpha/main.ash");
+    create("scripts/alpha/lib/util.ash");
+    create("scripts/beta/main.ash");
+    create("scripts/beta/alpha/main.ash");
+    create("scripts/beta-two/main.ash");
+    create("scripts/.svn/main.ash");
+    create("scripts/old.bak/main.ash");
+    create("scripts/alpha/.hidden/secret.ash");
+    create("plots/field.ash");
+    create("plots/deep/field.ash");
+    create("relay/relay_main.ash");
+    create("relay/alpha/main.ash");
+    Files.createDirectories(directory.resolve("scripts/main.ash"));
+
+    index =
+        new FileIndex(
+            new File[] {
+              directory.toFile(),
+              directory.resolve("scripts").toFile(),
+              directory.resolve("plots").toFile(),
+              directory.resolve("relay").toFile()
+            },
+            new boolean[] {false, true, false, true});
+  }
+
+  private List<File> find(final String filename) {
+    List<File> matches = new ArrayList<>();
+    index.find(filename, matches);
+    return matches;
+  }
+
+  private List<File> scan(final String filename) {
+    List<File> matches = new ArrayList<>();
+    index.scan(filename, matches);
+    return matches;
+  }
+
+  @Test
+  public void findsWhatAScanFinds() throws IOException {
+    for (String filename :
+        new String[] {
+          "top.ash",
+          "zlib.ash",
+          "main.ash",
+          "alpha/main.ash",
+          "lib/util.ash",
+          "alpha/lib/util.ash",
+          "util.ash",
+          "field.ash",
+          "deep/field.ash",
+          "relay_main.ash",
+          "scripts/zlib.ash",
+          "secret.ash",
+          ".hidden/secret.ash",
+          "./zlib.ash",
+          "missing.ash",
+          "lib",
+        }) {
+      assertEquals(scan(filename), find(filename), filename);
+    }
+    // A polling watch service, as on macOS, is not used
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      assertEquals(!FileIndex.isPolling(watcher), index.isWatching());
+    }
+  }
+
+  @Test
+  public void findsInTheOrderOfAScan() {
+    List<File> matches = find("main.ash");
+    List<String> paths = new ArrayList<>();
+    for (File file : matches) {
+      paths.add(directory.relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+    }
+    assertEquals(
+        List.of(
+            "scripts/alpha/main.ash",
+            "scripts/beta/main.ash",
+            "scripts/beta/alpha/main.ash",
+            "scripts/beta-two/main.ash",
+            "relay/alpha/main.ash"),
+        paths);
+  }
+
+  @Test
+  public void neverFindsDeletedFiles() throws IOException {
+    assertEquals(1, find("zlib.ash").size());
+    Files.delete(directory.resolve("scripts/zlib.ash"));
+    assertEquals(List.of(), find("zlib.ash"));
+  }
+
+  @Test
+  public void findsCreatedFilesOnceNoticed() throws IOException, InterruptedException {
+    assertEquals(List.of(), find("new.ash"));
+    create("scripts/alpha/new.ash");
+    create("scripts/gamma/new.ash");
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (find("new.ash").size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals(scan("new.ash"), find("new.ash"));
+    assertEquals(2, find("new.ash").size());
+  }
+
+  @Test
+  public void findsCreatedFilesAfterRescan() throws IOException {
+    assertEquals(List.of(), find("new.ash"));
+    create("scripts/beta/new.ash");
+    index.rescan();
+    assertEquals(scan("new.ash"), find("new.ash"));
+    assertEquals(1, find("new.ash").size());
+  }
+
+  @Test
+  public void countsChangesOnlyWhenTheyHappen() throws IOException {
+    long changes = index.getChanges();
+    find("zlib.ash");
+    assertEquals(changes, index.getChanges());
+
+    create("scripts/beta/new.ash");
+    index.rescan();
+    assertNotEquals(changes, index.getChanges());
+  }
+
+  @Test
+  public void findsInDirectoriesCreatedLater() throws IOException {
+    index = new FileIndex(new File[] {directory.resolve("later").toFile()}, new boolean[] {true});
+    assertEquals(List.of(), find("field.ash"));
+
+    create("later/deep/field.ash");
+    assertEquals(1, find("field.ash").size());
+  }
+
+  // Named as the JDK's own polling implementation is
+  private static class PollingWatchService implements WatchService {
+    @Override
+    public void close() {}
+
+    @Override
+    public WatchKey poll() {
+      return null;
+    }
+
+    @Override
+    public WatchKey poll(final long timeout, final TimeUnit unit) {
+      return null;
+    }
+
+    @Override
+    public WatchKey take() {
+      return null;
+    }
+  }
+
+  @Test
+  public void recognizesPollingWatchServices() {
+    assertTrue(FileIndex.isPolling(new PollingWatchService()));
+  }
+}
@@ -0,0 +1,194 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.sourceforge.kolmafia.extensions.ForbidNetworkAccess;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class HttpClientConnectionTest {
+  private static HttpServer server;
+  private static final AtomicInteger drops = new AtomicInteger();
+
+  @BeforeAll
+  public static void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+
+    server.createContext(
+        "/echo.php",
+        exchange -> {
+          byte[] request = exchange.getRequestBody().readAllBytes();
+          String reply =
+              exchange.getRequestMethod()
+                  + " "
+                  + exchange.getRequestHeaders().getFirst("User-Agent")
+                  + " "
+                  + new String(request, StandardCharsets.UTF_8);
+          byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("set-cookie", "PHPSESSID=abc; path=/");
+          exchange.sendResponseHeaders(200, bytes.length);
+          exchange.getResponseBody().write(bytes);
+          exchange.close();
+        });
+
+    server.createContext(
+        "/gzip.php",
+        exchange -> {
+          ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+          try (OutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write("compressed".getBytes(StandardCharsets.UTF_8));
+          }
+          exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+          exchange.sendResponseHeaders(200, buffer.size());
+          exchange.getResponseBody().write(buffer.toByteArray());
+          exchange.close();
+        });
+
+    server.createContext(
+        "/redirect.php",
+        exchange -> {
+          exchange.getResponseHeaders().add("Location", "main.php");
+          exchange.sendResponseHeaders(302, -1);
+          exchange.close();
+        });
+
+    // Drops every other request without answering it
+    server.createContext(
+        "/drop.php",
+        exchange -> {
+          exchange.getRequestBody().readAllBytes();
+          if (drops.incrementAndGet() % 2 == 1) {
+            exchange.close();
+            return;
+          }
+          byte[] bytes = "answered".getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(200, bytes.length);
+          exchange.getResponseBody().write(bytes);
+          exchange.close();
+        });
+
+    server.start();
+    HttpUtilities.setClientBuilder(HttpClient::newBuilder);
+  }
+
+  @AfterAll
+  public static void stopServer() {
+    server.stop(0);
+    ForbidNetworkAccess.blockNetwork();
+  }
+
+  private static HttpClientConnection open(final String path) throws IOException {
+    return new HttpClientConnection(
+        new URL("http://localhost:" + server.getAddress().getPort() + path));
+  }
+
+  private static String read(final InputStream istream) throws IOException {
+    return new String(istream.readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void sendsRequestPropertiesAndBody() throws IOException {
+    HttpClientConnection connection = open("/echo.php");
+    connection.setDoOutput(true);
+    connection.setRequestProperty("User-Agent", "KoLmafia");
+    connection.setRequestProperty("Content-Length", "5");
+    connection.setRequestMethod("POST");
+    try (OutputStream ostream = connection.getOutputStream()) {
+      ostream.write("a=b&c".getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("POST KoLmafia a=b&c", read(connection.getInputStream()));
+  }
+
+  @Test
+  public void headerNamesAreCapitalized() throws IOException {
+    HttpClientConnection connection = open("/echo.php");
+
+    assertTrue(read(connection.getInputStream()).startsWith("GET "));
+    assertEquals(List.of("PHPSESSID=abc; path=/"), connection.getHeaderFields().get("Set-Cookie"));
+    assertEquals("PHPSESSID=abc; path=/", connection.getHeaderField("set-cookie"));
+    assertEquals("HTTP/1.1 200 OK", connection.getHeaderField(0));
+  }
+
+  @Test
+  public void leavesBodyCompressed() throws IOException {
+    HttpClientConnection connection = open("/gzip.php");
+
+    assertEquals("gzip", connection.getContentEncoding());
+    assertEquals("compressed", read(new GZIPInputStream(connection.getInputStream())));
+  }
+
+  @Test
+  public void doesNotFollowRedirects() throws IOException {
+    HttpClientConnection connection = open("/redirect.php");
+
+    assertEquals(302, connection.getResponseCode());
+    assertEquals("main.php", connection.getHeaderField("Location"));
+  }
+
+  @Test
+  public void missingPagesThrow() throws IOException {
+    HttpClientConnection connection = open("/missing.php");
+
+    assertThrows(IOException.class, connection::getInputStream);
+    assertEquals(404, connection.getResponseCode());
+    assertNotNull(connection.getErrorStream());
+  }
+
+  @Test
+  public void countsRequests() throws IOException {
+    long before = HttpClientConnection.getRequestCount();
+
+    open("/echo.php").getResponseCode();
+    open("/echo.php").getResponseCode();
+
+    assertEquals(before + 2, HttpClientConnection.getRequestCount());
+    assertTrue(HttpClientConnection.getMaximumRequestMillis() > 0.0);
+  }
+
+  @Test
+  public void retriesDroppedGet() throws IOException {
+    drops.set(0);
+    HttpClientConnection connection = open("/drop.php");
+
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("answered", read(connection.getInputStream()));
+  }
+
+  @Test
+  public void doesNotRetryDroppedPost() throws IOException {
+    drops.set(0);
+    HttpClientConnection connection = open("/drop.php");
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    try (OutputStream ostream = connection.getOutputStream()) {
+      ostream.write("action=use".getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThrows(IOException.class, connection::getResponseCode);
+    assertEquals(1, drops.get());
+  }
+
+  @Test
+  public void onlyGetAndHeadAreIdempotent() {
+    assertTrue(HttpClientConnection.isIdempotent("GET"));
+    assertTrue(HttpClientConnection.isIdempotent("HEAD"));
+    assertFalse(HttpClientConnection.isIdempotent("POST"));
+  }
+}
@@ -0,0 +1,82 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ItemIndexTest {
+  private static Stream<List<AdventureResult>> lists() {
+    return Stream.of(new SortedItemListModel(), new SortedItemList());
+  }
+
+  @ParameterizedTest
+  @MethodSource("lists")
+  public void countsFollowTally(List<AdventureResult> list) {
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, 2));
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.TEN_LEAF_CLOVER, 1));
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, 3));
+
+    assertEquals(5, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+    assertEquals(1, ItemPool.get(ItemPool.TEN_LEAF_CLOVER).getCount(list));
+    assertEquals(0, ItemPool.get(ItemPool.CHEWING_GUM).getCount(list));
+    assertEquals(5, AdventureResult.findItem(ItemPool.SEAL_TOOTH, list).getCount());
+
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, -5));
+    assertEquals(0, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+    assertNull(AdventureResult.findItem(ItemPool.SEAL_TOOTH, list));
+    assertEquals(1, list.size());
+
+    list.clear();
+    assertEquals(0, ItemPool.get(ItemPool.TEN_LEAF_CLOVER).getCount(list));
+  }
+
+  @ParameterizedTest
+  @MethodSource("lists")
+  public void countsFollowBulkChanges(List<AdventureResult> list) {
+    list.addAll(
+        List.of(ItemPool.get(ItemPool.SEAL_TOOTH, 2), ItemPool.get(ItemPool.CHEWING_GUM, 4)));
+    assertEquals(2, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+    assertEquals(4, ItemPool.get(ItemPool.CHEWING_GUM).getCount(list));
+
+    list.removeAll(List.of(ItemPool.get(ItemPool.SEAL_TOOTH, 2)));
+    assertEquals(0, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+    assertEquals(4, ItemPool.get(ItemPool.CHEWING_GUM).getCount(list));
+  }
+
+  @ParameterizedTest
+  @MethodSource("lists")
+  public void duplicateEntriesFallBackToSearch(List<AdventureResult> list) {
+    list.add(ItemPool.get(ItemPool.SEAL_TOOTH, 2));
+    list.add(ItemPool.get(ItemPool.SEAL_TOOTH, 2));
+    assertEquals(2, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+
+    list.remove(0);
+    list.remove(0);
+    assertEquals(0, ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list));
+  }
+
+  @ParameterizedTest
+  @MethodSource("lists")
+  public void indexMatchesSearch(List<AdventureResult> list) {
+    List<AdventureResult> expected = new SortedList<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 5000; ++i) {
+      AdventureResult item = ItemPool.get(1 + random.nextInt(400), random.nextInt(7) - 3);
+      AdventureResult.addResultToList(list, item);
+      AdventureResult.addResultToList(expected, item);
+    }
+
+    assertEquals(expected.size(), list.size());
+    for (int itemId = 1; itemId <= 400; ++itemId) {
+      AdventureResult item = ItemPool.get(itemId);
+      assertEquals(item.getCount(expected), item.getCount(list), item.getName());
+    }
+  }
+}
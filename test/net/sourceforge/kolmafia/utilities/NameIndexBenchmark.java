@@ -0,0 +1,142 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Compares searching the names in items.txt through a NameIndex with checking every name whose
+ * characters might match, as names used to be searched, and checks that both find the same names.
+ *
+ * <p>This is not a test; run its main method by hand.
+ */
+public class NameIndexBenchmark {
+  private static final int RUNS = 1000;
+
+  private static final String[] SEARCHES = {
+    "hair of the dog",
+    "tofu",
+    "pickle",
+    "bottle",
+    "ferm",
+    "ented",
+    "in the box",
+    "spsap",
+    "of",
+    "e",
+  };
+
+  private interface Searcher {
+    List<String> search(String searchString);
+  }
+
+  public static void main(final String[] args) throws IOException {
+    TreeSet<String> canonical = new TreeSet<>();
+    try (BufferedReader reader =
+        FileUtilities.getVersionedReader("items.txt", KoLConstants.ITEMS_VERSION)) {
+      String[] data;
+      while ((data = FileUtilities.readData(reader)) != null) {
+        if (data.length > 1) {
+          canonical.add(StringUtilities.getCanonicalName(data[1]));
+        }
+      }
+    }
+    String[] names = canonical.toArray(new String[0]);
+
+    int[] hashes = new int[names.length];
+    for (int i = 0; i < names.length; ++i) {
+      hashes[i] = NameIndexBenchmark.stringHash(names[i]);
+    }
+    NameIndex index = new NameIndex(names);
+    index.build();
+
+    for (String search : SEARCHES) {
+      if (!NameIndexBenchmark.search(names, hashes, search).equals(search(index, search))) {
+        throw new AssertionError("Different names found for " + search);
+      }
+    }
+
+    System.out.println(names.length + " names");
+    for (int i = 0; i < 3; ++i) {
+      System.out.printf("%-16s %12s %12s%n", "search", "every name", "index");
+      for (String search : SEARCHES) {
+        double before = time(s -> NameIndexBenchmark.search(names, hashes, s), search);
+        double after = time(s -> NameIndexBenchmark.search(index, s), search);
+        System.out.printf("%-16s %9.1f us %9.1f us%n", search, before, after);
+      }
+    }
+
+    for (int i = 0; i < 5; ++i) {
+      long start = System.nanoTime();
+      new NameIndex(names).build();
+      System.out.printf("building the index: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+  }
+
+  private static int stringHash(final String s) {
+    int hash = 0;
+    for (int i = s.length() - 1; i >= 0; --i) {
+      hash |= 1 << (s.charAt(i) & 0x1F);
+    }
+    return hash;
+  }
+
+  // Searches as StringUtilities.getMatchingNames did, with a mask of the characters in each name
+  private static List<String> search(
+      final String[] names, final int[] hashes, final String searchString) {
+    List<String> matches = new ArrayList<>();
+    int hash = NameIndexBenchmark.stringHash(searchString);
+
+    for (int i = 0; i < names.length; ++i) {
+      if ((hashes[i] & hash) == hash
+          && StringUtilities.substringMatches(names[i], searchString, true)) {
+        matches.add(names[i]);
+      }
+    }
+    if (!matches.isEmpty()) {
+      return matches;
+    }
+
+    for (int i = 0; i < names.length; ++i) {
+      if ((hashes[i] & hash) == hash
+          && StringUtilities.substringMatches(names[i], searchString, false)) {
+        matches.add(names[i]);
+      }
+    }
+    if (!matches.isEmpty()) {
+      return matches;
+    }
+
+    hash &= ~NameIndexBenchmark.stringHash(" ");
+    for (int i = 0; i < names.length; ++i) {
+      if ((hashes[i] & hash) == hash && StringUtilities.fuzzyMatches(names[i], searchString)) {
+        matches.add(names[i]);
+      }
+    }
+    return matches;
+  }
+
+  // Searches as StringUtilities.getMatchingNames does
+  private static List<String> search(final NameIndex index, final String searchString) {
+    List<String> matches = new ArrayList<>();
+    index.findSubstrings(searchString, true, matches);
+    if (matches.isEmpty()) {
+      index.findSubstrings(searchString, false, matches);
+    }
+    if (matches.isEmpty()) {
+      index.findFuzzyMatches(searchString, matches);
+    }
+    return matches;
+  }
+
+  private static double time(final Searcher searcher, final String search) {
+    long start = System.nanoTime();
+    for (int i = 0; i < RUNS; ++i) {
+      searcher.search(search);
+    }
+    return (System.nanoTime() - start) / 1e3 / RUNS;
+  }
+}
@@ -0,0 +1,82 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class NameIndexTest {
+  private static final String[] NAMES = {
+    "bottle of gin",
+    "bottle of rum",
+    "chef-in-the-box",
+    "hair of the dog",
+    "jar of fermented pickle juice",
+    "mr. accessory",
+    "pickle-flavored chewing gum",
+    "seal tooth",
+    "spooky sapling",
+    "tofurkey leg",
+  };
+
+  private static List<String> substrings(
+      final NameIndex index, final String substring, final boolean checkBoundaries) {
+    List<String> matches = new ArrayList<>();
+    index.findSubstrings(substring, checkBoundaries, matches);
+    return matches;
+  }
+
+  private static List<String> fuzzyMatches(final NameIndex index, final String searchString) {
+    List<String> matches = new ArrayList<>();
+    index.findFuzzyMatches(searchString, matches);
+    return matches;
+  }
+
+  @Test
+  public void findsSubstrings() {
+    NameIndex index = new NameIndex(NAMES);
+    index.build();
+
+    assertEquals(List.of("bottle of gin", "bottle of rum"), substrings(index, "bottle", true));
+    assertEquals(List.of("jar of fermented pickle juice"), substrings(index, "ferm", true));
+    assertEquals(List.of(), substrings(index, "ented", true));
+    assertEquals(List.of("jar of fermented pickle juice"), substrings(index, "ented", false));
+    assertEquals(List.of("chef-in-the-box"), substrings(index, "box", true));
+    assertEquals(List.of(), substrings(index, "xyz", false));
+  }
+
+  @Test
+  public void findsFuzzyMatches() {
+    NameIndex index = new NameIndex(NAMES);
+    index.build();
+
+    assertEquals(List.of("chef-in-the-box"), fuzzyMatches(index, "in the box"));
+    assertEquals(List.of("bottle of gin", "bottle of rum"), fuzzyMatches(index, "bot of"));
+    assertEquals(List.of("spooky sapling"), fuzzyMatches(index, "spsap"));
+    assertEquals(List.of(), fuzzyMatches(index, "zz"));
+  }
+
+  @Test
+  public void findsTheSameNamesBeforeAndAfterBuilding() {
+    NameIndex unbuilt = new NameIndex(NAMES);
+    NameIndex built = new NameIndex(NAMES);
+    built.build();
+
+    for (String search : new String[] {"o", "of", "le", "e-", "pickle", " ", "t d", "mr. a"}) {
+      assertEquals(substrings(unbuilt, search, true), substrings(built, search, true), search);
+      assertEquals(substrings(unbuilt, search, false), substrings(built, search, false), search);
+      assertEquals(fuzzyMatches(unbuilt, search), fuzzyMatches(built, search), search);
+    }
+  }
+
+  @Test
+  public void isNotChangedByChangesToTheTable() {
+    String[] names = NAMES.clone();
+    NameIndex index = new NameIndex(names);
+    index.build();
+    names[0] = "bottle of vodka";
+
+    assertEquals(List.of("bottle of gin", "bottle of rum"), substrings(index, "bottle", true));
+  }
+}
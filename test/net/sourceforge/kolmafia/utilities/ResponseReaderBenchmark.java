@@ -0,0 +1,66 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares reading a gzipped page through ResponseReader with reading it through a
+ * GZIPInputStream into a fresh array, as responses used to be read.
+ *
+ * <p>This is not a test; run its main method by hand.
+ */
+public class ResponseReaderBenchmark {
+  private static final int RUNS = 5000;
+
+  private interface Reader {
+    String read(byte[] gzipped) throws IOException;
+  }
+
+  public static void main(final String[] args) throws IOException {
+    StringBuilder page = new StringBuilder();
+    for (int i = 0; page.length() < 40 * 1024; ++i) {
+      page.append("<tr><td class=small>You hit the monster for ").append(i).append(" damage.");
+      page.append("</td></tr>\n");
+    }
+
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(ostream)) {
+      gzip.write(page.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] gzipped = ostream.toByteArray();
+
+    Reader stream =
+        bytes ->
+            new String(
+                ByteBufferUtilities.read(new GZIPInputStream(new ByteArrayInputStream(bytes))),
+                StandardCharsets.UTF_8);
+    Reader reader =
+        bytes -> ResponseReader.read("benchmark", new ByteArrayInputStream(bytes), true);
+
+    for (int i = 0; i < 3; ++i) {
+      report("GZIPInputStream", stream, gzipped);
+      report("ResponseReader", reader, gzipped);
+    }
+  }
+
+  private static void report(final String name, final Reader reader, final byte[] gzipped)
+      throws IOException {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long allocated = threads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    for (int i = 0; i < RUNS; ++i) {
+      reader.read(gzipped);
+    }
+    double micros = (System.nanoTime() - start) / 1e3 / RUNS;
+    long bytes = (threads.getThreadAllocatedBytes(thread) - allocated) / RUNS;
+
+    System.out.printf("%-16s %8.1f us %10d bytes allocated per read%n", name, micros, bytes);
+  }
+}
@@ -0,0 +1,135 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ResponseReaderTest {
+  @BeforeEach
+  public void resetStatistics() {
+    ResponseReader.resetStatistics();
+  }
+
+  private static byte[] gzip(final String text) throws IOException {
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(ostream)) {
+      gzip.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return ostream.toByteArray();
+  }
+
+  private static String page(final int length) {
+    StringBuilder buffer = new StringBuilder(length);
+    int i = 0;
+    while (buffer.length() < length) {
+      buffer.append("<tr><td>Row ").append(i++).append(" — café</td></tr>\n");
+    }
+    return buffer.toString();
+  }
+
+  // Returns the bytes a few at a time, as a network stream might
+  private static InputStream trickle(final byte[] bytes) {
+    return new ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        return super.read(b, off, Math.min(len, 7));
+      }
+    };
+  }
+
+  @Test
+  public void readsPlainResponses() {
+    String text = page(1000);
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    assertEquals(text, ResponseReader.read("test", new ByteArrayInputStream(bytes), false));
+  }
+
+  @Test
+  public void readsGzippedResponses() throws IOException {
+    String text = page(1000);
+    assertEquals(text, ResponseReader.read("test", new ByteArrayInputStream(gzip(text)), true));
+    assertEquals(text, ResponseReader.read("test", trickle(gzip(text)), true));
+  }
+
+  @Test
+  public void readsResponsesLargerThanItsBuffers() throws IOException {
+    for (int length : new int[] {200 * 1024, 3 * 1024 * 1024, 100}) {
+      String text = page(length);
+      assertEquals(text, ResponseReader.read("test", new ByteArrayInputStream(gzip(text)), true));
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      assertEquals(text, ResponseReader.read("test", new ByteArrayInputStream(bytes), false));
+    }
+  }
+
+  @Test
+  public void readsConcatenatedGzipMembers() throws IOException {
+    byte[] first = gzip("first ");
+    byte[] second = gzip("second");
+    byte[] both = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, both, first.length, second.length);
+    assertEquals("first second", ResponseReader.read("test", new ByteArrayInputStream(both), true));
+  }
+
+  @Test
+  public void keepsWhatWasReadBeforeAnError() throws IOException {
+    String text = page(100 * 1024);
+    byte[] bytes = gzip(text);
+    byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+    String partial = ResponseReader.read("test", new ByteArrayInputStream(truncated), true);
+    assertTrue(partial.length() > 0);
+    assertTrue(text.startsWith(partial.substring(0, partial.length() - 1)));
+
+    assertEquals("", ResponseReader.read("test", new ByteArrayInputStream(new byte[10]), true));
+  }
+
+  @Test
+  public void countsResponsesByType() throws IOException {
+    String text = page(10 * 1024);
+    byte[] gzipped = gzip(text);
+    int decoded = text.getBytes(StandardCharsets.UTF_8).length;
+
+    ResponseReader.read("FightRequest", new ByteArrayInputStream(gzipped), true);
+    ResponseReader.read("FightRequest", new ByteArrayInputStream(gzipped), true);
+    ResponseReader.read("CharPaneRequest", new ByteArrayInputStream(new byte[10]), false);
+
+    var statistics = ResponseReader.getStatistics();
+    assertEquals(2, statistics.size());
+    ResponseReader.Statistics fights = statistics.get("FightRequest");
+    assertEquals(2, fights.getCount());
+    assertEquals(2L * gzipped.length, fights.getBytesReceived());
+    assertEquals(2L * decoded, fights.getBytesDecoded());
+    assertEquals(10, statistics.get("CharPaneRequest").getBytesReceived());
+  }
+
+  @Test
+  public void sharesReadersBetweenThreads() throws Exception {
+    String text = page(10 * 1024);
+    byte[] gzipped = gzip(text);
+
+    // Each read on a thread of its own, as the relay server's connections are
+    String[] results = new String[20];
+    for (int i = 0; i < results.length; ++i) {
+      int index = i;
+      Thread thread =
+          new Thread(
+              () ->
+                  results[index] =
+                      ResponseReader.read("test", new ByteArrayInputStream(gzipped), true));
+      thread.start();
+      thread.join();
+      assertEquals(text, results[index]);
+    }
+
+    assertTrue(ResponseReader.getPooledReaders() >= 1);
+    assertTrue(ResponseReader.getPooledReaders() <= ResponseReader.MAX_POOLED_READERS);
+  }
+}
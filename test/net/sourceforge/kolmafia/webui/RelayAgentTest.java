@@ -0,0 +1,173 @@
+package net.sourceforge.kolmafia.webui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RelayAgentTest {
+  private ServerSocket serverSocket;
+  private Thread serverThread;
+
+  @BeforeEach
+  public void startServing() throws IOException {
+    RelayServer.resetPathStatistics();
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    serverThread =
+        new Thread(
+            () -> {
+              // One agent serves every connection, as a pooled agent would
+              RelayAgent agent = new RelayAgent(0);
+              while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                  agent.serve(socket);
+                } catch (IOException e) {
+                }
+              }
+            });
+    serverThread.start();
+  }
+
+  @AfterEach
+  public void stopServing() throws Exception {
+    serverSocket.close();
+    serverThread.join(5000);
+  }
+
+  private static class Response {
+    String statusLine;
+    final Map<String, String> headers = new HashMap<>();
+    String body;
+  }
+
+  private static String readLine(final InputStream istream) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = istream.read()) != -1 && b != '\n') {
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+  }
+
+  private static Response readResponse(final InputStream istream) throws IOException {
+    Response response = new Response();
+    response.statusLine = readLine(istream);
+    String line;
+    while ((line = readLine(istream)) != null && !line.isEmpty()) {
+      String[] header = line.split(":", 2);
+      response.headers.put(header[0].trim().toLowerCase(), header[1].trim());
+    }
+    // A response on a connection which is then closed need not say how long it is
+    String length = response.headers.get("content-length");
+    byte[] body =
+        length == null ? istream.readAllBytes() : istream.readNBytes(Integer.parseInt(length));
+    response.body = new String(body, StandardCharsets.UTF_8);
+    return response;
+  }
+
+  private Socket connect() throws IOException {
+    return new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+  }
+
+  private static void send(final OutputStream ostream, final String request) throws IOException {
+    ostream.write(request.getBytes(StandardCharsets.UTF_8));
+    ostream.flush();
+  }
+
+  @Test
+  public void servesSeveralRequestsOnOneConnection() throws IOException {
+    try (Socket socket = connect()) {
+      InputStream istream = socket.getInputStream();
+      OutputStream ostream = socket.getOutputStream();
+
+      send(ostream, "GET /loggedout.php HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      Response first = readResponse(istream);
+      assertEquals("HTTP/1.1 200 OK", first.statusLine);
+      assertEquals("keep-alive", first.headers.get("connection"));
+      assertEquals(" ", first.body);
+
+      send(ostream, "GET /loggedout.php HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+      Response second = readResponse(istream);
+      assertEquals("HTTP/1.1 200 OK", second.statusLine);
+      assertEquals("close", second.headers.get("connection"));
+      assertEquals(" ", second.body);
+
+      // The agent closes the connection after a request which asks it to
+      assertEquals(-1, istream.read());
+    }
+
+    RelayServer.PathStatistics statistics = RelayServer.getPathStatistics().get("/loggedout.php");
+    assertEquals(2, statistics.getCount());
+    assertEquals(0, RelayServer.getActiveRequests());
+  }
+
+  @Test
+  public void servesLaterConnectionsWithTheSameAgent() throws IOException {
+    for (int i = 0; i < 2; ++i) {
+      try (Socket socket = connect()) {
+        send(
+            socket.getOutputStream(),
+            "GET /loggedout.php HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        Response response = readResponse(socket.getInputStream());
+        assertEquals("HTTP/1.1 200 OK", response.statusLine);
+        assertEquals(" ", response.body);
+      }
+    }
+  }
+
+  @Test
+  public void answersConditionalRequestsForRelayFiles() throws IOException {
+    File file = new File(KoLConstants.RELAY_LOCATION, "relay_agent_test.css");
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), "body { color: red; }".getBytes(StandardCharsets.UTF_8));
+
+    try (Socket socket = connect()) {
+      InputStream istream = socket.getInputStream();
+      OutputStream ostream = socket.getOutputStream();
+
+      send(ostream, "GET /relay_agent_test.css HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      Response first = readResponse(istream);
+      assertEquals("HTTP/1.1 200 OK", first.statusLine);
+      assertEquals("no-cache", first.headers.get("cache-control"));
+      String entityTag = first.headers.get("etag");
+      assertNotNull(entityTag);
+      assertTrue(first.body.startsWith("body { color: red; }"));
+
+      send(
+          ostream,
+          "GET /relay_agent_test.css HTTP/1.1\r\nHost: localhost\r\nIf-None-Match: "
+              + entityTag
+              + "\r\nConnection: close\r\n\r\n");
+      Response second = readResponse(istream);
+      assertEquals("HTTP/1.1 304 Not Modified", second.statusLine);
+      assertEquals(entityTag, second.headers.get("etag"));
+      assertEquals("", second.body);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void closesConnectionOnMalformedRequest() throws IOException {
+    try (Socket socket = connect()) {
+      send(socket.getOutputStream(), "GET /loggedout.php HTTP/1.0\r\n\r\n");
+      assertEquals(-1, socket.getInputStream().read());
+    }
+  }
+}
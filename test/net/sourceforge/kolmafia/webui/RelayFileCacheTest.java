@@ -0,0 +1,102 @@
+package net.sourceforge.kolmafia.webui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RelayFileCacheTest {
+  @TempDir Path directory;
+
+  @BeforeEach
+  public void clearCache() {
+    RelayFileCache.clear();
+  }
+
+  private File write(final String name, final byte[] bytes, final long lastModified)
+      throws IOException {
+    File file = Files.write(directory.resolve(name), bytes).toFile();
+    assertTrue(file.setLastModified(lastModified));
+    return file;
+  }
+
+  @Test
+  public void readsFileOnce() throws IOException {
+    File file = write("basics.css", "body {}".getBytes(StandardCharsets.UTF_8), 1_000_000_000L);
+
+    RelayFileCache.CachedFile first = RelayFileCache.get(file);
+    RelayFileCache.CachedFile second = RelayFileCache.get(file);
+
+    assertEquals("body {}", new String(first.getBytes(), StandardCharsets.UTF_8));
+    assertSame(first, second);
+    assertEquals(1_000_000_000L, first.getLastModified());
+    assertEquals("\"7-3b9aca00\"", first.getEntityTag());
+    assertEquals(1, RelayFileCache.getMisses());
+    assertEquals(1, RelayFileCache.getHits());
+    assertEquals(7, RelayFileCache.getCachedBytes());
+  }
+
+  @Test
+  public void rereadsChangedFile() throws IOException {
+    File file = write("basics.js", "old".getBytes(StandardCharsets.UTF_8), 1_000_000_000L);
+    RelayFileCache.CachedFile first = RelayFileCache.get(file);
+
+    write("basics.js", "new".getBytes(StandardCharsets.UTF_8), 2_000_000_000L);
+    RelayFileCache.CachedFile second = RelayFileCache.get(file);
+
+    assertEquals("new", new String(second.getBytes(), StandardCharsets.UTF_8));
+    assertNotEquals(first.getEntityTag(), second.getEntityTag());
+    assertEquals(1, RelayFileCache.getCachedFiles());
+    assertEquals(3, RelayFileCache.getCachedBytes());
+  }
+
+  @Test
+  public void tagsEachVariantApart() throws IOException {
+    File file = write("basics.html", "<img>".getBytes(StandardCharsets.UTF_8), 1_000_000_000L);
+    RelayFileCache.CachedFile cached = RelayFileCache.get(file);
+
+    assertEquals("\"5-3b9aca00-cached\"", cached.getEntityTag("cached"));
+    assertNotEquals(cached.getEntityTag("cached"), cached.getEntityTag("remote"));
+    assertNotEquals(cached.getEntityTag(), cached.getEntityTag("remote"));
+  }
+
+  @Test
+  public void doesNotKeepLargeFiles() throws IOException {
+    File file = write("large.gif", new byte[2 * 1024 * 1024], 1_000_000_000L);
+
+    assertEquals(2 * 1024 * 1024, RelayFileCache.get(file).getBytes().length);
+    assertEquals(2 * 1024 * 1024, RelayFileCache.get(file).getBytes().length);
+    assertEquals(2, RelayFileCache.getMisses());
+    assertEquals(0, RelayFileCache.getCachedFiles());
+  }
+
+  @Test
+  public void dropsLeastRecentlyUsedFiles() throws IOException {
+    byte[] bytes = new byte[1024 * 1024];
+    File first = write("0.gif", bytes, 1_000_000_000L);
+    for (int i = 1; i <= 16; ++i) {
+      RelayFileCache.get(write(i + ".gif", bytes, 1_000_000_000L));
+      // Keep the first file in use
+      RelayFileCache.get(first);
+    }
+
+    assertEquals(16, RelayFileCache.getCachedFiles());
+    assertEquals(16L * bytes.length, RelayFileCache.getCachedBytes());
+
+    long misses = RelayFileCache.getMisses();
+    RelayFileCache.get(first);
+    RelayFileCache.get(directory.resolve("1.gif").toFile());
+    assertEquals(misses + 1, RelayFileCache.getMisses());
+  }
+
+  @Test
+  public void returnsNullForMissingFile() {
+    assertNull(RelayFileCache.get(directory.resolve("missing.css").toFile()));
+  }
+}